@@ -222,6 +222,20 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
         return _propagateXAResourceTransactionTimeout;
     }
 
+    protected static int _parallelCompletionThreads;
+
+    @Override
+    public int getParallelCompletionThreads() {
+        return _parallelCompletionThreads;
+    }
+
+    protected static boolean _completionStatisticsEnabled;
+
+    @Override
+    public boolean isCompletionStatisticsEnabled() {
+        return _completionStatisticsEnabled;
+    }
+
     /*
      * (non-Javadoc)
      *
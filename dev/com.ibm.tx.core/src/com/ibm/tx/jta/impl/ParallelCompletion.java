@@ -0,0 +1,322 @@
+package com.ibm.tx.jta.impl;
+
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.xa.XAException;
+
+import com.ibm.tx.TranConstants;
+import com.ibm.tx.config.ConfigurationProviderManager;
+import com.ibm.tx.jta.util.alarm.JTMThreadFactory;
+import com.ibm.tx.util.logging.Tr;
+import com.ibm.tx.util.logging.TraceComponent;
+import com.ibm.ws.Transaction.JTA.JTAResource;
+
+/**
+ * Issues the prepare, commit and rollback flows to the resources of a transaction
+ * in parallel, on a bounded pool of threads.
+ *
+ * RegisteredResources issues the flows of a phase in parallel before it processes
+ * the resources one after another, as it does when the flows are serial. Processing
+ * a resource waits for the result of its flow instead of issuing it, so the votes,
+ * heuristics, resource states and recovery log records are handled on the thread
+ * which completes the transaction, in the usual order.
+ *
+ * Parallel completion is enabled by setting the parallelCompletionThreads attribute
+ * of the transaction configuration to the maximum number of threads. When all of the
+ * threads are busy and the queue is full, the flow is issued on the thread which
+ * completes the transaction.
+ *
+ * The latency of the prepare and commit or rollback phases of two-phase transactions
+ * is recorded whether or not parallel completion is enabled. It is reported in the
+ * messages log at intervals when the enableCompletionStatistics attribute is set,
+ * and is otherwise traced.
+ */
+final class ParallelCompletion
+{
+    private static final TraceComponent tc = Tr.register(ParallelCompletion.class
+                                                         , TranConstants.TRACE_GROUP, TranConstants.NLS_FILE);
+
+    /**
+     * The number of flows which can wait for a thread, per thread.
+     */
+    private static final int QUEUED_FLOWS_PER_THREAD = 16;
+
+    /**
+     * The time after which idle threads end.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * The number of phases between statistics reports.
+     */
+    private static final long STATISTICS_INTERVAL = 1000;
+
+    /**
+     * Latency of the prepare phase.
+     */
+    static final Latency PREPARE_LATENCY = new Latency("prepare");
+
+    /**
+     * Latency of the commit or rollback phase.
+     */
+    static final Latency OUTCOME_LATENCY = new Latency("commit or rollback");
+
+    /**
+     * The parallel completion for the configured number of threads.
+     */
+    private static volatile ParallelCompletion _instance;
+
+    private final int _threads;
+    private final ThreadPoolExecutor _executor;
+
+    private ParallelCompletion(int threads)
+    {
+        _threads = threads;
+        _executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(threads * QUEUED_FLOWS_PER_THREAD),
+                        new JTMThreadFactory(),
+                        new ThreadPoolExecutor.CallerRunsPolicy());
+        _executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return the parallel completion, or null if flows are issued one after another.
+     */
+    static ParallelCompletion getInstance()
+    {
+        final int threads = getThreads();
+        if (threads <= 0)
+            return null;
+
+        ParallelCompletion instance = _instance;
+        if (instance == null || instance._threads != threads)
+        {
+            synchronized (ParallelCompletion.class)
+            {
+                instance = _instance;
+                if (instance == null || instance._threads != threads)
+                {
+                    // The configuration changed. The threads of the previous executor end once they
+                    // are idle; it is not shut down, because flows might still be issued to it.
+                    _instance = instance = new ParallelCompletion(threads);
+
+                    if (tc.isDebugEnabled())
+                        Tr.debug(tc, "Parallel completion threads: " + threads);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return the configured maximum number of threads. 0 or less if flows are issued one after another.
+     */
+    private static int getThreads()
+    {
+        return ConfigurationProviderManager.getConfigurationProvider().getParallelCompletionThreads();
+    }
+
+    /**
+     * Issue prepare to resources in parallel.
+     *
+     * @param resources The resources to prepare.
+     * @return The prepare flow of each resource. The result of a flow is the vote of the resource.
+     */
+    Map<JTAResource, Future<Integer>> prepare(List<JTAResource> resources)
+    {
+        if (tc.isEntryEnabled())
+            Tr.entry(tc, "prepare", resources);
+
+        final Map<JTAResource, Future<Integer>> flows = new IdentityHashMap<JTAResource, Future<Integer>>(resources.size());
+
+        for (final JTAResource resource : resources)
+        {
+            flows.put(resource, _executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws XAException {
+                    return resource.prepare();
+                }
+            }));
+        }
+
+        if (tc.isEntryEnabled())
+            Tr.exit(tc, "prepare");
+        return flows;
+    }
+
+    /**
+     * Issue commit or rollback to prepared resources in parallel.
+     *
+     * @param resources The resources to complete.
+     * @param commit true to commit the resources, false to roll them back.
+     * @return The commit or rollback flow of each resource.
+     */
+    Map<JTAResource, Future<Void>> complete(List<JTAResource> resources, final boolean commit)
+    {
+        if (tc.isEntryEnabled())
+            Tr.entry(tc, "complete", new Object[] { resources, commit });
+
+        final Map<JTAResource, Future<Void>> flows = new IdentityHashMap<JTAResource, Future<Void>>(resources.size());
+
+        for (final JTAResource resource : resources)
+        {
+            flows.put(resource, _executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws XAException {
+                    if (commit)
+                        resource.commit();
+                    else
+                        resource.rollback();
+                    return null;
+                }
+            }));
+        }
+
+        if (tc.isEntryEnabled())
+            Tr.exit(tc, "complete");
+        return flows;
+    }
+
+    /**
+     * Wait for a flow to complete. The flow has been issued to the resource, so its
+     * result is required even if the waiting thread is interrupted; the interrupt is
+     * restored when the flow is complete.
+     *
+     * @param flow The flow.
+     * @return The result of the flow.
+     * @throws Throwable The XAException or other exception thrown by the flow.
+     */
+    static <T> T await(Future<T> flow) throws Throwable
+    {
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    return flow.get();
+                } catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e)
+        {
+            throw e.getCause();
+        } finally
+        {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait for flows to complete, ignoring their results. Used when processing of the
+     * resources stopped early, so that no further flow is issued to a resource while
+     * an earlier flow is still in progress.
+     *
+     * @param flows The flows.
+     */
+    static void awaitAll(Collection<? extends Future<?>> flows)
+    {
+        for (Future<?> flow : flows)
+        {
+            try
+            {
+                await(flow);
+            } catch (Throwable t)
+            {
+                // No FFDC Code Needed.
+                // The resource was not processed; it is rolled back or retried as it would be if it had not been issued the flow.
+                if (tc.isDebugEnabled())
+                    Tr.debug(tc, "Unprocessed flow failed", t);
+            }
+        }
+    }
+
+    /**
+     * Latency statistics of a completion phase.
+     */
+    static final class Latency
+    {
+        private final String _phase;
+        private final AtomicLong _count = new AtomicLong();
+        private final AtomicLong _totalNanos = new AtomicLong();
+        private final AtomicLong _maxNanos = new AtomicLong();
+
+        Latency(String phase)
+        {
+            _phase = phase;
+        }
+
+        /**
+         * Record the latency of a phase.
+         *
+         * @param nanos The time taken by the phase, in nanoseconds.
+         */
+        void record(long nanos)
+        {
+            final long count = _count.incrementAndGet();
+            _totalNanos.addAndGet(nanos);
+
+            long max;
+            while (nanos > (max = _maxNanos.get()) && !_maxNanos.compareAndSet(max, nanos));
+
+            if (count % STATISTICS_INTERVAL == 0)
+            {
+                if (ConfigurationProviderManager.getConfigurationProvider().isCompletionStatisticsEnabled())
+                    Tr.info(tc, "WTRN0153_COMPLETION_STATISTICS", new Object[] { _phase, count, getAverageMicros(), getMaxMicros(), Math.max(0, getThreads()) });
+                else if (tc.isDebugEnabled())
+                    Tr.debug(tc, "Completion phase statistics " + this);
+            }
+        }
+
+        long getCount()
+        {
+            return _count.get();
+        }
+
+        long getAverageMicros()
+        {
+            final long count = _count.get();
+            return count == 0 ? 0 : _totalNanos.get() / count / 1000;
+        }
+
+        long getMaxMicros()
+        {
+            return _maxNanos.get() / 1000;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Latency[phase=" + _phase +
+                   ", count=" + getCount() +
+                   ", averageMicros=" + getAverageMicros() +
+                   ", maxMicros=" + getMaxMicros() +
+                   ", threads=" + Math.max(0, getThreads()) + "]";
+        }
+    }
+}
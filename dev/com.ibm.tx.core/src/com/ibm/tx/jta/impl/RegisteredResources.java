@@ -16,6 +16,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
 
 import javax.transaction.HeuristicCommitException;
 import javax.transaction.HeuristicMixedException;
@@ -214,6 +216,18 @@ public class RegisteredResources implements Comparator<JTAResource> {
     // A count of how many Resources have voted as XA_OK and not read-only or rollback.
     protected int _okVoteCount;
 
+    /**
+     * The prepare flows which were issued in parallel for the current prepare phase,
+     * or null if the resources are prepared one after another.
+     */
+    private Map<JTAResource, Future<Integer>> _parallelPrepares;
+
+    /**
+     * The commit or rollback flows which were issued in parallel for the current
+     * completion phase, or null if the resources are completed one after another.
+     */
+    private Map<JTAResource, Future<Void>> _parallelOutcomes;
+
     /**
      * Initialises the list of RegisteredResources to be empty.
      * <p>
@@ -991,7 +1005,11 @@ public class RegisteredResources implements Comparator<JTAResource> {
             }
 
             if (informResource) {
-                currResult = currResource.prepare();
+                final Future<Integer> parallelPrepare = _parallelPrepares == null ? null : _parallelPrepares.get(currResource);
+                if (parallelPrepare == null)
+                    currResult = currResource.prepare();
+                else
+                    currResult = ParallelCompletion.await(parallelPrepare);
             }
 
             if (xaFlowCallbackEnabled) {
@@ -1154,6 +1172,8 @@ public class RegisteredResources implements Comparator<JTAResource> {
 
         _prepareResult = XA_RDONLY;
 
+        final long startNanos = System.nanoTime();
+
         try {
             //
             // LIDB1673.22/PQ72718
@@ -1191,6 +1211,10 @@ public class RegisteredResources implements Comparator<JTAResource> {
                     _resourceObjects.add(0, _onePhaseResourceEnlisted);
             }
 
+            // Issue prepare to the participants in parallel, if enabled. The votes are
+            // processed by the loop below, in the same order as serial prepare.
+            _parallelPrepares = prepareInParallel();
+
             // Browse through the participants, preparing them, and obtain a consolidated
             // result.  We should stop after the first rollback vote.  If there is only a
             // single resource that remains we issue a commit_one_phase.  If only one resource
@@ -1203,6 +1227,7 @@ public class RegisteredResources implements Comparator<JTAResource> {
                     && (_okVoteCount == 0)
                     && (optimise) // (!subordinate)
                     && !gotAsyncResources()
+                    && (_parallelPrepares == null)
                     && (currResource instanceof ResourceSupportsOnePhaseCommit)
                     && (_onePhaseResourceEnlisted == null)) {
                     // This is the last resource to be processed (i==0), no other resources have voted to commit
@@ -1299,6 +1324,15 @@ public class RegisteredResources implements Comparator<JTAResource> {
                     _resourceObjects.add(0, _onePhaseResourceEnlisted);
             }
         } finally {
+            if (_parallelPrepares != null) {
+                // Participants which were not processed because of an earlier vote to roll back
+                // must complete prepare before they are rolled back.
+                ParallelCompletion.awaitAll(_parallelPrepares.values());
+                _parallelPrepares = null;
+            }
+
+            ParallelCompletion.PREPARE_LATENCY.record(System.nanoTime() - startNanos);
+
             if (_diagnosticsRequired) {
                 logDiagnostics(JTAResourceBase.PREPARE_DIAGNOSTICS);
             }
@@ -1309,6 +1343,28 @@ public class RegisteredResources implements Comparator<JTAResource> {
         return _prepareResult;
     }
 
+    /**
+     * Issue prepare to the participants in parallel, if parallel completion is enabled
+     * and there is more than one participant to prepare. Participants are prepared one
+     * after another if they have a prepare priority, or if XA flow callbacks are enabled.
+     * 
+     * The one phase resource, if any, is not prepared. It is at the start of the list.
+     * 
+     * @return the prepare flows, or null if the participants are prepared one after another.
+     */
+    private Map<JTAResource, Future<Integer>> prepareInParallel() {
+        final ParallelCompletion parallelCompletion = ParallelCompletion.getInstance();
+
+        if (parallelCompletion == null || _gotPriorityResourcesEnlisted || xaFlowCallbackEnabled)
+            return null;
+
+        final int first = _onePhaseResourceEnlisted == null ? 0 : 1;
+        if (_resourceObjects.size() - first < 2)
+            return null;
+
+        return parallelCompletion.prepare(_resourceObjects.subList(first, _resourceObjects.size()));
+    }
+
     protected boolean gotAsyncResources() {
         return false;
     }
@@ -1377,6 +1433,7 @@ public class RegisteredResources implements Comparator<JTAResource> {
                     // NB. no break
                 case StatefulResource.COMPLETING: // retry case
                     auditing = _transaction.auditSendCompletion(currResource, _outcome);
+                    final Future<Void> parallelOutcome = _parallelOutcomes == null ? null : _parallelOutcomes.get(currResource);
                     if (_outcome) {
                         if (xaFlowCallbackEnabled) {
                             informResource = XAFlowCallbackControl.beforeXAFlow(XAFlowCallback.COMMIT, XAFlowCallback.COMMIT_2PC);
@@ -1384,7 +1441,10 @@ public class RegisteredResources implements Comparator<JTAResource> {
                         }
 
                         if (informResource) {
-                            currResource.commit();
+                            if (parallelOutcome == null)
+                                currResource.commit();
+                            else
+                                ParallelCompletion.await(parallelOutcome);
                         }
 
                         currResource.setResourceStatus(StatefulResource.COMMITTED);
@@ -1395,7 +1455,10 @@ public class RegisteredResources implements Comparator<JTAResource> {
                         }
 
                         if (informResource) {
-                            currResource.rollback();
+                            if (parallelOutcome == null)
+                                currResource.rollback();
+                            else
+                                ParallelCompletion.await(parallelOutcome);
                         }
 
                         currResource.setResourceStatus(StatefulResource.ROLLEDBACK);
@@ -1669,6 +1732,8 @@ public class RegisteredResources implements Comparator<JTAResource> {
 
         _diagnosticsRequired = false;
 
+        final long startNanos = System.nanoTime();
+
         try {
             final long startTime = System.currentTimeMillis();
 
@@ -1676,6 +1741,10 @@ public class RegisteredResources implements Comparator<JTAResource> {
                 retryRequired = completeAsyncResources();
             }
 
+            // Issue commit or rollback to the prepared participants in parallel, if enabled.
+            // The responses are processed by the loop below, in the same order as serial completion.
+            _parallelOutcomes = completeInParallel();
+
             boolean priorityResourceHasFailed = false;
             int failedPriority = 0;
             final int resourceCount = _resourceObjects.size();
@@ -1716,8 +1785,16 @@ public class RegisteredResources implements Comparator<JTAResource> {
                 retryRequired = getAsyncCompletionResults(startTime, retryRequired);
             }
         } finally {
+            if (_parallelOutcomes != null) {
+                ParallelCompletion.awaitAll(_parallelOutcomes.values());
+                _parallelOutcomes = null;
+            }
+
             updateHeuristicOutcome(calculateHeuristicOutcome());
 
+            if (!_retryCompletion)
+                ParallelCompletion.OUTCOME_LATENCY.record(System.nanoTime() - startNanos);
+
             _retryCompletion = true; // Any further calls are retries
 
             if (_diagnosticsRequired) {
@@ -1732,6 +1809,33 @@ public class RegisteredResources implements Comparator<JTAResource> {
         return retryRequired;
     }
 
+    /**
+     * Issue commit or rollback to the prepared participants in parallel, if parallel completion
+     * is enabled and more than one participant is prepared. Participants are completed one after
+     * another if they have a commit priority, or if XA flow callbacks are enabled. Retries, and
+     * participants which roll back without being prepared, are always completed one after another.
+     * 
+     * @return the commit or rollback flows, or null if the participants are completed one after another.
+     */
+    private Map<JTAResource, Future<Void>> completeInParallel() {
+        final ParallelCompletion parallelCompletion = ParallelCompletion.getInstance();
+
+        if (parallelCompletion == null || _gotPriorityResourcesEnlisted || xaFlowCallbackEnabled)
+            return null;
+
+        final ArrayList<JTAResource> prepared = new ArrayList<JTAResource>(_resourceObjects.size());
+        for (int i = 0; i < _resourceObjects.size(); i++) {
+            final JTAResource resource = _resourceObjects.get(i);
+            if (resource.getResourceStatus() == StatefulResource.PREPARED)
+                prepared.add(resource);
+        }
+
+        if (prepared.size() < 2)
+            return null;
+
+        return parallelCompletion.complete(prepared, _outcome);
+    }
+
     @SuppressWarnings("unused")
     protected boolean getAsyncCompletionResults(long startTime, boolean retryRequired) {
         // TODO Auto-generated method stub
@@ -210,6 +210,20 @@ public interface ConfigurationProvider
      */
     public boolean getPropagateXAResourceTransactionTimeout();
 
+    /**
+     * Returns the maximum number of threads which issue the prepare, commit and rollback
+     * flows to the resources of a transaction in parallel.
+     * 
+     * @return The maximum number of threads. Zero or less issues the flows one after another.
+     */
+    public int getParallelCompletionThreads();
+
+    /**
+     * Returns whether the latency of the prepare and commit or rollback phases of
+     * transactions is reported in the messages log at intervals.
+     */
+    public boolean isCompletionStatisticsEnabled();
+
     /**
      * @return
      */
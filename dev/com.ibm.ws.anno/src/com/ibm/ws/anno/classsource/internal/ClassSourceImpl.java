@@ -229,6 +229,64 @@ public abstract class ClassSourceImpl implements ClassSource {
 
     //
 
+    // Scan cache support ...
+    //
+    // The results of a full scan of a class source may be written to the
+    // scan cache, keyed by the location of the class source, and stamped
+    // with a value computed from the content of the class source.  A later
+    // scan of the same location reads the results from the cache if the
+    // stamp is unchanged.
+    //
+    // Class sources which answer a null location are never cached.
+
+    public static final long NO_STAMP = 0L;
+
+    /**
+     * <p>Answer the location of this class source, for use as the key of
+     * cached scan results. Answer null if the class source has no stable
+     * location, in which case its scan results are not cached.</p>
+     *
+     * @return The location of this class source. Null by default.
+     */
+    @Trivial
+    public String getStampLocation() {
+        return null;
+    }
+
+    /**
+     * <p>Compute a stamp of the content of this class source. The class source
+     * has been opened. The stamp must change when any class of the class source
+     * changes, and should be much cheaper to compute than a scan.</p>
+     *
+     * @return The stamp of the class source. {@link #NO_STAMP} if no stamp could
+     *         be computed.
+     */
+    public long computeStamp() {
+        return NO_STAMP;
+    }
+
+    // FNV-1a style mixing of a value into a stamp.
+
+    protected static final long STAMP_SEED = 0xcbf29ce484222325L;
+    protected static final long STAMP_PRIME = 0x100000001b3L;
+
+    @Trivial
+    protected static long addToStamp(long stamp, long value) {
+        for (int byteNo = 0; byteNo < 8; byteNo++) {
+            stamp ^= (value & 0xFF);
+            stamp *= STAMP_PRIME;
+            value >>>= 8;
+        }
+        return stamp;
+    }
+
+    @Trivial
+    protected static long completeStamp(long stamp) {
+        return ((stamp == NO_STAMP) ? 1L : stamp);
+    }
+
+    //
+
     @Override
     @Trivial
     public boolean scanSpecificSeedClass(String className, ClassSource_Streamer streamer) throws ClassSource_Exception {
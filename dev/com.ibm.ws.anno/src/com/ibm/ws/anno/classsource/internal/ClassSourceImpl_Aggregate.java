@@ -21,6 +21,8 @@ import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import com.ibm.websphere.ras.Tr;
 import com.ibm.websphere.ras.TraceComponent;
@@ -338,50 +340,91 @@ public class ClassSourceImpl_Aggregate extends ClassSourceImpl implements ClassS
         // Only scan the children which were successfully opened.
         // Children which could not be opened are removed from view.
 
+        List<ClassSource> childSources = new ArrayList<ClassSource>();
         for (ClassSource childSource : getSuccessfulOpens()) {
-            String childName = childSource.getCanonicalName();
-
-            ScanPolicy scanPolicy = getScanPolicy(childSource);
-            if (scanPolicy == ScanPolicy.EXTERNAL) {
+            if (getScanPolicy(childSource) == ScanPolicy.EXTERNAL) {
                 continue; // completely skip it!
             }
+            childSources.add(childSource);
+        }
 
-            // Processing notes:
-            //
-            // Make sure to record the class before attempting processing.
-            //
-            // Only one version of the class is to be processed, even if processing
-            // fails on that one version.
-            //
-            // That is, if two child class sources have versions of a class, and
-            // the version from the first class source is non-valid, the version
-            // of the class in the second class source is still masked by the
-            // version in the first class source.
-
-            // TODO: Should the seed class scan update the lookup tables?
-            //       Currently, the lookup tables are only populated on demand
-            //       from info store usage.  That keeps the lookup tables small,
-            //       with the added cost of repeating lookups across the class
-            //       sources.  The alternative would be to populate the lookup
-            //       tables during this initial scan step, which would add a
-            //       storage overhead as a tradeoff for faster lookups.
+        // When a scan pool is available, the children are scanned in parallel, then
+        // are merged in order.  Otherwise, the children are scanned in order.
 
-            childSource.scanClasses(streamer, i_seedClassNames, scanPolicy);
-            // throws ClassSource_Exception
+        List<ScanTask> scanTasks = forkScanTasks(streamer, childSources);
+        boolean completedScan = false;
 
-            ClassSource_ScanCounts childScanCounts = childSource.getScanResults();
-            addResults(childScanCounts);
+        try {
+            for (int childNo = 0; childNo < childSources.size(); childNo++) {
+                ClassSource childSource = childSources.get(childNo);
+                String childName = childSource.getCanonicalName();
 
-            int nextSize = i_seedClassNames.size();
+                ScanPolicy scanPolicy = getScanPolicy(childSource);
 
-            if (tc.isDebugEnabled()) {
-                Tr.debug(tc, MessageFormat.format("[ {0} ] [ {1} ] [ {2} ] Added [ {3} ]",
-                                                  new Object[] { getHashText(), childName,
-                                                                childSource.getHashText(),
-                                                                Integer.valueOf(nextSize - finalSize) }));
+                // Processing notes:
+                //
+                // Make sure to record the class before attempting processing.
+                //
+                // Only one version of the class is to be processed, even if processing
+                // fails on that one version.
+                //
+                // That is, if two child class sources have versions of a class, and
+                // the version from the first class source is non-valid, the version
+                // of the class in the second class source is still masked by the
+                // version in the first class source.
+                //
+                // For a parallel scan, masking is performed when the results of the
+                // child are merged.
+
+                // TODO: Should the seed class scan update the lookup tables?
+                //       Currently, the lookup tables are only populated on demand
+                //       from info store usage.  That keeps the lookup tables small,
+                //       with the added cost of repeating lookups across the class
+                //       sources.  The alternative would be to populate the lookup
+                //       tables during this initial scan step, which would add a
+                //       storage overhead as a tradeoff for faster lookups.
+
+                if (scanTasks == null) {
+                    long scanStart = System.nanoTime();
+
+                    if (!scanCachedClasses(childSource, streamer, i_seedClassNames, scanPolicy)) {
+                        childSource.scanClasses(streamer, i_seedClassNames, scanPolicy);
+                        // throws ClassSource_Exception
+                    }
+
+                    ClassSource_ScanCounts childScanCounts = childSource.getScanResults();
+                    if (childScanCounts instanceof ClassSourceImpl_ScanCounts) {
+                        ((ClassSourceImpl_ScanCounts) childScanCounts).addScanTime(System.nanoTime() - scanStart);
+                    }
+
+                } else {
+                    mergeScanTask(scanTasks.get(childNo), (ClassSourceImpl_ParallelStreamer) streamer, i_seedClassNames);
+                }
+
+                addResults(childSource.getScanResults());
+
+                int nextSize = i_seedClassNames.size();
+
+                if (tc.isDebugEnabled()) {
+                    Tr.debug(tc, MessageFormat.format("[ {0} ] [ {1} ] [ {2} ] Added [ {3} ]",
+                                                      new Object[] { getHashText(), childName,
+                                                                    childSource.getHashText(),
+                                                                    Integer.valueOf(nextSize - finalSize) }));
+                }
+
+                finalSize = nextSize;
             }
 
-            finalSize = nextSize;
+            completedScan = true;
+
+        } finally {
+            if (!completedScan && (scanTasks != null)) {
+                // Don't let scans continue past the close of the class sources.
+                for (ScanTask scanTask : scanTasks) {
+                    scanTask.cancel(false);
+                    scanTask.quietlyJoin();
+                }
+            }
         }
 
         if (tc.isDebugEnabled()) {
@@ -399,7 +442,227 @@ public class ClassSourceImpl_Aggregate extends ClassSourceImpl implements ClassS
 
                 Tr.debug(tc, MessageFormat.format("[ {0} ]  [ {1} ] {0}", logParms));
             }
+
+            ClassSourceImpl_ScanCounts useScanCounts = getScanResults();
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Scan time [ {1} ] ms; cache hits [ {2} ] ([ {3} ] classes); cache misses [ {4} ]",
+                                              new Object[] { getHashText(),
+                                                            Long.valueOf(useScanCounts.getScanTime() / 1000000L),
+                                                            Integer.valueOf(useScanCounts.getCacheHits()),
+                                                            Integer.valueOf(useScanCounts.getCachedClasses()),
+                                                            Integer.valueOf(useScanCounts.getCacheMisses()) }));
+        }
+    }
+
+    // Parallel scanning ...
+    //
+    // Each child is scanned on the scan pool using its own task streamer, and
+    // using its own seed class names.  The children are then merged in order
+    // on the scanning thread:  A class of a child which was already added by
+    // an earlier child is masked, the same as for a sequential scan.
+    //
+    // Merging starts as soon as the first child completes, and overlaps with
+    // the scans of the later children.
+
+    /**
+     * <p>Start parallel scans of the children.</p>
+     *
+     * <p>Answer null if the children are to be scanned sequentially: When no scan pool
+     * is available, when the streamer does not support parallel scans, when there are
+     * fewer than two children, or when a child is not a {@link ClassSourceImpl}.</p>
+     *
+     * @param streamer The streamer of the scan.
+     * @param childSources The children which are to be scanned.
+     *
+     * @return The scan tasks of the children, in the order of the children.
+     */
+    protected List<ScanTask> forkScanTasks(ClassSource_Streamer streamer, List<ClassSource> childSources) {
+        ForkJoinPool scanPool = getFactory().getScanPool();
+        if ((scanPool == null) || !(streamer instanceof ClassSourceImpl_ParallelStreamer) || (childSources.size() < 2)) {
+            return null;
+        }
+
+        for (ClassSource childSource : childSources) {
+            if (!(childSource instanceof ClassSourceImpl)) {
+                return null;
+            }
+        }
+
+        ClassSourceImpl_ParallelStreamer parallelStreamer = (ClassSourceImpl_ParallelStreamer) streamer;
+
+        List<ScanTask> scanTasks = new ArrayList<ScanTask>(childSources.size());
+        for (ClassSource childSource : childSources) {
+            ScanTask scanTask = new ScanTask((ClassSourceImpl) childSource,
+                                             getScanPolicy(childSource),
+                                             parallelStreamer.createTaskStreamer());
+            scanTasks.add(scanTask);
+            scanPool.execute(scanTask);
+        }
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Scanning [ {1} ] children in parallel; parallelism [ {2} ]",
+                                              new Object[] { getHashText(),
+                                                            Integer.valueOf(scanTasks.size()),
+                                                            Integer.valueOf(scanPool.getParallelism()) }));
+        }
+
+        return scanTasks;
+    }
+
+    /**
+     * <p>Wait for the scan of a child to complete, then merge the results of the child.</p>
+     *
+     * <p>Classes of the child which were already added by an earlier child are masked, and
+     * are moved to the duplicate class count of the child.</p>
+     *
+     * @param scanTask The scan task of the child.
+     * @param parallelStreamer The streamer of the scan.
+     * @param i_seedClassNames The names of classes added by earlier children.
+     */
+    protected void mergeScanTask(ScanTask scanTask,
+                                 ClassSourceImpl_ParallelStreamer parallelStreamer,
+                                 Set<String> i_seedClassNames) {
+
+        scanTask.join(); // Rethrows a failure of the scan.
+
+        ClassSourceImpl childSource = scanTask.getChildSource();
+
+        Set<String> i_maskedClassNames = new HashSet<String>();
+        for (String i_className : scanTask.getSeedClassNames()) {
+            if (!i_seedClassNames.add(i_className)) {
+                i_maskedClassNames.add(i_className);
+            }
+        }
+
+        int maskedProcessed = parallelStreamer.merge(childSource, scanTask.getTaskStreamer(),
+                                                     scanTask.getScanPolicy(), i_maskedClassNames);
+
+        if (!i_maskedClassNames.isEmpty()) {
+            ClassSourceImpl_ScanCounts childCounts = childSource.getScanResults();
+            childCounts.markDuplicates(ClassSource_ScanCounts.ResultField.PROCESSED_CLASS, maskedProcessed);
+            childCounts.markDuplicates(ClassSource_ScanCounts.ResultField.UNPROCESSED_CLASS, i_maskedClassNames.size() - maskedProcessed);
+
+            if (tc.isDebugEnabled()) {
+                Tr.debug(tc, MessageFormat.format("[ {0} ] [ {1} ] Masked [ {2} ] classes",
+                                                  new Object[] { getHashText(), childSource.getHashText(),
+                                                                Integer.valueOf(i_maskedClassNames.size()) }));
+            }
+        }
+    }
+
+    /**
+     * <p>Scan of one child on the scan pool.</p>
+     */
+    protected class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        protected final ClassSourceImpl childSource;
+        protected final ScanPolicy scanPolicy;
+        protected final ClassSource_Streamer taskStreamer;
+        protected final Set<String> i_seedClassNames;
+
+        protected ScanTask(ClassSourceImpl childSource, ScanPolicy scanPolicy, ClassSource_Streamer taskStreamer) {
+            this.childSource = childSource;
+            this.scanPolicy = scanPolicy;
+            this.taskStreamer = taskStreamer;
+            this.i_seedClassNames = new HashSet<String>();
+        }
+
+        public ClassSourceImpl getChildSource() {
+            return childSource;
+        }
+
+        public ScanPolicy getScanPolicy() {
+            return scanPolicy;
+        }
+
+        public ClassSource_Streamer getTaskStreamer() {
+            return taskStreamer;
+        }
+
+        public Set<String> getSeedClassNames() {
+            return i_seedClassNames;
+        }
+
+        @Override
+        protected void compute() {
+            long scanStart = System.nanoTime();
+
+            if (!scanCachedClasses(childSource, taskStreamer, i_seedClassNames, scanPolicy)) {
+                childSource.scanClasses(taskStreamer, i_seedClassNames, scanPolicy);
+                // throws ClassSource_Exception
+            }
+
+            childSource.getScanResults().addScanTime(System.nanoTime() - scanStart);
+        }
+    }
+
+    /**
+     * <p>Scan a child class source through the scan cache of the streamer.</p>
+     *
+     * <p>The child is not handled if the streamer has no cache, or if the child has no
+     * location or stamp. Otherwise, the child is replayed from the cache if its stamp
+     * is unchanged, or is scanned, with the results recorded to the cache.</p>
+     *
+     * @return True if the child was handled. False if the child is still to be scanned.
+     */
+    protected boolean scanCachedClasses(ClassSource childSource,
+                                        ClassSource_Streamer streamer,
+                                        Set<String> i_seedClassNames,
+                                        ScanPolicy scanPolicy) {
+
+        if (!(streamer instanceof ClassSourceImpl_CachingStreamer) || !(childSource instanceof ClassSourceImpl)) {
+            return false;
+        }
+
+        ClassSourceImpl_CachingStreamer cachingStreamer = (ClassSourceImpl_CachingStreamer) streamer;
+        ClassSourceImpl childImpl = (ClassSourceImpl) childSource;
+
+        String location = childImpl.getStampLocation();
+        if (location == null) {
+            return false;
+        }
+
+        long stamp = childImpl.computeStamp();
+        if (stamp == ClassSourceImpl.NO_STAMP) {
+            return false;
+        }
+
+        ClassSourceImpl_ScanCounts childCounts = childImpl.getScanResults();
+
+        int replayCount = cachingStreamer.replay(childImpl, location, stamp, scanPolicy, i_seedClassNames);
+        if (replayCount >= 0) {
+            childCounts.markCacheHit(replayCount);
+
+            if (tc.isDebugEnabled()) {
+                Tr.debug(tc, MessageFormat.format("[ {0} ] [ {1} ] Read [ {2} ] classes from the scan cache",
+                                                  new Object[] { getHashText(), childImpl.getHashText(), Integer.valueOf(replayCount) }));
+            }
+            return true;
         }
+
+        // Results are only cached when every class of the child was processed:
+        // A class masked by an earlier child, or which could not be read, would
+        // be missing from the results.
+
+        int initialDuplicates = childCounts.getResult(ClassSource_ScanCounts.ResultField.DUPLICATE_CLASS);
+        int initialUnprocessed = childCounts.getResult(ClassSource_ScanCounts.ResultField.UNPROCESSED_CLASS);
+
+        childCounts.markCacheMiss();
+
+        cachingStreamer.beginRecording();
+
+        boolean isComplete = false;
+        try {
+            childSource.scanClasses(streamer, i_seedClassNames, scanPolicy);
+            // throws ClassSource_Exception
+
+            isComplete = ((childCounts.getResult(ClassSource_ScanCounts.ResultField.DUPLICATE_CLASS) == initialDuplicates) &&
+                          (childCounts.getResult(ClassSource_ScanCounts.ResultField.UNPROCESSED_CLASS) == initialUnprocessed));
+        } finally {
+            cachingStreamer.endRecording(childImpl, location, stamp, scanPolicy, isComplete);
+        }
+
+        return true;
     }
 
     // Currently, aggregate class sources are not allowed to be children.
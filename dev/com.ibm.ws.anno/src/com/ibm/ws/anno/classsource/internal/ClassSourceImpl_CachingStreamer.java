@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.anno.classsource.internal;
+
+import java.util.Set;
+
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
+import com.ibm.wsspi.anno.classsource.ClassSource_Streamer;
+
+/**
+ * <p>A streamer which can record the results of scanning a class source, and
+ * which can replay recorded results in place of scanning the class source.</p>
+ *
+ * <p>Used by {@link ClassSourceImpl_Aggregate#scanClasses(ClassSource_Streamer)}
+ * for child class sources which answer a location and a stamp.</p>
+ */
+public interface ClassSourceImpl_CachingStreamer extends ClassSource_Streamer {
+    /**
+     * <p>Replay the recorded results of a class source, if results are recorded for
+     * the location of the class source, and if the recorded stamp matches.</p>
+     *
+     * <p>Classes which are already present in the seed class names are skipped, as
+     * they would be by a scan. Replayed classes are added to the seed class names.</p>
+     *
+     * @param classSource The class source which is to be replayed.
+     * @param location The location of the class source.
+     * @param stamp The current stamp of the class source.
+     * @param scanPolicy The policy of the class source.
+     * @param i_seedClassNames The names of classes already processed by the scan.
+     *
+     * @return The number of classes which were replayed, or -1 if no results
+     *         are available.
+     */
+    int replay(ClassSourceImpl classSource, String location, long stamp,
+               ScanPolicy scanPolicy, Set<String> i_seedClassNames);
+
+    /**
+     * <p>Start recording the results of processing classes.</p>
+     */
+    void beginRecording();
+
+    /**
+     * <p>Stop recording the results of processing classes, and store them for
+     * the class source if the scan was complete.</p>
+     *
+     * @param classSource The class source which was scanned.
+     * @param location The location of the class source.
+     * @param stamp The stamp of the class source, computed before the scan.
+     * @param scanPolicy The policy of the class source.
+     * @param isComplete True if every class of the class source was processed. Results
+     *            which do not cover every class are discarded.
+     *
+     * @return True if the results were stored.
+     */
+    boolean endRecording(ClassSourceImpl classSource, String location, long stamp,
+                         ScanPolicy scanPolicy, boolean isComplete);
+}
@@ -12,6 +12,7 @@
 package com.ibm.ws.anno.classsource.internal;
 
 import java.text.MessageFormat;
+import java.util.concurrent.ForkJoinPool;
 
 import com.ibm.websphere.ras.Tr;
 import com.ibm.websphere.ras.TraceComponent;
@@ -74,6 +75,28 @@ public class ClassSourceImpl_Factory implements ClassSource_Factory {
 
     //
 
+    // The pool used to scan the children of aggregate class sources in parallel.
+    // Null when parallel scans are disabled, in which case children are scanned
+    // one after another on the scanning thread.
+
+    protected ForkJoinPool scanPool;
+
+    public ForkJoinPool getScanPool() {
+        return scanPool;
+    }
+
+    public void setScanPool(ForkJoinPool scanPool) {
+        this.scanPool = scanPool;
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Scan pool [ {1} ]",
+                                              new Object[] { this.hashText,
+                                                            ((scanPool == null) ? null : Integer.valueOf(scanPool.getParallelism())) }));
+        }
+    }
+
+    //
+
     @Override
     public ClassSource_Exception newClassSourceException(String message) {
         ClassSource_Exception exception = new ClassSource_Exception(message);
@@ -13,12 +13,15 @@ package com.ibm.ws.anno.classsource.internal;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
 import java.text.MessageFormat;
+import java.util.Collection;
 import java.util.Set;
 
 import com.ibm.websphere.ras.Tr;
 import com.ibm.websphere.ras.TraceComponent;
 import com.ibm.websphere.ras.annotation.Trivial;
+import com.ibm.ws.ffdc.annotation.FFDCIgnore;
 import com.ibm.wsspi.adaptable.module.Container;
 import com.ibm.wsspi.adaptable.module.Entry;
 import com.ibm.wsspi.adaptable.module.FastModeControl;
@@ -132,6 +135,63 @@ public class ClassSourceImpl_MappedContainer
         }
     }
 
+    //
+
+    // The container location is its physical path, when it has one, otherwise
+    // its first URL.  A container which has neither is not cached.
+
+    @Override
+    public String getStampLocation() {
+        Container useContainer = getContainer();
+
+        String physicalPath = useContainer.getPhysicalPath();
+        if (physicalPath != null) {
+            return physicalPath;
+        }
+
+        Collection<URL> urls = useContainer.getURLs();
+        if ((urls == null) || urls.isEmpty()) {
+            return null;
+        }
+        return urls.iterator().next().toString();
+    }
+
+    // The container stamp is computed from the names, sizes, and modification
+    // times of the entries which would be scanned.  As with the scan, child
+    // containers which are roots are not included.
+
+    @Override
+    public long computeStamp() {
+        return completeStamp(computeStamp(getContainer(), STAMP_SEED));
+    }
+
+    @FFDCIgnore(Throwable.class)
+    protected long computeStamp(Container targetContainer, long stamp) {
+        for (Entry nextEntry : targetContainer) {
+            stamp = addToStamp(stamp, nextEntry.getName().hashCode());
+
+            Container nextChildContainer;
+            try {
+                nextChildContainer = nextEntry.adapt(Container.class);
+            } catch (Throwable th) {
+                nextChildContainer = null; // The scan will report this.
+            }
+
+            if (nextChildContainer != null) {
+                if (!nextChildContainer.isRoot()) {
+                    stamp = computeStamp(nextChildContainer, stamp);
+                }
+            } else {
+                stamp = addToStamp(stamp, nextEntry.getSize());
+                stamp = addToStamp(stamp, nextEntry.getLastModified());
+            }
+        }
+
+        return stamp;
+    }
+
+    //
+
     protected long startTime;
     protected long endTime;
 
@@ -140,6 +140,43 @@ public class ClassSourceImpl_MappedDirectory
                     scanPolicy);
     }
 
+    //
+
+    @Override
+    @Trivial
+    public String getStampLocation() {
+        return getDirPath();
+    }
+
+    // The directory stamp is computed from the names, sizes, and modification
+    // times of all files beneath the directory.  Listing the directories is
+    // much cheaper than reading and parsing the classes.
+
+    @Override
+    public long computeStamp() {
+        return completeStamp(computeStamp(new File(getDirPath()), STAMP_SEED));
+    }
+
+    protected long computeStamp(File targetDir, long stamp) {
+        File[] childFiles = UtilImpl_FileUtils.listFiles(targetDir);
+        if (childFiles == null) {
+            return stamp;
+        }
+
+        for (File nextChildFile : childFiles) {
+            stamp = addToStamp(stamp, nextChildFile.getName().hashCode());
+
+            if (UtilImpl_FileUtils.isDirectory(nextChildFile).booleanValue()) {
+                stamp = computeStamp(nextChildFile, stamp);
+            } else {
+                stamp = addToStamp(stamp, UtilImpl_FileUtils.length(nextChildFile));
+                stamp = addToStamp(stamp, UtilImpl_FileUtils.lastModified(nextChildFile));
+            }
+        }
+
+        return stamp;
+    }
+
     public static final String EMPTY_PREFIX = "";
 
     protected void scanClasses(File targetDir, String dirPrefix,
@@ -196,6 +196,37 @@ public class ClassSourceImpl_MappedJar
         return scanCounts.getResult(resultField);
     }
 
+    @Override
+    @Trivial
+    public String getStampLocation() {
+        return getJarPath();
+    }
+
+    // The jar stamp is computed from the central directory of the jar: The name,
+    // CRC, and size of every entry.  That detects changed classes without
+    // inflating any of them.
+
+    @Override
+    public long computeStamp() {
+        JarFile useJarFile = getJarFile();
+        if (useJarFile == null) {
+            return NO_STAMP;
+        }
+
+        long stamp = STAMP_SEED;
+
+        Enumeration<JarEntry> jarEntries = useJarFile.entries();
+        while (jarEntries.hasMoreElements()) {
+            JarEntry nextEntry = jarEntries.nextElement();
+
+            stamp = addToStamp(stamp, nextEntry.getName().hashCode());
+            stamp = addToStamp(stamp, nextEntry.getCrc());
+            stamp = addToStamp(stamp, nextEntry.getSize());
+        }
+
+        return completeStamp(stamp);
+    }
+
     @Override
     public void scanClasses(ClassSource_Streamer streamer, Set<String> i_seedClassNames, ScanPolicy scanPolicy) {
         if (tc.isDebugEnabled()) {
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.anno.classsource.internal;
+
+import java.util.Set;
+
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
+import com.ibm.wsspi.anno.classsource.ClassSource_Streamer;
+
+/**
+ * <p>A streamer which supports scanning the child class sources of an aggregate
+ * class source in parallel.</p>
+ *
+ * <p>Each child is scanned on a worker thread using a task streamer, which holds the
+ * results of the child. The results of the children are then merged into this streamer,
+ * on the scanning thread and in class source order. Merging in class source order keeps
+ * the scan results the same as for a sequential scan: The first version of a class is
+ * processed, and later versions are masked.</p>
+ *
+ * <p>Used by {@link ClassSourceImpl_Aggregate#scanClasses(ClassSource_Streamer)} when
+ * the class source factory has a scan pool.</p>
+ */
+public interface ClassSourceImpl_ParallelStreamer extends ClassSource_Streamer {
+    /**
+     * <p>Create a streamer which is used to scan one child class source on a worker thread.
+     * Called on the scanning thread.</p>
+     *
+     * <p>The task streamer must not update the results of this streamer. If this streamer
+     * is a {@link ClassSourceImpl_CachingStreamer}, the task streamer should be as well.</p>
+     *
+     * @return A new task streamer.
+     */
+    ClassSource_Streamer createTaskStreamer();
+
+    /**
+     * <p>Merge the results held by a task streamer into this streamer. Called on the
+     * scanning thread, after the scan of the child class source has completed.</p>
+     *
+     * @param classSource The child class source which was scanned by the task streamer.
+     * @param taskStreamer The task streamer which scanned the child class source.
+     * @param scanPolicy The policy of the child class source.
+     * @param i_maskedClassNames The names of classes of the child class source which were
+     *            already processed from an earlier class source. These are not merged.
+     *
+     * @return The number of classes which were processed by the task streamer and which
+     *         were not merged because they were masked.
+     */
+    int merge(ClassSourceImpl classSource, ClassSource_Streamer taskStreamer,
+              ScanPolicy scanPolicy, Set<String> i_maskedClassNames);
+}
@@ -39,7 +39,16 @@ public class ClassSourceImpl_ScanCounts implements ClassSource_ScanCounts {
     @Override
     public void addResults(ClassSource_ScanCounts seep) {
         for (int resultNo = 0; resultNo < ClassSource_ScanCounts.NUM_RESULT_FIELDS; resultNo++) {
-            results[resultNo] = seep.getResult(resultNo);
+            results[resultNo] += seep.getResult(resultNo);
+        }
+
+        if (seep instanceof ClassSourceImpl_ScanCounts) {
+            ClassSourceImpl_ScanCounts implSeep = (ClassSourceImpl_ScanCounts) seep;
+
+            scanTime += implSeep.scanTime;
+            cacheHits += implSeep.cacheHits;
+            cacheMisses += implSeep.cacheMisses;
+            cachedClasses += implSeep.cachedClasses;
         }
     }
 
@@ -52,4 +61,59 @@ public class ClassSourceImpl_ScanCounts implements ClassSource_ScanCounts {
     public void increment(int resultField) {
         results[resultField]++;
     }
+
+    /**
+     * <p>Move classes which were counted as processed or as unprocessed to the
+     * duplicate class count.</p>
+     *
+     * <p>Used by parallel scans, which only detect that a class is masked by an
+     * earlier class source after the class source has been scanned.</p>
+     *
+     * @param resultField The field to which the classes were counted.
+     * @param count The number of classes which are to be moved.
+     */
+    public void markDuplicates(ResultField resultField, int count) {
+        results[resultField.ordinal()] -= count;
+        results[ResultField.DUPLICATE_CLASS.ordinal()] += count;
+    }
+
+    //
+
+    // Scan cache metrics.  These are outside of the result fields, which
+    // count the entries of the class source: A class source which is read
+    // from the scan cache does not visit its entries.
+
+    protected long scanTime; // Nanoseconds spent scanning or reading from the cache
+    protected int cacheHits; // Class sources read from the scan cache
+    protected int cacheMisses; // Class sources which were not in the scan cache, and which were scanned
+    protected int cachedClasses; // Classes read from the scan cache
+
+    public long getScanTime() {
+        return scanTime;
+    }
+
+    public void addScanTime(long nanos) {
+        scanTime += nanos;
+    }
+
+    public int getCacheHits() {
+        return cacheHits;
+    }
+
+    public void markCacheHit(int classCount) {
+        cacheHits++;
+        cachedClasses += classCount;
+    }
+
+    public int getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public void markCacheMiss() {
+        cacheMisses++;
+    }
+
+    public int getCachedClasses() {
+        return cachedClasses;
+    }
 }
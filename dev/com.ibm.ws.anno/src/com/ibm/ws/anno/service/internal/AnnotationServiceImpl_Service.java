@@ -11,8 +11,10 @@
 
 package com.ibm.ws.anno.service.internal;
 
+import java.io.File;
 import java.text.MessageFormat;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.ComponentContext;
@@ -23,7 +25,9 @@ import com.ibm.websphere.ras.annotation.Trivial;
 import com.ibm.ws.anno.classsource.internal.ClassSourceImpl_Factory;
 import com.ibm.ws.anno.info.internal.InfoStoreFactoryImpl;
 import com.ibm.ws.anno.targets.internal.AnnotationTargetsImpl_Factory;
+import com.ibm.ws.anno.targets.internal.AnnotationTargetsImpl_ScanCache;
 import com.ibm.ws.anno.util.internal.UtilImpl_Factory;
+import com.ibm.ws.ffdc.annotation.FFDCIgnore;
 import com.ibm.wsspi.anno.service.AnnotationService_Service;
 
 public class AnnotationServiceImpl_Service implements AnnotationService_Service {
@@ -52,11 +56,63 @@ public class AnnotationServiceImpl_Service implements AnnotationService_Service
         }
         bundleContext = componentContext.getBundleContext();
 
+        // Scan results are cached in the bundle data area, in the server workarea,
+        // unless disabled by the bootstrap property.  A clean start discards them.
+
+        String cacheEnabled = bundleContext.getProperty(AnnotationTargetsImpl_ScanCache.CACHE_ENABLED_PROPERTY_NAME);
+        if (!"false".equalsIgnoreCase(cacheEnabled)) {
+            File cacheDir = bundleContext.getDataFile(AnnotationTargetsImpl_ScanCache.CACHE_DIRECTORY_NAME);
+            if (cacheDir != null) {
+                getAnnotationTargetsFactory().setScanCache(new AnnotationTargetsImpl_ScanCache(cacheDir));
+            }
+        }
+
+        // The children of aggregate class sources are scanned in parallel,
+        // unless the bootstrap property sets the scan threads to one.
+
+        int scanThreads = getScanThreads();
+        if (scanThreads > 1) {
+            getClassSourceFactory().setScanPool(new ForkJoinPool(scanThreads));
+        }
+
         if (tc.isEntryEnabled()) {
             Tr.exit(tc, methodName, getHashText());
         }
     }
 
+    protected void deactivate(ComponentContext componentContext) {
+        ForkJoinPool scanPool = getClassSourceFactory().getScanPool();
+        if (scanPool != null) {
+            getClassSourceFactory().setScanPool(null);
+            scanPool.shutdown();
+        }
+    }
+
+    //
+
+    /** Bootstrap property: The number of threads used to scan class sources. */
+    public static final String SCAN_THREADS_PROPERTY_NAME = "com.ibm.ws.anno.scan.threads";
+
+    /** The most threads used to scan class sources, unless set by the bootstrap property. */
+    public static final int DEFAULT_MAX_SCAN_THREADS = 8;
+
+    @FFDCIgnore(NumberFormatException.class)
+    protected int getScanThreads() {
+        String scanThreads = bundleContext.getProperty(SCAN_THREADS_PROPERTY_NAME);
+        if (scanThreads != null) {
+            try {
+                return Integer.parseInt(scanThreads.trim());
+            } catch (NumberFormatException e) {
+                if (tc.isDebugEnabled()) {
+                    Tr.debug(tc, MessageFormat.format("[ {0} ] Ignoring non-valid [ {1} ] [ {2} ]",
+                                                      new Object[] { getHashText(), SCAN_THREADS_PROPERTY_NAME, scanThreads }));
+                }
+            }
+        }
+
+        return Math.min(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_SCAN_THREADS);
+    }
+
     //
 
     public AnnotationServiceImpl_Service() {
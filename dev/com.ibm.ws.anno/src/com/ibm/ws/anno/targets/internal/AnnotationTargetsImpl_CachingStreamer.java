@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.anno.targets.internal;
+
+import java.io.InputStream;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl;
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl_CachingStreamer;
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl_ScanCounts;
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
+import com.ibm.wsspi.anno.classsource.ClassSource_ScanCounts;
+import com.ibm.wsspi.anno.classsource.ClassSource_Streamer;
+import com.ibm.wsspi.anno.util.Util_InternMap;
+
+/**
+ * <p>Streamer which records scan results to, and replays scan results from, the scan cache.</p>
+ */
+public class AnnotationTargetsImpl_CachingStreamer
+                extends AnnotationTargetsImpl_Streamer
+                implements ClassSourceImpl_CachingStreamer {
+
+    private static final TraceComponent tc = Tr.register(AnnotationTargetsImpl_CachingStreamer.class);
+
+    @SuppressWarnings("hiding")
+    public static final String CLASS_NAME = AnnotationTargetsImpl_CachingStreamer.class.getName();
+
+    //
+
+    protected AnnotationTargetsImpl_CachingStreamer(AnnotationTargetsImpl_Scanner scanner,
+                                                    AnnotationTargetsImpl_ScanCache scanCache) {
+        super(scanner);
+
+        this.scanCache = scanCache;
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format(" [ {0} ] Scan cache [ {1} ]",
+                                              new Object[] { this.hashText, this.scanCache.getHashText() }));
+        }
+    }
+
+    //
+
+    protected final AnnotationTargetsImpl_ScanCache scanCache;
+
+    public AnnotationTargetsImpl_ScanCache getScanCache() {
+        return scanCache;
+    }
+
+    //
+
+    @Override
+    public ClassSource_Streamer createTaskStreamer() {
+        return new AnnotationTargetsImpl_CachingTaskStreamer(getScanner(), getScanCache());
+    }
+
+    //
+
+    @Override
+    public int replay(ClassSourceImpl classSource, String location, long stamp,
+                      ScanPolicy scanPolicy, Set<String> i_seedClassNames) {
+
+        AnnotationTargetsImpl_Targets useTargets = getTargets();
+
+        List<AnnotationTargetsImpl_ScanCache.ClassData> cachedClasses =
+                        getScanCache().read(location, stamp, scanPolicy, useTargets.getIsDetailEnabled());
+        if (cachedClasses == null) {
+            return -1;
+        }
+
+        String classSourceName = classSource.getCanonicalName();
+        Util_InternMap internMap = classSource.getInternMap();
+        ClassSourceImpl_ScanCounts scanCounts = classSource.getScanResults();
+
+        int replayCount = 0;
+
+        for (AnnotationTargetsImpl_ScanCache.ClassData classData : cachedClasses) {
+            // As with a scan, a class which was provided by an earlier class source is masked.
+
+            String i_className = internMap.intern(classData.getExternalName());
+
+            if (!i_seedClassNames.add(i_className)) {
+                scanCounts.increment(ClassSource_ScanCounts.ResultField.DUPLICATE_CLASS);
+
+            } else {
+                if (useTargets.replayClass(classSourceName, classData, scanPolicy)) {
+                    replayCount++;
+                }
+                scanCounts.increment(ClassSource_ScanCounts.ResultField.PROCESSED_CLASS);
+            }
+
+            scanCounts.increment(ClassSource_ScanCounts.ResultField.CLASS);
+        }
+
+        return replayCount;
+    }
+
+    //
+
+    protected List<AnnotationTargetsImpl_ScanCache.ClassData> recordedClasses;
+    protected boolean recordingFailed;
+
+    @Override
+    public void beginRecording() {
+        recordedClasses = new ArrayList<AnnotationTargetsImpl_ScanCache.ClassData>();
+        recordingFailed = false;
+
+        getTargets().getVisitor().setRecording(true);
+    }
+
+    @Override
+    public boolean process(String classSourceName, String className, InputStream inputStream, ScanPolicy scanPolicy) {
+        boolean didScan = super.process(classSourceName, className, inputStream, scanPolicy);
+
+        if (recordedClasses != null) {
+            AnnotationTargetsImpl_ScanCache.ClassData recordedClass = getTargets().getVisitor().takeRecordedClass();
+
+            if (didScan && (recordedClass != null)) {
+                recordedClasses.add(recordedClass);
+            } else {
+                recordingFailed = true;
+            }
+        }
+
+        return didScan;
+    }
+
+    @Override
+    public boolean endRecording(ClassSourceImpl classSource, String location, long stamp,
+                                ScanPolicy scanPolicy, boolean isComplete) {
+
+        AnnotationTargetsImpl_Targets useTargets = getTargets();
+
+        useTargets.getVisitor().setRecording(false);
+
+        List<AnnotationTargetsImpl_ScanCache.ClassData> useRecordedClasses = recordedClasses;
+        recordedClasses = null;
+
+        if (!isComplete || recordingFailed) {
+            if (tc.isDebugEnabled()) {
+                Tr.debug(tc, MessageFormat.format("[ {0} ] [ {1} ] Incomplete scan: Not cached",
+                                                  new Object[] { getHashText(), classSource.getHashText() }));
+            }
+            return false;
+        }
+
+        return getScanCache().write(location, stamp, scanPolicy, useTargets.getIsDetailEnabled(), useRecordedClasses);
+    }
+}
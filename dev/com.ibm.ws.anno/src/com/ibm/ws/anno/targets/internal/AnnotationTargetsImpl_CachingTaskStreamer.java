@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.anno.targets.internal;
+
+import java.io.InputStream;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Set;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl;
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl_CachingStreamer;
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl_ScanCounts;
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
+import com.ibm.wsspi.anno.classsource.ClassSource_ScanCounts;
+import com.ibm.wsspi.anno.util.Util_InternMap;
+
+/**
+ * <p>Task streamer of a parallel scan which reads classes from, and records
+ * classes to, the scan cache.</p>
+ *
+ * <p>Classes read from the scan cache are held by the task streamer, the same
+ * as classes which were scanned, and are replayed when the task is merged.</p>
+ */
+public class AnnotationTargetsImpl_CachingTaskStreamer
+                extends AnnotationTargetsImpl_TaskStreamer
+                implements ClassSourceImpl_CachingStreamer {
+
+    private static final TraceComponent tc = Tr.register(AnnotationTargetsImpl_CachingTaskStreamer.class);
+
+    @SuppressWarnings("hiding")
+    public static final String CLASS_NAME = AnnotationTargetsImpl_CachingTaskStreamer.class.getName();
+
+    //
+
+    protected AnnotationTargetsImpl_CachingTaskStreamer(AnnotationTargetsImpl_Scanner scanner,
+                                                        AnnotationTargetsImpl_ScanCache scanCache) {
+        super(scanner);
+
+        this.scanCache = scanCache;
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format(" [ {0} ] Scan cache [ {1} ]",
+                                              new Object[] { this.hashText, this.scanCache.getHashText() }));
+        }
+    }
+
+    //
+
+    protected final AnnotationTargetsImpl_ScanCache scanCache;
+
+    public AnnotationTargetsImpl_ScanCache getScanCache() {
+        return scanCache;
+    }
+
+    //
+
+    @Override
+    public int replay(ClassSourceImpl classSource, String location, long stamp,
+                      ScanPolicy scanPolicy, Set<String> i_seedClassNames) {
+
+        List<AnnotationTargetsImpl_ScanCache.ClassData> cachedClasses =
+                        getScanCache().read(location, stamp, scanPolicy, getTaskTargets().getIsDetailEnabled());
+        if (cachedClasses == null) {
+            return -1;
+        }
+
+        Util_InternMap internMap = classSource.getInternMap();
+        ClassSourceImpl_ScanCounts scanCounts = classSource.getScanResults();
+
+        int replayCount = 0;
+
+        for (AnnotationTargetsImpl_ScanCache.ClassData classData : cachedClasses) {
+            String i_className = internMap.intern(classData.getExternalName());
+
+            if (!i_seedClassNames.add(i_className)) {
+                scanCounts.increment(ClassSource_ScanCounts.ResultField.DUPLICATE_CLASS);
+
+            } else {
+                classes.add(classData);
+                replayCount++;
+
+                scanCounts.increment(ClassSource_ScanCounts.ResultField.PROCESSED_CLASS);
+            }
+
+            scanCounts.increment(ClassSource_ScanCounts.ResultField.CLASS);
+        }
+
+        return replayCount;
+    }
+
+    //
+
+    protected int recordStart;
+    protected boolean recordingFailed;
+
+    @Override
+    public void beginRecording() {
+        recordStart = classes.size();
+        recordingFailed = false;
+    }
+
+    @Override
+    public boolean process(String classSourceName, String className, InputStream inputStream, ScanPolicy scanPolicy) {
+        boolean didProcess = super.process(classSourceName, className, inputStream, scanPolicy);
+
+        if (!didProcess) {
+            recordingFailed = true;
+        }
+
+        return didProcess;
+    }
+
+    @Override
+    public boolean endRecording(ClassSourceImpl classSource, String location, long stamp,
+                                ScanPolicy scanPolicy, boolean isComplete) {
+
+        if (!isComplete || recordingFailed) {
+            if (tc.isDebugEnabled()) {
+                Tr.debug(tc, MessageFormat.format("[ {0} ] [ {1} ] Incomplete scan: Not cached",
+                                                  new Object[] { getHashText(), classSource.getHashText() }));
+            }
+            return false;
+        }
+
+        return getScanCache().write(location, stamp, scanPolicy, getTaskTargets().getIsDetailEnabled(),
+                                    classes.subList(recordStart, classes.size()));
+    }
+}
@@ -65,6 +65,27 @@ public class AnnotationTargetsImpl_Factory implements AnnotationTargets_Factory
 
     //
 
+    // Cache of class source scan results.  Null when scan results
+    // are not cached.
+
+    protected AnnotationTargetsImpl_ScanCache scanCache;
+
+    public AnnotationTargetsImpl_ScanCache getScanCache() {
+        return scanCache;
+    }
+
+    public void setScanCache(AnnotationTargetsImpl_ScanCache scanCache) {
+        this.scanCache = scanCache;
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Scan cache [ {1} ]",
+                                              new Object[] { this.hashText,
+                                                            ((scanCache == null) ? null : scanCache.getHashText()) }));
+        }
+    }
+
+//
+
     @Override
     public AnnotationTargets_Exception newAnnotationTargetsException(TraceComponent logger, String message) {
         AnnotationTargets_Exception exception = new AnnotationTargets_Exception(message);
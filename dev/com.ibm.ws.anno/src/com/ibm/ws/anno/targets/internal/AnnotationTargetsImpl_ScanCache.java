@@ -0,0 +1,410 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.anno.targets.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.websphere.ras.annotation.Trivial;
+import com.ibm.ws.anno.service.internal.AnnotationServiceImpl_Logging;
+import com.ibm.ws.ffdc.annotation.FFDCIgnore;
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
+import com.ibm.wsspi.anno.targets.AnnotationTargets_Targets.AnnotationCategory;
+
+/**
+ * <p>On disk cache of class source scan results.</p>
+ *
+ * <p>The results of scanning a class source are stored in one file per class source
+ * location, scan policy, and detail setting. The file holds a stamp of the content
+ * of the class source, and, for each class of the class source, the data received
+ * by the annotation targets visitor: The class, superclass, and interface names, and
+ * the category and description of each annotation. Replaying that data through the
+ * visitor produces the same targets as a scan, without reading the classes.</p>
+ *
+ * <p>A file which cannot be read, or which is for a different location or stamp, is
+ * ignored, and is replaced when the class source is next scanned.</p>
+ */
+public class AnnotationTargetsImpl_ScanCache {
+    private static final TraceComponent tc = Tr.register(AnnotationTargetsImpl_ScanCache.class);
+    public static final String CLASS_NAME = AnnotationTargetsImpl_ScanCache.class.getName();
+
+    protected final String hashText;
+
+    public String getHashText() {
+        return hashText;
+    }
+
+    //
+
+    /** Bundle data area directory of the scan cache. */
+    public static final String CACHE_DIRECTORY_NAME = "scanCache";
+
+    /** Bootstrap property which disables the scan cache when set to "false". */
+    public static final String CACHE_ENABLED_PROPERTY_NAME = "com.ibm.ws.anno.scan.cache";
+
+    // 'ANNO'
+    protected static final int CACHE_MAGIC = 0x414E4E4F;
+    // Increment when the format, or the data captured by the visitor, changes.
+    protected static final int CACHE_VERSION = 1;
+
+    protected static final String CACHE_FILE_SUFFIX = ".dat";
+
+    public AnnotationTargetsImpl_ScanCache(File cacheDir) {
+        super();
+
+        this.hashText = AnnotationServiceImpl_Logging.getBaseHash(this);
+
+        this.cacheDir = cacheDir;
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Cache directory [ {1} ]",
+                                              new Object[] { this.hashText, this.cacheDir.getAbsolutePath() }));
+        }
+    }
+
+    //
+
+    protected final File cacheDir;
+
+    @Trivial
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    protected File getCacheFile(String location, ScanPolicy scanPolicy, boolean isDetailEnabled) {
+        long hash = 0xcbf29ce484222325L;
+        for (int charNo = 0; charNo < location.length(); charNo++) {
+            hash ^= location.charAt(charNo);
+            hash *= 0x100000001b3L;
+        }
+
+        String fileName = Long.toHexString(hash) + "_" + scanPolicy.ordinal() + (isDetailEnabled ? "d" : "") + CACHE_FILE_SUFFIX;
+        return new File(cacheDir, fileName);
+    }
+
+    //
+
+    /**
+     * <p>The visit data of one class or package.</p>
+     */
+    public static class ClassData {
+        public ClassData(String externalName,
+                         String resourceName,
+                         String superResourceName,
+                         String[] interfaceResourceNames) {
+
+            this.externalName = externalName;
+            this.resourceName = resourceName;
+            this.superResourceName = superResourceName;
+            this.interfaceResourceNames = ((interfaceResourceNames == null) ? NO_NAMES : interfaceResourceNames);
+
+            this.annotationCount = 0;
+            this.annotationCategories = null;
+            this.annotationDescs = null;
+        }
+
+        protected static final String[] NO_NAMES = new String[0];
+
+        protected final String externalName;
+        protected final String resourceName;
+        protected final String superResourceName;
+        protected final String[] interfaceResourceNames;
+
+        protected int annotationCount;
+        protected AnnotationCategory[] annotationCategories;
+        protected String[] annotationDescs;
+
+        @Trivial
+        public String getExternalName() {
+            return externalName;
+        }
+
+        @Trivial
+        public String getResourceName() {
+            return resourceName;
+        }
+
+        @Trivial
+        public String getSuperResourceName() {
+            return superResourceName;
+        }
+
+        @Trivial
+        public String[] getInterfaceResourceNames() {
+            return interfaceResourceNames;
+        }
+
+        @Trivial
+        public int getAnnotationCount() {
+            return annotationCount;
+        }
+
+        @Trivial
+        public AnnotationCategory getAnnotationCategory(int annotationNo) {
+            return annotationCategories[annotationNo];
+        }
+
+        @Trivial
+        public String getAnnotationDesc(int annotationNo) {
+            return annotationDescs[annotationNo];
+        }
+
+        public void addAnnotation(AnnotationCategory category, String desc) {
+            if (annotationCategories == null) {
+                annotationCategories = new AnnotationCategory[4];
+                annotationDescs = new String[4];
+            } else if (annotationCount == annotationCategories.length) {
+                AnnotationCategory[] newCategories = new AnnotationCategory[annotationCount * 2];
+                System.arraycopy(annotationCategories, 0, newCategories, 0, annotationCount);
+                annotationCategories = newCategories;
+
+                String[] newDescs = new String[annotationCount * 2];
+                System.arraycopy(annotationDescs, 0, newDescs, 0, annotationCount);
+                annotationDescs = newDescs;
+            }
+
+            annotationCategories[annotationCount] = category;
+            annotationDescs[annotationCount] = desc;
+            annotationCount++;
+        }
+    }
+
+    //
+
+    /**
+     * <p>Read the cached results of a class source.</p>
+     *
+     * @param location The location of the class source.
+     * @param stamp The current stamp of the class source.
+     * @param scanPolicy The scan policy of the class source.
+     * @param isDetailEnabled Whether field and method annotations are recorded.
+     *
+     * @return The cached classes of the class source. Null if there are no cached results,
+     *         or if the cached results are for a different stamp.
+     */
+    public List<ClassData> read(final String location, final long stamp,
+                                final ScanPolicy scanPolicy, final boolean isDetailEnabled) {
+
+        return AccessController.doPrivileged(new PrivilegedAction<List<ClassData>>() {
+            @Override
+            public List<ClassData> run() {
+                return basicRead(location, stamp, scanPolicy, isDetailEnabled);
+            }
+        });
+    }
+
+    @FFDCIgnore(IOException.class)
+    protected List<ClassData> basicRead(String location, long stamp, ScanPolicy scanPolicy, boolean isDetailEnabled) {
+        File cacheFile = getCacheFile(location, scanPolicy, isDetailEnabled);
+        if (!cacheFile.isFile()) {
+            if (tc.isDebugEnabled()) {
+                Tr.debug(tc, MessageFormat.format("[ {0} ] Location [ {1} ]: No cache file",
+                                                  new Object[] { getHashText(), location }));
+            }
+            return null;
+        }
+
+        List<ClassData> classes;
+        String reason;
+
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                if ((input.readInt() != CACHE_MAGIC) || (input.readInt() != CACHE_VERSION)) {
+                    classes = null;
+                    reason = "Format mismatch";
+                } else if (!location.equals(input.readUTF())) {
+                    classes = null;
+                    reason = "Location mismatch";
+                } else if (input.readLong() != stamp) {
+                    classes = null;
+                    reason = "Stamp mismatch";
+                } else {
+                    classes = readClasses(input);
+                    reason = "Read [ " + classes.size() + " ] classes";
+                }
+            } finally {
+                input.close();
+            }
+
+        } catch (IOException e) {
+            classes = null;
+            reason = "Read failure [ " + e + " ]";
+        }
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Location [ {1} ] File [ {2} ]: {3}",
+                                              new Object[] { getHashText(), location, cacheFile.getName(), reason }));
+        }
+
+        return classes;
+    }
+
+    protected List<ClassData> readClasses(DataInputStream input) throws IOException {
+        AnnotationCategory[] categories = AnnotationCategory.values();
+
+        int classCount = input.readInt();
+        List<ClassData> classes = new ArrayList<ClassData>(classCount);
+
+        for (int classNo = 0; classNo < classCount; classNo++) {
+            String externalName = input.readUTF();
+            String resourceName = input.readUTF();
+            String superResourceName = (input.readBoolean() ? input.readUTF() : null);
+
+            int interfaceCount = input.readInt();
+            String[] interfaceResourceNames = new String[interfaceCount];
+            for (int interfaceNo = 0; interfaceNo < interfaceCount; interfaceNo++) {
+                interfaceResourceNames[interfaceNo] = input.readUTF();
+            }
+
+            ClassData classData = new ClassData(externalName, resourceName, superResourceName, interfaceResourceNames);
+
+            int annotationCount = input.readInt();
+            for (int annotationNo = 0; annotationNo < annotationCount; annotationNo++) {
+                int categoryNo = input.readByte();
+                if ((categoryNo < 0) || (categoryNo >= categories.length)) {
+                    throw new IOException("Non-valid annotation category [ " + categoryNo + " ]");
+                }
+                classData.addAnnotation(categories[categoryNo], input.readUTF());
+            }
+
+            classes.add(classData);
+        }
+
+        return classes;
+    }
+
+    //
+
+    /**
+     * <p>Write the results of scanning a class source, replacing any results
+     * previously written for the class source.</p>
+     *
+     * @param location The location of the class source.
+     * @param stamp The stamp of the class source, as computed before the scan.
+     * @param scanPolicy The scan policy of the class source.
+     * @param isDetailEnabled Whether field and method annotations were recorded.
+     * @param classes The classes of the class source.
+     *
+     * @return True if the results were written.
+     */
+    public boolean write(final String location, final long stamp,
+                         final ScanPolicy scanPolicy, final boolean isDetailEnabled,
+                         final List<ClassData> classes) {
+
+        Boolean didWrite = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+            @Override
+            public Boolean run() {
+                return Boolean.valueOf(basicWrite(location, stamp, scanPolicy, isDetailEnabled, classes));
+            }
+        });
+        return didWrite.booleanValue();
+    }
+
+    @FFDCIgnore(IOException.class)
+    protected boolean basicWrite(String location, long stamp, ScanPolicy scanPolicy, boolean isDetailEnabled, List<ClassData> classes) {
+        File cacheFile = getCacheFile(location, scanPolicy, isDetailEnabled);
+
+        // Write to a temporary file, then rename: A concurrent scan of the same
+        // location, or a failure part way through the write, must not leave a
+        // partial file under the cache file name.
+
+        File tempFile = null;
+        boolean didWrite = false;
+        String reason;
+
+        try {
+            if (!cacheDir.isDirectory() && !cacheDir.mkdirs() && !cacheDir.isDirectory()) {
+                throw new IOException("Failed to create [ " + cacheDir.getAbsolutePath() + " ]");
+            }
+
+            tempFile = File.createTempFile("scan", ".tmp", cacheDir);
+
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            try {
+                output.writeInt(CACHE_MAGIC);
+                output.writeInt(CACHE_VERSION);
+                output.writeUTF(location);
+                output.writeLong(stamp);
+                writeClasses(output, classes);
+            } finally {
+                output.close();
+            }
+
+            if (!tempFile.renameTo(cacheFile)) {
+                cacheFile.delete();
+                if (!tempFile.renameTo(cacheFile)) {
+                    throw new IOException("Failed to rename [ " + tempFile.getName() + " ] to [ " + cacheFile.getName() + " ]");
+                }
+            }
+            tempFile = null;
+            didWrite = true;
+
+            reason = "Wrote [ " + classes.size() + " ] classes";
+
+        } catch (IOException e) {
+            reason = "Write failure [ " + e + " ]";
+
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Location [ {1} ] File [ {2} ]: {3}",
+                                              new Object[] { getHashText(), location, cacheFile.getName(), reason }));
+        }
+
+        return didWrite;
+    }
+
+    protected void writeClasses(DataOutputStream output, List<ClassData> classes) throws IOException {
+        output.writeInt(classes.size());
+
+        for (ClassData classData : classes) {
+            output.writeUTF(classData.getExternalName());
+            output.writeUTF(classData.getResourceName());
+
+            String superResourceName = classData.getSuperResourceName();
+            output.writeBoolean(superResourceName != null);
+            if (superResourceName != null) {
+                output.writeUTF(superResourceName);
+            }
+
+            String[] interfaceResourceNames = classData.getInterfaceResourceNames();
+            output.writeInt(interfaceResourceNames.length);
+            for (String interfaceResourceName : interfaceResourceNames) {
+                output.writeUTF(interfaceResourceName);
+            }
+
+            int annotationCount = classData.getAnnotationCount();
+            output.writeInt(annotationCount);
+            for (int annotationNo = 0; annotationNo < annotationCount; annotationNo++) {
+                output.writeByte(classData.getAnnotationCategory(annotationNo).ordinal());
+                output.writeUTF(classData.getAnnotationDesc(annotationNo));
+            }
+        }
+    }
+}
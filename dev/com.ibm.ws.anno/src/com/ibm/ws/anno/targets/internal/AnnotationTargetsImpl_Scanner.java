@@ -48,7 +48,12 @@ public class AnnotationTargetsImpl_Scanner {
         this.classSource = classSource;
         this.annotationTargets = annotationTargets;
 
-        this.streamer = new AnnotationTargetsImpl_Streamer(this);
+        AnnotationTargetsImpl_ScanCache scanCache = factory.getScanCache();
+        if (scanCache != null) {
+            this.streamer = new AnnotationTargetsImpl_CachingStreamer(this, scanCache);
+        } else {
+            this.streamer = new AnnotationTargetsImpl_Streamer(this);
+        }
 
         if (tc.isDebugEnabled()) {
             Tr.debug(tc, MessageFormat.format("[ {0} ]", this.hashText));
@@ -13,16 +13,21 @@ package com.ibm.ws.anno.targets.internal;
 
 import java.io.InputStream;
 import java.text.MessageFormat;
+import java.util.List;
+import java.util.Set;
 
 import com.ibm.websphere.ras.Tr;
 import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl;
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl_ParallelStreamer;
 import com.ibm.ws.anno.service.internal.AnnotationServiceImpl_Logging;
 import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
 import com.ibm.wsspi.anno.classsource.ClassSource_Exception;
 import com.ibm.wsspi.anno.classsource.ClassSource_Factory;
 import com.ibm.wsspi.anno.classsource.ClassSource_Streamer;
+import com.ibm.wsspi.anno.util.Util_InternMap;
 
-public class AnnotationTargetsImpl_Streamer implements ClassSource_Streamer {
+public class AnnotationTargetsImpl_Streamer implements ClassSourceImpl_ParallelStreamer {
     private static final TraceComponent tc = Tr.register(AnnotationTargetsImpl_Streamer.class);
 
     public static final String CLASS_NAME = AnnotationTargetsImpl_Streamer.class.getName();
@@ -87,4 +92,52 @@ public class AnnotationTargetsImpl_Streamer implements ClassSource_Streamer {
     public boolean process(String classSourceName, String className, InputStream inputStream, ScanPolicy scanPolicy) {
         return getTargets().scanClass(classSourceName, className, inputStream, scanPolicy);
     }
+
+    // Parallel scans ...
+    //
+    // Each child class source is scanned by a task streamer, which scans into
+    // its own targets and records the visit data of each class.  The recorded
+    // classes are replayed into the targets of this streamer when the child is
+    // merged.
+
+    @Override
+    public ClassSource_Streamer createTaskStreamer() {
+        return new AnnotationTargetsImpl_TaskStreamer(getScanner());
+    }
+
+    // Entry from:
+    //   ClassSourceImpl_Aggregate.mergeScanTask(ScanTask, ClassSourceImpl_ParallelStreamer, Set<String>)
+
+    @Override
+    public int merge(ClassSourceImpl classSource, ClassSource_Streamer taskStreamer,
+                     ScanPolicy scanPolicy, Set<String> i_maskedClassNames) {
+
+        AnnotationTargetsImpl_Targets useTargets = getTargets();
+
+        String classSourceName = classSource.getCanonicalName();
+        Util_InternMap internMap = classSource.getInternMap();
+
+        List<AnnotationTargetsImpl_ScanCache.ClassData> taskClasses =
+                        ((AnnotationTargetsImpl_TaskStreamer) taskStreamer).getClasses();
+
+        int maskedCount = 0;
+
+        for (AnnotationTargetsImpl_ScanCache.ClassData classData : taskClasses) {
+            if (!i_maskedClassNames.isEmpty() &&
+                i_maskedClassNames.contains(internMap.intern(classData.getExternalName()))) {
+                maskedCount++;
+            } else {
+                useTargets.replayClass(classSourceName, classData, scanPolicy);
+            }
+        }
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] [ {1} ] Merged [ {2} ] Masked [ {3} ]",
+                                              new Object[] { getHashText(), classSource.getHashText(),
+                                                            Integer.valueOf(taskClasses.size() - maskedCount),
+                                                            Integer.valueOf(maskedCount) }));
+        }
+
+        return maskedCount;
+    }
 }
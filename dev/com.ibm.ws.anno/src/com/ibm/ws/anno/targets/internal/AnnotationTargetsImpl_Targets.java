@@ -545,6 +545,46 @@ public class AnnotationTargetsImpl_Targets implements AnnotationTargets_Targets
         return (!failedScan);
     }
 
+    // Scan cache call back:
+    //
+    // Replay a class which was read from the scan cache.  The visit data
+    // is passed through the visitor, so that the class is recorded the
+    // same as if it were scanned.
+
+    // Entry is from:
+    //     AnnotationTargetsImpl_CachingStreamer.replay(ClassSourceImpl, String, long, ScanPolicy, Set<String>)
+
+    @FFDCIgnore(AnnotationTargetsVisitor.VisitEnded.class)
+    protected boolean replayClass(String classSourceName,
+                                  AnnotationTargetsImpl_ScanCache.ClassData classData,
+                                  ScanPolicy scanPolicy) {
+
+        AnnotationTargetsVisitor useVisitor = getVisitor();
+
+        useVisitor.i_setClassSourceName(internClassSourceName(classSourceName));
+        useVisitor.setScanPolicy(scanPolicy);
+
+        boolean failedReplay;
+
+        try {
+            useVisitor.replay(classData); // throws VisitEnded
+            failedReplay = false;
+
+        } catch (AnnotationTargetsVisitor.VisitEnded e) {
+            // Only a duplicate class is expected: A class is only
+            // cached if its original scan succeeded.
+            failedReplay = !e.isDetailCase();
+        }
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Replay class [ {1} ]: [ {2} ]",
+                                              new Object[] { getHashText(), classData.getExternalName(),
+                                                            (failedReplay ? "Failed" : "Success") }));
+        }
+
+        return (!failedReplay);
+    }
+
     protected final AnnotationTargetsVisitor visitor;
 
     protected AnnotationTargetsVisitor getVisitor() {
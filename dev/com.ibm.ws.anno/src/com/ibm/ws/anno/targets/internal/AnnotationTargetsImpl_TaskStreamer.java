@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.anno.targets.internal;
+
+import java.io.InputStream;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.anno.service.internal.AnnotationServiceImpl_Logging;
+import com.ibm.ws.anno.util.internal.UtilImpl_InternMap;
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
+import com.ibm.wsspi.anno.classsource.ClassSource_Streamer;
+import com.ibm.wsspi.anno.util.Util_InternMap;
+
+/**
+ * <p>Streamer which scans one child class source on a worker thread of a
+ * parallel scan.</p>
+ *
+ * <p>Classes are scanned into targets which are private to the task, and the
+ * visit data of each class is recorded. The recorded classes are replayed into
+ * the targets of the scan by {@link AnnotationTargetsImpl_Streamer#merge}.</p>
+ */
+public class AnnotationTargetsImpl_TaskStreamer implements ClassSource_Streamer {
+    private static final TraceComponent tc = Tr.register(AnnotationTargetsImpl_TaskStreamer.class);
+
+    public static final String CLASS_NAME = AnnotationTargetsImpl_TaskStreamer.class.getName();
+
+    protected final String hashText;
+
+    public String getHashText() {
+        return hashText;
+    }
+
+    //
+
+    protected AnnotationTargetsImpl_TaskStreamer(AnnotationTargetsImpl_Scanner scanner) {
+        super();
+
+        this.hashText = AnnotationServiceImpl_Logging.getBaseHash(this);
+
+        AnnotationTargetsImpl_Factory factory = scanner.getFactory();
+
+        UtilImpl_InternMap classInternMap =
+                        factory.getUtilFactory().createInternMap(Util_InternMap.ValueType.VT_CLASS_NAME, "task classes and package names");
+
+        this.taskTargets = new AnnotationTargetsImpl_Targets(factory, classInternMap,
+                                                             scanner.getAnnotationTargets().getIsDetailEnabled());
+        this.taskTargets.getVisitor().setRecording(true);
+
+        this.classes = new ArrayList<AnnotationTargetsImpl_ScanCache.ClassData>();
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format(" [ {0} ] Targets [ {1} ]",
+                                              new Object[] { this.hashText, this.taskTargets.getHashText() }));
+        }
+    }
+
+    //
+
+    protected final AnnotationTargetsImpl_Targets taskTargets;
+
+    protected AnnotationTargetsImpl_Targets getTaskTargets() {
+        return taskTargets;
+    }
+
+    //
+
+    protected final List<AnnotationTargetsImpl_ScanCache.ClassData> classes;
+
+    /**
+     * <p>Answer the classes which were processed by this streamer, in the order
+     * in which they were processed.</p>
+     *
+     * @return The classes which were processed by this streamer.
+     */
+    public List<AnnotationTargetsImpl_ScanCache.ClassData> getClasses() {
+        return classes;
+    }
+
+    //
+
+    @Override
+    public boolean doProcess(String className, ScanPolicy scanPolicy) {
+        return true;
+    }
+
+    // A class which was scanned but which could not be recorded is reported as
+    // not processed: It would otherwise be missing from the merged results.
+
+    @Override
+    public boolean process(String classSourceName, String className, InputStream inputStream, ScanPolicy scanPolicy) {
+        AnnotationTargetsImpl_Targets useTargets = getTaskTargets();
+
+        boolean didScan = useTargets.scanClass(classSourceName, className, inputStream, scanPolicy);
+
+        AnnotationTargetsImpl_ScanCache.ClassData recordedClass = useTargets.getVisitor().takeRecordedClass();
+
+        if (!didScan || (recordedClass == null)) {
+            return false;
+        }
+
+        classes.add(recordedClass);
+        return true;
+    }
+}
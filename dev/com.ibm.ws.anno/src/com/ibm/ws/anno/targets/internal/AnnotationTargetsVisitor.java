@@ -307,6 +307,10 @@ public class AnnotationTargetsVisitor extends ClassVisitor {
     }
 
     protected void recordAnnotation(AnnotationCategory annotationCategory, String desc) {
+        if (recordedClass != null) {
+            recordedClass.addAnnotation(annotationCategory, desc);
+        }
+
         // Skip class annotations if only enabled for partial scans.
 
         String annotationResourceName = getClassResourceNameFromAnnotationDescription(desc);
@@ -318,6 +322,39 @@ public class AnnotationTargetsVisitor extends ClassVisitor {
         annotationTargets.i_recordAnnotation(getScanPolicy(), annotationCategory, i_className, i_annotationClassName);
     }
 
+    // Scan cache recording ...
+    //
+    // While recording, the visit data of each class is captured as it is received,
+    // so that the class can later be replayed through 'visit' and 'recordAnnotation'
+    // without reading the class.
+
+    protected boolean isRecording;
+    protected AnnotationTargetsImpl_ScanCache.ClassData recordedClass;
+
+    protected void setRecording(boolean isRecording) {
+        this.isRecording = isRecording;
+        this.recordedClass = null;
+    }
+
+    protected AnnotationTargetsImpl_ScanCache.ClassData takeRecordedClass() {
+        AnnotationTargetsImpl_ScanCache.ClassData useRecordedClass = recordedClass;
+        recordedClass = null;
+        return useRecordedClass;
+    }
+
+    protected void replay(AnnotationTargetsImpl_ScanCache.ClassData classData) {
+        setExternalName(classData.getExternalName());
+
+        visit(0, 0,
+              classData.getResourceName(), null,
+              classData.getSuperResourceName(), classData.getInterfaceResourceNames());
+        // 'visit' throws VisitEnded
+
+        for (int annotationNo = 0; annotationNo < classData.getAnnotationCount(); annotationNo++) {
+            recordAnnotation(classData.getAnnotationCategory(annotationNo), classData.getAnnotationDesc(annotationNo));
+        }
+    }
+
     // Main visit entry point ... package and class processing begin with a call to visit.
     //
     // See the main class comments for the visit sequence.
@@ -343,6 +380,13 @@ public class AnnotationTargetsVisitor extends ClassVisitor {
             logParms = null;
         }
 
+        if (isRecording) {
+            recordedClass = new AnnotationTargetsImpl_ScanCache.ClassData(getExternalName(),
+                                                                          classResourceName,
+                                                                          superClassResourceName,
+                                                                          interfaceResourceNames);
+        }
+
         String className = getClassNameFromPartialResourceName(classResourceName);
 
         if (logParms != null) {
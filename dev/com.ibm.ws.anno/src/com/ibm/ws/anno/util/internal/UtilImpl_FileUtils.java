@@ -54,6 +54,26 @@ public class UtilImpl_FileUtils {
         return exists.booleanValue();
     }
 
+    public static long length(final File target) {
+        Long length = AccessController.doPrivileged(new PrivilegedAction<Long>() {
+            @Override
+            public Long run() {
+                return Long.valueOf(target.length());
+            }
+        });
+        return length.longValue();
+    }
+
+    public static long lastModified(final File target) {
+        Long lastModified = AccessController.doPrivileged(new PrivilegedAction<Long>() {
+            @Override
+            public Long run() {
+                return Long.valueOf(target.lastModified());
+            }
+        });
+        return lastModified.longValue();
+    }
+
     public static File[] listFiles(final File target) {
         return AccessController.doPrivileged(new PrivilegedAction<File[]>() {
             @Override
@@ -266,8 +266,11 @@ public class UtilImpl_InternMap implements Util_InternMap {
      *         is false.
      */
     // Not set as Trivial: We want to trace intern calls.
+    //
+    // Synchronized: The class name intern map of an aggregate class source is
+    // shared by its children, which may be scanned in parallel.
     @Override
-    public String intern(String value, boolean doForce) {
+    public synchronized String intern(String value, boolean doForce) {
         if (value == null) {
             return value;
         }
@@ -317,7 +320,7 @@ public class UtilImpl_InternMap implements Util_InternMap {
     // And: UtilImpl_BidirectionalMap.containsHolder(String)
     @Override
     @Trivial
-    public boolean contains(String value) {
+    public synchronized boolean contains(String value) {
         return internMap.containsKey(value);
     }
 
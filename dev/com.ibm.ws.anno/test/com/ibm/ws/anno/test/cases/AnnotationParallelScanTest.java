@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.anno.test.cases;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl_Factory;
+import com.ibm.ws.anno.service.internal.AnnotationServiceImpl_Service;
+import com.ibm.ws.anno.targets.internal.AnnotationTargetsImpl_Factory;
+import com.ibm.ws.anno.targets.internal.AnnotationTargetsImpl_ScanCache;
+import com.ibm.ws.anno.targets.internal.AnnotationTargetsImpl_Targets;
+import com.ibm.ws.anno.test.data.sub.SubBase;
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate;
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
+import com.ibm.wsspi.anno.classsource.ClassSource_ScanCounts;
+
+import junit.framework.Assert;
+import test.common.SharedOutputManager;
+
+/**
+ * Verify that a parallel scan has the same results as a sequential scan,
+ * including when a class is masked by an earlier class source.
+ */
+public class AnnotationParallelScanTest {
+    SharedOutputManager outputMgr = SharedOutputManager.getInstance().trace("*=all").logTo(TestConstants.BUILD_LOGS + this.getClass().getSimpleName());
+
+    @Rule
+    public TestRule outputRule = outputMgr;
+
+    static final String SUB_PACKAGE_PATH = AnnotationScanCacheTest.DATA_PACKAGE_PATH + "/sub";
+
+    File tempDir;
+    File classesDir;
+    File subClassesDir;
+    File cacheDir;
+
+    AnnotationServiceImpl_Service annoService;
+    ForkJoinPool scanPool;
+
+    @Before
+    public void setup() throws IOException {
+        tempDir = File.createTempFile("parallelScanTest", "");
+        tempDir.delete();
+
+        classesDir = new File(tempDir, "classes");
+        subClassesDir = new File(tempDir, "subClasses");
+        cacheDir = new File(tempDir, "cache");
+
+        // The first class source holds the classes of the 'sub' package, which
+        // mask the same classes of the second class source.
+
+        String testClassesDir = System.getProperty("test.classesDir", "bin_test");
+        AnnotationScanCacheTest.copy(new File(testClassesDir, AnnotationScanCacheTest.DATA_PACKAGE_PATH),
+                                     new File(classesDir, AnnotationScanCacheTest.DATA_PACKAGE_PATH));
+        AnnotationScanCacheTest.copy(new File(testClassesDir, SUB_PACKAGE_PATH),
+                                     new File(subClassesDir, SUB_PACKAGE_PATH));
+
+        annoService = new AnnotationServiceImpl_Service();
+        scanPool = new ForkJoinPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        annoService.getClassSourceFactory().setScanPool(null);
+        annoService.getAnnotationTargetsFactory().setScanCache(null);
+        scanPool.shutdown();
+
+        AnnotationScanCacheTest.delete(tempDir);
+    }
+
+    //
+
+    ClassSource_Aggregate classSource;
+
+    AnnotationTargetsImpl_Targets scan() throws Exception {
+        ClassSourceImpl_Factory factory = annoService.getClassSourceFactory();
+
+        classSource = factory.createAggregateClassSource("ParallelScanTest");
+        factory.addDirectoryClassSource(classSource, subClassesDir.getPath(), subClassesDir.getPath(), ScanPolicy.PARTIAL);
+        factory.addDirectoryClassSource(classSource, classesDir.getPath(), classesDir.getPath(), ScanPolicy.SEED);
+
+        AnnotationTargetsImpl_Factory annoFactory = annoService.getAnnotationTargetsFactory();
+        AnnotationTargetsImpl_Targets targets = annoFactory.createTargets();
+        targets.scan(classSource, true);
+
+        return targets;
+    }
+
+    static void assertSameCounts(ClassSource_ScanCounts expected, ClassSource_ScanCounts actual) {
+        for (ClassSource_ScanCounts.ResultField resultField : ClassSource_ScanCounts.ResultField.values()) {
+            Assert.assertEquals(resultField.getTag(), expected.getResult(resultField), actual.getResult(resultField));
+        }
+    }
+
+    //
+
+    @Test
+    public void testParallelScan() throws Exception {
+        AnnotationTargetsImpl_Targets sequentialTargets = scan();
+        ClassSource_ScanCounts sequentialCounts = classSource.getScanResults();
+
+        annoService.getClassSourceFactory().setScanPool(scanPool);
+
+        AnnotationTargetsImpl_Targets parallelTargets = scan();
+        ClassSource_ScanCounts parallelCounts = classSource.getScanResults();
+
+        AnnotationScanCacheTest.assertSameResults(sequentialTargets, parallelTargets);
+        assertSameCounts(sequentialCounts, parallelCounts);
+
+        // The classes of the 'sub' package are from the first, partial, class source.
+
+        Assert.assertTrue(AnnotationScanCacheTest.copy(parallelTargets.getPartialClassNames()).contains(SubBase.class.getName()));
+        Assert.assertFalse(AnnotationScanCacheTest.copy(parallelTargets.getSeedClassNames()).contains(SubBase.class.getName()));
+        Assert.assertTrue(parallelCounts.getResult(ClassSource_ScanCounts.ResultField.DUPLICATE_CLASS) > 0);
+    }
+
+    @Test
+    public void testParallelCachedScan() throws Exception {
+        AnnotationTargetsImpl_Targets sequentialTargets = scan();
+
+        annoService.getClassSourceFactory().setScanPool(scanPool);
+        annoService.getAnnotationTargetsFactory().setScanCache(new AnnotationTargetsImpl_ScanCache(cacheDir));
+
+        AnnotationTargetsImpl_Targets scannedTargets = scan();
+        ClassSource_ScanCounts scannedCounts = classSource.getScanResults();
+
+        AnnotationTargetsImpl_Targets cachedTargets = scan();
+        ClassSource_ScanCounts cachedCounts = classSource.getScanResults();
+
+        AnnotationScanCacheTest.assertSameResults(sequentialTargets, scannedTargets);
+        AnnotationScanCacheTest.assertSameResults(sequentialTargets, cachedTargets);
+
+        // Classes read from the cache are counted as processed classes.  Other
+        // entries, for example, directories, are not visited.
+
+        Assert.assertEquals(scannedCounts.getResult(ClassSource_ScanCounts.ResultField.PROCESSED_CLASS),
+                            cachedCounts.getResult(ClassSource_ScanCounts.ResultField.PROCESSED_CLASS));
+        Assert.assertEquals(scannedCounts.getResult(ClassSource_ScanCounts.ResultField.DUPLICATE_CLASS),
+                            cachedCounts.getResult(ClassSource_ScanCounts.ResultField.DUPLICATE_CLASS));
+    }
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.anno.test.cases;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Resource;
+import javax.persistence.Id;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl_Factory;
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl_ScanCounts;
+import com.ibm.ws.anno.service.internal.AnnotationServiceImpl_Service;
+import com.ibm.ws.anno.targets.internal.AnnotationTargetsImpl_Factory;
+import com.ibm.ws.anno.targets.internal.AnnotationTargetsImpl_ScanCache;
+import com.ibm.ws.anno.targets.internal.AnnotationTargetsImpl_Targets;
+import com.ibm.ws.anno.test.data.BClass;
+import com.ibm.ws.anno.test.data.sub.InheritAnno;
+import com.ibm.ws.anno.test.data.sub.SubBase;
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate;
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
+import com.ibm.wsspi.anno.classsource.ClassSource_Exception;
+import com.ibm.wsspi.anno.targets.AnnotationTargets_Exception;
+
+import junit.framework.Assert;
+import test.common.SharedOutputManager;
+
+/**
+ * Verify that scan results read from the scan cache match the results of a scan,
+ * and that a changed class source is scanned again.
+ */
+public class AnnotationScanCacheTest {
+    SharedOutputManager outputMgr = SharedOutputManager.getInstance().trace("*=all").logTo(TestConstants.BUILD_LOGS + this.getClass().getSimpleName());
+
+    @Rule
+    public TestRule outputRule = outputMgr;
+
+    static final String DATA_PACKAGE_PATH = "com/ibm/ws/anno/test/data";
+
+    File tempDir;
+    File classesDir;
+    File cacheDir;
+
+    AnnotationServiceImpl_Service annoService;
+
+    @Before
+    public void setup() throws IOException {
+        tempDir = File.createTempFile("scanCacheTest", "");
+        tempDir.delete();
+
+        classesDir = new File(tempDir, "classes");
+        cacheDir = new File(tempDir, "cache");
+
+        // Scan a copy of the test data classes, so that a class can be changed.
+        String testClassesDir = System.getProperty("test.classesDir", "bin_test");
+        copy(new File(testClassesDir, DATA_PACKAGE_PATH), new File(classesDir, DATA_PACKAGE_PATH));
+
+        annoService = new AnnotationServiceImpl_Service();
+        annoService.getAnnotationTargetsFactory().setScanCache(new AnnotationTargetsImpl_ScanCache(cacheDir));
+    }
+
+    @After
+    public void tearDown() {
+        annoService.getAnnotationTargetsFactory().setScanCache(null);
+        delete(tempDir);
+    }
+
+    static void copy(File source, File target) throws IOException {
+        if (source.isDirectory()) {
+            target.mkdirs();
+            for (File child : source.listFiles()) {
+                copy(child, new File(target, child.getName()));
+            }
+        } else {
+            InputStream input = new FileInputStream(source);
+            try {
+                OutputStream output = new FileOutputStream(target);
+                try {
+                    byte[] buffer = new byte[8192];
+                    int count;
+                    while ((count = input.read(buffer)) != -1) {
+                        output.write(buffer, 0, count);
+                    }
+                } finally {
+                    output.close();
+                }
+            } finally {
+                input.close();
+            }
+        }
+    }
+
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    //
+
+    ClassSource_Aggregate classSource;
+
+    AnnotationTargetsImpl_Targets scan() throws ClassSource_Exception, AnnotationTargets_Exception {
+        ClassSourceImpl_Factory factory = annoService.getClassSourceFactory();
+
+        classSource = factory.createAggregateClassSource("ScanCacheTest");
+        factory.addDirectoryClassSource(classSource, classesDir.getPath(), classesDir.getPath(), ScanPolicy.SEED);
+
+        AnnotationTargetsImpl_Factory annoFactory = annoService.getAnnotationTargetsFactory();
+        AnnotationTargetsImpl_Targets targets = annoFactory.createTargets();
+        targets.scan(classSource, true);
+
+        return targets;
+    }
+
+    ClassSourceImpl_ScanCounts getScanCounts() {
+        return (ClassSourceImpl_ScanCounts) classSource.getScanResults();
+    }
+
+    // The results of different targets are interned by different maps,
+    // and may be held in identity sets: Compare copies.
+
+    static Set<String> copy(Set<String> names) {
+        return new HashSet<String>(names);
+    }
+
+    static void assertSameResults(AnnotationTargetsImpl_Targets expected, AnnotationTargetsImpl_Targets actual) {
+        Assert.assertEquals(copy(expected.getSeedClassNames()), copy(actual.getSeedClassNames()));
+        Assert.assertEquals(copy(expected.getAnnotatedPackages()), copy(actual.getAnnotatedPackages()));
+        Assert.assertEquals(copy(expected.getAnnotatedClasses()), copy(actual.getAnnotatedClasses()));
+        Assert.assertEquals(copy(expected.getClassesWithFieldAnnotations()), copy(actual.getClassesWithFieldAnnotations()));
+        Assert.assertEquals(copy(expected.getClassesWithMethodAnnotations()), copy(actual.getClassesWithMethodAnnotations()));
+
+        for (String className : expected.getSeedClassNames()) {
+            Assert.assertEquals(className, copy(expected.getClassAnnotations(className)), copy(actual.getClassAnnotations(className)));
+            Assert.assertEquals(className, copy(expected.getFieldAnnotations(className)), copy(actual.getFieldAnnotations(className)));
+            Assert.assertEquals(className, copy(expected.getMethodAnnotations(className)), copy(actual.getMethodAnnotations(className)));
+        }
+
+        Assert.assertEquals(new HashMap<String, String>(expected.getSuperclassNames()),
+                            new HashMap<String, String>(actual.getSuperclassNames()));
+
+        Map<String, String[]> expectedInterfaces = expected.getInterfaceNames();
+        Map<String, String[]> actualInterfaces = actual.getInterfaceNames();
+        Assert.assertEquals(expectedInterfaces.size(), actualInterfaces.size());
+        for (Map.Entry<String, String[]> expectedEntry : expectedInterfaces.entrySet()) {
+            String[] actualNames = actual.getInterfaceNames(expectedEntry.getKey());
+            Assert.assertNotNull(expectedEntry.getKey(), actualNames);
+            Assert.assertEquals(expectedEntry.getKey(), expectedEntry.getValue().length, actualNames.length);
+        }
+    }
+
+    //
+
+    @Test
+    public void testCacheHit() throws Exception {
+        AnnotationTargetsImpl_Targets scannedTargets = scan();
+        ClassSourceImpl_ScanCounts scanCounts = getScanCounts();
+        Assert.assertEquals(0, scanCounts.getCacheHits());
+        Assert.assertEquals(1, scanCounts.getCacheMisses());
+        Assert.assertTrue(scanCounts.getScanTime() > 0);
+
+        AnnotationTargetsImpl_Targets cachedTargets = scan();
+        ClassSourceImpl_ScanCounts cacheCounts = getScanCounts();
+        Assert.assertEquals(1, cacheCounts.getCacheHits());
+        Assert.assertEquals(0, cacheCounts.getCacheMisses());
+        Assert.assertEquals(scannedTargets.getSeedClassNames().size(), cacheCounts.getCachedClasses());
+
+        assertSameResults(scannedTargets, cachedTargets);
+
+        Assert.assertTrue(copy(cachedTargets.getAnnotatedClasses(InheritAnno.class.getName())).contains(SubBase.class.getName()));
+        Assert.assertTrue(copy(cachedTargets.getClassesWithMethodAnnotation(Resource.class.getName())).contains(BClass.class.getName()));
+        Assert.assertTrue(copy(cachedTargets.getClassesWithFieldAnnotation(Id.class.getName())).contains(SubBase.class.getName()));
+    }
+
+    @Test
+    public void testChangedClassSource() throws Exception {
+        AnnotationTargetsImpl_Targets scannedTargets = scan();
+
+        File changedClass = new File(classesDir, DATA_PACKAGE_PATH + "/BClass.class");
+        Assert.assertTrue(changedClass.setLastModified(changedClass.lastModified() - 60000L));
+
+        AnnotationTargetsImpl_Targets rescannedTargets = scan();
+        ClassSourceImpl_ScanCounts rescanCounts = getScanCounts();
+        Assert.assertEquals(0, rescanCounts.getCacheHits());
+        Assert.assertEquals(1, rescanCounts.getCacheMisses());
+
+        assertSameResults(scannedTargets, rescannedTargets);
+
+        scan();
+        Assert.assertEquals(1, getScanCounts().getCacheHits());
+    }
+
+    @Test
+    public void testCorruptCache() throws Exception {
+        AnnotationTargetsImpl_Targets scannedTargets = scan();
+
+        for (File cacheFile : cacheDir.listFiles()) {
+            OutputStream output = new FileOutputStream(cacheFile);
+            try {
+                output.write(new byte[] { 0x41, 0x4E, 0x4E, 0x4F, 0, 0, 0, 1, 0 });
+            } finally {
+                output.close();
+            }
+        }
+
+        AnnotationTargetsImpl_Targets rescannedTargets = scan();
+        Assert.assertEquals(0, getScanCounts().getCacheHits());
+
+        assertSameResults(scannedTargets, rescannedTargets);
+    }
+}
@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.artifact.zip.cache.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.ffdc.annotation.FFDCIgnore;
+
+/**
+ * A read only memory mapping of a zip archive, used to read STORED entries
+ * without copying them through the zip file.
+ * <p>
+ * Only the offsets of STORED entries are indexed. Archives which use zip64
+ * extensions, or which cannot be parsed, are not mapped; their entries are read
+ * through the zip file.
+ * <p>
+ * A mapping does not follow changes to the archive: if the archive is truncated
+ * in place, reading a page past the new end of the file faults. Callers check
+ * {@link #isCurrent(File)} when the archive is opened again, and the faults which
+ * can still happen before that check surface as an IOException from the entry
+ * stream.
+ */
+class MappedZipArchive {
+    static final TraceComponent tc = Tr.register(MappedZipArchive.class);
+
+    private static final int LOCSIG = 0x04034b50;
+    private static final int CENSIG = 0x02014b50;
+    private static final int ENDSIG = 0x06054b50;
+
+    private static final int LOCHDR = 30;
+    private static final int CENHDR = 46;
+    private static final int ENDHDR = 22;
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> storedOffsets;
+
+    // The size and last modified time of the archive when it was mapped.
+    private final long length;
+    private final long lastModified;
+
+    private MappedZipArchive(ByteBuffer buffer, Map<String, Integer> storedOffsets, long length, long lastModified) {
+        this.buffer = buffer;
+        this.storedOffsets = storedOffsets;
+        this.length = length;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Read the size and last modified time of a file with one file system call.
+     *
+     * @return the size and last modified time, or null if they cannot be read
+     */
+    @FFDCIgnore(PrivilegedActionException.class)
+    private static long[] readAttributes(final File file) {
+        try {
+            return AccessController.doPrivileged(new PrivilegedExceptionAction<long[]>() {
+                @Override
+                public long[] run() throws IOException {
+                    BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+                    return new long[] { attrs.size(), attrs.lastModifiedTime().toMillis() };
+                }
+            });
+        } catch (PrivilegedActionException e) {
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "Unable to read the attributes of " + file, e.getException());
+            return null;
+        }
+    }
+
+    /**
+     * Tell if the archive still has the size and last modified time it had
+     * when it was mapped. A mapping which is not current must not be used.
+     */
+    boolean isCurrent(File file) {
+        long[] attrs = readAttributes(file);
+        return attrs != null && attrs[0] == length && attrs[1] == lastModified;
+    }
+
+    /**
+     * Map an archive.
+     *
+     * @return the mapped archive, or null if the archive cannot be mapped
+     */
+    @FFDCIgnore({ PrivilegedActionException.class, RuntimeException.class, InternalError.class })
+    static MappedZipArchive map(final File file) {
+        try {
+            long[] attrs = readAttributes(file);
+            if (attrs == null) {
+                return null;
+            }
+            ByteBuffer buffer = AccessController.doPrivileged(new PrivilegedExceptionAction<ByteBuffer>() {
+                @Override
+                public ByteBuffer run() throws IOException {
+                    RandomAccessFile raf = new RandomAccessFile(file, "r");
+                    try {
+                        long length = raf.length();
+                        if (length > Integer.MAX_VALUE) {
+                            return null;
+                        }
+                        // The mapping stays valid after the channel is closed.
+                        return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+                    } finally {
+                        raf.close();
+                    }
+                }
+            });
+            if (buffer == null) {
+                return null;
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            Map<String, Integer> storedOffsets = indexStoredEntries(buffer);
+            if (storedOffsets == null) {
+                if (tc.isDebugEnabled())
+                    Tr.debug(tc, "Unable to index the central directory of " + file + "; not mapped");
+                return null;
+            }
+            // A change while mapping would leave the index and the attributes out of step.
+            long[] mappedAttrs = readAttributes(file);
+            if (mappedAttrs == null || mappedAttrs[0] != attrs[0] || mappedAttrs[1] != attrs[1] || buffer.limit() != attrs[0]) {
+                if (tc.isDebugEnabled())
+                    Tr.debug(tc, file + " changed while it was mapped; not mapped");
+                return null;
+            }
+            return new MappedZipArchive(buffer, storedOffsets, attrs[0], attrs[1]);
+        } catch (PrivilegedActionException e) {
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "Unable to map " + file, e.getException());
+        } catch (RuntimeException e) {
+            // A malformed archive: offsets outside of the buffer.
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "Unable to index " + file, e);
+        } catch (InternalError e) {
+            // The archive was truncated while it was indexed.
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "Unable to index " + file, e);
+        }
+        return null;
+    }
+
+    /**
+     * @return the local header offsets of the STORED entries, or null if the
+     *         central directory could not be parsed
+     */
+    private static Map<String, Integer> indexStoredEntries(ByteBuffer buffer) {
+        int limit = buffer.limit();
+
+        int end = -1;
+        for (int pos = limit - ENDHDR; pos >= 0 && pos >= limit - ENDHDR - MAX_COMMENT; pos--) {
+            if (buffer.getInt(pos) == ENDSIG) {
+                end = pos;
+                break;
+            }
+        }
+        if (end < 0) {
+            return null;
+        }
+
+        int entries = buffer.getShort(end + 10) & 0xFFFF;
+        long cenOffset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+        if (entries == 0xFFFF || cenOffset == 0xFFFFFFFFL) {
+            return null; // zip64
+        }
+
+        Map<String, Integer> storedOffsets = new HashMap<String, Integer>();
+        int pos = (int) cenOffset;
+        for (int entryNo = 0; entryNo < entries; entryNo++) {
+            if (buffer.getInt(pos) != CENSIG) {
+                return null;
+            }
+            int method = buffer.getShort(pos + 10) & 0xFFFF;
+            int nameLength = buffer.getShort(pos + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(pos + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(pos + 32) & 0xFFFF;
+            long locOffset = buffer.getInt(pos + 42) & 0xFFFFFFFFL;
+
+            if (method == ZipEntry.STORED && locOffset < 0xFFFFFFFFL) {
+                byte[] name = new byte[nameLength];
+                ByteBuffer nameBuffer = buffer.duplicate();
+                nameBuffer.position(pos + CENHDR);
+                nameBuffer.get(name);
+                storedOffsets.put(new String(name, StandardCharsets.UTF_8), Integer.valueOf((int) locOffset));
+            }
+            pos += CENHDR + nameLength + extraLength + commentLength;
+        }
+        return storedOffsets;
+    }
+
+    /**
+     * Answer a stream over the data of a STORED entry, read directly from the
+     * mapping.
+     *
+     * @return the stream, or null if the entry is not a STORED entry of this archive,
+     *         or cannot be read from the mapping
+     */
+    @FFDCIgnore(InternalError.class)
+    InputStream getInputStream(ZipEntry ze) {
+        if (ze.getMethod() != ZipEntry.STORED) {
+            return null;
+        }
+        Integer locOffset = storedOffsets.get(ze.getName());
+        if (locOffset == null) {
+            return null;
+        }
+
+        int loc = locOffset.intValue();
+        int dataStart;
+        try {
+            if (loc + LOCHDR > buffer.limit() || buffer.getInt(loc) != LOCSIG) {
+                return null;
+            }
+            // The local header may have a different extra field than the central directory.
+            dataStart = loc + LOCHDR + (buffer.getShort(loc + 26) & 0xFFFF) + (buffer.getShort(loc + 28) & 0xFFFF);
+        } catch (InternalError e) {
+            // The archive was truncated after it was checked; read the entry through the zip file.
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "Unable to read the local header of " + ze.getName(), e);
+            return null;
+        }
+        long size = ze.getSize();
+        if (size < 0 || dataStart + size > buffer.limit()) {
+            return null;
+        }
+
+        ByteBuffer data = buffer.duplicate();
+        data.position(dataStart);
+        data.limit(dataStart + (int) size);
+        return new ByteBufferInputStream(data.slice());
+    }
+
+    /**
+     * A stream over the remaining bytes of a buffer. A fault reading a mapped
+     * buffer, because the file under it was truncated, is thrown as an IOException.
+     */
+    static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        private int mark;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        @FFDCIgnore(InternalError.class)
+        public int read() throws IOException {
+            try {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            } catch (InternalError e) {
+                throw new IOException("The archive changed while it was read", e);
+            }
+        }
+
+        @Override
+        @FFDCIgnore(InternalError.class)
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int remaining = buffer.remaining();
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = Math.min(len, remaining);
+            try {
+                buffer.get(b, off, count);
+            } catch (InternalError e) {
+                throw new IOException("The archive changed while it was read", e);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            int count = (int) Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            mark = buffer.position();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buffer.position(mark);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.artifact.zip.cache.internal;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+
+/**
+ * A concurrent cache which is bounded by the total weight of its values, and
+ * which evicts the least recently used values first.
+ * <p>
+ * Reads do not lock: A read looks up the value and updates its access time.
+ * An insert which takes the cache over its maximum weight evicts values, under
+ * a lock, until the cache is back under its low water mark. A value which is
+ * pinned, see {@link #isPinned(Object)}, is not evicted.
+ * <p>
+ * When pinned values keep the cache above its low water mark, eviction is not
+ * tried again until the cache has grown by the gap between the maximum and the
+ * low water mark, so that a cache full of pinned values does not scan itself on
+ * every insert.
+ */
+class ZipCache<K, V> {
+    static final TraceComponent tc = Tr.register(ZipCache.class);
+
+    /** Eviction stops when the total weight is at or below this percentage of the maximum. */
+    private static final int LOW_WATER_PERCENT = 90;
+
+    private static final class Node<V> {
+        final V value;
+        final long weight;
+        volatile long lastAccess;
+
+        Node(V value, long weight, long lastAccess) {
+            this.value = value;
+            this.weight = weight;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    /** An eviction candidate, with its access time as of the start of the eviction. */
+    private static final class Candidate<K, V> implements Comparable<Candidate<K, V>> {
+        final K key;
+        final Node<V> node;
+        final long lastAccess;
+
+        Candidate(K key, Node<V> node) {
+            this.key = key;
+            this.node = node;
+            this.lastAccess = node.lastAccess;
+        }
+
+        @Override
+        public int compareTo(Candidate<K, V> other) {
+            return lastAccess < other.lastAccess ? -1 : (lastAccess == other.lastAccess ? 0 : 1);
+        }
+    }
+
+    private final String name;
+    private final long maxWeight;
+    private final long lowWaterWeight;
+
+    private final ConcurrentHashMap<K, Node<V>> map = new ConcurrentHashMap<K, Node<V>>();
+    private final AtomicLong weight = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    // The weight above which an insert evicts: the maximum weight, or more while
+    // pinned values hold the cache above its low water mark.
+    private volatile long evictionWeight;
+
+    // The access clock is not atomic: a lost tick only blurs the order of two
+    // accesses which happened at nearly the same time.
+    private volatile long clock;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    ZipCache(String name, long maxWeight) {
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.lowWaterWeight = maxWeight * LOW_WATER_PERCENT / 100;
+        this.evictionWeight = maxWeight;
+    }
+
+    /**
+     * Tell if a value must not be evicted. Pinned values still count toward
+     * the weight of the cache.
+     */
+    protected boolean isPinned(V value) {
+        return false;
+    }
+
+    private long tick() {
+        long now = clock + 1;
+        clock = now;
+        return now;
+    }
+
+    /**
+     * @return the cached value, or null if no value is cached for the key
+     */
+    V get(K key) {
+        Node<V> node = map.get(key);
+        if (node == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        node.lastAccess = tick();
+        hits.incrementAndGet();
+        return node.value;
+    }
+
+    /**
+     * Add a value to the cache, unless a value is already cached for the key.
+     * A value which is heavier than the cache is not cached.
+     *
+     * @return the value which was already cached, or null if the value was added
+     */
+    V putIfAbsent(K key, V value, long valueWeight) {
+        if (valueWeight > maxWeight) {
+            return null;
+        }
+
+        Node<V> node = new Node<V>(value, valueWeight, tick());
+        Node<V> prior = map.putIfAbsent(key, node);
+        if (prior != null) {
+            prior.lastAccess = node.lastAccess;
+            return prior.value;
+        }
+
+        if (weight.addAndGet(valueWeight) > evictionWeight) {
+            evict();
+        }
+        return null;
+    }
+
+    /**
+     * Evict the least recently used values which are not pinned, until the
+     * weight of the cache is at or below the low water mark. Only one thread
+     * evicts at a time; other threads which exceed the maximum weight leave
+     * the eviction to that thread.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (weight.get() <= evictionWeight) {
+                return;
+            }
+
+            // Only values which can be evicted are sorted.  Access times are read
+            // once: they may change while the candidates are sorted.
+            List<Candidate<K, V>> candidates = new ArrayList<Candidate<K, V>>();
+            for (Map.Entry<K, Node<V>> entry : map.entrySet()) {
+                if (!isPinned(entry.getValue().value)) {
+                    candidates.add(new Candidate<K, V>(entry.getKey(), entry.getValue()));
+                }
+            }
+            Collections.sort(candidates);
+
+            int evicted = 0;
+            for (Candidate<K, V> candidate : candidates) {
+                if (weight.get() <= lowWaterWeight) {
+                    break;
+                }
+                // A value may have been pinned since the candidates were collected.
+                if (isPinned(candidate.node.value)) {
+                    continue;
+                }
+                if (map.remove(candidate.key, candidate.node)) {
+                    weight.addAndGet(-candidate.node.weight);
+                    evicted++;
+                }
+            }
+            evictions.addAndGet(evicted);
+
+            long remaining = weight.get();
+            evictionWeight = remaining <= lowWaterWeight ? maxWeight : Math.max(maxWeight, remaining + maxWeight - lowWaterWeight);
+
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, name + ": evicted " + evicted + ", weight now " + remaining + " of " + maxWeight + ", next eviction above " + evictionWeight);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    long getWeight() {
+        return weight.get();
+    }
+
+    long getMaxWeight() {
+        return maxWeight;
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    void introspect(PrintWriter out) {
+        out.println(name + ":");
+        out.println("  entries:   " + size());
+        out.println("  weight:    " + getWeight() + " of " + getMaxWeight());
+        out.println("  hits:      " + getHits());
+        out.println("  misses:    " + getMisses());
+        out.println("  evictions: " + getEvictions());
+    }
+}
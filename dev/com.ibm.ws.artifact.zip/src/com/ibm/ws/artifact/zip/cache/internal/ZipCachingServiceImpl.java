@@ -11,42 +11,76 @@
 package com.ibm.ws.artifact.zip.cache.internal;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.Map;
+import java.io.PrintWriter;
 
 import com.ibm.ws.artifact.zip.cache.ZipCachingService;
 import com.ibm.ws.artifact.zip.cache.ZipFileHandle;
+import com.ibm.wsspi.logging.Introspector;
 
 /**
  *
  */
-public class ZipCachingServiceImpl implements ZipCachingService {
+public class ZipCachingServiceImpl implements ZipCachingService, Introspector {
 
+    // Handles are weighed by count: the cost of a handle is the open zip file, not its size.
     final private static int MAXCACHE = 250;
-    final private static Map<String, ZipFileHandle> cache = Collections.synchronizedMap(new CacheHashMap<String, ZipFileHandle>(MAXCACHE));
+    final private static ZipCache<String, ZipFileHandleImpl> cache = newHandleCache(MAXCACHE);
+
+    /**
+     * Create a handle cache. Open handles are pinned: evicting one would let a
+     * second handle open the same archive.
+     */
+    static ZipCache<String, ZipFileHandleImpl> newHandleCache(int maxHandles) {
+        return new ZipCache<String, ZipFileHandleImpl>("Zip file handle cache", maxHandles) {
+            @Override
+            protected boolean isPinned(ZipFileHandleImpl handle) {
+                return handle.isOpen();
+            }
+        };
+    }
 
     // PK72252 - Returns a ZipFileHandle that has been referenced.  Callers are
     // required to call close() when the ZipFile is no longer needed.
     private static ZipFileHandle internalOpenZipFile(String path) throws IOException {
-        ZipFileHandle handle;
+        ZipFileHandleImpl handle;
 
         //MUST NOT RETURN NULL.
 
-        //optimistic threadsafe cache usage.. 
+        //lock free cache lookup.. 
         handle = cache.get(path);
-        //handle was not in cache.. add it & remove oldest if needed.
+        //handle was not in cache.. add it & evict the least recently used if needed.
         if (handle == null) {
             handle = new ZipFileHandleImpl(path);
-            //because we were not sync'd on anything, this could mean 2 threads built their own handle,
-            //but only the last thread will win & get it's handle into the cache.. not too much of a problem.
-            cache.put(path, handle);
+            //two threads may build their own handle, but only the first
+            //gets its handle into the cache, and both use that handle.
+            ZipFileHandleImpl cachedHandle = cache.putIfAbsent(path, handle, 1);
+            if (cachedHandle != null) {
+                handle = cachedHandle;
+            }
         }
 
         return handle;
     }
 
+    @Override
     public ZipFileHandle openZipFile(String path) throws IOException {
         return ZipCachingServiceImpl.internalOpenZipFile(path);
     }
 
+    @Override
+    public String getIntrospectorName() {
+        return "ZipCachingIntrospector";
+    }
+
+    @Override
+    public String getIntrospectorDescription() {
+        return "Zip file handle and zip entry data cache statistics";
+    }
+
+    @Override
+    public void introspect(PrintWriter out) {
+        cache.introspect(out);
+        out.println();
+        ZipFileHandleImpl.dataCache.introspect(out);
+    }
 }
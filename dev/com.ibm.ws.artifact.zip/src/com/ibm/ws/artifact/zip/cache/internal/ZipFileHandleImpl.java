@@ -18,8 +18,6 @@ import java.io.InputStream;
 import java.io.PrintStream;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.Collections;
-import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -38,7 +36,18 @@ public class ZipFileHandleImpl implements ZipFileHandle {
     private final String path;
     private final File file;
     private ZipFile zipFile;
-    private int refs;
+    private volatile int refs;
+
+    // The last modified time of the archive when the zip file was opened.
+    // Used to key cached entry data, without a file system call per read.
+    private volatile long zipFileLastModified;
+
+    // Mapping of the archive, used to read STORED entries.  Created on the first
+    // read of a STORED entry, and released when the zip file is closed.  Reads use
+    // the mapping without locking; whether it is still current is only checked when
+    // the handle is opened.
+    private volatile MappedZipArchive mappedArchive;
+    private volatile boolean mappingAttempted;
 
     ZipFileHandleImpl(String path) {
         this.path = path;
@@ -55,6 +64,13 @@ public class ZipFileHandleImpl implements ZipFileHandle {
             if (tc.isDebugEnabled())
                 Tr.debug(tc, "[" + this.hashCode() + "] Opening FileHandle to " + path);
             zipFile = Utils.newZipFile(file);
+            zipFileLastModified = getLastModified();
+        } else if (mappedArchive != null && !mappedArchive.isCurrent(file)) {
+            // A mapping of an archive which has since been replaced or truncated may fault
+            // on read. Drop it, and read through the zip file until the handle is reopened.
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "[" + this.hashCode() + "] " + path + " changed since it was mapped; reading through the zip file");
+            mappedArchive = null;
         }
         refs++;
         if (tc.isDebugEnabled())
@@ -98,13 +114,51 @@ public class ZipFileHandleImpl implements ZipFileHandle {
                 //instrumented ffdc.
             } finally {
                 zipFile = null;
+                mappedArchive = null;
+                mappingAttempted = false;
             }
         }
     }
 
+    /**
+     * Tell if the zip file of this handle is open. An open handle is pinned in
+     * the handle cache: evicting it would let a second handle open the same archive.
+     */
+    boolean isOpen() {
+        return refs > 0;
+    }
+
+    private MappedZipArchive getMappedArchive() {
+        MappedZipArchive archive = mappedArchive;
+        if (archive != null || mappingAttempted) {
+            return archive;
+        }
+        return mapArchive();
+    }
+
+    private synchronized MappedZipArchive mapArchive() {
+        if (!mappingAttempted && zipFile != null) {
+            mappedArchive = MappedZipArchive.map(file);
+            mappingAttempted = true;
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "[" + this.hashCode() + "] Mapped " + path + ": " + (mappedArchive != null));
+        }
+        return mappedArchive;
+    }
+
     final private static int MAX_CACHE_ENTRY_SIZE = 8192;
-    final private static int MAX_CACHE_ENTRIES = 16;
-    final private static Map<String, byte[]> dataCache = Collections.synchronizedMap(new CacheHashMap<String, byte[]>(MAX_CACHE_ENTRIES));
+    final private static int MAX_CACHE_BYTES = 1024 * 1024;
+    final static ZipCache<String, byte[]> dataCache = new ZipCache<String, byte[]>("Zip entry data cache", MAX_CACHE_BYTES);
+
+    // Memory mapping holds the archive open until the mapping is collected, which
+    // on Windows prevents the archive from being replaced.
+    final private static boolean MAP_STORED_ENTRIES = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+        @Override
+        public Boolean run() {
+            return !Boolean.getBoolean("com.ibm.ws.artifact.zip.disableMapping")
+                   && !System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+        }
+    });
 
     private byte[] readDataToByteArray(InputStream in) throws IOException {
         if (in == null) {
@@ -149,14 +203,26 @@ public class ZipFileHandleImpl implements ZipFileHandle {
      */
     @Override
     public InputStream getInputStream(ZipFile zf, ZipEntry ze) throws IOException {
-        //entry was small enough that it might be in cache, or need to be put there.
         long size = ze.getSize();
+
+        //STORED entries are read straight from the mapped archive, with no copy.
+        if (MAP_STORED_ENTRIES && size > 0 && ze.getMethod() == ZipEntry.STORED) {
+            MappedZipArchive archive = getMappedArchive();
+            if (archive != null) {
+                InputStream in = archive.getInputStream(ze);
+                if (in != null) {
+                    return in;
+                }
+            }
+        }
+
+        //entry was small enough that it might be in cache, or need to be put there.
         if (size < MAX_CACHE_ENTRY_SIZE && size > 0 && !ze.getName().endsWith(".class")) {
             //build a key that includes the entry crc, if the zip changes, we'll only return stale data if the crc clashes.. 
             //which is pretty remote.. 
             String path = ze.getName();
             path += ":::" + ze.getCrc();
-            path += ":::" + getLastModified();
+            path += ":::" + zipFileLastModified;
 
             byte[] data = dataCache.get(path);
             if (data != null) {
@@ -166,8 +232,8 @@ public class ZipFileHandleImpl implements ZipFileHandle {
                 if (data != null) {
                     //no sync block means that we might in a race condition
                     //retrieve the inputstream multiple times, but only the 
-                    //last one will end up in the cache, this is fine.
-                    dataCache.put(path, data);
+                    //first one will end up in the cache, this is fine.
+                    dataCache.putIfAbsent(path, data, data.length);
                     return new ByteArrayInputStream(data);
                 }
             }
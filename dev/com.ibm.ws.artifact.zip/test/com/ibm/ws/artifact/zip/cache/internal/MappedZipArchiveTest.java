@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.artifact.zip.cache.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for reading STORED entries through a mapping of the archive.
+ */
+public class MappedZipArchiveTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static byte[] data(int size, int seed) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31 + seed);
+        }
+        return data;
+    }
+
+    private static void putEntry(ZipOutputStream zos, String name, byte[] data, boolean stored) throws IOException {
+        ZipEntry ze = new ZipEntry(name);
+        if (stored) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            ze.setMethod(ZipEntry.STORED);
+            ze.setSize(data.length);
+            ze.setCompressedSize(data.length);
+            ze.setCrc(crc.getValue());
+        }
+        zos.putNextEntry(ze);
+        zos.write(data);
+        zos.closeEntry();
+    }
+
+    private File createArchive(String name) throws IOException {
+        File file = tmp.newFile(name);
+        ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            putEntry(zos, "a/stored.bin", data(100000, 1), true);
+            putEntry(zos, "a/deflated.bin", data(1000, 2), false);
+            putEntry(zos, "b/stored.txt", "stored text".getBytes("UTF-8"), true);
+        } finally {
+            zos.close();
+        }
+        return file;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int count;
+            while ((count = in.read(buf)) != -1) {
+                baos.write(buf, 0, count);
+            }
+            return baos.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testStoredEntriesMatchZipFile() throws Exception {
+        File file = createArchive("test.zip");
+        MappedZipArchive archive = MappedZipArchive.map(file);
+        assertNotNull(archive);
+        assertTrue(archive.isCurrent(file));
+
+        ZipFile zf = new ZipFile(file);
+        try {
+            ZipEntry stored = zf.getEntry("a/stored.bin");
+            assertArrayEquals(readAll(zf.getInputStream(stored)), readAll(archive.getInputStream(stored)));
+            ZipEntry text = zf.getEntry("b/stored.txt");
+            assertArrayEquals(readAll(zf.getInputStream(text)), readAll(archive.getInputStream(text)));
+
+            // only STORED entries are read from the mapping
+            assertNull(archive.getInputStream(zf.getEntry("a/deflated.bin")));
+            ZipEntry unknown = new ZipEntry("c/unknown.bin");
+            unknown.setMethod(ZipEntry.STORED);
+            unknown.setSize(10);
+            assertNull(archive.getInputStream(unknown));
+        } finally {
+            zf.close();
+        }
+    }
+
+    @Test
+    public void testMalformedArchiveIsNotMapped() throws Exception {
+        File file = tmp.newFile("bad.zip");
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(data(1000, 3));
+        } finally {
+            fos.close();
+        }
+        assertNull(MappedZipArchive.map(file));
+    }
+
+    @Test
+    public void testChangedArchiveIsNotCurrent() throws Exception {
+        File file = createArchive("changed.zip");
+        MappedZipArchive archive = MappedZipArchive.map(file);
+        assertNotNull(archive);
+
+        assertTrue(file.setLastModified(file.lastModified() - 10000));
+        assertFalse(archive.isCurrent(file));
+
+        archive = MappedZipArchive.map(file);
+        assertNotNull(archive);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(raf.length() + 1);
+        } finally {
+            raf.close();
+        }
+        assertFalse(archive.isCurrent(file));
+
+        assertTrue(file.delete());
+        assertFalse(archive.isCurrent(file));
+    }
+
+    @Test
+    public void testTruncatedArchiveFailsWithIOException() throws Exception {
+        // Windows does not allow a mapped file to be truncated.
+        Assume.assumeTrue(!System.getProperty("os.name", "").toLowerCase().startsWith("windows"));
+
+        File file = createArchive("truncated.zip");
+        MappedZipArchive archive = MappedZipArchive.map(file);
+        assertNotNull(archive);
+
+        ZipEntry stored;
+        ZipFile zf = new ZipFile(file);
+        try {
+            stored = zf.getEntry("a/stored.bin");
+        } finally {
+            zf.close();
+        }
+        InputStream in = archive.getInputStream(stored);
+        assertNotNull(in);
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+        } finally {
+            raf.close();
+        }
+        assertFalse(archive.isCurrent(file));
+
+        // the pages of the mapping are gone: the read must fail, not crash the process
+        try {
+            readAll(in);
+            fail("read a truncated mapping");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
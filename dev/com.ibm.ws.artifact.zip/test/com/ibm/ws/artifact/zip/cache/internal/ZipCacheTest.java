@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.artifact.zip.cache.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the eviction of values from the zip caches.
+ */
+public class ZipCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    /** A cache which pins the values in a set, and counts the pin checks. */
+    private static class PinningCache extends ZipCache<String, String> {
+        final Set<String> pinned = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        final AtomicInteger pinChecks = new AtomicInteger();
+
+        PinningCache(long maxWeight) {
+            super("test cache", maxWeight);
+        }
+
+        @Override
+        protected boolean isPinned(String value) {
+            pinChecks.incrementAndGet();
+            return pinned.contains(value);
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedAreEvicted() {
+        ZipCache<String, String> cache = new ZipCache<String, String>("test cache", 10);
+        for (int i = 0; i < 10; i++) {
+            assertNull(cache.putIfAbsent("k" + i, "v" + i, 1));
+        }
+        assertEquals(10, cache.getWeight());
+        assertEquals(0, cache.getEvictions());
+
+        // k0 becomes the most recently used value
+        assertEquals("v0", cache.get("k0"));
+        assertNull(cache.putIfAbsent("k10", "v10", 1));
+
+        // evicted down to the low water mark, least recently used first
+        assertEquals(9, cache.getWeight());
+        assertEquals(9, cache.size());
+        assertEquals(2, cache.getEvictions());
+        assertNull(cache.get("k1"));
+        assertNull(cache.get("k2"));
+        assertEquals("v0", cache.get("k0"));
+        assertEquals("v3", cache.get("k3"));
+        assertEquals("v10", cache.get("k10"));
+    }
+
+    @Test
+    public void testExistingValueIsKept() {
+        ZipCache<String, String> cache = new ZipCache<String, String>("test cache", 10);
+        assertNull(cache.putIfAbsent("k", "first", 1));
+        assertEquals("first", cache.putIfAbsent("k", "second", 1));
+        assertEquals("first", cache.get("k"));
+        assertEquals(1, cache.getWeight());
+
+        // a value heavier than the cache is not cached
+        assertNull(cache.putIfAbsent("heavy", "heavy", 11));
+        assertNull(cache.get("heavy"));
+        assertEquals(1, cache.getWeight());
+    }
+
+    @Test
+    public void testPinnedValuesAreNotEvicted() {
+        PinningCache cache = new PinningCache(100);
+        for (int i = 0; i < 101; i++) {
+            cache.pinned.add("v" + i);
+            cache.putIfAbsent("k" + i, "v" + i, 1);
+        }
+        // the eviction found nothing to evict
+        assertEquals(101, cache.size());
+        assertEquals(0, cache.getEvictions());
+        int checks = cache.pinChecks.get();
+        assertEquals(101, checks);
+
+        // no scan of the cache until it has grown by the gap to the low water mark
+        for (int i = 101; i < 111; i++) {
+            cache.pinned.add("v" + i);
+            cache.putIfAbsent("k" + i, "v" + i, 1);
+        }
+        assertEquals(checks, cache.pinChecks.get());
+        cache.pinned.add("v111");
+        cache.putIfAbsent("k111", "v111", 1);
+        assertEquals(checks + 112, cache.pinChecks.get());
+        assertEquals(112, cache.size());
+        assertEquals(0, cache.getEvictions());
+
+        // once unpinned, the values are evicted again
+        cache.pinned.clear();
+        for (int i = 112; cache.getEvictions() == 0; i++) {
+            assertTrue("no eviction after " + i + " values", i < 200);
+            cache.putIfAbsent("k" + i, "v" + i, 1);
+        }
+        assertEquals(90, cache.getWeight());
+    }
+
+    @Test
+    public void testOpenHandlesAreNotEvicted() throws Exception {
+        ZipCache<String, ZipFileHandleImpl> cache = ZipCachingServiceImpl.newHandleCache(10);
+
+        List<ZipFileHandleImpl> open = new ArrayList<ZipFileHandleImpl>();
+        List<ZipFileHandleImpl> closed = new ArrayList<ZipFileHandleImpl>();
+        try {
+            // the open handles are the least recently used
+            for (int i = 0; i < 5; i++) {
+                ZipFileHandleImpl handle = new ZipFileHandleImpl(createArchive("open" + i + ".zip").getPath());
+                handle.open();
+                open.add(handle);
+                assertNull(cache.putIfAbsent("open" + i, handle, 1));
+            }
+            for (int i = 0; i < 6; i++) {
+                ZipFileHandleImpl handle = new ZipFileHandleImpl(createArchive("closed" + i + ".zip").getPath());
+                closed.add(handle);
+                assertNull(cache.putIfAbsent("closed" + i, handle, 1));
+            }
+
+            assertEquals(9, cache.size());
+            assertEquals(2, cache.getEvictions());
+            for (int i = 0; i < 5; i++) {
+                assertSame(open.get(i), cache.get("open" + i));
+            }
+            assertNull(cache.get("closed0"));
+            assertNull(cache.get("closed1"));
+            assertNotNull(cache.get("closed2"));
+        } finally {
+            for (ZipFileHandleImpl handle : open) {
+                handle.close();
+            }
+        }
+    }
+
+    private File createArchive(String name) throws IOException {
+        File file = tmp.newFile(name);
+        ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            zos.putNextEntry(new ZipEntry("entry.txt"));
+            zos.write(name.getBytes("UTF-8"));
+            zos.closeEntry();
+        } finally {
+            zos.close();
+        }
+        return file;
+    }
+}
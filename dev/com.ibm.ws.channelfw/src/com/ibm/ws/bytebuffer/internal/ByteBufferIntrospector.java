@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.bytebuffer.internal;
+
+import java.io.PrintWriter;
+
+import org.osgi.framework.Constants;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Reference;
+
+import com.ibm.wsspi.bytebuffer.WsByteBufferPoolManager;
+import com.ibm.wsspi.logging.Introspector;
+
+/**
+ * Reports the hit, miss and steal counts of the WsByteBuffer pools.
+ */
+@Component(immediate = true,
+           configurationPolicy = ConfigurationPolicy.IGNORE,
+           property = { Constants.SERVICE_VENDOR + "=" + "IBM" })
+public class ByteBufferIntrospector implements Introspector {
+
+    @Reference
+    private ByteBufferConfiguration config;
+
+    /*
+     * @see com.ibm.wsspi.logging.Introspector#getIntrospectorName()
+     */
+    @Override
+    public String getIntrospectorName() {
+        return "ByteBufferIntrospector";
+    }
+
+    /*
+     * @see com.ibm.wsspi.logging.Introspector#getIntrospectorDescription()
+     */
+    @Override
+    public String getIntrospectorDescription() {
+        return "WsByteBuffer pool statistics";
+    }
+
+    /*
+     * @see com.ibm.wsspi.logging.Introspector#introspect(java.io.PrintWriter)
+     */
+    @Override
+    public void introspect(PrintWriter out) throws Exception {
+        WsByteBufferPoolManager mgr = config.getBufferManager();
+        if (mgr instanceof WsByteBufferPoolManagerImpl) {
+            ((WsByteBufferPoolManagerImpl) mgr).introspect(out);
+        } else {
+            out.println("No WsByteBufferPoolManagerImpl configured");
+        }
+    }
+}
@@ -10,10 +10,13 @@
  *******************************************************************************/
 package com.ibm.ws.bytebuffer.internal;
 
+import java.io.PrintWriter;
+
 import com.ibm.websphere.ras.Tr;
 import com.ibm.websphere.ras.TraceComponent;
 import com.ibm.wsspi.channelfw.objectpool.ObjectDestroyer;
 import com.ibm.wsspi.channelfw.objectpool.ObjectFactory;
+import com.ibm.wsspi.channelfw.objectpool.ShardedObjectPool;
 import com.ibm.wsspi.channelfw.objectpool.TwoTierObjectPool;
 
 /**
@@ -25,6 +28,7 @@ public class WsByteBufferPool {
     private int globalPoolSize;
     private int localThreadPoolSize;
     private TwoTierObjectPool pool = null;
+    private ShardedObjectPool shardedPool = null;
     private WsByteBufferFactory wsbbFactory = null;
 
     int intUniqueCounter = 0;
@@ -45,6 +49,22 @@ public class WsByteBufferPool {
      * @param cleanUpOld
      */
     public WsByteBufferPool(int entrySizeIn, int _localPoolSize, int _globalPoolSize, boolean tracking, boolean isDirectPool, boolean cleanUpOld) { // @427758C
+        this(entrySizeIn, _localPoolSize, _globalPoolSize, tracking, isDirectPool, cleanUpOld, false);
+    }
+
+    /**
+     * Create the pool and obtain the values for the size of the pool
+     * entries and the pool depth.
+     * 
+     * @param entrySizeIn
+     * @param _localPoolSize
+     * @param _globalPoolSize
+     * @param tracking
+     * @param isDirectPool
+     * @param cleanUpOld
+     * @param sharded use per-thread magazines backed by a per-processor sharded depot
+     */
+    public WsByteBufferPool(int entrySizeIn, int _localPoolSize, int _globalPoolSize, boolean tracking, boolean isDirectPool, boolean cleanUpOld, boolean sharded) {
 
         this.intEntrySize = entrySizeIn;
         this.globalPoolSize = _globalPoolSize;
@@ -54,18 +74,28 @@ public class WsByteBufferPool {
                          this.toString() +
                          " direct=" + isDirectPool +
                          " backing pool size: " + this.globalPoolSize +
-                         " local thread pool size: " + this.localThreadPoolSize);
+                         " local thread pool size: " + this.localThreadPoolSize +
+                         " sharded=" + sharded);
         }
         this.wsbbFactory = new WsByteBufferFactory();
 
-        if (isDirectPool) {
-            this.pool = new TwoTierObjectPool(localThreadPoolSize, globalPoolSize, wsbbFactory, wsbbFactory, tracking);
+        if (sharded) {
+            // sharded pools do not age out idle entries, so cleanUpOld does not apply
+            if (isDirectPool) {
+                this.shardedPool = new ShardedObjectPool(localThreadPoolSize, globalPoolSize, wsbbFactory, wsbbFactory, tracking);
+            } else {
+                this.shardedPool = new ShardedObjectPool(localThreadPoolSize, globalPoolSize, wsbbFactory, null, tracking);
+            }
         } else {
-            this.pool = new TwoTierObjectPool(localThreadPoolSize, globalPoolSize, wsbbFactory, null, tracking);
-        }
+            if (isDirectPool) {
+                this.pool = new TwoTierObjectPool(localThreadPoolSize, globalPoolSize, wsbbFactory, wsbbFactory, tracking);
+            } else {
+                this.pool = new TwoTierObjectPool(localThreadPoolSize, globalPoolSize, wsbbFactory, null, tracking);
+            }
 
-        if (!cleanUpOld) {
-            this.pool.doNotCleanUpOld();
+            if (!cleanUpOld) {
+                this.pool.doNotCleanUpOld();
+            }
         }
     }
 
@@ -117,6 +147,9 @@ public class WsByteBufferPool {
      * @return PooledWsByteBufferImpl
      */
     public PooledWsByteBufferImpl getEntry() {
+        if (null != this.shardedPool) {
+            return (PooledWsByteBufferImpl) this.shardedPool.get();
+        }
         return (PooledWsByteBufferImpl) this.pool.get();
     }
 
@@ -128,6 +161,10 @@ public class WsByteBufferPool {
      * @param entryID
      */
     public void release(Object buffer, Object entryID) {
+        if (null != this.shardedPool) {
+            this.shardedPool.put(buffer);
+            return;
+        }
         this.pool.put(buffer);
     }
 
@@ -137,6 +174,9 @@ public class WsByteBufferPool {
      * @return Object[] an array of Objects representing the inUse table
      */
     public Object[] getInUse() {
+        if (null != this.shardedPool) {
+            return (this.shardedPool.getInUseTable());
+        }
         return (this.pool.getInUseTable());
     }
 
@@ -147,6 +187,10 @@ public class WsByteBufferPool {
      * @param buffer to be released.
      */
     public void removeFromInUse(Object buffer) {
+        if (null != this.shardedPool) {
+            this.shardedPool.removeFromInUse(buffer);
+            return;
+        }
         this.pool.removeFromInUse(buffer);
     }
 
@@ -173,6 +217,28 @@ public class WsByteBufferPool {
      * 
      */
     public void purgeThreadLocal() {
+        if (null != this.shardedPool) {
+            this.shardedPool.purgeThreadLocal();
+            return;
+        }
         this.pool.purgeThreadLocal();
     }
+
+    /**
+     * Write the hit, miss and steal counts of this pool. Only sharded
+     * pools keep these statistics.
+     * 
+     * @param out
+     */
+    public void introspect(PrintWriter out) {
+        out.print("  " + this.intEntrySize + " byte entries: ");
+        if (null == this.shardedPool) {
+            out.println("not sharded");
+        } else {
+            out.println("hits=" + this.shardedPool.getHitCount() +
+                        " misses=" + this.shardedPool.getMissCount() +
+                        " steals=" + this.shardedPool.getStealCount() +
+                        " shards=" + this.shardedPool.getShardCount());
+        }
+    }
 }
@@ -13,6 +13,7 @@ package com.ibm.ws.bytebuffer.internal;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Date;
@@ -86,6 +87,7 @@ public class WsByteBufferPoolManagerImpl implements WsByteBufferPoolManager {
     private static final String POOL_SIZES = "poolSizes";
     private static final String POOL_DEPTHS = "poolDepths";
     private static final String CLEAN_UP = "cleanUp";
+    private static final String SHARDED = "sharded";
     private static final String CONFIG_ALIAS = "bytebuffer";
 
     private boolean trustedUsers = false;
@@ -96,6 +98,9 @@ public class WsByteBufferPoolManagerImpl implements WsByteBufferPoolManager {
 
     protected boolean cleanUpOld = false;
 
+    /** Whether pools use per-thread magazines backed by a sharded depot */
+    protected boolean sharded = false;
+
     /**
      * Create the one WsByteBufferPool Manager that is to be used.
      * @param directByteBufferHelper 
@@ -175,6 +180,11 @@ public class WsByteBufferPoolManagerImpl implements WsByteBufferPoolManager {
                     continue;
                 }
 
+                if (key.equalsIgnoreCase(SHARDED)) {
+                    sharded = MetatypeUtils.parseBoolean(CONFIG_ALIAS, SHARDED, value, sharded);
+                    continue;
+                }
+
                 Tr.warning(tc, MessageConstants.UNRECOGNIZED_CUSTOM_PROPERTY, new Object[] { key });
             }
         } catch (NumberFormatException x) {
@@ -309,9 +319,9 @@ public class WsByteBufferPoolManagerImpl implements WsByteBufferPoolManager {
         for (int i = 0; i < len; i++) {
             // make backing pool 10 times larger than local pools
             this.pools[i] = new WsByteBufferPool(
-                            bSizes[i], bDepths[i], bDepths[i] * 10, tracking, false, cleanUpOld);
+                            bSizes[i], bDepths[i], bDepths[i] * 10, tracking, false, cleanUpOld, sharded);
             this.poolsDirect[i] = new WsByteBufferPool(
-                            bSizes[i], bDepths[i], bDepths[i] * 10, tracking, true, cleanUpOld);
+                            bSizes[i], bDepths[i], bDepths[i] * 10, tracking, true, cleanUpOld, sharded);
             this.poolSizes[i] = bSizes[i];
         }
 
@@ -1013,4 +1023,21 @@ public class WsByteBufferPoolManagerImpl implements WsByteBufferPoolManager {
             this.poolsDirect[i].purgeThreadLocal();
         }
     }
+
+    /**
+     * Write the statistics of each of the heap and direct buffer pools.
+     * 
+     * @param out
+     */
+    public void introspect(PrintWriter out) {
+        out.println("Sharded pools: " + this.sharded);
+        out.println("Heap buffer pools:");
+        for (int i = 0; i < this.poolSizes.length; i++) {
+            this.pools[i].introspect(out);
+        }
+        out.println("Direct buffer pools:");
+        for (int i = 0; i < this.poolSizes.length; i++) {
+            this.poolsDirect[i].introspect(out);
+        }
+    }
 }
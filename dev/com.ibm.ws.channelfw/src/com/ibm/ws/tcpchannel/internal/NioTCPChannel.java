@@ -53,6 +53,9 @@ public class NioTCPChannel extends TCPChannel {
             connectionManager = new ConnectionManager(this, workQueueManager);
         }
 
+        if (config.isInbound()) {
+            workQueueManager.setSelectorShards(config.getSelectorShards());
+        }
         workQueueManager.startSelectors(config.isInbound());
 
         if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) {
@@ -22,6 +22,7 @@ import java.util.Set;
 
 import com.ibm.websphere.ras.Tr;
 import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.wsspi.bytebuffer.WsByteBuffer;
 import com.ibm.wsspi.channelfw.VirtualConnection;
 
 /**
@@ -35,6 +36,8 @@ public class SocketRWChannelSelector extends ChannelSelector implements Runnable
     private final int channelType;
     private final int wakeupOption;
     private boolean wakeupNeeded = false;
+    // selector shards are never retired when idle
+    private final boolean shard;
 
     /**
      * Create a new SocketRWChannelSelector.
@@ -54,7 +57,31 @@ public class SocketRWChannelSelector extends ChannelSelector implements Runnable
      * @throws IOException
      */
     protected SocketRWChannelSelector(int _wakeupOption, WorkQueueManager _wqm, int _index, int _channelType, boolean _checkCancel) throws IOException {
+        this(_wakeupOption, _wqm, _index, _channelType, _checkCancel, false);
+    }
+
+    /**
+     * Create a new SocketRWChannelSelector.
+     * 
+     * @param _wakeupOption
+     *            specifies the algorithm to use to decide if the
+     *            selector should be woken up after adding work to its work queue
+     * @param _wqm
+     *            Work queue that this thread is to service.
+     * @param _index
+     *            the index within a group of the same type of selector that
+     *            this one is. This is used for pruning.
+     * @param _channelType
+     *            what kind of channel this object is serving
+     * @param _checkCancel
+     *            pass to the super constructor
+     * @param _shard
+     *            whether this selector is one of a fixed set of selector shards
+     * @throws IOException
+     */
+    protected SocketRWChannelSelector(int _wakeupOption, WorkQueueManager _wqm, int _index, int _channelType, boolean _checkCancel, boolean _shard) throws IOException {
         super(_checkCancel);
+        this.shard = _shard;
         this.wqm = _wqm;
         this.countIndex = _index;
         this.channelType = _channelType;
@@ -127,6 +154,19 @@ public class SocketRWChannelSelector extends ChannelSelector implements Runnable
             }
 
             if (completeOperation) {
+                if (isInlineRead(req)) {
+                    // small read, do the socket read on this thread and only
+                    // hand off the callback. If the read is not complete, leave
+                    // the key selected for the rest of the data.
+                    if (wqm.attemptInlineRead(req)) {
+                        try {
+                            selectedKey.interestOps(0);
+                        } catch (CancelledKeyException cke) {
+                            // ignore, since we already got the key and the data
+                        }
+                    }
+                    continue;
+                }
                 // try to dispatch request. if it fails, just leave key alone,
                 // and it should get selected and tried again the next time through
                 // the selector.
@@ -157,6 +197,36 @@ public class SocketRWChannelSelector extends ChannelSelector implements Runnable
         return false;
     }
 
+    /**
+     * Check whether a selected request is an asynchronous read that is small
+     * enough to be read from the socket on the selector thread, as configured
+     * for the channel that owns the connection.
+     * 
+     * @param req
+     * @return boolean
+     */
+    private boolean isInlineRead(TCPBaseRequestContext req) {
+        if (!req.isRequestTypeRead() || req.blockedThread) {
+            return false;
+        }
+        final int limit = req.getConfig().getSelectorInlineReadSize();
+        if (limit <= 0) {
+            return false;
+        }
+        long size = 0L;
+        WsByteBuffer[] buffers = req.getBuffers();
+        if (null == buffers) {
+            size = ((TCPReadRequestContextImpl) req).getJITAllocateSize();
+        } else {
+            for (WsByteBuffer buffer : buffers) {
+                if (null != buffer) {
+                    size += buffer.remaining();
+                }
+            }
+        }
+        return size <= limit;
+    }
+
     /*
      * @see com.ibm.ws.tcpchannel.internal.ChannelSelector#updateSelector()
      */
@@ -365,8 +435,8 @@ public class SocketRWChannelSelector extends ChannelSelector implements Runnable
             Tr.debug(this, tc, "checkForTimeouts - checking " + selectorKeys.size() + " keys for timeouts");
         }
         if (selectorKeys.isEmpty()) {
-            // if this isn't the primary (first) selector, see if it should be closed
-            if (countIndex > 0) {
+            // if this isn't the primary (first) selector or a shard, see if it should be closed
+            if (countIndex > 0 && !shard) {
                 // if we have already been waiting, and still no keys, and this
                 // isn't the primary selector, we should close this
                 if (waitingToQuit) {
@@ -41,6 +41,8 @@ public class TCPChannelConfiguration implements TCPConfigConstants, FFDCSelfIntr
     protected static final String COMM_OPTION = "commOption";
     protected static final String DUMP_STATS_INTERVAL = "dumpStatsInterval";
     protected static final String GROUPNAME = "workGroup";
+    protected static final String SELECTOR_SHARDS = "selectorShards";
+    protected static final String INLINE_READ_SIZE = "selectorInlineReadSize";
 
     // internal custom properties
     protected static final String ENDPOINT_NAME = "endPointName";
@@ -79,6 +81,8 @@ public class TCPChannelConfiguration implements TCPConfigConstants, FFDCSelfIntr
     private boolean waitToAccept = false;
     private int dumpStatsInterval = 0;
     private String endPointName = null;
+    private int selectorShards = 0;
+    private int selectorInlineReadSize = 0;
 
     private static final int COMM_OPTION_FORCE_NIO = 0;
     private static final int COMM_OPTION_DONT_FORCE_NIO = 1;
@@ -338,6 +342,26 @@ public class TCPChannelConfiguration implements TCPConfigConstants, FFDCSelfIntr
                         // just ignore this
                         continue;
                     }
+
+                    if (key.equalsIgnoreCase(SELECTOR_SHARDS)) {
+                        // convert and check
+                        keyType = ValidateUtils.KEY_TYPE_INT;
+                        minValue = ValidateUtils.SELECTOR_SHARDS_MIN;
+                        maxValue = ValidateUtils.SELECTOR_SHARDS_MAX;
+                        this.selectorShards = convertIntegerValue(value);
+                        result = ValidateUtils.testSelectorShards(this.selectorShards);
+                        continue;
+                    }
+
+                    if (key.equalsIgnoreCase(INLINE_READ_SIZE)) {
+                        // convert and check
+                        keyType = ValidateUtils.KEY_TYPE_INT;
+                        minValue = ValidateUtils.INLINE_READ_SIZE_MIN;
+                        maxValue = ValidateUtils.INLINE_READ_SIZE_MAX;
+                        this.selectorInlineReadSize = convertIntegerValue(value);
+                        result = ValidateUtils.testInlineReadSize(this.selectorInlineReadSize);
+                        continue;
+                    }
                 } else {
                     // outbound only configuration parameters
                     if (key.equalsIgnoreCase(ADDR_EXC_LIST)) {
@@ -553,6 +577,7 @@ public class TCPChannelConfiguration implements TCPConfigConstants, FFDCSelfIntr
         // config vars which can be changed
         int maxOpenConnectionsNew = this.maxOpenConnections;
         int inactivityTimeoutNew = this.inactivityTimeout;
+        int inlineReadSizeNew = this.selectorInlineReadSize;
         String[] addressExcludeListNew = null;
         String[] addressIncludeListNew = null;
         String[] hostNameExcludeListNew = null;
@@ -686,6 +711,26 @@ public class TCPChannelConfiguration implements TCPConfigConstants, FFDCSelfIntr
                         // just ignore this
                         continue;
                     }
+
+                    if (key.equalsIgnoreCase(SELECTOR_SHARDS)) {
+                        // selectors are created when the channel starts
+                        keyType = ValidateUtils.KEY_TYPE_INT;
+                        oldValue = this.selectorShards;
+                        if (convertIntegerValue(value) != oldValue) {
+                            result = ValidateUtils.VALIDATE_NOT_EQUAL;
+                        }
+                        continue;
+                    }
+
+                    if (key.equalsIgnoreCase(INLINE_READ_SIZE)) {
+                        // convert and check
+                        keyType = ValidateUtils.KEY_TYPE_INT;
+                        minValue = ValidateUtils.INLINE_READ_SIZE_MIN;
+                        maxValue = ValidateUtils.INLINE_READ_SIZE_MAX;
+                        inlineReadSizeNew = convertIntegerValue(value);
+                        result = ValidateUtils.testInlineReadSize(inlineReadSizeNew);
+                        continue;
+                    }
                 } else {
                     // outbound only parameters
                 }
@@ -885,6 +930,7 @@ public class TCPChannelConfiguration implements TCPConfigConstants, FFDCSelfIntr
         if (update) {
             this.maxOpenConnections = maxOpenConnectionsNew;
             this.inactivityTimeout = inactivityTimeoutNew;
+            this.selectorInlineReadSize = inlineReadSizeNew;
             this.addressExcludeList = addressExcludeListNew;
             this.addressIncludeList = addressIncludeListNew;
             this.hostNameExcludeList = hostNameExcludeListNew;
@@ -1075,6 +1121,8 @@ public class TCPChannelConfiguration implements TCPConfigConstants, FFDCSelfIntr
             Tr.debug(tc, BACKLOG + ": " + getListenBacklog());
             Tr.debug(tc, NEW_BUFF_SIZE + ": " + getNewConnectionBufferSize());
             Tr.debug(tc, CASE_INSENSITIVE_HOSTNAMES + ": " + getCaseInsensitiveHostnames());
+            Tr.debug(tc, SELECTOR_SHARDS + ": " + getSelectorShards());
+            Tr.debug(tc, INLINE_READ_SIZE + ": " + getSelectorInlineReadSize());
         } else {
             // outbound specific values
         }
@@ -1104,6 +1152,8 @@ public class TCPChannelConfiguration implements TCPConfigConstants, FFDCSelfIntr
             output.add(NAME_INC_LIST + "=" + debugStringArray(this.hostNameIncludeList));
             output.add(BACKLOG + "=" + this.listenBacklog);
             output.add(NEW_BUFF_SIZE + "=" + this.newConnectionBufferSize);
+            output.add(SELECTOR_SHARDS + "=" + this.selectorShards);
+            output.add(INLINE_READ_SIZE + "=" + this.selectorInlineReadSize);
         } else {
             // outbound
         }
@@ -1195,4 +1245,27 @@ public class TCPChannelConfiguration implements TCPConfigConstants, FFDCSelfIntr
         return this.waitToAccept;
     }
 
+    /**
+     * Query the number of read and write selectors that inbound connections
+     * are spread across when the selectors are sharded. Each connection is
+     * bound to one shard for its lifetime.
+     *
+     * @return int (0 means the selectors are not sharded, which is the default)
+     */
+    protected int getSelectorShards() {
+        return this.selectorShards;
+    }
+
+    /**
+     * Query the largest read, in bytes of buffer space, that is read from the
+     * socket on the selector thread rather than on a worker thread. Inline
+     * reads only dispatch a worker thread once the read is complete. The read
+     * callback still runs on a worker thread.
+     *
+     * @return int (0 means reads are never run inline, which is the default)
+     */
+    protected int getSelectorInlineReadSize() {
+        return this.selectorInlineReadSize;
+    }
+
 }
@@ -67,6 +67,12 @@ public class ValidateUtils implements TCPConfigConstants {
     protected static final int DUMP_STATS_INTERVAL_MIN = 0;
     protected static final int DUMP_STATS_INTERVAL_MAX = 3600;
 
+    protected static final int SELECTOR_SHARDS_MIN = 0;
+    protected static final int SELECTOR_SHARDS_MAX = 100;
+
+    protected static final int INLINE_READ_SIZE_MIN = 0;
+    protected static final int INLINE_READ_SIZE_MAX = 65536;
+
     /**
      * Test the input value against the allowed min and max.
      * 
@@ -487,6 +493,26 @@ public class ValidateUtils implements TCPConfigConstants {
         return testStringAsInt(value, DUMP_STATS_INTERVAL_MIN, DUMP_STATS_INTERVAL_MAX);
     }
 
+    /**
+     * Test the number of selector shards.
+     * 
+     * @param value
+     * @return int
+     */
+    public static int testSelectorShards(int value) {
+        return testInt(value, SELECTOR_SHARDS_MIN, SELECTOR_SHARDS_MAX);
+    }
+
+    /**
+     * Test the largest read size that may run on a selector thread.
+     * 
+     * @param value
+     * @return int
+     */
+    public static int testInlineReadSize(int value) {
+        return testInt(value, INLINE_READ_SIZE_MIN, INLINE_READ_SIZE_MAX);
+    }
+
     /**
      * Test the IP filter configuration values.
      * 
@@ -79,6 +79,8 @@ public class WorkQueueManager implements ChannelTermination, FFDCSelfIntrospecta
     private final boolean combineSelectors;
     protected int wakeupOption;
     private final ThreadGroup tGroup;
+    // number of fixed inbound read/write selector shards, 0 if not sharded
+    protected int selectorShards = 0;
 
     /**
      * Constructor.
@@ -99,6 +101,24 @@ public class WorkQueueManager implements ChannelTermination, FFDCSelfIntrospecta
         }
     }
 
+    /**
+     * Request that inbound connections be spread over a fixed number of read
+     * and write selectors, with each connection bound to one of them by hash.
+     * This only has an effect if it is called before the inbound selectors
+     * are started, since the selectors are shared by all channels.
+     * 
+     * @param shards the number of selector shards, 0 to disable
+     */
+    protected void setSelectorShards(int shards) {
+        if (readInbound != null) {
+            if (shards != selectorShards && TraceComponent.isAnyTracingEnabled() && tc.isEventEnabled()) {
+                Tr.event(tc, "Inbound selectors already started, ignoring selector shards " + shards + ", using " + selectorShards);
+            }
+            return;
+        }
+        selectorShards = Math.min(shards, maxChannelSelectorsPerFlow);
+    }
+
     protected void startSelectors(boolean inBound) throws ChannelException {
         if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) {
             Tr.entry(tc, "startSelectors " + inBound);
@@ -141,17 +161,22 @@ public class WorkQueueManager implements ChannelTermination, FFDCSelfIntrospecta
                     writeInboundCount[i] = CS_NULL;
                 }
 
-                readInbound[0] = new SocketRWChannelSelector(wakeupOption, this, 0, CS_READ_INBOUND, checkCancel);
-                // to start a selector thread with privilege credentials for J2EE
-                // security, do this.
-                createNewThread(readInbound[0], CS_READ_INBOUND, 1);
-                // selector is created and initialized when instantiated, so once start
-                // returns we can send work to it
-                readInboundCount[0] = CS_OK;
-
-                writeInbound[0] = new SocketRWChannelSelector(wakeupOption, this, 0, CS_WRITE_INBOUND, checkCancel);
-                createNewThread(writeInbound[0], CS_WRITE_INBOUND, 1);
-                writeInboundCount[0] = CS_OK;
+                if (selectorShards > 0) {
+                    startShards(readInbound, readInboundCount, CS_READ_INBOUND);
+                    startShards(writeInbound, writeInboundCount, CS_WRITE_INBOUND);
+                } else {
+                    readInbound[0] = new SocketRWChannelSelector(wakeupOption, this, 0, CS_READ_INBOUND, checkCancel);
+                    // to start a selector thread with privilege credentials for J2EE
+                    // security, do this.
+                    createNewThread(readInbound[0], CS_READ_INBOUND, 1);
+                    // selector is created and initialized when instantiated, so once start
+                    // returns we can send work to it
+                    readInboundCount[0] = CS_OK;
+
+                    writeInbound[0] = new SocketRWChannelSelector(wakeupOption, this, 0, CS_WRITE_INBOUND, checkCancel);
+                    createNewThread(writeInbound[0], CS_WRITE_INBOUND, 1);
+                    writeInboundCount[0] = CS_OK;
+                }
 
                 if (!inBound) {
                     // for outbound so start Connect
@@ -221,6 +246,33 @@ public class WorkQueueManager implements ChannelTermination, FFDCSelfIntrospecta
         }
     }
 
+    /**
+     * Create and start the fixed set of selector shards for one flow.
+     * 
+     * @param CS
+     * @param channelCounts
+     * @param channelType
+     * @throws IOException
+     */
+    private void startShards(SocketRWChannelSelector[] CS, int[] channelCounts, int channelType) throws IOException {
+        for (int i = 0; i < selectorShards; i++) {
+            CS[i] = new SocketRWChannelSelector(wakeupOption, this, i, channelType, checkCancel, true);
+            createNewThread(CS[i], channelType, i + 1);
+            channelCounts[i] = CS_OK;
+        }
+    }
+
+    /**
+     * Find the selector shard for a connection. Reads and writes for the
+     * same connection always map to the same shard index.
+     * 
+     * @param conn
+     * @return int
+     */
+    private int getShard(TCPConnLink conn) {
+        return (System.identityHashCode(conn.getSocketIOChannel()) & 0x7FFFFFFF) % selectorShards;
+    }
+
     protected void updateCount(int index, int value, int channelType) {
         // should only be called by the selector threads
         if (channelType == CS_READ_INBOUND) {
@@ -243,6 +295,7 @@ public class WorkQueueManager implements ChannelTermination, FFDCSelfIntrospecta
      */
     public List<String> introspect() {
         List<String> rc = new LinkedList<String>();
+        rc.add("Selector shards: " + this.selectorShards);
         rc.add(dumpChannelSelectorCounts(this.readInboundCount, "Read Inbound"));
         rc.add(dumpChannelSelectorCounts(this.readOutboundCount, "Read Outbound"));
         rc.add(dumpChannelSelectorCounts(this.writeInboundCount, "Write Inbound"));
@@ -389,14 +442,22 @@ public class WorkQueueManager implements ChannelTermination, FFDCSelfIntrospecta
             if (req.isRequestTypeRead()) {
                 // Read IO, determine if this req is inbound or outbound.
                 if (conn.getConfig().isInbound() || combineSelectors) {
-                    moveIntoPosition(readInboundCount, readInbound, req, CS_READ_INBOUND);
+                    if (selectorShards > 0) {
+                        readInbound[getShard(conn)].addWork(req);
+                    } else {
+                        moveIntoPosition(readInboundCount, readInbound, req, CS_READ_INBOUND);
+                    }
                 } else {
                     moveIntoPosition(readOutboundCount, readOutbound, req, CS_READ_OUTBOUND);
                 }
             } else {
                 // Write IO, determine if this req is inbound or outbound.
                 if (conn.getConfig().isInbound() || combineSelectors) {
-                    moveIntoPosition(writeInboundCount, writeInbound, req, CS_WRITE_INBOUND);
+                    if (selectorShards > 0) {
+                        writeInbound[getShard(conn)].addWork(req);
+                    } else {
+                        moveIntoPosition(writeInboundCount, writeInbound, req, CS_WRITE_INBOUND);
+                    }
                 } else {
                     moveIntoPosition(writeOutboundCount, writeOutbound, req, CS_WRITE_OUTBOUND);
                 }
@@ -704,6 +765,69 @@ public class WorkQueueManager implements ChannelTermination, FFDCSelfIntrospecta
         return false;
     }
 
+    /**
+     * Read from the socket on the selector thread for a selected async read
+     * that is small enough to be read inline. Only the non-blocking read is
+     * done on the selector thread. The completion, or error, callback is
+     * dispatched to a worker thread, since it may parse the request and
+     * dispatch the application, and must not stall the other connections of
+     * the selector.
+     * 
+     * @param req
+     * @return boolean, true if the read no longer needs the selector, false if
+     *         it is not complete and should stay selected for more data
+     */
+    protected boolean attemptInlineRead(TCPBaseRequestContext req) {
+        if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) {
+            Tr.entry(tc, "attemptInlineRead");
+        }
+        TCPConnLink conn = req.getTCPConnLink();
+        SocketIOChannel ioChannel = conn.getSocketIOChannel();
+        if (ioChannel == null || conn.isClosed()) {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) {
+                Tr.exit(tc, "attemptInlineRead", "Closed");
+            }
+            return true;
+        }
+
+        IOException ioe = null;
+        try {
+            req.setLastIOAmt(0);
+            IOResult status = ioChannel.attemptReadFromSocket(req, true);
+            if (status == IOResult.NOT_COMPLETE) {
+                if (req.getConfig().getDumpStatsInterval() > 0) {
+                    conn.getTCPChannel().totalPartialAsyncReads.incrementAndGet();
+                }
+                if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) {
+                    Tr.exit(tc, "attemptInlineRead", "Not complete");
+                }
+                return false;
+            }
+            if (status == IOResult.FAILED) {
+                // do not use static as the stacks are not the same
+                ioe = new IOException("Connection closed: Read failed.  Possible end of stream encountered. ");
+            }
+        } catch (IOException e) {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isEventEnabled()) {
+                Tr.event(tc, "IOException while doing inline read: " + e);
+            }
+            // unrecoverable error, cleanup and finish request
+            if (((TCPReadRequestContextImpl) req).getJITAllocateAction()) {
+                req.getBuffer().release();
+                req.setBuffer(null);
+                ((TCPReadRequestContextImpl) req).setJITAllocateAction(false);
+            }
+            ioe = e;
+        }
+
+        dispatchWorker(new Worker(req, ioe, true));
+
+        if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) {
+            Tr.exit(tc, "attemptInlineRead");
+        }
+        return true;
+    }
+
     /**
      * Dispatches requests to workrer threds, or notifies waiting thread.
      * 
@@ -956,6 +1080,27 @@ public class WorkQueueManager implements ChannelTermination, FFDCSelfIntrospecta
         }
     }
 
+    /**
+     * Worker thread routine for IO that was done on the selector thread,
+     * which only calls the completion or error callback.
+     * 
+     * @param req
+     * @param ioe
+     */
+    void workerComplete(TCPBaseRequestContext req, IOException ioe) {
+        try {
+            requestComplete(req, ioe);
+        } catch (Throwable t) {
+            // Only issue an FFDC if the framework is up/valid..
+            if (FrameworkState.isValid()) {
+                FFDCFilter.processException(t, getClass().getName(), "workerComplete", new Object[] { this, req, ioe });
+            }
+            if (TraceComponent.isAnyTracingEnabled() && tc.isEventEnabled()) {
+                Tr.event(tc, "Unexpected error in worker; " + t);
+            }
+        }
+    }
+
     void workerRun(ConnectInfo connInfo) {
         if (connInfo != null) {
             try {
@@ -1000,6 +1145,9 @@ public class WorkQueueManager implements ChannelTermination, FFDCSelfIntrospecta
         private TCPBaseRequestContext req = null;
         private ConnectInfo connInfo = null;
         private IOException ioe = null;
+        // true if the IO was already done on the selector thread, and only
+        // the callback remains
+        private boolean ioDone = false;
 
         // Work object used for dispatching ready work from selector
         protected Worker(TCPBaseRequestContext _reqIn, IOException _ioe) {
@@ -1007,13 +1155,22 @@ public class WorkQueueManager implements ChannelTermination, FFDCSelfIntrospecta
             this.ioe = _ioe;
         }
 
+        // Work object used for dispatching the callback of IO done by the selector
+        protected Worker(TCPBaseRequestContext _reqIn, IOException _ioe, boolean _ioDone) {
+            this.req = _reqIn;
+            this.ioe = _ioe;
+            this.ioDone = _ioDone;
+        }
+
         protected Worker(ConnectInfo ciIn) {
             this.connInfo = ciIn;
         }
 
         @Override
         public void run() {
-            if (this.req != null) {
+            if (this.req != null && this.ioDone) {
+                workerComplete(this.req, this.ioe);
+            } else if (this.req != null) {
                 workerRun(this.req, this.ioe);
             } else if (this.connInfo != null) {
                 workerRun(this.connInfo);
@@ -0,0 +1,425 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wsspi.channelfw.objectpool;
+
+import java.util.Hashtable;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.channelfw.internal.ChannelFrameworkConstants;
+
+/**
+ * An object pool made up of per-thread magazines and a global depot that is
+ * split into shards, one per processor.
+ * <p>
+ * Each thread owns two magazines (fixed size arrays of objects). Gets and puts
+ * are served from the thread's magazines without any locking. Only when both
+ * magazines are empty (on get) or full (on put) does the thread exchange a whole
+ * magazine with its home shard of the depot, so the shard monitor is taken once
+ * per magazine rather than once per object. A thread whose home shard has no
+ * full magazines steals one from another shard before creating a new object.
+ * Magazines are swapped rather than copied, so no allocation happens once the
+ * pool has warmed up.
+ * <p>
+ * Hit, miss and steal counts are kept in the thread's magazines and are added
+ * to the home shard on each depot exchange, so reading them never slows down
+ * the get and put paths, at the cost of the totals lagging slightly behind.
+ * <p>
+ * Unlike the TwoTierObjectPool, this pool does not discard entries that
+ * have been idle for a period of time.
+ */
+public class ShardedObjectPool implements ObjectPool {
+
+    /**
+     * Trace Component
+     */
+    private static final TraceComponent tc = Tr.register(ShardedObjectPool.class, ChannelFrameworkConstants.BASE_TRACE_NAME, ChannelFrameworkConstants.BASE_BUNDLE);
+
+    /**
+     * Fixed size stack of pooled objects.
+     */
+    private static final class Magazine {
+        final Object[] rounds;
+        int size = 0;
+
+        Magazine(int capacity) {
+            this.rounds = new Object[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean isFull() {
+            return size == rounds.length;
+        }
+
+        Object pop() {
+            Object o = rounds[--size];
+            rounds[size] = null;
+            return o;
+        }
+
+        void push(Object o) {
+            rounds[size++] = o;
+        }
+    }
+
+    /**
+     * Per-thread cache of two magazines plus the statistics that have not yet
+     * been added to the home shard.
+     */
+    private static final class LocalCache {
+        final Shard home;
+        Magazine loaded;
+        Magazine previous;
+        long hits = 0L;
+        long misses = 0L;
+
+        LocalCache(Shard home, int magazineSize) {
+            this.home = home;
+            this.loaded = new Magazine(magazineSize);
+            this.previous = new Magazine(magazineSize);
+        }
+    }
+
+    /**
+     * One shard of the global depot, holding stacks of full and empty magazines.
+     * All access is synchronized on the shard.
+     */
+    private static final class Shard {
+        final Magazine[] full;
+        int fullCount = 0;
+        final Magazine[] empty;
+        int emptyCount = 0;
+        long hits = 0L;
+        long misses = 0L;
+        long steals = 0L;
+
+        Shard(int depth) {
+            this.full = new Magazine[depth];
+            this.empty = new Magazine[depth];
+        }
+    }
+
+    // number of objects held by each magazine
+    private final int magazineSize;
+    // depot shards, the length of which is a power of two
+    private final Shard[] shards;
+    // thread locals reference
+    private final ThreadLocal<LocalCache> threadLocals = new ThreadLocal<LocalCache>();
+    // factory to create new objects for this pool
+    private final ObjectFactory factory;
+    // factory to destroy objects for this pool
+    private final ObjectDestroyer destroyer;
+    // tracking table
+    private Hashtable<Object, Object> inUseTable = null;
+    // tracking on/off
+    private final boolean inUseTracking;
+
+    /**
+     * Construct a sharded pool.
+     *
+     * @param _threadPoolSize number of objects held by each of a thread's two magazines
+     * @param _mainPoolSize number of objects that can be held by the depot, across all shards
+     * @param _factory
+     * @param _destroyer optional destroyer to use when discarding objects
+     * @param _inUseTracking
+     */
+    public ShardedObjectPool(int _threadPoolSize, int _mainPoolSize, ObjectFactory _factory, ObjectDestroyer _destroyer, boolean _inUseTracking) {
+        this.magazineSize = Math.max(1, _threadPoolSize);
+        this.factory = _factory;
+        this.destroyer = _destroyer;
+        this.inUseTracking = _inUseTracking;
+
+        int numShards = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        int shardDepth = Math.max(1, _mainPoolSize / magazineSize / numShards);
+        this.shards = new Shard[numShards];
+        for (int i = 0; i < numShards; i++) {
+            this.shards[i] = new Shard(shardDepth);
+        }
+
+        if (_inUseTracking) {
+            this.inUseTable = new Hashtable<Object, Object>(_threadPoolSize * 2 + _mainPoolSize * 2);
+        }
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "Object Pool " + this + " created, magazine size: " + magazineSize + ", shards: " + numShards + ", magazines per shard: " + shardDepth);
+        }
+    }
+
+    /*
+     * @see com.ibm.wsspi.channelfw.objectpool.ObjectPool#get()
+     */
+    @Override
+    public Object get() {
+        LocalCache cache = getLocalCache();
+        Object ret = null;
+
+        if (!cache.loaded.isEmpty()) {
+            ret = cache.loaded.pop();
+        } else if (!cache.previous.isEmpty()) {
+            Magazine m = cache.loaded;
+            cache.loaded = cache.previous;
+            cache.previous = m;
+            ret = cache.loaded.pop();
+        } else if (refill(cache)) {
+            ret = cache.loaded.pop();
+        }
+
+        if (ret != null) {
+            cache.hits++;
+        } else {
+            cache.misses++;
+            if (factory != null) {
+                ret = factory.create();
+                if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                    Tr.debug(tc, "Object Pool " + this + " couldn't obtain object from either local or global pool, new object created");
+                }
+            }
+        }
+
+        if (inUseTracking && ret != null) {
+            inUseTable.put(ret, ret);
+        }
+        return ret;
+    }
+
+    /*
+     * @see com.ibm.wsspi.channelfw.objectpool.ObjectPool#put(java.lang.Object)
+     */
+    @Override
+    public Object put(Object o) {
+        if (null == o) {
+            throw new NullPointerException();
+        }
+        if (inUseTracking) {
+            inUseTable.remove(o);
+        }
+
+        LocalCache cache = getLocalCache();
+        if (cache.loaded.isFull()) {
+            if (cache.previous.isFull()) {
+                spill(cache);
+            }
+            Magazine m = cache.loaded;
+            cache.loaded = cache.previous;
+            cache.previous = m;
+        }
+        cache.loaded.push(o);
+        return null;
+    }
+
+    /**
+     * Exchange the thread's empty previous magazine for a full one from the
+     * depot, trying the home shard first and then stealing from the others.
+     * On success, the full magazine becomes the loaded one.
+     *
+     * @param cache
+     * @return true if a full magazine was obtained
+     */
+    private boolean refill(LocalCache cache) {
+        Shard home = cache.home;
+        int start = 0;
+        for (int i = 0; i < shards.length; i++) {
+            if (shards[i] == home) {
+                start = i;
+                break;
+            }
+        }
+
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = shards[(start + i) & (shards.length - 1)];
+            synchronized (shard) {
+                if (shard == home) {
+                    flushStatistics(cache, shard);
+                }
+                if (shard.fullCount > 0) {
+                    Magazine full = shard.full[--shard.fullCount];
+                    shard.full[shard.fullCount] = null;
+                    if (shard.emptyCount < shard.empty.length) {
+                        shard.empty[shard.emptyCount++] = cache.previous;
+                    }
+                    if (shard != home) {
+                        shard.steals++;
+                    }
+                    cache.previous = cache.loaded;
+                    cache.loaded = full;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hand the thread's full previous magazine to the home shard in exchange
+     * for an empty one. If the shard cannot hold any more full magazines,
+     * the objects are discarded instead.
+     *
+     * @param cache
+     */
+    private void spill(LocalCache cache) {
+        Shard home = cache.home;
+        Magazine discard = null;
+        synchronized (home) {
+            flushStatistics(cache, home);
+            if (home.fullCount < home.full.length) {
+                home.full[home.fullCount++] = cache.previous;
+                if (home.emptyCount > 0) {
+                    cache.previous = home.empty[--home.emptyCount];
+                    home.empty[home.emptyCount] = null;
+                } else {
+                    cache.previous = new Magazine(magazineSize);
+                }
+            } else {
+                discard = cache.previous;
+            }
+        }
+
+        if (discard != null) {
+            while (!discard.isEmpty()) {
+                Object o = discard.pop();
+                if (destroyer != null) {
+                    destroyer.destroy(o);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the statistics accumulated by a thread to its home shard. The caller
+     * must hold the shard's monitor.
+     */
+    private static void flushStatistics(LocalCache cache, Shard home) {
+        home.hits += cache.hits;
+        home.misses += cache.misses;
+        cache.hits = 0L;
+        cache.misses = 0L;
+    }
+
+    /**
+     * Get the current thread's magazines, creating them and assigning a home
+     * shard on first use.
+     */
+    private LocalCache getLocalCache() {
+        LocalCache cache = threadLocals.get();
+        if (cache == null) {
+            Shard home = shards[(int) (Thread.currentThread().getId() & (shards.length - 1))];
+            cache = new LocalCache(home, magazineSize);
+            threadLocals.set(cache);
+        }
+        return cache;
+    }
+
+    /**
+     * remove the object from the inUse before normal release processing
+     * would remove it.
+     *
+     * @param o
+     */
+    public void removeFromInUse(Object o) {
+        if (null == o) {
+            throw new NullPointerException();
+        }
+
+        if (inUseTracking) {
+            inUseTable.remove(o);
+        }
+    }
+
+    /**
+     * @return Object[]
+     */
+    @SuppressWarnings("unchecked")
+    public Object[] getInUseTable() {
+        return (((Hashtable<Object, Object>) inUseTable.clone()).keySet().toArray());
+    }
+
+    /**
+     * This is used to return the current thread's magazines to the depot
+     * when the thread is being killed off.
+     */
+    public void purgeThreadLocal() {
+        LocalCache cache = threadLocals.get();
+        if (null != cache) {
+            threadLocals.remove();
+            Shard home = cache.home;
+            Magazine[] magazines = { cache.loaded, cache.previous };
+            for (Magazine m : magazines) {
+                boolean kept = false;
+                if (!m.isEmpty()) {
+                    synchronized (home) {
+                        if (home.fullCount < home.full.length) {
+                            home.full[home.fullCount++] = m;
+                            kept = true;
+                        }
+                    }
+                }
+                while (!kept && !m.isEmpty()) {
+                    Object o = m.pop();
+                    if (destroyer != null) {
+                        destroyer.destroy(o);
+                    }
+                }
+            }
+            synchronized (home) {
+                flushStatistics(cache, home);
+            }
+        }
+    }
+
+    /**
+     * @return the number of gets that were satisfied by a pooled object
+     */
+    public long getHitCount() {
+        long count = 0L;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.hits;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of gets that found the pool empty
+     */
+    public long getMissCount() {
+        long count = 0L;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.misses;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of full magazines that were taken from a shard other than
+     *         the requesting thread's home shard
+     */
+    public long getStealCount() {
+        long count = 0L;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.steals;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of depot shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+}
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.tcpchannel.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.ibm.websphere.channelfw.ChannelData;
+import com.ibm.websphere.channelfw.FlowType;
+import com.ibm.websphere.channelfw.osgi.CHFWBundle;
+import com.ibm.ws.channelfw.internal.ChannelFrameworkImpl;
+import com.ibm.ws.channelfw.testsuite.channels.protocol.ProtocolDummyChannel;
+import com.ibm.ws.channelfw.testsuite.channels.protocol.ProtocolDummyFactory;
+import com.ibm.wsspi.bytebuffer.WsByteBuffer;
+import com.ibm.wsspi.channelfw.Channel;
+import com.ibm.wsspi.channelfw.ConnectionLink;
+import com.ibm.wsspi.channelfw.VirtualConnection;
+import com.ibm.wsspi.channelfw.base.InboundProtocolLink;
+import com.ibm.wsspi.channelfw.exception.ChannelException;
+import com.ibm.wsspi.tcpchannel.TCPConnectionContext;
+import com.ibm.wsspi.tcpchannel.TCPReadCompletedCallback;
+import com.ibm.wsspi.tcpchannel.TCPReadRequestContext;
+import com.ibm.wsspi.tcpchannel.TCPRequestContext;
+import com.ibm.wsspi.tcpchannel.TCPWriteCompletedCallback;
+import com.ibm.wsspi.tcpchannel.TCPWriteRequestContext;
+
+/**
+ * Echo round trips over loopback with selector shards and inline reads enabled.
+ * <p>
+ * The TCP selectors are shared across the whole JVM, so the shard count is fixed
+ * by the first inbound chain started in the JVM. The port can be changed with the
+ * system property SelectorShardingTest.port.
+ */
+public class SelectorShardingTest {
+    private static final int CONNECTIONS = 8;
+    private static final int ROUND_TRIPS_PER_CONNECTION = 200;
+    private static final int MESSAGE_SIZE = 64;
+    private static final String EXECUTOR_THREAD_NAME = "SelectorShardingTest-executor-";
+
+    /** Names of the threads that ran the read completion callback. */
+    static final Set<String> readCallbackThreads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Echoes back whatever is read, one read and one write at a time. All
+     * requests are forced through the selectors so that every round trip
+     * is selected by a shard, and every read is small enough to be inline.
+     */
+    public static class EchoLink extends InboundProtocolLink implements TCPReadCompletedCallback, TCPWriteCompletedCallback {
+        @Override
+        public Object getChannelAccessor() {
+            return null;
+        }
+
+        @Override
+        public void ready(VirtualConnection inVC) {
+            init(inVC);
+            TCPReadRequestContext rsc = ((TCPConnectionContext) getDeviceLink().getChannelAccessor()).getReadInterface();
+            // the first message may already have been read by the TCP channel
+            WsByteBuffer buffer = rsc.getBuffer();
+            if (buffer != null && buffer.position() > 0) {
+                echo(rsc);
+                return;
+            }
+            if (buffer != null) {
+                buffer.release();
+                rsc.setBuffers(null);
+            }
+            rsc.setJITAllocateSize(MESSAGE_SIZE);
+            rsc.read(1, this, true, TCPRequestContext.NO_TIMEOUT);
+        }
+
+        @Override
+        public void complete(VirtualConnection vc, TCPReadRequestContext rsc) {
+            readCallbackThreads.add(Thread.currentThread().getName());
+            echo(rsc);
+        }
+
+        private void echo(TCPReadRequestContext rsc) {
+            WsByteBuffer buffer = rsc.getBuffer();
+            rsc.setBuffers(null);
+            buffer.flip();
+            TCPWriteRequestContext wsc = ((TCPConnectionContext) getDeviceLink().getChannelAccessor()).getWriteInterface();
+            wsc.setBuffer(buffer);
+            wsc.write(TCPWriteRequestContext.WRITE_ALL_DATA, this, true, TCPRequestContext.NO_TIMEOUT);
+        }
+
+        @Override
+        public void complete(VirtualConnection vc, TCPWriteRequestContext wsc) {
+            wsc.getBuffer().release();
+            wsc.setBuffers(null);
+            TCPReadRequestContext rsc = ((TCPConnectionContext) getDeviceLink().getChannelAccessor()).getReadInterface();
+            rsc.setJITAllocateSize(MESSAGE_SIZE);
+            rsc.read(1, this, true, TCPRequestContext.NO_TIMEOUT);
+        }
+
+        @Override
+        public void error(VirtualConnection vc, TCPReadRequestContext rsc, IOException ioe) {
+            close(vc, ioe);
+        }
+
+        @Override
+        public void error(VirtualConnection vc, TCPWriteRequestContext wsc, IOException ioe) {
+            close(vc, ioe);
+        }
+    }
+
+    public static class EchoChannel extends ProtocolDummyChannel {
+        public EchoChannel(ChannelData config, ProtocolDummyFactory factory) {
+            super(config, factory);
+        }
+
+        @Override
+        public ConnectionLink getConnectionLink(VirtualConnection vc) {
+            return new EchoLink();
+        }
+    }
+
+    public static class EchoFactory extends ProtocolDummyFactory {
+        @Override
+        protected Channel createChannel(ChannelData config) throws ChannelException {
+            return new EchoChannel(config, this);
+        }
+    }
+
+    /**
+     * Supplies the executor that the TCP channel dispatches work to.
+     */
+    private static class TestBundle extends CHFWBundle {
+        void start(ExecutorService executor) {
+            setExecutorService(executor);
+            activate(null, null);
+        }
+    }
+
+    @Test
+    public void testRoundTrips() throws Exception {
+        String port = System.getProperty("SelectorShardingTest.port", "13500");
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, EXECUTOR_THREAD_NAME + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        new TestBundle().start(executor);
+
+        Map<Object, Object> tcpProps = new HashMap<Object, Object>();
+        tcpProps.put("port", port);
+        tcpProps.put(TCPChannelConfiguration.SELECTOR_SHARDS, "2");
+        tcpProps.put(TCPChannelConfiguration.INLINE_READ_SIZE, String.valueOf(MESSAGE_SIZE));
+
+        ChannelFrameworkImpl framework = ChannelFrameworkImpl.getRef();
+        framework.addChannel("tcp", TCPChannelFactory.class, tcpProps, 10);
+        framework.addChannel("echo", EchoFactory.class, null, 10);
+        framework.addChain("echoChain", FlowType.INBOUND, new String[] { "tcp", "echo" });
+        framework.startChain("echoChain");
+
+        final InetAddress host = InetAddress.getLoopbackAddress();
+        final int portNumber = Integer.parseInt(port);
+        ExecutorService clients = Executors.newFixedThreadPool(CONNECTIONS);
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < CONNECTIONS; i++) {
+                final byte fill = (byte) i;
+                results.add(clients.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        byte[] message = new byte[MESSAGE_SIZE];
+                        byte[] echo = new byte[MESSAGE_SIZE];
+                        int completed = 0;
+                        Socket s = new Socket(host, portNumber);
+                        try {
+                            s.setTcpNoDelay(true);
+                            s.setSoTimeout(30000);
+                            OutputStream out = s.getOutputStream();
+                            InputStream in = s.getInputStream();
+                            for (int n = 0; n < ROUND_TRIPS_PER_CONNECTION; n++) {
+                                Arrays.fill(message, (byte) (fill + n));
+                                out.write(message);
+                                int received = 0;
+                                while (received < MESSAGE_SIZE) {
+                                    int count = in.read(echo, received, MESSAGE_SIZE - received);
+                                    if (count < 0) {
+                                        return completed;
+                                    }
+                                    received += count;
+                                }
+                                assertTrue(Arrays.equals(message, echo));
+                                completed++;
+                            }
+                        } finally {
+                            s.close();
+                        }
+                        return completed;
+                    }
+                }));
+            }
+
+            for (Future<Integer> result : results) {
+                assertEquals(ROUND_TRIPS_PER_CONNECTION, result.get(2, TimeUnit.MINUTES).intValue());
+            }
+
+            // The socket read is done on the selector thread, but the read callback
+            // must always be dispatched to the executor.
+            assertTrue(readCallbackThreads.toString(), !readCallbackThreads.isEmpty());
+            for (String name : readCallbackThreads) {
+                assertTrue(name, name.startsWith(EXECUTOR_THREAD_NAME));
+            }
+        } finally {
+            clients.shutdownNow();
+            framework.stopChain("echoChain", 0);
+            framework.destroy();
+            executor.shutdownNow();
+        }
+    }
+}
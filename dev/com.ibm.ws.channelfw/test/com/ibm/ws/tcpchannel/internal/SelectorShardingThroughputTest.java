@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.tcpchannel.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.ibm.websphere.channelfw.FlowType;
+import com.ibm.websphere.channelfw.osgi.CHFWBundle;
+import com.ibm.ws.channelfw.internal.ChannelFrameworkImpl;
+
+/**
+ * Measures echo round trips over loopback with a large number of mostly idle
+ * connections, to compare the default selector layout with selector shards and
+ * inline reads. Like the threading throughput tests, this is a measurement
+ * harness rather than a regression test, so it is ignored by default.
+ * <p>
+ * The TCP selectors are shared across the whole JVM, so only one layout can be
+ * measured per run. It is chosen with the system properties
+ * SelectorShardingThroughputTest.shards and
+ * SelectorShardingThroughputTest.inlineReadSize, both of which default to 0.
+ * Run it manually through its main method. The echo channel is the one that
+ * SelectorShardingTest verifies.
+ */
+@Ignore
+public class SelectorShardingThroughputTest {
+    private static final int IDLE_CONNECTIONS = 10000;
+    private static final int ACTIVE_CONNECTIONS = 64;
+    private static final int ROUND_TRIPS_PER_CONNECTION = 20000;
+    private static final int MESSAGE_SIZE = 64;
+
+    /**
+     * Supplies the executor that the TCP channel dispatches work to.
+     */
+    private static class TestBundle extends CHFWBundle {
+        void start(ExecutorService executor) {
+            setExecutorService(executor);
+            activate(null, null);
+        }
+    }
+
+    @Test
+    public void measureRoundTrips() throws Exception {
+        int shards = Integer.getInteger("SelectorShardingThroughputTest.shards", 0);
+        int inlineReadSize = Integer.getInteger("SelectorShardingThroughputTest.inlineReadSize", 0);
+        String port = System.getProperty("SelectorShardingThroughputTest.port", "13500");
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        new TestBundle().start(executor);
+
+        Map<Object, Object> tcpProps = new HashMap<Object, Object>();
+        tcpProps.put("port", port);
+        tcpProps.put("maxOpenConnections", String.valueOf(IDLE_CONNECTIONS + ACTIVE_CONNECTIONS + 100));
+        tcpProps.put(TCPChannelConfiguration.SELECTOR_SHARDS, String.valueOf(shards));
+        tcpProps.put(TCPChannelConfiguration.INLINE_READ_SIZE, String.valueOf(inlineReadSize));
+
+        ChannelFrameworkImpl framework = ChannelFrameworkImpl.getRef();
+        framework.addChannel("tcp", TCPChannelFactory.class, tcpProps, 10);
+        framework.addChannel("echo", SelectorShardingTest.EchoFactory.class, null, 10);
+        framework.addChain("echoChain", FlowType.INBOUND, new String[] { "tcp", "echo" });
+        framework.startChain("echoChain");
+
+        final InetAddress host = InetAddress.getLoopbackAddress();
+        final int portNumber = Integer.parseInt(port);
+        List<Socket> idle = new ArrayList<Socket>(IDLE_CONNECTIONS);
+        try {
+            for (int i = 0; i < IDLE_CONNECTIONS; i++) {
+                idle.add(new Socket(host, portNumber));
+            }
+
+            final AtomicLong completed = new AtomicLong();
+            final CountDownLatch start = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(ACTIVE_CONNECTIONS);
+            for (int i = 0; i < ACTIVE_CONNECTIONS; i++) {
+                new Thread("client-" + i) {
+                    @Override
+                    public void run() {
+                        byte[] message = new byte[MESSAGE_SIZE];
+                        try {
+                            Socket s = new Socket(host, portNumber);
+                            try {
+                                s.setTcpNoDelay(true);
+                                OutputStream out = s.getOutputStream();
+                                InputStream in = s.getInputStream();
+                                start.await();
+                                for (int n = 0; n < ROUND_TRIPS_PER_CONNECTION; n++) {
+                                    out.write(message);
+                                    int received = 0;
+                                    while (received < MESSAGE_SIZE) {
+                                        int count = in.read(message, received, MESSAGE_SIZE - received);
+                                        if (count < 0) {
+                                            return;
+                                        }
+                                        received += count;
+                                    }
+                                    completed.incrementAndGet();
+                                }
+                            } finally {
+                                s.close();
+                            }
+                        } catch (Exception x) {
+                            x.printStackTrace();
+                        } finally {
+                            done.countDown();
+                        }
+                    }
+                }.start();
+            }
+
+            long startTime = System.nanoTime();
+            start.countDown();
+            done.await();
+            long elapsed = System.nanoTime() - startTime;
+
+            assertEquals((long) ACTIVE_CONNECTIONS * ROUND_TRIPS_PER_CONNECTION, completed.get());
+            System.out.println("shards=" + shards + ", inlineReadSize=" + inlineReadSize + ", idle connections=" + IDLE_CONNECTIONS
+                               + ", round trips/ms=" + Math.round((double) completed.get() / TimeUnit.NANOSECONDS.toMillis(elapsed)));
+        } finally {
+            for (Socket s : idle) {
+                s.close();
+            }
+            framework.stopChain("echoChain", 0);
+            framework.destroy();
+            executor.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new SelectorShardingThroughputTest().measureRoundTrips();
+    }
+}
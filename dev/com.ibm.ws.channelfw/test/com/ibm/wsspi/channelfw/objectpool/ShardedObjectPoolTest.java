@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wsspi.channelfw.objectpool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Test the ShardedObjectPool.
+ */
+public class ShardedObjectPoolTest {
+
+    private static class Counter implements ObjectFactory, ObjectDestroyer {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger destroyed = new AtomicInteger();
+
+        @Override
+        public Object create() {
+            return Integer.valueOf(created.incrementAndGet());
+        }
+
+        @Override
+        public void destroy(Object obj) {
+            destroyed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Run the task on a new thread and wait for it to complete.
+     */
+    private static void runOnNewThread(Runnable task) throws Exception {
+        Thread t = new Thread(task);
+        t.start();
+        t.join();
+    }
+
+    /**
+     * Objects released by a thread are handed back to the same thread.
+     */
+    @Test
+    public void testLocalReuse() {
+        Counter counter = new Counter();
+        ShardedObjectPool pool = new ShardedObjectPool(4, 40, counter, counter, false);
+
+        Object o = pool.get();
+        assertNotNull(o);
+        pool.put(o);
+        assertSame(o, pool.get());
+        pool.put(o);
+        assertEquals(1, counter.created.get());
+
+        pool.purgeThreadLocal();
+        assertEquals(1, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+        assertEquals(0, pool.getStealCount());
+        assertEquals(0, counter.destroyed.get());
+    }
+
+    /**
+     * Objects released by one thread are available to other threads once the
+     * magazines are handed back to the depot.
+     */
+    @Test
+    public void testDepotExchange() throws Exception {
+        final Counter counter = new Counter();
+        final ShardedObjectPool pool = new ShardedObjectPool(4, 1000, counter, counter, false);
+        final List<Object> objects = new ArrayList<Object>();
+        for (int i = 0; i < 20; i++) {
+            objects.add(pool.get());
+        }
+        for (Object o : objects) {
+            pool.put(o);
+        }
+        pool.purgeThreadLocal();
+        assertEquals(20, counter.created.get());
+
+        final Set<Object> reused = new HashSet<Object>();
+        runOnNewThread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 20; i++) {
+                    reused.add(pool.get());
+                }
+                pool.purgeThreadLocal();
+            }
+        });
+
+        assertEquals(new HashSet<Object>(objects), reused);
+        assertEquals(20, counter.created.get());
+        assertEquals(20, pool.getHitCount());
+        assertEquals(20, pool.getMissCount());
+        assertEquals(0, counter.destroyed.get());
+    }
+
+    /**
+     * Objects that do not fit in the depot are handed to the destroyer.
+     */
+    @Test
+    public void testOverflowIsDestroyed() {
+        Counter counter = new Counter();
+        ShardedObjectPool pool = new ShardedObjectPool(2, 2, counter, counter, false);
+        List<Object> objects = new ArrayList<Object>();
+        for (int i = 0; i < 100; i++) {
+            objects.add(pool.get());
+        }
+        for (Object o : objects) {
+            pool.put(o);
+        }
+        pool.purgeThreadLocal();
+
+        // each shard holds one magazine of 2, and nothing else survives
+        int retained = 2 * pool.getShardCount();
+        assertTrue("destroyed " + counter.destroyed.get(), counter.destroyed.get() >= 100 - retained);
+        assertTrue("destroyed " + counter.destroyed.get(), counter.destroyed.get() < 100);
+    }
+
+    /**
+     * In-use tracking records objects between get and put.
+     */
+    @Test
+    public void testInUseTracking() {
+        Counter counter = new Counter();
+        ShardedObjectPool pool = new ShardedObjectPool(4, 40, counter, null, true);
+        Object a = pool.get();
+        Object b = pool.get();
+        assertEquals(2, pool.getInUseTable().length);
+        pool.put(a);
+        assertEquals(1, pool.getInUseTable().length);
+        pool.removeFromInUse(b);
+        assertEquals(0, pool.getInUseTable().length);
+    }
+
+    /**
+     * Many threads getting and putting at once never receive the same object.
+     */
+    @Test
+    public void testConcurrentUse() throws Exception {
+        final Counter counter = new Counter();
+        final ShardedObjectPool pool = new ShardedObjectPool(8, 800, counter, counter, false);
+        final AtomicInteger[] owners = new AtomicInteger[10000];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = new AtomicInteger();
+        }
+        final AtomicInteger failures = new AtomicInteger();
+
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    Object[] held = new Object[16];
+                    for (int n = 0; n < 20000; n++) {
+                        for (int i = 0; i < held.length; i++) {
+                            held[i] = pool.get();
+                            if (owners[(Integer) held[i]].incrementAndGet() != 1) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                        for (int i = 0; i < held.length; i++) {
+                            owners[(Integer) held[i]].decrementAndGet();
+                            pool.put(held[i]);
+                        }
+                    }
+                    pool.purgeThreadLocal();
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(0, failures.get());
+        assertEquals(8L * 20000 * 16, pool.getHitCount() + pool.getMissCount());
+        assertEquals(counter.created.get(), pool.getMissCount());
+    }
+}
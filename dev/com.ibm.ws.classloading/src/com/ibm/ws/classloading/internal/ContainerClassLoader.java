@@ -188,13 +188,25 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
         UniversalResource getResource(String name);
 
         /**
-         * Update the supplied map with information about this container.
-         * method should add this Universal container to the map onto any
-         * lists that exist for each package contained within this container.
-         * adding the list to the map if not already present.
-         * Map is keyed by the hashcode of the package string.
+         * Add the packages and the entries of this container to the supplied index builder.
+         * Paths are relative to this container, without a leading slash.
          */
-        void updatePackageMap(Map<Integer, List<UniversalContainer>> map);
+        void index(ContainerIndex.Builder builder);
+
+        /**
+         * Obtain the archive file for this container, if the index of this container
+         * may be stored and reused for as long as the archive is unchanged.
+         *
+         * @return the archive file, or null if this container is not indexed persistently.
+         */
+        File getIndexableArchive();
+
+        /**
+         * Obtain the index of the entries of this container, or null if this container has none.
+         */
+        ContainerIndex getIndex();
+
+        void setIndex(ContainerIndex index);
     }
 
     /**
@@ -299,6 +311,7 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
         private final Container container;
         private final boolean isRoot;
         private String debugString;
+        private volatile ContainerIndex index;
 
         public ContainerUniversalContainer(Container container) {
             this.container = container;
@@ -335,23 +348,14 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
             }
         }
 
-        private void processContainer(Container c, Map<Integer, List<UniversalContainer>> map, int chop) {
+        private void processContainer(Container c, ContainerIndex.Builder builder, int chop) {
             for (Entry e : c) {
+                builder.addEntry(e.getPath().substring(chop));
                 try {
                     Container child = e.adapt(Container.class);
                     if (child != null && !child.isRoot()) {
-                        Integer key = child.getPath().substring(chop).hashCode();
-                        List<UniversalContainer> listForThisPath = map.get(key);
-                        if (listForThisPath == null) {
-                            listForThisPath = new ArrayList<UniversalContainer>();
-                            map.put(key, listForThisPath);
-                        }
-                        if (!listForThisPath.contains(this)) {
-                            listForThisPath.add(this);
-                            if (tc.isDebugEnabled())
-                                Tr.debug(tc, "CCL: {" + listForThisPath.size() + "} [" + this.hashCode() + "] adding : [" + key + "] " + (child.getPath().substring(chop)));
-                        }
-                        processContainer(child, map, chop);
+                        builder.addPackage(child.getPath().substring(chop));
+                        processContainer(child, builder, chop);
                     }
                 } catch (UnableToAdaptException ex) {
                     //ignore.
@@ -360,16 +364,38 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
         }
 
         @Override
-        synchronized public void updatePackageMap(Map<Integer, List<UniversalContainer>> map) {
+        synchronized public void index(ContainerIndex.Builder builder) {
             if (tc.isDebugEnabled())
-                Tr.debug(tc, "CCL: updating map for adaptable container with path " + this.container.getPath());
+                Tr.debug(tc, "CCL: indexing adaptable container with path " + this.container.getPath());
             //could speed this up using an adapter to access the underlying artifact container to use localOnly..
-            //we'll keep it simple for now though and just use the existing adaptable api layer.             
+            //we'll keep it simple for now though and just use the existing adaptable api layer.
             int chop = 1;
             if (!"/".equals(this.container.getPath())) {
                 chop = this.container.getPath().length() + 1; //we add 1 to remove the leading slash from entries below this.
             }
-            processContainer(this.container, map, chop);
+            processContainer(this.container, builder, chop);
+        }
+
+        @Override
+        public File getIndexableArchive() {
+            //only nested archives, such as a jar in WEB-INF/lib, are indexed.. the
+            //root container of a module may be overlaid with entries that are not
+            //in the archive.
+            if (!isRoot || container.getEnclosingContainer() == null) {
+                return null;
+            }
+            String physicalPath = container.getPhysicalPath();
+            return physicalPath == null ? null : new File(physicalPath);
+        }
+
+        @Override
+        public ContainerIndex getIndex() {
+            return index;
+        }
+
+        @Override
+        public void setIndex(ContainerIndex index) {
+            this.index = index;
         }
 
         @Override
@@ -453,6 +479,7 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
     private static class ArtifactContainerUniversalContainer implements UniversalContainer {
         final ArtifactContainer container;
         final boolean isRoot;
+        private volatile ContainerIndex index;
 
         public ArtifactContainerUniversalContainer(ArtifactContainer container) {
             this.container = container;
@@ -500,35 +527,45 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
             }
         }
 
-        private void processContainer(ArtifactContainer c, Map<Integer, List<UniversalContainer>> map, int chop) {
+        private void processContainer(ArtifactContainer c, ContainerIndex.Builder builder, int chop) {
             for (ArtifactEntry e : c) {
+                builder.addEntry(e.getPath().substring(chop));
                 ArtifactContainer child = e.convertToContainer(true);
                 if (child != null) {
-                    Integer key = child.getPath().substring(chop).hashCode();
-                    List<UniversalContainer> listForThisPath = map.get(key);
-                    if (listForThisPath == null) {
-                        listForThisPath = new ArrayList<UniversalContainer>();
-                        map.put(key, listForThisPath);
-                    }
-                    if (!listForThisPath.contains(this)) {
-                        listForThisPath.add(this);
-                        if (tc.isDebugEnabled())
-                            Tr.debug(tc, "CCL: {" + listForThisPath.size() + "} [" + this.hashCode() + "] adding : [" + key + "] " + (child.getPath().substring(chop)));
-                    }
-                    processContainer(child, map, chop);
+                    builder.addPackage(child.getPath().substring(chop));
+                    processContainer(child, builder, chop);
                 }
             }
         }
 
         @Override
-        synchronized public void updatePackageMap(Map<Integer, List<UniversalContainer>> map) {
+        synchronized public void index(ContainerIndex.Builder builder) {
             if (tc.isDebugEnabled())
-                Tr.debug(tc, "CCL: updating map for artifact container with path " + this.container.getPath());
+                Tr.debug(tc, "CCL: indexing artifact container with path " + this.container.getPath());
             int chop = 1;
             if (!"/".equals(this.container.getPath())) {
                 chop = this.container.getPath().length() + 1; //we add 1 to remove the leading slash from entries below this.
             }
-            processContainer(container, map, chop);
+            processContainer(container, builder, chop);
+        }
+
+        @Override
+        public File getIndexableArchive() {
+            if (!isRoot) {
+                return null;
+            }
+            String physicalPath = container.getPhysicalPath();
+            return physicalPath == null ? null : new File(physicalPath);
+        }
+
+        @Override
+        public ContainerIndex getIndex() {
+            return index;
+        }
+
+        @Override
+        public void setIndex(ContainerIndex index) {
+            this.index = index;
         }
     }
 
@@ -711,8 +748,32 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
                 }
             }
 
+            //an archive with a stored index, still valid for the archive, needs no
+            //scan.. so the package map can be updated now, rather than waiting for
+            //the map creation queue, which is held until the server has started.
+            final File archive = ContainerIndex.enabled ? uc.getIndexableArchive() : null;
+            ContainerIndex index = archive == null ? null : ContainerIndex.load(archive);
+            if (index != null) {
+                uc.setIndex(index);
+            }
+
             if (usePackageMap) {
                 outstandingContainers.incrementAndGet();
+            }
+
+            //Note method is synchronized to attempt to keep these two always executing together,
+            //although the implementation is written so it wont matter if the 'wrong' lastNotFound
+            //set is used with a given cp entry. They all start empty, and are equiv at this stage.
+            //The container is added before the package map is updated, as the map keeps
+            //the containers for a package in classpath order.
+            classPath.add(uc);
+            lastNotFound.add(Collections.synchronizedSet(new LinkedHashSet<String>()));
+
+            if (index != null) {
+                if (usePackageMap) {
+                    updatePackageMap(uc, index.getPackages());
+                }
+            } else if (usePackageMap || archive != null) {
                 mapCreationQueue.submit(new Runnable() {
                     @Override
                     public void run() {
@@ -723,28 +784,58 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
                                 Tr.debug(tc, "CCL: " + this.hashCode() + " building package map for " + ((ContainerUniversalContainer) uc).container.getPhysicalPath());
                             }
                         }
-                        //perform the update of the map inside the write lock
-                        //to prevent the classloader using the map in an inconsistent state.
-                        WriteLock write = rwLock.writeLock();
-                        write.lock();
-                        try {
-                            uc.updatePackageMap(packageMap);
-                            outstandingContainers.decrementAndGet();
-                        } finally {
-                            write.unlock();
+                        ContainerIndex.Builder builder = new ContainerIndex.Builder(archive);
+                        uc.index(builder);
+                        ContainerIndex builtIndex = builder.build();
+                        if (usePackageMap) {
+                            updatePackageMap(uc, builtIndex.getPackages());
+                        }
+                        if (archive != null) {
+                            uc.setIndex(builtIndex);
+                            builtIndex.store();
                         }
                         if (tc.isDebugEnabled())
                             Tr.debug(tc, "CCL: " + this.hashCode() + " done building package map.");
                     }
                 });
-
             }
+        }
 
-            //Note method is synchronized to attempt to keep these two always executing together, 
-            //although the implementation is written so it wont matter if the 'wrong' lastNotFound
-            //set is used with a given cp entry. They all start empty, and are equiv at this stage.
-            classPath.add(uc);
-            lastNotFound.add(Collections.synchronizedSet(new LinkedHashSet<String>()));
+        /**
+         * Add a container to the package map, for each of its packages. The containers
+         * for a package are kept in classpath order, as containers may be added to the
+         * map in a different order to the classpath: a container with a stored index is
+         * added immediately, ahead of containers which are still queued to be scanned.
+         */
+        private void updatePackageMap(UniversalContainer uc, Set<String> packages) {
+            //perform the update of the map inside the write lock
+            //to prevent the classloader using the map in an inconsistent state.
+            WriteLock write = rwLock.writeLock();
+            write.lock();
+            try {
+                int position = classPath.indexOf(uc);
+                for (String path : packages) {
+                    Integer key = path.hashCode();
+                    List<UniversalContainer> listForThisPath = packageMap.get(key);
+                    if (listForThisPath == null) {
+                        //copy on write, as lookups iterate the list outside of the lock.
+                        listForThisPath = new CopyOnWriteArrayList<UniversalContainer>();
+                        packageMap.put(key, listForThisPath);
+                    }
+                    if (!listForThisPath.contains(uc)) {
+                        int insertAt = listForThisPath.size();
+                        while (insertAt > 0 && classPath.indexOf(listForThisPath.get(insertAt - 1)) > position) {
+                            insertAt--;
+                        }
+                        listForThisPath.add(insertAt, uc);
+                        if (tc.isDebugEnabled())
+                            Tr.debug(tc, "CCL: {" + listForThisPath.size() + "} [" + uc.hashCode() + "] adding : [" + key + "] " + path);
+                    }
+                }
+                outstandingContainers.decrementAndGet();
+            } finally {
+                write.unlock();
+            }
         }
 
         @Override
@@ -818,6 +909,7 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
         @Override
         public ByteResourceInformation getByteResourceInformation(String path) throws IOException {
             int idx = 0;
+            String indexPath = ContainerIndex.toIndexPath(path);
             List<UniversalContainer> locationsToCheck = classPath;
             if (usePackageMap) {
                 locationsToCheck = getUniversalContainersForPath(path, locationsToCheck);
@@ -827,7 +919,7 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
                 Set<String> lastNotFoundForThisContainer = lastNotFound.get(idx);
                 //when we use package map, the index for the cache lookup is invalid
                 //to fix this needs the cache moving inside the universal containers
-                if (usePackageMap || pathNotInlastNotFound(path, lastNotFoundForThisContainer)) {
+                if (mightContain(uc, indexPath) && (usePackageMap || pathNotInlastNotFound(path, lastNotFoundForThisContainer))) {
                     //no hit in not-found-cache.. try to obtain.
                     UniversalContainer.UniversalResource ur = uc.getResource(path);
                     if (ur != null) {
@@ -873,9 +965,10 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
 
             int idx = 0;
             int skipped = 0;
+            String indexPath = ContainerIndex.toIndexPath(path);
             for (UniversalContainer uc : locationsToCheck) {
                 Set<String> lastNotFoundForThisContainer = lastNotFound.get(idx);
-                if (usePackageMap || pathNotInlastNotFound(path, lastNotFoundForThisContainer)) {
+                if (mightContain(uc, indexPath) && (usePackageMap || pathNotInlastNotFound(path, lastNotFoundForThisContainer))) {
                     //no hit found, try getResource
                     UniversalContainer.UniversalResource ur = uc.getResource(path);
                     if (ur != null) {
@@ -914,6 +1007,7 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
             if (lastReallyNotFoundURL.containsKey(path)) {
                 return urls;
             }
+            String indexPath = ContainerIndex.toIndexPath(path);
 
             List<UniversalContainer> locationsToCheck = classPath;
             if (usePackageMap) {
@@ -923,7 +1017,7 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
             int idx = 0;
             for (UniversalContainer uc : locationsToCheck) {
                 Set<String> lastNotFoundForThisContainer = lastNotFound.get(idx);
-                if (usePackageMap || pathNotInlastNotFound(path, lastNotFoundForThisContainer)) {
+                if (mightContain(uc, indexPath) && (usePackageMap || pathNotInlastNotFound(path, lastNotFoundForThisContainer))) {
                     //cache did not know this path, attempt getResource
                     UniversalContainer.UniversalResource ur = uc.getResource(path);
                     if (ur != null) {
@@ -946,6 +1040,19 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
             return urls;
         }
 
+        /**
+         * Check the index of a container, if it has one, for a path.
+         *
+         * @return false if the container is known not to contain the path, true otherwise.
+         */
+        private boolean mightContain(UniversalContainer uc, String indexPath) {
+            if (indexPath == null) {
+                return true;
+            }
+            ContainerIndex index = uc.getIndex();
+            return index == null || index.mightContain(indexPath);
+        }
+
         private void addPath(Set<String> lastNotFoundForThisContainer, String path) {
             synchronized (lastNotFoundForThisContainer) {
                 if (lastNotFoundForThisContainer.size() >= MAX_LASTNOTFOUND) {
@@ -0,0 +1,365 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.classloading.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.websphere.ras.annotation.Trivial;
+import com.ibm.ws.ffdc.annotation.FFDCIgnore;
+
+/**
+ * An index of the packages and entries of an archive on a class path.<p>
+ * The packages of the index are used to build the package map of the class path,
+ * and a bloom filter of the entry paths answers most lookups for paths which are
+ * not in the archive without a probe of the archive.<p>
+ * Indexes of archives are stored in the bundle data area, in the workarea, and are
+ * valid for as long as the last modified time and the length of the archive do not
+ * change. Directories are not indexed persistently, as their timestamps do not
+ * reflect changes to nested entries.
+ */
+final class ContainerIndex {
+    static final TraceComponent tc = Tr.register(ContainerIndex.class);
+
+    static final boolean enabled = !Boolean.getBoolean("com.ibm.ws.classloading.container.disableIndex");
+
+    private static final int MAGIC = 0x43434c49; // "CCLI"
+    private static final int VERSION = 1;
+
+    /** Ten bits per entry and seven hashes give a false positive rate of about one percent. */
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int NUM_HASHES = 7;
+
+    private static final String INDEX_DIRECTORY = "classpathIndex";
+
+    /**
+     * The directory which holds the stored indexes, or null if indexes are not stored.
+     */
+    private static class IndexDirectory {
+        static final File dir = findIndexDirectory();
+
+        private static File findIndexDirectory() {
+            Bundle b = FrameworkUtil.getBundle(ContainerIndex.class);
+            return b == null ? null : b.getDataFile(INDEX_DIRECTORY);
+        }
+    }
+
+    private final String location;
+    private final long lastModified;
+    private final long length;
+    private final Set<String> packages;
+    private final long[] bits;
+
+    private ContainerIndex(String location, long lastModified, long length, Set<String> packages, long[] bits) {
+        this.location = location;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.packages = packages;
+        this.bits = bits;
+    }
+
+    /**
+     * @return the package paths of the container, relative to the container and without a leading slash
+     */
+    Set<String> getPackages() {
+        return packages;
+    }
+
+    /**
+     * Tell if an entry might be in the container. A false answer is definite: the entry is not in the container.
+     *
+     * @param indexPath a path as answered by {@link #toIndexPath(String)}, not null
+     */
+    @Trivial
+    boolean mightContain(String indexPath) {
+        if (bits == null) {
+            return true;
+        }
+        long numBits = (long) bits.length * 64;
+        int h1 = indexPath.hashCode();
+        int h2 = secondHash(indexPath);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            long bit = ((h1 + i * h2) & 0x7fffffffL) % numBits;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Convert a resource path to the path which is used to look up the bloom filter.
+     * Only plain paths are converted: paths which would need normalization, or which
+     * name a directory with a trailing slash, must always be looked up in the container.
+     *
+     * @return the path without a leading slash, or null if the path must not be looked up in an index
+     */
+    @Trivial
+    static String toIndexPath(String path) {
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        if (path.length() == 0 || path.endsWith("/") || path.indexOf('\\') != -1 || path.indexOf("//") != -1) {
+            return null;
+        }
+        if (path.equals(".") || path.equals("..") || path.startsWith("./") || path.startsWith("../")
+            || path.endsWith("/.") || path.endsWith("/..") || path.contains("/./") || path.contains("/../")) {
+            return null;
+        }
+        return path;
+    }
+
+    @Trivial
+    private static int secondHash(String s) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x01000193;
+        }
+        return h | 1;
+    }
+
+    /**
+     * @return the last modified time and the length of an archive, or null if the file is not an archive
+     */
+    private static long[] stat(final File archive) {
+        return AccessController.doPrivileged(new PrivilegedAction<long[]>() {
+            @Override
+            public long[] run() {
+                return archive.isFile() ? new long[] { archive.lastModified(), archive.length() } : null;
+            }
+        });
+    }
+
+    private static File getIndexFile(File dir, String location) {
+        return dir == null ? null : new File(dir, Integer.toHexString(location.hashCode()) + ".idx");
+    }
+
+    /**
+     * Load the stored index of an archive from the bundle data area.
+     *
+     * @return the index, or null if there is no stored index which is valid for the current archive
+     */
+    static ContainerIndex load(File archive) {
+        return load(archive, IndexDirectory.dir);
+    }
+
+    /**
+     * Load the stored index of an archive.
+     *
+     * @param indexDir the directory which holds the stored indexes, or null if indexes are not stored
+     * @return the index, or null if there is no stored index which is valid for the current archive
+     */
+    @FFDCIgnore(PrivilegedActionException.class)
+    static ContainerIndex load(File archive, File indexDir) {
+        final String location = archive.getAbsolutePath();
+        final File indexFile = getIndexFile(indexDir, location);
+        final long[] stat = stat(archive);
+        if (indexFile == null || stat == null) {
+            return null;
+        }
+        try {
+            ContainerIndex index = AccessController.doPrivileged(new PrivilegedExceptionAction<ContainerIndex>() {
+                @Override
+                public ContainerIndex run() throws IOException {
+                    if (!indexFile.isFile()) {
+                        return null;
+                    }
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+                    try {
+                        return read(in, location, stat);
+                    } finally {
+                        Util.tryToClose(in);
+                    }
+                }
+            });
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "CCL: " + (index == null ? "no valid index" : "loaded index") + " for " + location);
+            return index;
+        } catch (PrivilegedActionException e) {
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "CCL: unable to load the index of " + location, e.getException());
+            return null;
+        }
+    }
+
+    private static ContainerIndex read(DataInputStream in, String location, long[] stat) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return null;
+        }
+        // a different archive with the same hash, or a changed archive
+        if (!location.equals(in.readUTF()) || in.readLong() != stat[0] || in.readLong() != stat[1]) {
+            return null;
+        }
+        int numPackages = in.readInt();
+        Set<String> packages = new HashSet<String>(numPackages * 4 / 3 + 1);
+        for (int i = 0; i < numPackages; i++) {
+            packages.add(in.readUTF());
+        }
+        int numWords = in.readInt();
+        long[] bits = new long[numWords];
+        for (int i = 0; i < numWords; i++) {
+            bits[i] = in.readLong();
+        }
+        return new ContainerIndex(location, stat[0], stat[1], Collections.unmodifiableSet(packages), bits);
+    }
+
+    /**
+     * Store this index in the bundle data area. Indexes which were not built for an archive are not stored.
+     */
+    void store() {
+        store(IndexDirectory.dir);
+    }
+
+    /**
+     * Store this index. Indexes which were not built for an archive are not stored.
+     *
+     * @param indexDir the directory which holds the stored indexes, or null if indexes are not stored
+     */
+    @FFDCIgnore(PrivilegedActionException.class)
+    void store(File indexDir) {
+        if (location == null) {
+            return;
+        }
+        final File indexFile = getIndexFile(indexDir, location);
+        if (indexFile == null) {
+            return;
+        }
+        try {
+            AccessController.doPrivileged(new PrivilegedExceptionAction<Void>() {
+                @Override
+                public Void run() throws IOException {
+                    File dir = indexFile.getParentFile();
+                    if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+                        throw new IOException("Unable to create " + dir);
+                    }
+                    // Write to a temporary file which is then renamed, so that a
+                    // concurrent load never sees a partially written index.
+                    File tempFile = File.createTempFile("index", ".tmp", dir);
+                    try {
+                        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+                        try {
+                            write(out);
+                        } finally {
+                            Util.tryToClose(out);
+                        }
+                        if (!tempFile.renameTo(indexFile)) {
+                            indexFile.delete();
+                            if (!tempFile.renameTo(indexFile)) {
+                                throw new IOException("Unable to rename " + tempFile + " to " + indexFile);
+                            }
+                        }
+                    } finally {
+                        tempFile.delete();
+                    }
+                    return null;
+                }
+            });
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "CCL: stored index of " + location + " with " + packages.size() + " packages to " + indexFile);
+        } catch (PrivilegedActionException e) {
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "CCL: unable to store the index of " + location, e.getException());
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(location);
+        out.writeLong(lastModified);
+        out.writeLong(length);
+        out.writeInt(packages.size());
+        for (String p : packages) {
+            out.writeUTF(p);
+        }
+        out.writeInt(bits.length);
+        for (long word : bits) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Collects the packages and entries of a container.
+     */
+    static class Builder {
+        private final String location;
+        private final long[] stat;
+        private final Set<String> packages = new HashSet<String>();
+        private final List<String> entries;
+
+        /**
+         * @param archive the archive of the container, or null if the container is not an archive.
+         *            Only the packages of a container which is not an archive are collected.
+         */
+        Builder(File archive) {
+            // The archive is checked before the container is read, so that a change
+            // made while the container is read invalidates the index.
+            long[] archiveStat = archive == null ? null : stat(archive);
+            this.location = archiveStat == null ? null : archive.getAbsolutePath();
+            this.stat = archiveStat;
+            this.entries = archiveStat == null ? null : new ArrayList<String>();
+        }
+
+        /**
+         * @param path the path of a package, relative to the container and without a leading slash
+         */
+        void addPackage(String path) {
+            packages.add(path);
+        }
+
+        /**
+         * @param path the path of an entry, relative to the container and without a leading slash
+         */
+        void addEntry(String path) {
+            if (entries != null) {
+                entries.add(path);
+            }
+        }
+
+        ContainerIndex build() {
+            if (entries == null) {
+                return new ContainerIndex(null, 0, 0, packages, null);
+            }
+            long numBits = Math.max(64, (long) entries.size() * BITS_PER_ENTRY);
+            long[] bits = new long[(int) ((numBits + 63) / 64)];
+            numBits = (long) bits.length * 64;
+            for (String entry : entries) {
+                int h1 = entry.hashCode();
+                int h2 = secondHash(entry);
+                for (int i = 0; i < NUM_HASHES; i++) {
+                    long bit = ((h1 + i * h2) & 0x7fffffffL) % numBits;
+                    bits[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+            return new ContainerIndex(location, stat[0], stat[1], Collections.unmodifiableSet(packages), bits);
+        }
+    }
+}
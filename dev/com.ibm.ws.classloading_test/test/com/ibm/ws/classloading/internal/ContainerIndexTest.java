@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.classloading.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import test.common.SharedOutputManager;
+
+public class ContainerIndexTest {
+    @Rule
+    public final SharedOutputManager outputManager = SharedOutputManager.getInstance();
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private static List<String> entries(int numPackages, int classesPerPackage) {
+        List<String> entries = new ArrayList<String>();
+        for (int p = 0; p < numPackages; p++) {
+            for (int c = 0; c < classesPerPackage; c++) {
+                entries.add("com/example/p" + p + "/Class" + c + ".class");
+            }
+        }
+        return entries;
+    }
+
+    private File createArchive(String name) throws IOException {
+        File archive = tmp.newFile(name);
+        FileOutputStream out = new FileOutputStream(archive);
+        try {
+            out.write(new byte[1024]);
+        } finally {
+            out.close();
+        }
+        return archive;
+    }
+
+    private static ContainerIndex build(File archive, List<String> entries) {
+        ContainerIndex.Builder builder = new ContainerIndex.Builder(archive);
+        for (String entry : entries) {
+            builder.addPackage(entry.substring(0, entry.lastIndexOf('/')));
+            builder.addEntry(entry);
+        }
+        return builder.build();
+    }
+
+    private static void assertContainsAll(ContainerIndex index, List<String> entries) {
+        for (String entry : entries) {
+            assertTrue("false negative for " + entry, index.mightContain(ContainerIndex.toIndexPath("/" + entry)));
+        }
+    }
+
+    /**
+     * Every entry which was added to the index must be answered as possibly present.
+     */
+    @Test
+    public void testNoFalseNegatives() throws Exception {
+        List<String> entries = entries(100, 50);
+        ContainerIndex index = build(createArchive("test.jar"), entries);
+        assertContainsAll(index, entries);
+        assertEquals(100, index.getPackages().size());
+        assertTrue(index.getPackages().contains("com/example/p0"));
+
+        // ten bits per entry give about one percent of false positives
+        int falsePositives = 0;
+        for (String entry : entries(100, 50)) {
+            if (index.mightContain(entry.replace("/Class", "/Missing"))) {
+                falsePositives++;
+            }
+        }
+        assertTrue("too many false positives: " + falsePositives, falsePositives < entries.size() / 20);
+    }
+
+    /**
+     * A container which is not an archive has no filter: every lookup must go to the container.
+     */
+    @Test
+    public void testDirectoryIsNotFiltered() throws Exception {
+        ContainerIndex.Builder builder = new ContainerIndex.Builder(null);
+        builder.addPackage("com/example");
+        builder.addEntry("com/example/Present.class");
+        ContainerIndex index = builder.build();
+        assertTrue(index.mightContain("com/example/Missing.class"));
+        assertTrue(index.getPackages().contains("com/example"));
+
+        File indexDir = tmp.newFolder("classpathIndex");
+        index.store(indexDir);
+        assertEquals(0, indexDir.list().length);
+    }
+
+    @Test
+    public void testToIndexPath() {
+        assertEquals("com/example/A.class", ContainerIndex.toIndexPath("/com/example/A.class"));
+        assertEquals("com/example/A.class", ContainerIndex.toIndexPath("com/example/A.class"));
+        assertNull(ContainerIndex.toIndexPath("/"));
+        assertNull(ContainerIndex.toIndexPath("com/example/"));
+        assertNull(ContainerIndex.toIndexPath("com//example/A.class"));
+        assertNull(ContainerIndex.toIndexPath("com\\example\\A.class"));
+        assertNull(ContainerIndex.toIndexPath("com/./example/A.class"));
+        assertNull(ContainerIndex.toIndexPath("../com/example/A.class"));
+        assertNull(ContainerIndex.toIndexPath("com/example/.."));
+    }
+
+    @Test
+    public void testStoredIndexIsLoaded() throws Exception {
+        File archive = createArchive("stored.jar");
+        File indexDir = new File(tmp.getRoot(), "classpathIndex");
+        List<String> entries = entries(20, 20);
+        ContainerIndex index = build(archive, entries);
+        index.store(indexDir);
+
+        ContainerIndex loaded = ContainerIndex.load(archive, indexDir);
+        assertNotNull(loaded);
+        assertEquals(index.getPackages(), loaded.getPackages());
+        assertContainsAll(loaded, entries);
+
+        // no index is stored for another archive, and none is stored without a directory
+        assertNull(ContainerIndex.load(createArchive("other.jar"), indexDir));
+        assertNull(ContainerIndex.load(archive, null));
+    }
+
+    /**
+     * An index which was stored for an earlier version of the archive must not be used.
+     */
+    @Test
+    public void testStaleIndexIsRejected() throws Exception {
+        File archive = createArchive("stale.jar");
+        File indexDir = new File(tmp.getRoot(), "classpathIndex");
+        build(archive, entries(5, 5)).store(indexDir);
+        assertNotNull(ContainerIndex.load(archive, indexDir));
+
+        long lastModified = archive.lastModified();
+        assertTrue(archive.setLastModified(lastModified - 10000));
+        assertNull(ContainerIndex.load(archive, indexDir));
+
+        // same time stamp, different length
+        RandomAccessFile raf = new RandomAccessFile(archive, "rw");
+        try {
+            raf.setLength(raf.length() + 1);
+        } finally {
+            raf.close();
+        }
+        assertTrue(archive.setLastModified(lastModified));
+        assertNull(ContainerIndex.load(archive, indexDir));
+
+        // a new index replaces the stale one
+        build(archive, entries(5, 5)).store(indexDir);
+        assertNotNull(ContainerIndex.load(archive, indexDir));
+
+        assertTrue(archive.delete());
+        assertNull(ContainerIndex.load(archive, indexDir));
+    }
+
+    /**
+     * A damaged index file must be ignored, not fail the class loader.
+     */
+    @Test
+    public void testDamagedIndexIsRejected() throws Exception {
+        File archive = createArchive("damaged.jar");
+        File indexDir = new File(tmp.getRoot(), "classpathIndex");
+        build(archive, entries(5, 5)).store(indexDir);
+
+        File[] indexFiles = indexDir.listFiles();
+        assertEquals(1, indexFiles.length);
+        RandomAccessFile raf = new RandomAccessFile(indexFiles[0], "rw");
+        try {
+            // truncated in the middle of the filter
+            raf.setLength(raf.length() - 4);
+            assertNull(ContainerIndex.load(archive, indexDir));
+            // a file which is not an index
+            raf.seek(0);
+            raf.writeInt(0);
+            assertNull(ContainerIndex.load(archive, indexDir));
+        } finally {
+            raf.close();
+        }
+
+        for (File f : indexDir.listFiles()) {
+            assertTrue("temporary file left behind: " + f, f.getName().endsWith(".idx"));
+        }
+    }
+}
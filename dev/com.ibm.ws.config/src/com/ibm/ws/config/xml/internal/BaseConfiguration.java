@@ -37,6 +37,10 @@ class BaseConfiguration {
 
     private final List<WsResource> includes = new ArrayList<WsResource>();
 
+    // The location attribute of each include, and the location of the document which
+    // contains the include, in parse order. Includes which could not be resolved are listed.
+    private final List<String[]> includeLocations = new ArrayList<String[]>();
+
     protected final Map<String, List<ConfigVariable>> variables = new HashMap<String, List<ConfigVariable>>();
 
     // Only SimpleElements (corresponding directly to server xml elements) are stored here
@@ -424,6 +428,14 @@ class BaseConfiguration {
         return includes;
     }
 
+    void addIncludeLocation(String location, String docLocation) {
+        includeLocations.add(new String[] { location, docLocation });
+    }
+
+    List<String[]> getIncludeLocations() {
+        return includeLocations;
+    }
+
     void setDescription(String description) {
         this.description = description;
     }
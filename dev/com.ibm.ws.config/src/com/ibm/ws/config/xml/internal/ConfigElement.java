@@ -11,6 +11,7 @@
 
 package com.ibm.ws.config.xml.internal;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -25,7 +26,9 @@ import com.ibm.ws.config.admin.ConfigID;
 import com.ibm.ws.config.xml.internal.XMLConfigParser.MergeBehavior;
 
 @Trivial
-abstract class ConfigElement {
+abstract class ConfigElement implements Serializable {
+
+    private static final long serialVersionUID = -2744563716530826402L;
 
     public enum MERGE_OP {
         APPEND, SET
@@ -329,7 +332,11 @@ abstract class ConfigElement {
                operations.equals(other.operations) && sequenceId == other.sequenceId;
     }
 
-    static Comparator<String> CASE_INSENSITIVE = new Comparator<String>() {
+    static Comparator<String> CASE_INSENSITIVE = new CaseInsensitiveComparator();
+
+    // Serializable, as the comparator of the attributes of a serialized element
+    private static class CaseInsensitiveComparator implements Comparator<String>, Serializable {
+        private static final long serialVersionUID = -4172513263907314251L;
 
         @Override
         @Trivial
@@ -346,7 +353,7 @@ abstract class ConfigElement {
             return s1.compareToIgnoreCase(s2);
         }
 
-    };
+    }
 
     @Trivial
     static class GroupHashMap extends TreeMap<String, Object> {
@@ -10,12 +10,16 @@
  *******************************************************************************/
 package com.ibm.ws.config.xml.internal;
 
+import java.io.Serializable;
+
 import com.ibm.ws.config.xml.internal.XMLConfigParser.MergeBehavior;
 
 /**
  *
  */
-class ConfigVariable {
+class ConfigVariable implements Serializable {
+
+    private static final long serialVersionUID = -6253061785230153186L;
 
     private final String name;
     private final String value;
@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.config.xml.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.config.xml.internal.validator.DefaultXMLConfigValidator;
+import com.ibm.ws.config.xml.internal.validator.XMLConfigValidator;
+import com.ibm.ws.ffdc.annotation.FFDCIgnore;
+import com.ibm.wsspi.kernel.service.location.WsLocationAdmin;
+import com.ibm.wsspi.kernel.service.location.WsResource;
+
+/**
+ * A snapshot of the parsed server configuration: the elements and variables of server.xml,
+ * its includes and the configDropins files, stored in the bundle data area.
+ * <p>
+ * The snapshot is valid while the documents which it was parsed from are unchanged. The
+ * documents are identified by their path and a digest of their content; the include
+ * locations are resolved again, so that a change to a variable which is used in an
+ * include location invalidates the snapshot. A snapshot is not stored for a configuration
+ * which has remote includes, or which had parse errors.
+ * <p>
+ * A snapshot bypasses the validator of the parser, so snapshots are only used with the
+ * default validator, which does not validate.
+ */
+class ServerConfigurationSnapshot {
+
+    private static final TraceComponent tc = Tr.register(ServerConfigurationSnapshot.class, XMLConfigConstants.TR_GROUP, XMLConfigConstants.NLS_PROPS);
+
+    static final boolean enabled = !Boolean.getBoolean("com.ibm.ws.config.snapshot.disable");
+
+    private static final int VERSION = 2;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final File snapshotFile;
+    private final WsLocationAdmin locationService;
+
+    ServerConfigurationSnapshot(File snapshotFile, WsLocationAdmin locationService) {
+        this.snapshotFile = snapshotFile;
+        this.locationService = locationService;
+    }
+
+    /**
+     * Load the snapshot of a configuration.
+     *
+     * @param configRoot the root document, server.xml
+     * @param dropinFiles the configDropins files, in parse order
+     * @param parser the parser which parses the configuration documents which are not in the
+     *            snapshot. The parser continues the sequence of the elements of the snapshot.
+     * @return the configuration, or null if there is no snapshot which is valid for the current documents
+     */
+    @FFDCIgnore(Exception.class)
+    ServerConfiguration load(WsResource configRoot, List<File> dropinFiles, XMLConfigParser parser) {
+        if (!isUsable(parser) || !snapshotFile.isFile()) {
+            return null;
+        }
+
+        FileInputStream fis = null;
+        ObjectInputStream ois = null;
+        try {
+            fis = new FileInputStream(snapshotFile);
+            ois = new ObjectInputStream(new BufferedInputStream(fis));
+            if (ois.readInt() != VERSION) {
+                return null;
+            }
+
+            @SuppressWarnings("unchecked")
+            List<String[]> includeLocations = (List<String[]>) ois.readObject();
+            List<WsResource> includes = new ArrayList<WsResource>(includeLocations.size());
+            List<String> documents = getDocuments(configRoot, dropinFiles, includeLocations, includes);
+            if (documents == null || !documents.equals(ois.readObject())) {
+                if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                    Tr.debug(tc, "The configuration snapshot is not valid for the current configuration documents");
+                }
+                return null;
+            }
+
+            ServerConfiguration configuration = new ServerConfiguration();
+            configuration.setDescription((String) ois.readObject());
+            configuration.updateLastModified(ois.readLong());
+            int sequenceCounter = ois.readInt();
+
+            @SuppressWarnings("unchecked")
+            Map<String, List<SimpleElement>> elements = (Map<String, List<SimpleElement>>) ois.readObject();
+            for (List<SimpleElement> list : elements.values()) {
+                for (SimpleElement element : list) {
+                    configuration.addConfigElement(element);
+                }
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, List<ConfigVariable>> variables = (Map<String, List<ConfigVariable>>) ois.readObject();
+            for (List<ConfigVariable> list : variables.values()) {
+                for (ConfigVariable variable : list) {
+                    configuration.addVariable(variable);
+                }
+            }
+            configuration.getIncludes().addAll(includes);
+            configuration.getIncludeLocations().addAll(includeLocations);
+
+            parser.setSequenceCounter(Math.max(parser.getSequenceCounter(), sequenceCounter));
+
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                Tr.debug(tc, "Loaded the configuration snapshot of " + documents.size() + " documents from " + snapshotFile);
+            }
+            return configuration;
+        } catch (Exception e) {
+            // A snapshot which cannot be read is parsed again, and replaced.
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                Tr.debug(tc, "load():  Exception = " + e.getMessage());
+            }
+            return null;
+        } finally {
+            ConfigUtil.closeIO(ois);
+            ConfigUtil.closeIO(fis);
+        }
+    }
+
+    /**
+     * Store the snapshot of a configuration which was parsed without errors.
+     *
+     * @param configuration the configuration
+     * @param configRoot the root document, server.xml
+     * @param dropinFiles the configDropins files, in parse order
+     * @param parser the parser which parsed the configuration
+     */
+    @FFDCIgnore(IOException.class)
+    void store(ServerConfiguration configuration, WsResource configRoot, List<File> dropinFiles, XMLConfigParser parser) {
+        if (!isUsable(parser)) {
+            snapshotFile.delete();
+            return;
+        }
+        List<String[]> includeLocations = configuration.getIncludeLocations();
+        List<String> documents = getDocuments(configRoot, dropinFiles, includeLocations, null);
+        if (documents == null) {
+            // Remove a snapshot of a previous configuration, which could otherwise become valid again.
+            snapshotFile.delete();
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                Tr.debug(tc, "The configuration has documents which are not files, or which cannot be read; no snapshot is stored");
+            }
+            return;
+        }
+
+        Map<String, List<SimpleElement>> elements = new LinkedHashMap<String, List<SimpleElement>>();
+        for (Map.Entry<String, ConfigurationList<SimpleElement>> entry : configuration.configurationMap.entrySet()) {
+            elements.put(entry.getKey(), entry.getValue().collectElements(null));
+        }
+        Map<String, List<ConfigVariable>> variables = new HashMap<String, List<ConfigVariable>>(configuration.variables);
+
+        FileOutputStream fos = null;
+        ObjectOutputStream oos = null;
+        boolean stored = false;
+        try {
+            fos = new FileOutputStream(snapshotFile, false);
+            oos = new ObjectOutputStream(new BufferedOutputStream(fos));
+            oos.writeInt(VERSION);
+            oos.writeObject(new ArrayList<String[]>(includeLocations));
+            oos.writeObject(documents);
+            oos.writeObject(configuration.getDescription());
+            oos.writeLong(configuration.getLastModified());
+            oos.writeInt(parser.getSequenceCounter());
+            oos.writeObject(elements);
+            oos.writeObject(variables);
+            oos.flush();
+            stored = true;
+        } catch (IOException e) {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                Tr.debug(tc, "store():  Exception = " + e.getMessage());
+            }
+        } finally {
+            ConfigUtil.closeIO(oos);
+            ConfigUtil.closeIO(fos);
+            if (!stored) {
+                snapshotFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Tell if the snapshot can be used with the validator of a parser. A validator which
+     * checks the documents, such as the validator of an embedded server, must see every
+     * document, so the documents are always parsed.
+     */
+    private static boolean isUsable(XMLConfigParser parser) {
+        XMLConfigValidator validator = parser.getConfigValidator();
+        boolean usable = validator != null && validator.getClass() == DefaultXMLConfigValidator.class;
+        if (!usable && TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "The configuration snapshot is not used with the validator " + validator);
+        }
+        return usable;
+    }
+
+    /**
+     * Describe the documents of a configuration as their path and a digest of their content.
+     *
+     * @param includes if not null, the resolved includes are added to this list
+     * @return the descriptions, in parse order, or null if a document is not a local file or cannot be read
+     */
+    private List<String> getDocuments(WsResource configRoot, List<File> dropinFiles, List<String[]> includeLocations, List<WsResource> includes) {
+        List<String> documents = new ArrayList<String>(1 + dropinFiles.size() + includeLocations.size());
+        File rootFile = configRoot.asFile();
+        if (rootFile == null) {
+            return null;
+        }
+        String rootDocument = describe(rootFile);
+        if (rootDocument == null) {
+            return null;
+        }
+        documents.add(rootDocument);
+        for (File file : dropinFiles) {
+            String document = describe(file);
+            if (document == null) {
+                return null;
+            }
+            documents.add(document);
+        }
+        for (String[] includeLocation : includeLocations) {
+            WsResource include = XMLConfigParser.resolveInclude(includeLocation[0], includeLocation[1], locationService);
+            if (include == null) {
+                documents.add(includeLocation[0]);
+                continue;
+            }
+            if (includes != null) {
+                includes.add(include);
+            }
+            if (include.exists() && !include.isType(WsResource.Type.FILE)) {
+                return null;
+            }
+            File file = include.asFile();
+            String document = file == null ? include.toRepositoryPath() : describe(file);
+            if (document == null) {
+                return null;
+            }
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    /**
+     * Describe a document as its path and a digest of its content. The last modified time
+     * is not used: it has a coarse resolution on some file systems, and can be preserved
+     * by a copy which changes the content.
+     *
+     * @return the description, or null if the document cannot be read
+     */
+    @FFDCIgnore(IOException.class)
+    private static String describe(File file) {
+        if (!file.isFile()) {
+            return file.getAbsolutePath() + "|missing";
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(file);
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = fis.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        } catch (IOException e) {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                Tr.debug(tc, "describe():  Exception = " + e.getMessage());
+            }
+            return null;
+        } finally {
+            ConfigUtil.closeIO(fis);
+        }
+
+        StringBuilder description = new StringBuilder(file.getAbsolutePath()).append('|');
+        for (byte b : digest.digest()) {
+            description.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return description.toString();
+    }
+}
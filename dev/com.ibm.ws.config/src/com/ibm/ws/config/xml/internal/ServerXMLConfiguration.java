@@ -12,11 +12,14 @@ package com.ibm.ws.config.xml.internal;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.osgi.framework.BundleContext;
@@ -59,6 +62,9 @@ class ServerXMLConfiguration {
 
     private final XMLConfigParser parser;
 
+    /** The snapshot of the parsed configuration, or null if snapshots are not used */
+    private final ServerConfigurationSnapshot snapshot;
+
     ServerXMLConfiguration(BundleContext bundleContext,
                            WsLocationAdmin locationService,
                            XMLConfigParser parser) {
@@ -77,6 +83,8 @@ class ServerXMLConfiguration {
         // been updated since the last run.
         this.configReadTime = getInitialConfigReadTime(bundleContext);
 
+        File snapshotFile = (bundleContext == null || !ServerConfigurationSnapshot.enabled) ? null : bundleContext.getDataFile("configSnapshot");
+        this.snapshot = snapshotFile == null ? null : new ServerConfigurationSnapshot(snapshotFile, locationService);
     }
 
     boolean hasConfigRoot() {
@@ -112,21 +120,24 @@ class ServerXMLConfiguration {
     public void loadInitialConfiguration(ConfigVariableRegistry variableRegistry) throws ConfigValidationException, ConfigParserTolerableException {
         if (configRoot != null && configRoot.exists()) {
 
-            try {
-                serverConfiguration = loadServerConfiguration();
-                if (serverConfiguration == null) {
-                    // This only happens if there is a parser error and onError has been set to IGNORE or WARN.
-                    // We're just avoiding an NPE here. The user will see the server start up with a warning
-                    // that nothing has been configured. This is less than ideal in the case of IGNORE, but it's
-                    // the behavior the user has asked for.
+            serverConfiguration = loadConfigurationSnapshot();
+            if (serverConfiguration == null) {
+                try {
+                    serverConfiguration = loadServerConfiguration();
+                    if (serverConfiguration == null) {
+                        // This only happens if there is a parser error and onError has been set to IGNORE or WARN.
+                        // We're just avoiding an NPE here. The user will see the server start up with a warning
+                        // that nothing has been configured. This is less than ideal in the case of IGNORE, but it's
+                        // the behavior the user has asked for.
+                        serverConfiguration = new ServerConfiguration();
+                    }
+                } catch (ConfigParserTolerableException ex) {
+                    // This only gets caught here if OnError = FAIL.. rethrow so the server will shut down
+                    throw ex;
+                } catch (ConfigParserException ex) {
+                    Tr.error(tc, "error.config.update.init", ex.getMessage());
                     serverConfiguration = new ServerConfiguration();
                 }
-            } catch (ConfigParserTolerableException ex) {
-                // This only gets caught here if OnError = FAIL.. rethrow so the server will shut down
-                throw ex;
-            } catch (ConfigParserException ex) {
-                Tr.error(tc, "error.config.update.init", ex.getMessage());
-                serverConfiguration = new ServerConfiguration();
             }
 
             serverConfiguration.setDefaultConfiguration(new BaseConfiguration());
@@ -144,6 +155,45 @@ class ServerXMLConfiguration {
 
     }
 
+    /**
+     * Load the snapshot of the configuration, if the configuration documents have not
+     * changed since the snapshot was stored. The documents are reported as they would
+     * be if they were parsed. A snapshot is not used with a validator which checks the
+     * documents, as the validator would not see them.
+     *
+     * @return the configuration, or null if there is no valid snapshot
+     */
+    private ServerConfiguration loadConfigurationSnapshot() {
+        if (snapshot == null) {
+            return null;
+        }
+
+        File[] defaultFiles = listDirectoryFiles(configDropinDefaults);
+        File[] overrideFiles = listDirectoryFiles(configDropinOverrides);
+        ServerConfiguration configuration = snapshot.load(configRoot, getDropinFiles(defaultFiles, overrideFiles), parser);
+        if (configuration != null) {
+            for (File file : defaultFiles) {
+                Tr.audit(tc, "audit.dropin.being.processed", file);
+            }
+            for (WsResource include : configuration.getIncludes()) {
+                if (include.exists()) {
+                    Tr.audit(tc, "audit.include.being.processed", include.asFile());
+                }
+            }
+            for (File file : overrideFiles) {
+                Tr.audit(tc, "audit.dropin.being.processed", file);
+            }
+        }
+        return configuration;
+    }
+
+    private static List<File> getDropinFiles(File[] defaultFiles, File[] overrideFiles) {
+        List<File> files = new ArrayList<File>(defaultFiles.length + overrideFiles.length);
+        Collections.addAll(files, defaultFiles);
+        Collections.addAll(files, overrideFiles);
+        return files;
+    }
+
     public void setConfigReadTime() {
         long time = getLastResourceModifiedTime(); //serverConfiguration.getLastModified();
         // Update time stamp for configReadTime on next run.
@@ -259,17 +309,25 @@ class ServerXMLConfiguration {
                 configuration = new ServerConfiguration();
 
                 // Load files from configDropins/defaults first
-                parseDirectoryFiles(configDropinDefaults, configuration);
+                File[] defaultFiles = listDirectoryFiles(configDropinDefaults);
+                boolean parsed = parseDirectoryFiles(configDropinDefaults, defaultFiles, configuration);
 
                 // Parse server.xml and its includes
-                parser.parseServerConfiguration(configRoot, configuration);
+                parsed &= parser.parseServerConfiguration(configRoot, configuration) != null;
 
                 // Parse files from configDropins/overrides
-                parseDirectoryFiles(configDropinOverrides, configuration);
+                File[] overrideFiles = listDirectoryFiles(configDropinOverrides);
+                parsed &= parseDirectoryFiles(configDropinOverrides, overrideFiles, configuration);
 
                 configuration.updateLastModified(configRoot.getLastModified());
 
                 configValidator.validateConfig(configuration);
+
+                // Only a configuration which was parsed without errors is stored, so that
+                // the errors are reported again when the server is restarted.
+                if (snapshot != null && parsed) {
+                    snapshot.store(configuration, configRoot, getDropinFiles(defaultFiles, overrideFiles), parser);
+                }
             } catch (ConfigParserTolerableException ex) {
                 // We know what this is, so no need to retry
                 throw ex;
@@ -312,13 +370,13 @@ class ServerXMLConfiguration {
     }
 
     /**
-     * Parse all of the config files in a directory in platform insensitive alphabetical order
+     * List the config files in a directory in platform insensitive alphabetical order
      */
-    private void parseDirectoryFiles(WsResource directory, ServerConfiguration configuration) throws ConfigParserException, ConfigValidationException {
+    private static File[] listDirectoryFiles(WsResource directory) {
         if (directory != null) {
             File defaultsDir = directory.asFile();
             if (defaultsDir == null || !defaultsDir.exists())
-                return;
+                return new File[0];
 
             File[] defaultFiles = defaultsDir.listFiles(new FilenameFilter() {
 
@@ -331,8 +389,23 @@ class ServerXMLConfiguration {
                     return false;
                 }
             });
+            if (defaultFiles == null)
+                return new File[0];
+
             Arrays.sort(defaultFiles, new AlphaComparator());
+            return defaultFiles;
+        }
+        return new File[0];
+    }
 
+    /**
+     * Parse the config files of a directory, as listed by {@link #listDirectoryFiles(WsResource)}
+     *
+     * @return true if all of the files were parsed without errors
+     */
+    private boolean parseDirectoryFiles(WsResource directory, File[] defaultFiles, ServerConfiguration configuration) throws ConfigParserException, ConfigValidationException {
+        boolean parsed = true;
+        if (directory != null) {
             for (int i = 0; i < defaultFiles.length; i++) {
                 File file = defaultFiles[i];
                 WsResource defaultFile = directory.getChild(file.getName());
@@ -342,12 +415,14 @@ class ServerXMLConfiguration {
                     if (tc.isDebugEnabled()) {
                         Tr.debug(tc, file.getName() + " was not found in directory " + directory.getName() + ". Ignoring. ");
                     }
+                    parsed = false;
                     continue;
                 }
                 Tr.audit(tc, "audit.dropin.being.processed", defaultFile.asFile());
                 try {
-                    parser.parseServerConfiguration(defaultFile, configuration);
+                    parsed &= parser.parseServerConfiguration(defaultFile, configuration) != null;
                 } catch (ConfigParserException ex) {
+                    parsed = false;
                     parser.handleParseError(ex, null);
 
                     if (ErrorHandler.INSTANCE.fail()) {
@@ -360,6 +435,7 @@ class ServerXMLConfiguration {
                 }
             }
         }
+        return parsed;
     }
 
     @FFDCIgnore(ConfigParserTolerableException.class)
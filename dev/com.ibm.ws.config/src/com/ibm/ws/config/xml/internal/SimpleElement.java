@@ -16,6 +16,8 @@ package com.ibm.ws.config.xml.internal;
  */
 public class SimpleElement extends ConfigElement {
 
+    private static final long serialVersionUID = 5396427251845190633L;
+
     private String id;
     protected boolean usingDefaultId = false;
 
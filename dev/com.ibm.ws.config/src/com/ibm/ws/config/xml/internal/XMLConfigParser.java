@@ -99,6 +99,18 @@ public class XMLConfigParser {
         return sequenceCounter++;
     }
 
+    int getSequenceCounter() {
+        return sequenceCounter;
+    }
+
+    /**
+     * Continue the sequence of a configuration which was not parsed by this parser,
+     * so that elements parsed later are ordered after the elements of that configuration.
+     */
+    void setSequenceCounter(int sequenceCounter) {
+        this.sequenceCounter = sequenceCounter;
+    }
+
     @Trivial
     public XMLConfigValidator getConfigValidator() {
         return configValidator;
@@ -269,8 +281,6 @@ public class XMLConfigParser {
             config.setDescription(descriptionAttributeValue);
         }
 
-        List<WsResource> includes = config.getIncludes();
-
         try {
             ConfigParserTolerableException savedConfigParserException = null;
             int depth = parser.getDepth();
@@ -283,7 +293,7 @@ public class XMLConfigParser {
                         // exception is thrown we still know what had been successfully parsed.
                         BaseConfiguration importedConfig = new BaseConfiguration();
                         try {
-                            parseInclude(parser, docLocation, includes, importedConfig);
+                            parseInclude(parser, docLocation, config, importedConfig);
                         } catch (ConfigParserTolerableException e) {
                             // Catch this tolerable exception so that we can continue parsing this
                             // configuration while saving the first exception to report.
@@ -297,7 +307,8 @@ public class XMLConfigParser {
                         if (importedConfig != null) {
                             config.append(importedConfig);
                             config.updateLastModified(importedConfig.getLastModified());
-                            includes.addAll(importedConfig.getIncludes());
+                            config.getIncludes().addAll(importedConfig.getIncludes());
+                            config.getIncludeLocations().addAll(importedConfig.getIncludeLocations());
                         }
                     } else if ("variable".equals(name)) {
                         try {
@@ -339,7 +350,7 @@ public class XMLConfigParser {
     };
 
     private void parseInclude(DepthAwareXMLStreamReader parser, String docLocation,
-                              List<WsResource> includes, BaseConfiguration configuration) throws ConfigParserException, ConfigParserTolerableException, ConfigValidationException {
+                              BaseConfiguration parentConfiguration, BaseConfiguration configuration) throws ConfigParserException, ConfigParserTolerableException, ConfigValidationException {
         String behaviorAttribute = getAttributeValue(parser, BEHAVIOR_ATTRIBUTE);
         MergeBehavior mergeBehavior = behaviorAttribute == null ? behaviorStack.getLast() : getMergeBehavior(behaviorAttribute);
 
@@ -361,8 +372,9 @@ public class XMLConfigParser {
             } catch (MalformedLocationException mle) {
                 // We're going to handle this after the null check below, so we don't need to handle it immediately.
             }
+            parentConfiguration.addIncludeLocation(location, docLocation);
             if (includeResource != null) {
-                includes.add(includeResource);
+                parentConfiguration.getIncludes().add(includeResource);
                 if (includeResource.exists() &&
                     ((includeResource.isType(WsResource.Type.FILE) || (includeResource.isType(WsResource.Type.REMOTE))))) {
 
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.ws.config.xml.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.ibm.ws.config.xml.internal.validator.XMLConfigValidator;
+import com.ibm.wsspi.kernel.service.location.WsLocationAdmin;
+import com.ibm.wsspi.kernel.service.location.WsResource;
+
+import test.common.SharedLocationManager;
+import test.common.SharedOutputManager;
+import test.utils.SharedConstants;
+
+public class ServerConfigurationSnapshotTest {
+    final static String CONFIG_ROOT = "${server.config.dir}/server.xml";
+
+    static WsLocationAdmin wsLocation;
+    static SharedOutputManager outputMgr;
+
+    File snapshotFile;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        // make stdout/stderr "quiet"-- no output will show up for test
+        // unless one of the copy methods or documentThrowable is called
+        outputMgr = SharedOutputManager.getInstance();
+        outputMgr.captureStreams();
+
+        SharedLocationManager.createDefaultLocations(SharedConstants.SERVER_XML_INSTALL_ROOT, "singleton");
+        wsLocation = (WsLocationAdmin) SharedLocationManager.getLocationInstance();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+        // Make stdout and stderr "normal"
+        outputMgr.restoreStreams();
+
+        // Restore back to old kernel and let next test case set to new kernel
+        // as needed
+        SharedLocationManager.resetWsLocationAdmin();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        snapshotFile = File.createTempFile("configSnapshot", null);
+        snapshotFile.delete();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        snapshotFile.delete();
+
+        // Clear the output generated after each method invocation, this keeps
+        // things sane
+        outputMgr.resetStreams();
+    }
+
+    @Test
+    public void testLoadSnapshot() throws Exception {
+        WsResource configRoot = wsLocation.resolveResource(CONFIG_ROOT);
+        List<File> dropinFiles = Collections.emptyList();
+
+        XMLConfigParser parser = new XMLConfigParser(wsLocation);
+        ServerConfiguration parsed = parser.parseServerConfiguration(configRoot);
+        assertEquals("The server configuration has an include", 1, parsed.getIncludes().size());
+
+        ServerConfigurationSnapshot snapshot = new ServerConfigurationSnapshot(snapshotFile, wsLocation);
+        snapshot.store(parsed, configRoot, dropinFiles, parser);
+        assertTrue("The snapshot should be stored", snapshotFile.isFile());
+
+        XMLConfigParser snapshotParser = new XMLConfigParser(wsLocation);
+        ServerConfiguration loaded = snapshot.load(configRoot, dropinFiles, snapshotParser);
+        assertNotNull("The snapshot should be valid", loaded);
+
+        assertEquals(parsed.getConfigurationNames(), loaded.getConfigurationNames());
+        assertEquals(parsed.getVariables().keySet(), loaded.getVariables().keySet());
+        assertEquals(parsed.getLastModified(), loaded.getLastModified());
+        assertEquals(parsed.getIncludes().size(), loaded.getIncludes().size());
+        assertEquals(parsed.getIncludes().get(0).toRepositoryPath(), loaded.getIncludes().get(0).toRepositoryPath());
+
+        ConfigElement parsedElement = parsed.getSingleton("HTTP", null);
+        ConfigElement loadedElement = loaded.getSingleton("HTTP", null);
+        assertEquals(parsedElement.getAttributes(), loadedElement.getAttributes());
+        assertEquals(parsedElement.getSequenceId(), loadedElement.getSequenceId());
+        assertEquals(parsedElement.getDocumentLocation(), loadedElement.getDocumentLocation());
+
+        // Elements parsed after the snapshot is loaded are ordered after the elements of the snapshot
+        assertEquals(parser.getSequenceCounter(), snapshotParser.getSequenceCounter());
+    }
+
+    @Test
+    public void testChangedDocuments() throws Exception {
+        WsResource configRoot = wsLocation.resolveResource(CONFIG_ROOT);
+        List<File> dropinFiles = Collections.emptyList();
+
+        XMLConfigParser parser = new XMLConfigParser(wsLocation);
+        ServerConfiguration parsed = parser.parseServerConfiguration(configRoot);
+
+        ServerConfigurationSnapshot snapshot = new ServerConfigurationSnapshot(snapshotFile, wsLocation);
+        snapshot.store(parsed, configRoot, dropinFiles, parser);
+
+        // A dropin file which was not parsed invalidates the snapshot
+        File dropinFile = File.createTempFile("dropin", ".xml");
+        try {
+            assertNull("The snapshot should not be valid",
+                       snapshot.load(configRoot, Collections.singletonList(dropinFile), new XMLConfigParser(wsLocation)));
+        } finally {
+            dropinFile.delete();
+        }
+    }
+
+    @Test
+    public void testChangedContent() throws Exception {
+        WsResource configRoot = wsLocation.resolveResource(CONFIG_ROOT);
+        File dropinFile = File.createTempFile("dropin", ".xml");
+        try {
+            List<File> dropinFiles = Collections.singletonList(dropinFile);
+            write(dropinFile, "<server><variable name=\"a\" value=\"1\"/></server>");
+
+            XMLConfigParser parser = new XMLConfigParser(wsLocation);
+            ServerConfiguration parsed = parser.parseServerConfiguration(configRoot);
+            ServerConfigurationSnapshot snapshot = new ServerConfigurationSnapshot(snapshotFile, wsLocation);
+            snapshot.store(parsed, configRoot, dropinFiles, parser);
+            assertNotNull("The snapshot should be valid", snapshot.load(configRoot, dropinFiles, new XMLConfigParser(wsLocation)));
+
+            // A change which keeps the length and the last modified time invalidates the snapshot
+            long lastModified = dropinFile.lastModified();
+            write(dropinFile, "<server><variable name=\"a\" value=\"2\"/></server>");
+            assertTrue(dropinFile.setLastModified(lastModified));
+            assertNull("The snapshot should not be valid", snapshot.load(configRoot, dropinFiles, new XMLConfigParser(wsLocation)));
+
+            // A change of the last modified time only does not
+            write(dropinFile, "<server><variable name=\"a\" value=\"1\"/></server>");
+            assertTrue(dropinFile.setLastModified(lastModified - 10000));
+            assertNotNull("The snapshot should be valid", snapshot.load(configRoot, dropinFiles, new XMLConfigParser(wsLocation)));
+        } finally {
+            dropinFile.delete();
+        }
+    }
+
+    @Test
+    public void testValidatingParser() throws Exception {
+        WsResource configRoot = wsLocation.resolveResource(CONFIG_ROOT);
+        List<File> dropinFiles = Collections.emptyList();
+
+        XMLConfigParser parser = new XMLConfigParser(wsLocation);
+        ServerConfiguration parsed = parser.parseServerConfiguration(configRoot);
+        ServerConfigurationSnapshot snapshot = new ServerConfigurationSnapshot(snapshotFile, wsLocation);
+        snapshot.store(parsed, configRoot, dropinFiles, parser);
+        assertTrue("The snapshot should be stored", snapshotFile.isFile());
+
+        // A validator which checks the documents must see every document
+        XMLConfigParser validatingParser = new XMLConfigParser(wsLocation) {
+            @Override
+            public XMLConfigValidator getConfigValidator() {
+                return new XMLConfigValidator() {
+                    @Override
+                    public InputStream validateResource(InputStream configDocInputStream, String docLocation) {
+                        return configDocInputStream;
+                    }
+
+                    @Override
+                    public void validateConfig(ServerConfiguration configuration) {}
+                };
+            }
+        };
+        assertNull("The snapshot should not be used", snapshot.load(configRoot, dropinFiles, validatingParser));
+
+        snapshot.store(parsed, configRoot, dropinFiles, validatingParser);
+        assertFalse("The snapshot should be removed", snapshotFile.exists());
+    }
+
+    private static void write(File file, String content) throws IOException {
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(content.getBytes("UTF-8"));
+        } finally {
+            fos.close();
+        }
+    }
+
+    @Test
+    public void testNoSnapshot() throws Exception {
+        WsResource configRoot = wsLocation.resolveResource(CONFIG_ROOT);
+        List<File> dropinFiles = Collections.emptyList();
+
+        ServerConfigurationSnapshot snapshot = new ServerConfigurationSnapshot(snapshotFile, wsLocation);
+        assertNull(snapshot.load(configRoot, dropinFiles, new XMLConfigParser(wsLocation)));
+    }
+}
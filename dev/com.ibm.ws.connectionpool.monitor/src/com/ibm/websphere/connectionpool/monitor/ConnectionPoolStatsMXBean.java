@@ -53,4 +53,19 @@ public interface ConnectionPoolStatsMXBean {
      * The average time in milliseconds a connection is in use.
      */
     public double getInUseTime();
+
+    /**
+     * The total number of prepared statements found in the statement caches of the connections since pool creation.
+     */
+    public long getStatementCacheHitCount();
+
+    /**
+     * The total number of statements not found in the statement caches of the connections since pool creation.
+     */
+    public long getStatementCacheMissCount();
+
+    /**
+     * The total number of statements discarded from full statement caches of the connections since pool creation.
+     */
+    public long getStatementCacheDiscardCount();
 }
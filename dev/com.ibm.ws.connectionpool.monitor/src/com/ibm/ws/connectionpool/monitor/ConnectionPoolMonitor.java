@@ -13,6 +13,7 @@ package com.ibm.ws.connectionpool.monitor;
 import java.util.HashMap;
 
 import com.ibm.websphere.jca.pmi.JCAPMIHelper;
+import com.ibm.websphere.monitor.annotation.Args;
 import com.ibm.websphere.monitor.annotation.Monitor;
 import com.ibm.websphere.monitor.annotation.ProbeAtEntry;
 import com.ibm.websphere.monitor.annotation.ProbeAtExceptionExit;
@@ -456,6 +457,68 @@ public class ConnectionPoolMonitor extends StatisticActions {
         }
     }
 
+    /**
+     * @param args
+     *            The JNDI name, or if none, the id of the data source.
+     *            This method is responsible for calculating statementCacheHitCount(incremented) = number of prepared statements found in the statement cache.
+     *            HookPoints=StatementCacheCoordinator.statementCacheHit
+     */
+    @ProbeAtEntry
+    @ProbeSite(clazz = "com.ibm.ws.rsadapter.impl.StatementCacheCoordinator", method = "statementCacheHit", args = "java.lang.String")
+    public void incStatementCacheHitCount(@Args Object[] args) {
+        ConnectionPoolStats cStats = getStatementCacheStats(args);
+        if (cStats != null) {
+            cStats.incStatementCacheHitCount();
+        }
+    }
+
+    /**
+     * @param args
+     *            The JNDI name, or if none, the id of the data source.
+     *            This method is responsible for calculating statementCacheMissCount(incremented) = number of statements not found in the statement cache.
+     *            HookPoints=StatementCacheCoordinator.statementCacheMiss
+     */
+    @ProbeAtEntry
+    @ProbeSite(clazz = "com.ibm.ws.rsadapter.impl.StatementCacheCoordinator", method = "statementCacheMiss", args = "java.lang.String")
+    public void incStatementCacheMissCount(@Args Object[] args) {
+        ConnectionPoolStats cStats = getStatementCacheStats(args);
+        if (cStats != null) {
+            cStats.incStatementCacheMissCount();
+        }
+    }
+
+    /**
+     * @param args
+     *            The JNDI name, or if none, the id of the data source.
+     *            This method is responsible for calculating statementCacheDiscardCount(incremented) = number of statements discarded from a full statement cache.
+     *            HookPoints=StatementCacheCoordinator.statementCacheDiscard
+     */
+    @ProbeAtEntry
+    @ProbeSite(clazz = "com.ibm.ws.rsadapter.impl.StatementCacheCoordinator", method = "statementCacheDiscard", args = "java.lang.String")
+    public void incStatementCacheDiscardCount(@Args Object[] args) {
+        ConnectionPoolStats cStats = getStatementCacheStats(args);
+        if (cStats != null) {
+            cStats.incStatementCacheDiscardCount();
+        }
+    }
+
+    /**
+     * @param args
+     *            The arguments of a statement cache probe site, of which the first is the JNDI name, or if none, the id of the data source.
+     * @return ConnectionPoolStats Object, or null if the connection pool is not monitored.
+     *         The statistics are created when the first connection is created, so they are not created here.
+     */
+    private ConnectionPoolStats getStatementCacheStats(Object[] args) {
+        String JNDIName = args == null || args.length == 0 ? null : (String) args[0];
+        if (JNDIName == null) {
+            return null;
+        }
+        if (JNDIName.contains(":")) {
+            JNDIName = JNDIName.replace(":", "-");
+        }
+        return connectionPoolCountByName.get(JNDIName);
+    }
+
     /**
      * @param obj
      *            This code comes when datasource is removed or during server shutdown to clean up the MXBeans created while Monitoring Framework takes care of cleaning up
@@ -26,6 +26,7 @@ public class ConnectionPoolStats extends Meter implements ConnectionPoolStatsMXB
     private final Gauge poolSize, freeConnectionCount;
     private final Gauge managedConnectionCount, connectionHandleCount;
     private final StatisticsMeter waitTime, inUseTime;
+    private final Counter statementCacheHitCount, statementCacheMissCount, statementCacheDiscardCount;
 
     public ConnectionPoolStats() {
         createCount = new Counter();
@@ -36,6 +37,9 @@ public class ConnectionPoolStats extends Meter implements ConnectionPoolStatsMXB
         waitTime = new StatisticsMeter();
         freeConnectionCount = new Gauge();
         inUseTime = new StatisticsMeter();
+        statementCacheHitCount = new Counter();
+        statementCacheMissCount = new Counter();
+        statementCacheDiscardCount = new Counter();
     }
 
     /**
@@ -94,6 +98,18 @@ public class ConnectionPoolStats extends Meter implements ConnectionPoolStatsMXB
         this.freeConnectionCount.decrementCurrentValue(1);
     }
 
+    public void incStatementCacheHitCount() {
+        this.statementCacheHitCount.incrementBy(1);
+    }
+
+    public void incStatementCacheMissCount() {
+        this.statementCacheMissCount.incrementBy(1);
+    }
+
+    public void incStatementCacheDiscardCount() {
+        this.statementCacheDiscardCount.incrementBy(1);
+    }
+
     /** {@inheritDoc} */
     @Override
     public long getCreateCount() {
@@ -144,10 +160,27 @@ public class ConnectionPoolStats extends Meter implements ConnectionPoolStatsMXB
         return this.freeConnectionCount.getCurrentValue();
     }
 
+    @Override
+    public long getStatementCacheHitCount() {
+        return this.statementCacheHitCount.getCurrentValue();
+    }
+
+    @Override
+    public long getStatementCacheMissCount() {
+        return this.statementCacheMissCount.getCurrentValue();
+    }
+
+    @Override
+    public long getStatementCacheDiscardCount() {
+        return this.statementCacheDiscardCount.getCurrentValue();
+    }
+
     @Override
     public String toString() {
         return "ConnectionPoolStats [createCount=" + createCount + ", destroyCount=" + destroyCount + ", poolSize=" + poolSize + ", freeConnectionCount=" + freeConnectionCount
-               + ", managedConnectionCount=" + managedConnectionCount + ", connectionHandleCount=" + connectionHandleCount + ", waitTime=" + waitTime + "]";
+               + ", managedConnectionCount=" + managedConnectionCount + ", connectionHandleCount=" + connectionHandleCount + ", waitTime=" + waitTime
+               + ", statementCacheHitCount=" + statementCacheHitCount + ", statementCacheMissCount=" + statementCacheMissCount
+               + ", statementCacheDiscardCount=" + statementCacheDiscardCount + "]";
     }
 
 }
@@ -131,6 +131,19 @@ public class Cache extends DCacheBase implements com.ibm.websphere.cache.CacheLo
     private int lruTop = 0;
     // -------------------------------------------------
 
+    // -------------------------------------------------
+    // Frequency based eviction (frequencyBasedEviction)
+    // New entries are held in the window until they are used again. When the window
+    // is over its maximum size, its oldest entry is only moved to the LRU buckets if
+    // it has been used more often than the LRU victim, otherwise it is the victim.
+    // -------------------------------------------------
+    private static final int WINDOW_PRIORITY = -1;
+    private static final int WINDOW_PERCENT = 1;
+    private final FrequencySketch frequencySketch;
+    private CacheEntry.LRUHead lruWindow = null;
+    private int lruWindowMaximum = 0;
+    // -------------------------------------------------
+
     private int cacheSizeLimit = 0; // memory cache size + overflow buffer size if disk offload enabled
 
     private boolean displayedLRUMessage = false;
@@ -203,6 +216,14 @@ public class Cache extends DCacheBase implements com.ibm.websphere.cache.CacheLo
             lruBuckets[i] = new CacheEntry.LRUHead();
             lruBuckets[i].priority = i;
         }
+        if (cacheConfig.isFrequencyBasedEvictionEnabled()) {
+            frequencySketch = new FrequencySketch(cacheConfig.cacheSize);
+            lruWindow = new CacheEntry.LRUHead();
+            lruWindow.priority = WINDOW_PRIORITY;
+            lruWindowMaximum = Math.max(1, cacheConfig.cacheSize * WINDOW_PERCENT / 100);
+        } else {
+            frequencySketch = null;
+        }
         // --------------------------------------------------------
 
         // --------------------------------------------------------
@@ -350,6 +371,10 @@ public class Cache extends DCacheBase implements com.ibm.websphere.cache.CacheLo
         extendedStats.put("DependencyIdsBufferedForDisk", (long) getDepIdsBufferedSizeDisk());
         extendedStats.put("TemplatesBufferedForDisk", (long) getTemplatesBufferedSizeDisk());
         extendedStats.put("PushPullTableSize", (long) getPushPullTableSize());
+        extendedStats.put("CacheHitRatePercent", statistics.getCacheHitRate());
+        if (lruWindow != null) {
+            extendedStats.put("FrequencyEvictionWindowEntries", (long) lruWindow.size());
+        }
         statistics.setExtendedStats(extendedStats);
         return statistics;
     }
@@ -965,8 +990,22 @@ public class Cache extends DCacheBase implements com.ibm.websphere.cache.CacheLo
     /**
      * used to update an entry's location in the LRU
      */
-    private synchronized final void updateLruLocation(CacheEntry cacheEntry) {
-        if (cacheEntry.lruHead == null) {
+    private final void updateLruLocation(CacheEntry cacheEntry) {
+        // The sketch is thread-safe, so the use is recorded before taking the cache monitor.
+        Object id = cacheEntry.id;
+        if (frequencySketch != null && id != null) {
+            frequencySketch.increment(id);
+        }
+        moveLruLocation(cacheEntry);
+    }
+
+    private synchronized final void moveLruLocation(CacheEntry cacheEntry) {
+        if (cacheEntry.lruHead == null && lruWindow != null) {
+            // A new entry, hold it in the window until it is used again. An entry in the
+            // window has a different priority, so it is moved to an LRU bucket when it is used.
+            cacheEntry.lruHead = lruWindow;
+            cacheEntry.lruHead.addLast(cacheEntry);
+        } else if (cacheEntry.lruHead == null) {
             int lruBucket = (lruTop + cacheEntry.priority) % lruBuckets.length;
             cacheEntry.lruHead = lruBuckets[lruBucket];
             cacheEntry.lruHead.addLast(cacheEntry);
@@ -1954,6 +1993,9 @@ public class Cache extends DCacheBase implements com.ibm.websphere.cache.CacheLo
             Object id = e.nextElement();
             internalInvalidateById(id, cause, source, !FIRE_INVALIDATION_LISTENER);
         }
+        if (frequencySketch != null) {
+            frequencySketch.clear();
+        }
 
         swapToDisk = savedSwapToDisk;
         if (swapToDisk) {
@@ -2412,6 +2454,33 @@ public class Cache extends DCacheBase implements com.ibm.websphere.cache.CacheLo
     @Override
     public synchronized FreeLruEntryResult freeLruEntry() {
         FreeLruEntryResult result = new FreeLruEntryResult();
+        if (lruWindow != null && lruWindow.size() > lruWindowMaximum) {
+            CacheEntry candidate = getFirstUnpinnedEntry(lruWindow);
+            if (candidate != null) {
+                CacheEntry victim = null;
+                for (int i = 0; victim == null && i < lruBuckets.length; i++) {
+                    victim = getFirstUnpinnedEntry(lruBuckets[(lruTop + i) % lruBuckets.length]);
+                }
+                if (victim != null && frequencySketch.frequency(candidate.id) > frequencySketch.frequency(victim.id)) {
+                    // The candidate is used more often than the LRU victim, move it to an LRU bucket and evict the victim.
+                    // The victim is evicted directly, because a scan of the buckets could choose the candidate again.
+                    lruWindow.remove(candidate);
+                    candidate.lruHead = lruBuckets[(lruTop + candidate.priority) % lruBuckets.length];
+                    candidate.lruHead.addLast(candidate);
+                    if (evictLruEntry(victim, result)) {
+                        if (tc.isDebugEnabled()) {
+                            Tr.exit(tc, "return freeLruEntry() true");
+                        }
+                        return result;
+                    }
+                } else if (evictLruEntry(candidate, result)) {
+                    if (tc.isDebugEnabled()) {
+                        Tr.exit(tc, "return freeLruEntry() true");
+                    }
+                    return result;
+                }
+            }
+        }
         CacheEntry cacheEntry = null;
         int endTop = (lruTop + lruBuckets.length - 1) % lruBuckets.length;
         while (cacheEntry == null && lruTop != endTop) {
@@ -2420,48 +2489,11 @@ public class Cache extends DCacheBase implements com.ibm.websphere.cache.CacheLo
                 while (it.hasNext()) {
                     cacheEntry = (CacheEntry) it.next();
                     if (cacheEntry.getRefCount() == 0) {
-                        Object id = cacheEntry.id;
-                        if (id != null) {
-                            result.success = false;
-                            if (isCacheSizeInMBEnabled()) {
-                                result.bytesRemoved = cacheEntry.getObjectSize();
-                            }
-
-                            if (swapToDisk && cacheEntry.persistToDisk) {
-                                LruToDiskResult toDiskResult = lruToDisk(cacheEntry);
-                                if (tc.isDebugEnabled())
-                                    Tr.debug(tc, toDiskResult.toString());
-                                if (toDiskResult.result != HTODDynacache.DISK_EXCEPTION && toDiskResult.result != HTODDynacache.OTHER_EXCEPTION
-                                    && toDiskResult.result != HTODDynacache.SERIALIZATION_EXCEPTION)
-                                    result.success = true;
-                            } else {
-                                // Display this message only once if the disk offload feature is disabled
-                                // DYNA1070I=DYNA1070I: Cache instance \"{0}\" is full and has reached the maximum
-                                // configured size of {1} entries.
-                                // Space on the JVM heap for new entries will now be made by evicting existing cache
-                                // entries using the LRU algorithm.
-                                // Please consider enabling the disk offload feature for the cache instance to prevent
-                                // the discard of cache entries
-                                // from memory.
-                                if (swapToDisk == false && displayedLRUMessage == false) {
-                                    Tr.audit(tc, "DYNA1070I", new Object[] { cacheName, new Integer(cacheConfig.cacheSize) });
-                                    displayedLRUMessage = true;
-                                }
-
-                                if (shouldInvalidate(id)) {
-                                    result.success = internalInvalidateById(id, CachePerf.LRU, CachePerf.LOCAL, FIRE_INVALIDATION_LISTENER);
-                                }
-
-                                if (false == cacheConfig.filterLRUInvalidation && true == result.success) {
-                                    invalidateById(id, CachePerf.LRU, CachePerf.LOCAL, false, !InvalidateByIdEvent.INVOKE_INTERNAL_INVALIDATE_BY_ID);
-                                }
-                            }
-                            if (true == result.success) {
-                                if (tc.isDebugEnabled()) {
-                                    Tr.exit(tc, "return freeLruEntry() true");
-                                }
-                                return result;
+                        if (evictLruEntry(cacheEntry, result)) {
+                            if (tc.isDebugEnabled()) {
+                                Tr.exit(tc, "return freeLruEntry() true");
                             }
+                            return result;
                         }
                     }
                 }
@@ -2484,9 +2516,79 @@ public class Cache extends DCacheBase implements com.ibm.websphere.cache.CacheLo
                 lruBuckets[(lruTop + i) % lruBuckets.length].priority = i;
 
         }
+        if (lruWindow != null) {
+            // Nothing could be evicted from the LRU buckets, evict from the window.
+            CacheEntry candidate = getFirstUnpinnedEntry(lruWindow);
+            if (candidate != null && evictLruEntry(candidate, result)) {
+                if (tc.isDebugEnabled()) {
+                    Tr.exit(tc, "return freeLruEntry() true");
+                }
+                return result;
+            }
+        }
         return result;
     }
 
+    /**
+     * Returns the least recently used entry in an LRU bucket or the window which is not pinned.
+     */
+    private CacheEntry getFirstUnpinnedEntry(CacheEntry.LRUHead lruHead) {
+        Iterator it = lruHead.iterator();
+        while (it.hasNext()) {
+            CacheEntry cacheEntry = (CacheEntry) it.next();
+            if (cacheEntry.getRefCount() == 0 && cacheEntry.id != null) {
+                return cacheEntry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove an LRU victim from memory. If disk caching is enabled write the entry to disk.
+     * 
+     * @return true if the entry was removed from memory.
+     */
+    private boolean evictLruEntry(CacheEntry cacheEntry, FreeLruEntryResult result) {
+        Object id = cacheEntry.id;
+        if (id != null) {
+            result.success = false;
+            if (isCacheSizeInMBEnabled()) {
+                result.bytesRemoved = cacheEntry.getObjectSize();
+            }
+
+            if (swapToDisk && cacheEntry.persistToDisk) {
+                LruToDiskResult toDiskResult = lruToDisk(cacheEntry);
+                if (tc.isDebugEnabled())
+                    Tr.debug(tc, toDiskResult.toString());
+                if (toDiskResult.result != HTODDynacache.DISK_EXCEPTION && toDiskResult.result != HTODDynacache.OTHER_EXCEPTION
+                    && toDiskResult.result != HTODDynacache.SERIALIZATION_EXCEPTION)
+                    result.success = true;
+            } else {
+                // Display this message only once if the disk offload feature is disabled
+                // DYNA1070I=DYNA1070I: Cache instance \"{0}\" is full and has reached the maximum
+                // configured size of {1} entries.
+                // Space on the JVM heap for new entries will now be made by evicting existing cache
+                // entries using the LRU algorithm.
+                // Please consider enabling the disk offload feature for the cache instance to prevent
+                // the discard of cache entries
+                // from memory.
+                if (swapToDisk == false && displayedLRUMessage == false) {
+                    Tr.audit(tc, "DYNA1070I", new Object[] { cacheName, new Integer(cacheConfig.cacheSize) });
+                    displayedLRUMessage = true;
+                }
+
+                if (shouldInvalidate(id)) {
+                    result.success = internalInvalidateById(id, CachePerf.LRU, CachePerf.LOCAL, FIRE_INVALIDATION_LISTENER);
+                }
+
+                if (false == cacheConfig.filterLRUInvalidation && true == result.success) {
+                    invalidateById(id, CachePerf.LRU, CachePerf.LOCAL, false, !InvalidateByIdEvent.INVOKE_INTERNAL_INVALIDATE_BY_ID);
+                }
+            }
+        }
+        return result.success;
+    }
+
     private boolean shouldInvalidate(Object id) {
 
         boolean shouldInvalidate = true;
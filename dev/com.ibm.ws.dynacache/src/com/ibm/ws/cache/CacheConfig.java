@@ -97,6 +97,7 @@ public class CacheConfig implements DCacheConfig, Cloneable {
     public static final String DISK_DEPENDENCY_CACHE_INDEX_ENABLED = "com.ibm.ws.cache.CacheConfig.htodDependencyCacheIndexEnabled";
     public static final String LIBRARY_REF = "com.ibm.ws.cache.CacheConfig.libraryRef";
     public static final String WEBSERVICES_SET_REQUIRED_TRUE = "com.ibm.ws.cache.CacheConfig.webservicesSetRequiredTrue";
+    public static final String FREQUENCY_BASED_EVICTION = "com.ibm.ws.cache.CacheConfig.frequencyBasedEviction";
 
     // ---------------------------------------------------------
     // Warning - Never change these values!! They are
@@ -325,6 +326,7 @@ public class CacheConfig implements DCacheConfig, Cloneable {
     boolean alwaysTriggerCommandInvalidations = false;
     boolean alwaysSynchronizeOnGets = false;
     boolean ignoreCacheableCommandDeserializationException = false;
+    boolean frequencyBasedEviction = false; // true means new entries must be reused or used more often than the LRU victim to stay in memory
 
     String disableStoreCookies = "none";
     boolean cacheInstanceStoreCookies = true;
@@ -866,6 +868,10 @@ public class CacheConfig implements DCacheConfig, Cloneable {
         this.alwaysSynchronizeOnGets = alwaysSynchronizeOnGets;
     }
 
+    public boolean isFrequencyBasedEvictionEnabled() {
+        return frequencyBasedEviction;
+    }
+
     @Override
     public int[] getFilteredStatusCodes() {
         return statusCodesArray;
@@ -1012,7 +1018,8 @@ public class CacheConfig implements DCacheConfig, Cloneable {
                + explicitBufferLimitOnStop + ", drsBootstrapEnabled=" + drsBootstrapEnabled + ", drsDisabled=" + drsDisabled + ", dtdDir=" + dtdDir
                + ", filterInactivityInvalidation=" + filterInactivityInvalidation + ", filterLRUInvalidation=" + filterLRUInvalidation
                + ", filterTimeOutInvalidation=" + filterTimeOutInvalidation + ", filteredStatusCodes=" + filteredStatusCodes
-               + ", flushToDiskOnStop=" + flushToDiskOnStop + ", ignoreCacheableCommandDeserializationException="
+               + ", flushToDiskOnStop=" + flushToDiskOnStop + ", frequencyBasedEviction=" + frequencyBasedEviction
+               + ", ignoreCacheableCommandDeserializationException="
                + ignoreCacheableCommandDeserializationException + ", ignoreValueInInvalidationEvent=" + ignoreValueInInvalidationEvent
                + ", jspCachePriority=" + jspCachePriority + ", memoryCacheHighThreshold=" + memoryCacheHighThreshold + ", memoryCacheLowThreshold="
                + memoryCacheLowThreshold + ", memoryCacheSizeInMB=" + memoryCacheSizeInMB + ", refCountTracking=" + refCountTracking
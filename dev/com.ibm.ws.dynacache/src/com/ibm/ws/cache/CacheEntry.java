@@ -1264,6 +1264,7 @@ public class CacheEntry implements com.ibm.websphere.cache.CacheEntry, Invalidat
         public int priority = 0;
         private CacheEntry head;
         private CacheEntry tail;
+        private int size = 0;
 
         private CacheEntry _iterator = null;
 
@@ -1275,6 +1276,7 @@ public class CacheEntry implements com.ibm.websphere.cache.CacheEntry, Invalidat
             head = cacheEntry;
             if (tail == null)
                 tail = cacheEntry;
+            size++;
         }
 
         public void addLast(CacheEntry cacheEntry) {
@@ -1286,7 +1288,7 @@ public class CacheEntry implements com.ibm.websphere.cache.CacheEntry, Invalidat
                 tail._next = cacheEntry;
             }
             tail = cacheEntry;
-
+            size++;
         }
 
         public boolean isEmpty() {
@@ -1297,6 +1299,10 @@ public class CacheEntry implements com.ibm.websphere.cache.CacheEntry, Invalidat
             return tail == cacheEntry;
         }
 
+        public int size() {
+            return size;
+        }
+
         // iterator is not thread safe! - done for high efficiency
         public Iterator iterator() {
             _iterator = head;
@@ -1343,6 +1349,7 @@ public class CacheEntry implements com.ibm.websphere.cache.CacheEntry, Invalidat
             }
             cacheEntry._next = cacheEntry._previous = null;
             cacheEntry.lruHead = null;
+            size--;
         }
 
         public CacheEntry removeFirst() {
@@ -1353,6 +1360,7 @@ public class CacheEntry implements com.ibm.websphere.cache.CacheEntry, Invalidat
                     head._previous = null;
                 else
                     tail = null;
+                size--;
             }
             return ret;
         }
@@ -42,6 +42,18 @@ public class CacheStatisticsImpl implements CacheStatistics {
 		return this.cacheMisses;
 	}
 
+	/**
+	 * Returns the percentage of lookups in this cache instance which found an entry,
+	 * or -1 if there have been no lookups.
+	 */
+	public float getCacheHitRate() {
+		long lookups = this.cacheHits + this.cacheMisses;
+		if (this.cacheHits < 0 || this.cacheMisses < 0 || lookups == 0) {
+			return -1;
+		}
+		return this.cacheHits * 100f / lookups;
+	}
+
 	public long getCacheRemovesCount() {
 		return this.cacheRemoves;
 	}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A <code>FrequencySketch</code> estimates how often each cache id has been used recently, in a
+ * fixed amount of memory (a count-min sketch).
+ * <p>
+ * The sketch has four rows of counters. An id is counted in one counter of each row, chosen by
+ * hashing the id, and its frequency is the smallest of its four counters. Only the counters that
+ * hold that smallest value are incremented, so an estimate can be too high when ids collide. The counters saturate at {@link #MAXIMUM_FREQUENCY}. When the number of uses
+ * recorded reaches ten times the maximum number of entries in the cache, all of the counters are
+ * halved, so that ids which are no longer used are forgotten.
+ * <p>
+ * A <code>FrequencySketch</code> is thread-safe without locking. Counters are updated with
+ * compare-and-set, and an update which loses a race is dropped, which only makes the estimates
+ * slightly less exact.
+ */
+public class FrequencySketch {
+
+    /**
+     * The largest frequency that is recorded for an id.
+     */
+    public static final int MAXIMUM_FREQUENCY = 15;
+
+    private static final int ROWS = 4;
+
+    /**
+     * The counters of all rows, one row after the other.
+     */
+    private final AtomicIntegerArray counters;
+    private final int rowMask;
+    private final int rowShift;
+
+    /**
+     * Number of uses recorded since the counters were last halved, and the number at which they are halved.
+     */
+    private final AtomicInteger samples = new AtomicInteger();
+    private final int sampleSize;
+
+    /**
+     * Construct a sketch for a cache.
+     *
+     * @param maximumSize the maximum number of entries in the cache.
+     */
+    public FrequencySketch(int maximumSize) {
+        int rowSize = Integer.highestOneBit(Math.max(16, Math.min(maximumSize, 1 << 24)) - 1) << 1;
+        rowMask = rowSize - 1;
+        rowShift = Integer.numberOfTrailingZeros(rowSize);
+        counters = new AtomicIntegerArray(rowSize * ROWS);
+        sampleSize = maximumSize > Integer.MAX_VALUE / 10 ? Integer.MAX_VALUE : Math.max(160, maximumSize * 10);
+    }
+
+    /**
+     * Returns the estimated number of recent uses of a cache id, up to {@link #MAXIMUM_FREQUENCY}.
+     *
+     * @param id the cache id.
+     * @return the estimated frequency.
+     */
+    public int frequency(Object id) {
+        int hash = hash(id);
+        int step = step(hash);
+        int frequency = MAXIMUM_FREQUENCY;
+        for (int row = 0; row < ROWS; row++) {
+            frequency = Math.min(frequency, counters.get(counterIndex(row, hash, step)));
+        }
+        return frequency;
+    }
+
+    /**
+     * Records a use of a cache id.
+     *
+     * @param id the cache id.
+     */
+    public void increment(Object id) {
+        int hash = hash(id);
+        int step = step(hash);
+        int frequency = MAXIMUM_FREQUENCY;
+        for (int row = 0; row < ROWS; row++) {
+            frequency = Math.min(frequency, counters.get(counterIndex(row, hash, step)));
+        }
+        if (frequency == MAXIMUM_FREQUENCY) {
+            return;
+        }
+
+        // Counters above the smallest one already count more than this id's uses.
+        for (int row = 0; row < ROWS; row++) {
+            counters.compareAndSet(counterIndex(row, hash, step), frequency, frequency + 1);
+        }
+        if (samples.incrementAndGet() == sampleSize) {
+            halve();
+        }
+    }
+
+    /**
+     * Forgets all recorded uses.
+     */
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+        samples.set(0);
+    }
+
+    /**
+     * Halves all of the counters. Only the thread which records the sample that reaches the
+     * sample size calls this method, until the number of samples is lowered again.
+     */
+    private void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            int count;
+            do {
+                count = counters.get(i);
+            } while (count > 0 && !counters.compareAndSet(i, count, count >>> 1));
+        }
+        samples.set(sampleSize >>> 1);
+    }
+
+    /**
+     * The counters of an id are found by double hashing: the counter in each row is
+     * offset from the previous row's by a step that is also derived from the hash.
+     */
+    private int counterIndex(int row, int hash, int step) {
+        return (row << rowShift) | ((hash + row * step) & rowMask);
+    }
+
+    /**
+     * The step is a second hash, taken mostly from the high bits of the hash which the row
+     * mask does not use, so that ids which share a counter in one row rarely share the
+     * counters in the other rows.
+     */
+    private static int step(int hash) {
+        return Integer.reverse(hash) | 1;
+    }
+
+    /**
+     * Mixes the bits of the hash code of an id, because cache ids often have hash codes
+     * that differ only in a few bits.
+     */
+    private static int hash(Object id) {
+        int h = id.hashCode();
+        h ^= h >>> 15;
+        h *= 0x2c1b3c6d;
+        h ^= h >>> 12;
+        h *= 0x297a2d39;
+        h ^= h >>> 15;
+        return h;
+    }
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the frequency sketch used by frequency-based eviction.
+ */
+public class FrequencySketchTest {
+
+    @Test
+    public void testCountsUses() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        assertEquals(0, sketch.frequency("unused"));
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("id");
+        }
+        sketch.increment("other");
+        assertEquals(5, sketch.frequency("id"));
+        assertEquals(1, sketch.frequency("other"));
+    }
+
+    /**
+     * Collisions can only make an estimate too high, never too low.
+     */
+    @Test
+    public void testEstimatesAreNotTooLow() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        for (int i = 0; i < 500; i++) {
+            for (int n = 0; n < i % 10; n++) {
+                sketch.increment("id" + i);
+            }
+        }
+        int exact = 0;
+        for (int i = 0; i < 500; i++) {
+            int frequency = sketch.frequency("id" + i);
+            assertTrue("id" + i + " has frequency " + frequency, frequency >= i % 10);
+            if (frequency == i % 10) {
+                exact++;
+            }
+        }
+        assertTrue("Only " + exact + " exact estimates", exact > 450);
+    }
+
+    @Test
+    public void testSaturation() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("id");
+        }
+        assertEquals(FrequencySketch.MAXIMUM_FREQUENCY, sketch.frequency("id"));
+    }
+
+    /**
+     * After ten uses per cache entry have been recorded, the counters are halved.
+     */
+    @Test
+    public void testHalving() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        for (int i = 0; i < FrequencySketch.MAXIMUM_FREQUENCY; i++) {
+            sketch.increment("id");
+        }
+
+        int uses = 0;
+        while (sketch.frequency("id") == FrequencySketch.MAXIMUM_FREQUENCY && uses < 20000) {
+            sketch.increment(Integer.valueOf(uses++));
+        }
+        assertTrue("Counters were halved after " + uses + " uses", uses > 9000 && uses < 10000);
+        assertEquals(FrequencySketch.MAXIMUM_FREQUENCY / 2, sketch.frequency("id"));
+    }
+
+    @Test
+    public void testClear() {
+        FrequencySketch sketch = new FrequencySketch(100);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("id" + i);
+            sketch.increment("id" + i);
+        }
+        sketch.clear();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, sketch.frequency("id" + i));
+        }
+
+        sketch.increment("id0");
+        assertEquals(1, sketch.frequency("id0"));
+    }
+
+    /**
+     * Uses recorded from several threads at once are counted without locking, and the id
+     * still reaches the maximum frequency.
+     */
+    @Test
+    public void testConcurrentIncrements() throws Exception {
+        final FrequencySketch sketch = new FrequencySketch(1000);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int thread = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException x) {
+                        return;
+                    }
+                    for (int i = 0; i < 1000; i++) {
+                        sketch.increment("shared");
+                        sketch.increment("thread" + thread);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(FrequencySketch.MAXIMUM_FREQUENCY, sketch.frequency("shared"));
+        for (int t = 0; t < threads.length; t++) {
+            assertEquals(FrequencySketch.MAXIMUM_FREQUENCY, sketch.frequency("thread" + t));
+        }
+    }
+}
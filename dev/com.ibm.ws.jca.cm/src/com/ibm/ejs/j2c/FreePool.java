@@ -334,8 +334,30 @@ public final class FreePool implements JCAPMIHelper {
         }
 
         /*
-         * Return mcWrapper to free pool
+         * Return mcWrapper to free pool. When nobody is waiting for a connection, only this
+         * free pool's lock is needed, so threads releasing connections to different free
+         * pools do not serialize on the pool manager's waiter lock.
          */
+        if (pm.waiterCount < 1) {
+            synchronized (freeConnectionLockObject) {
+                mcWrapperList.add(mcWrapper); // Add to end of list
+                mcWrapper.setPoolState(1);
+            }
+            ((com.ibm.ejs.j2c.MCWrapper) mcWrapper).setAlreadyBeingReleased(false);
+            /*
+             * A request may have started waiting after the waiter count was read. Waiters
+             * check the free pools again after they are counted, so either that check
+             * found this connection, or this read sees the waiter and the connection is
+             * handed to it here.
+             */
+            if (pm.waiterCount > 0) {
+                handOffToWaiter(mcWrapper);
+            }
+            if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) {
+                Tr.exit(this, tc, "returnToFreePoolDelegated");
+            }
+            return;
+        }
         synchronized (pm.waiterFreePoolLock) {
             // waiter code
             if ((pm.waiterCount > 0) && (pm.waiterCount > pm.mcWrapperWaiterList.size())) {
@@ -357,6 +379,66 @@ public final class FreePool implements JCAPMIHelper {
         }
     }
 
+    /**
+     * Move a connection that was just returned to this free pool without the
+     * waiter lock over to the waiter list, if it is still in the free pool and
+     * there is a waiter that has not been given a connection.
+     *
+     * @param mcWrapper
+     */
+    private void handOffToWaiter(MCWrapper mcWrapper) {
+        synchronized (pm.waiterFreePoolLock) {
+            if ((pm.waiterCount > 0) && (pm.waiterCount > pm.mcWrapperWaiterList.size())) {
+                synchronized (freeConnectionLockObject) {
+                    if (mcWrapper.getPoolState() != 1 || !mcWrapperList.remove(mcWrapper)) {
+                        // another request already took it from the free pool
+                        return;
+                    }
+                    mcWrapper.setPoolState(0);
+                }
+                pm.mcWrapperWaiterList.add(mcWrapper);
+                mcWrapper.setPoolState(4);
+                pm.waiterFreePoolLock.notify();
+                if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                    Tr.debug(this, tc, "Handed returned connection to waiter " + mcWrapper);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check the free pools once more for a connection after this request has
+     * been counted as a waiter, since connections can be returned to the free
+     * pools without the waiter lock while the waiter count is zero. A connection
+     * that is found is moved to the waiter list, where the waiter will take it
+     * instead of waiting.
+     *
+     * This must be called while synchronized on the pm.waiterFreePoolLock.
+     *
+     * @return true if a connection was moved to the waiter list
+     */
+    private boolean moveReturnedConnectionToWaiterList() {
+        if (pm.waiterCount <= pm.mcWrapperWaiterList.size()) {
+            return false;
+        }
+        for (int j = 0; j < pm.maxFreePoolHashSize; ++j) {
+            synchronized (pm.freePool[j].freeConnectionLockObject) {
+                int size = pm.freePool[j].mcWrapperList.size();
+                if (size > 0) {
+                    MCWrapper mcWrapperTemp = (MCWrapper) pm.freePool[j].mcWrapperList.remove(size - 1);
+                    mcWrapperTemp.setPoolState(0);
+                    pm.mcWrapperWaiterList.add(mcWrapperTemp);
+                    mcWrapperTemp.setPoolState(4);
+                    if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                        Tr.debug(this, tc, "Found connection returned while queueing waiter " + mcWrapperTemp);
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * This method will try to cleanup and destroy the connection and remove the
      * mcWrapper from the free pool.
@@ -918,10 +1000,15 @@ public final class FreePool implements JCAPMIHelper {
 
                             // get the wait start time
                             waitStartTime = System.currentTimeMillis();
-                            // call to wait
-                            queueRequest(managedConnectionFactory, waitTimeout);
-                            // get the wait end time
-                            waitEndTime = System.currentTimeMillis();
+                            if (moveReturnedConnectionToWaiterList()) {
+                                // a connection was returned before we were counted, take it from the waiter list
+                                waitEndTime = waitStartTime;
+                            } else {
+                                // call to wait
+                                queueRequest(managedConnectionFactory, waitTimeout);
+                                // get the wait end time
+                                waitEndTime = System.currentTimeMillis();
+                            }
                         } else {
                             //We have a connections or we will be creating one.
                             break;
@@ -99,7 +99,8 @@ public final class PoolManager implements Runnable, PropertyChangeListener, Veto
     protected final AtomicInteger totalConnectionCount = new AtomicInteger(0);
     protected final Integer poolManagerBalancePoolLock = new Integer(0);
     protected final Integer waiterFreePoolLock = new Integer(0);
-    protected int waiterCount = 0;
+    /** Written only while synchronized on waiterFreePoolLock, volatile so it can be read without it */
+    protected volatile int waiterCount = 0;
     protected boolean allowConnectionRequests = true;
     private boolean connectionPoolShutDown = false;
     protected final Integer poolManagerTestConnectionLock = new Integer(0);
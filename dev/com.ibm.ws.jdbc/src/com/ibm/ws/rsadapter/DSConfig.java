@@ -40,6 +40,7 @@ public class DSConfig implements FFDCSelfIntrospectable {
     public static final String
                     BEGIN_TRAN_FOR_SCROLLING_APIS = "beginTranForResultSetScrollingAPIs",
                     BEGIN_TRAN_FOR_VENDOR_APIS = "beginTranForVendorAPIs",
+                    COALESCE_UPDATES_BATCH_SIZE = "coalesceUpdatesBatchSize",
                     COMMIT_OR_ROLLBACK_ON_CLEANUP = "commitOrRollbackOnCleanup",
                     CONNECTION_MANAGER_REF = "connectionManagerRef",
                     CONNECTION_SHARING = "connectionSharing",
@@ -50,7 +51,9 @@ public class DSConfig implements FFDCSelfIntrospectable {
                     ON_CONNECT = "onConnect",
                     QUERY_TIMEOUT = "queryTimeout",
                     RECOVERY_AUTH_DATA_REF = "recoveryAuthDataRef",
+                    STATEMENT_CACHE_ADAPTIVE_SIZE = "statementCacheAdaptiveSize",
                     STATEMENT_CACHE_SIZE = "statementCacheSize",
+                    STATEMENT_CACHE_WARMUP_SIZE = "statementCacheWarmupSize",
                     SUPPLEMENTAL_JDBC_TRACE = "supplementalJDBCTrace",
                     SYNC_QUERY_TIMEOUT_WITH_TRAN_TIMEOUT = "syncQueryTimeoutWithTransactionTimeout",
                     TYPE = "type",
@@ -63,6 +66,7 @@ public class DSConfig implements FFDCSelfIntrospectable {
                     Collections.unmodifiableList(Arrays.asList(
                                                                BEGIN_TRAN_FOR_SCROLLING_APIS,
                                                                BEGIN_TRAN_FOR_VENDOR_APIS,
+                                                               COALESCE_UPDATES_BATCH_SIZE,
                                                                COMMIT_OR_ROLLBACK_ON_CLEANUP,
                                                                CONNECTION_MANAGER_REF,
                                                                CONNECTION_SHARING,
@@ -73,7 +77,9 @@ public class DSConfig implements FFDCSelfIntrospectable {
                                                                ON_CONNECT,
                                                                QUERY_TIMEOUT,
                                                                RECOVERY_AUTH_DATA_REF,
+                                                               STATEMENT_CACHE_ADAPTIVE_SIZE,
                                                                STATEMENT_CACHE_SIZE,
+                                                               STATEMENT_CACHE_WARMUP_SIZE,
                                                                SUPPLEMENTAL_JDBC_TRACE,
                                                                SYNC_QUERY_TIMEOUT_WITH_TRAN_TIMEOUT,
                                                                DataSourceDef.transactional.name(),
@@ -92,6 +98,12 @@ public class DSConfig implements FFDCSelfIntrospectable {
      */
     public final boolean beginTranForVendorAPIs;
 
+    /**
+     * Maximum number of PreparedStatement.executeUpdate operations to coalesce into a batch
+     * within a local transaction. 0 disables coalescing.
+     */
+    public final int coalesceUpdatesBatchSize;
+
     /**
      * COMMIT_OR_ROLLBACK_ON_CLEANUP indicates whether we will rollback or commit on cleanup.
      * 
@@ -166,11 +178,23 @@ public class DSConfig implements FFDCSelfIntrospectable {
      */
     public final Integer queryTimeout;
 
+    /**
+     * Indicates to reduce the statement cache of each connection to the working set of statements
+     * that is observed across all connections of the data source.
+     */
+    public final boolean statementCacheAdaptiveSize;
+
     /**
      * Maximum cached statements per connection.
      */
     public final int statementCacheSize;
 
+    /**
+     * Number of the most used prepared statements of the data source to prepare and cache
+     * on each newly created connection.
+     */
+    public final int statementCacheWarmupSize;
+
     /**
      * Whether or not supplemental JDBC tracing should be enabled
      */
@@ -240,6 +264,7 @@ public class DSConfig implements FFDCSelfIntrospectable {
 
         beginTranForResultSetScrollingAPIs = remove(BEGIN_TRAN_FOR_SCROLLING_APIS, true);
         beginTranForVendorAPIs = remove(BEGIN_TRAN_FOR_VENDOR_APIS, true);
+        coalesceUpdatesBatchSize = remove(COALESCE_UPDATES_BATCH_SIZE, 0, 0, null);
         CommitOrRollbackOnCleanup commitOrRollback = remove(COMMIT_OR_ROLLBACK_ON_CLEANUP, null, CommitOrRollbackOnCleanup.class);
         connectionSharing = remove(CONNECTION_SHARING, ConnectionSharing.MatchOriginalRequest, ConnectionSharing.class);
         enableConnectionCasting = remove(ENABLE_CONNECTION_CASTING, false);
@@ -247,7 +272,9 @@ public class DSConfig implements FFDCSelfIntrospectable {
         isolationLevel = remove(DataSourceDef.isolationLevel.name(), -1, -1, null, -1, 0, 1, 2, 4, 8, 16, 4096);
         onConnect = remove(ON_CONNECT, (String[]) null);
         queryTimeout = remove(QUERY_TIMEOUT, (Integer) null, 0, TimeUnit.SECONDS);
+        statementCacheAdaptiveSize = remove(STATEMENT_CACHE_ADAPTIVE_SIZE, false);
         statementCacheSize = remove(STATEMENT_CACHE_SIZE, mcf.isUCP ? 0 : 10, 0, null);
+        statementCacheWarmupSize = remove(STATEMENT_CACHE_WARMUP_SIZE, 0, 0, null);
         supplementalJDBCTrace = remove(SUPPLEMENTAL_JDBC_TRACE, (Boolean) null);
         syncQueryTimeoutWithTransactionTimeout = remove(SYNC_QUERY_TIMEOUT_WITH_TRAN_TIMEOUT, false);
         transactional = remove(DataSourceDef.transactional.name(), true);
@@ -292,13 +319,16 @@ public class DSConfig implements FFDCSelfIntrospectable {
         List<?> nameValuePairs = Arrays.asList(
                                                BEGIN_TRAN_FOR_SCROLLING_APIS, beginTranForResultSetScrollingAPIs,
                                                BEGIN_TRAN_FOR_VENDOR_APIS, beginTranForVendorAPIs,
+                                               COALESCE_UPDATES_BATCH_SIZE, coalesceUpdatesBatchSize,
                                                COMMIT_OR_ROLLBACK_ON_CLEANUP, commitOrRollbackOnCleanup,
                                                CONNECTION_SHARING, connectionSharing,
                                                DataSourceDef.isolationLevel.name(), isolationLevel,
                                                ResourceFactory.JNDI_NAME, jndiName,
                                                ENABLE_CONNECTION_CASTING, enableConnectionCasting,
                                                QUERY_TIMEOUT, queryTimeout,
+                                               STATEMENT_CACHE_ADAPTIVE_SIZE, statementCacheAdaptiveSize,
                                                STATEMENT_CACHE_SIZE, statementCacheSize,
+                                               STATEMENT_CACHE_WARMUP_SIZE, statementCacheWarmupSize,
                                                SUPPLEMENTAL_JDBC_TRACE, supplementalJDBCTrace,
                                                SYNC_QUERY_TIMEOUT_WITH_TRAN_TIMEOUT, syncQueryTimeoutWithTransactionTimeout,
                                                DataSourceDef.transactional.name(), transactional
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.rsadapter.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.websphere.ras.annotation.Trivial;
+import com.ibm.ws.rsadapter.AdapterUtil;
+import com.ibm.ws.rsadapter.DSConfig;
+
+/**
+ * <p>Coordinates the statement caches of the managed connections of a data source.</p>
+ *
+ * <p>JDBC statements belong to a single physical connection, so each managed connection keeps its
+ * own statement cache. The coordinator is shared by the managed connections of a data source. It
+ * tracks how often each statement cache key is used across all of the connections, which is used to</p>
+ *
+ * <ul>
+ * <li>prepare the hottest statements on newly created connections (statementCacheWarmupSize),</li>
+ * <li>size the statement cache of each connection to the observed working set, never exceeding
+ * the configured statementCacheSize (statementCacheAdaptiveSize),</li>
+ * <li>count statement cache hits, misses, and discards for the data source. The counters are published
+ * by the connection pool monitor, which probes the statementCacheHit, statementCacheMiss, and
+ * statementCacheDiscard methods.</li>
+ * </ul>
+ *
+ * <p>Use is tracked over periods of a number of lookups which is proportional to the number of keys
+ * tracked. At the end of each period the use counts are halved, keys which are no longer used are
+ * forgotten, and the working set is recomputed as the number of keys used more than once.</p>
+ */
+public class StatementCacheCoordinator {
+    private static final TraceComponent tc = Tr.register(StatementCacheCoordinator.class, AdapterUtil.TRACE_GROUP, AdapterUtil.NLS_FILE);
+
+    /** Minimum number of statement cache keys for which use is tracked. */
+    private static final int MIN_TRACKED_KEYS = 64;
+
+    /** Number of statement cache keys for which use is tracked, per entry of the configured statement cache size. */
+    private static final int TRACKED_KEYS_PER_ENTRY = 4;
+
+    /** Number of lookups in a tracking period, per tracked key. */
+    private static final int LOOKUPS_PER_TRACKED_KEY = 8;
+
+    /** Use counts of statement cache keys in the current period. */
+    private final ConcurrentHashMap<StatementCacheKey, AtomicInteger> useCounts = new ConcurrentHashMap<StatementCacheKey, AtomicInteger>();
+
+    /** Number of lookups in the current period. */
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    /** Indicates that the use counts are being aged at the end of a period. */
+    private final AtomicBoolean aging = new AtomicBoolean();
+
+    /** Statement cache hits, misses, and discards since the data source was created. */
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), discards = new AtomicLong();
+
+    /** Configuration of the data source. */
+    private final AtomicReference<DSConfig> dsConfig;
+
+    /** Statement cache size adapted to the working set of the most recent period. 0 until the first period ends. */
+    private volatile int adaptedSize;
+
+    /**
+     * Construct a coordinator for the statement caches of a data source.
+     *
+     * @param dsConfig configuration of the data source.
+     */
+    StatementCacheCoordinator(AtomicReference<DSConfig> dsConfig) {
+        this.dsConfig = dsConfig;
+    }
+
+    /**
+     * Returns the size to use for the statement cache of a managed connection. This is the configured
+     * statementCacheSize, unless statementCacheAdaptiveSize is enabled, in which case the size is reduced
+     * to fit the observed working set.
+     *
+     * @param config configuration of the data source.
+     * @return the statement cache size. 0 if statement caching is disabled.
+     */
+    @Trivial
+    final int getStatementCacheSize(DSConfig config) {
+        return getStatementCacheSize(config.statementCacheSize, config.statementCacheAdaptiveSize);
+    }
+
+    /**
+     * Returns the size to use for the statement cache of a managed connection.
+     *
+     * @param statementCacheSize the configured statementCacheSize.
+     * @param adaptive the configured statementCacheAdaptiveSize.
+     * @return the statement cache size. 0 if statement caching is disabled.
+     */
+    @Trivial
+    final int getStatementCacheSize(int statementCacheSize, boolean adaptive) {
+        int adapted = adaptedSize;
+        return adaptive && adapted > 0 && adapted < statementCacheSize ? adapted : statementCacheSize;
+    }
+
+    /**
+     * Returns the most used statement cache keys for prepared statements, most used first.
+     *
+     * @param max the maximum number of keys to return.
+     * @return the most used keys.
+     */
+    final List<StatementCacheKey> getHotStatements(int max) {
+        // The counts can change while sorting, so sort on a copy of the counts.
+        final Map<StatementCacheKey, Integer> counts = new HashMap<StatementCacheKey, Integer>();
+        for (Map.Entry<StatementCacheKey, AtomicInteger> entry : useCounts.entrySet()) {
+            int count = entry.getValue().get();
+            if (count > 1 && entry.getKey().statementType == PSCacheKey.PREPARED_STATEMENT)
+                counts.put(entry.getKey(), count);
+        }
+
+        List<StatementCacheKey> keys = new ArrayList<StatementCacheKey>(counts.keySet());
+        Collections.sort(keys, new Comparator<StatementCacheKey>() {
+            @Override
+            public int compare(StatementCacheKey k1, StatementCacheKey k2) {
+                return counts.get(k2).compareTo(counts.get(k1));
+            }
+        });
+
+        return keys.size() > max ? new ArrayList<StatementCacheKey>(keys.subList(0, max)) : keys;
+    }
+
+    /**
+     * @return statement cache hits, misses, and discards since the data source was created.
+     */
+    @Trivial
+    final long[] getStatistics() {
+        return new long[] { hits.get(), misses.get(), discards.get() };
+    }
+
+    /**
+     * Records the use of a statement cache key, and whether a cached statement was found for it.
+     *
+     * @param key the statement cache key.
+     * @param hit true if a cached statement was found, otherwise false.
+     */
+    final void recordLookup(StatementCacheKey key, boolean hit) {
+        DSConfig config = dsConfig.get();
+        recordLookup(key, hit, config.statementCacheSize, config.jndiName == null ? config.id : config.jndiName);
+    }
+
+    /**
+     * Records the use of a statement cache key, and whether a cached statement was found for it.
+     *
+     * @param key the statement cache key.
+     * @param hit true if a cached statement was found, otherwise false.
+     * @param statementCacheSize the configured statementCacheSize.
+     * @param poolName JNDI name, or if none, the id of the data source.
+     */
+    final void recordLookup(StatementCacheKey key, boolean hit, int statementCacheSize, String poolName) {
+        int maxTrackedKeys = Math.max(MIN_TRACKED_KEYS, statementCacheSize * TRACKED_KEYS_PER_ENTRY);
+
+        AtomicInteger count = useCounts.get(key);
+        if (count == null) {
+            // New keys are not tracked once the limit is reached. Keys which are no longer used are
+            // forgotten at the end of the period, which makes room for them.
+            if (useCounts.size() < maxTrackedKeys) {
+                AtomicInteger previous = useCounts.putIfAbsent(key, count = new AtomicInteger(1));
+                if (previous != null)
+                    previous.incrementAndGet();
+            }
+        } else
+            count.incrementAndGet();
+
+        if (hit) {
+            hits.incrementAndGet();
+            statementCacheHit(poolName);
+        } else {
+            misses.incrementAndGet();
+            statementCacheMiss(poolName);
+        }
+
+        if (lookups.incrementAndGet() >= maxTrackedKeys * LOOKUPS_PER_TRACKED_KEY && aging.compareAndSet(false, true))
+            try {
+                endPeriod(statementCacheSize, poolName);
+            } finally {
+                aging.set(false);
+            }
+    }
+
+    /**
+     * Records that statements were discarded from the statement cache of a managed connection.
+     *
+     * @param count the number of statements discarded.
+     */
+    final void recordDiscards(int count) {
+        discards.addAndGet(count);
+        DSConfig config = dsConfig.get();
+        String poolName = config.jndiName == null ? config.id : config.jndiName;
+        for (int i = 0; i < count; i++)
+            statementCacheDiscard(poolName);
+    }
+
+    /**
+     * Ages the use counts at the end of a period and recomputes the working set.
+     *
+     * @param statementCacheSize the configured statementCacheSize.
+     * @param poolName JNDI name, or if none, the id of the data source.
+     */
+    private void endPeriod(int statementCacheSize, String poolName) {
+        int workingSet = 0;
+        for (Iterator<AtomicInteger> it = useCounts.values().iterator(); it.hasNext();) {
+            AtomicInteger count = it.next();
+            int c;
+            do
+                c = count.get();
+            while (!count.compareAndSet(c, c >> 1));
+            if (c > 1)
+                workingSet++;
+            else
+                it.remove();
+        }
+        lookups.set(0);
+
+        // Leave room for some variation in the working set, and only resize the statement caches
+        // when the working set changes significantly.
+        int size = Math.max(1, workingSet + (workingSet >> 2));
+        int current = adaptedSize;
+        if (current == 0 || size > current || size < current - (current >> 2))
+            adaptedSize = size;
+
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled())
+            Tr.debug(this, tc, "statement cache period ended for " + poolName,
+                     "working set: " + workingSet,
+                     "adapted size: " + adaptedSize,
+                     "configured size: " + statementCacheSize,
+                     "hits/misses/discards: " + hits + '/' + misses + '/' + discards);
+    }
+
+    /**
+     * Probe site for the connection pool monitor. Invoked when a cached statement is found.
+     *
+     * @param poolName JNDI name, or if none, the id of the data source.
+     */
+    @Trivial
+    void statementCacheHit(String poolName) {}
+
+    /**
+     * Probe site for the connection pool monitor. Invoked when no cached statement is found.
+     *
+     * @param poolName JNDI name, or if none, the id of the data source.
+     */
+    @Trivial
+    void statementCacheMiss(String poolName) {}
+
+    /**
+     * Probe site for the connection pool monitor. Invoked when a statement is discarded from a statement cache.
+     *
+     * @param poolName JNDI name, or if none, the id of the data source.
+     */
+    @Trivial
+    void statementCacheDiscard(String poolName) {}
+}
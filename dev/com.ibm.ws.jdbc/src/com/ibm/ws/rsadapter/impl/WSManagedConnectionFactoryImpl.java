@@ -237,6 +237,11 @@ public class WSManagedConnectionFactoryImpl extends WSManagedConnectionFactory i
      */
     public final AtomicReference<DSConfig> dsConfig;
 
+    /**
+     * Coordinates the statement caches of the managed connections that are created by this managed connection factory.
+     */
+    final transient StatementCacheCoordinator statementCacheCoordinator;
+
     /**
      * Indicates whether or not the JDBC driver supports Connection.getNetworkTimeout.
      */
@@ -313,6 +318,7 @@ public class WSManagedConnectionFactoryImpl extends WSManagedConnectionFactory i
 
         DSConfig config = new DSConfig(id, jndi, wProps, vProps, ds.getClass(), connectorSvc, this);
         (dsConfig = dsConfigRef).set(config);
+        statementCacheCoordinator = new StatementCacheCoordinator(dsConfigRef);
 
         createDatabaseHelper(vProps instanceof PropertyService ? ((PropertyService) vProps).getFactoryPID() : PropertyService.FACTORY_PID);
 
@@ -15,6 +15,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
@@ -66,6 +67,7 @@ import com.ibm.ws.rsadapter.ConnectionSharing;
 import com.ibm.ws.rsadapter.DSConfig; 
 import com.ibm.ws.rsadapter.exceptions.DataStoreAdapterException;
 import com.ibm.ws.rsadapter.jdbc.WSJdbcConnection;
+import com.ibm.ws.rsadapter.jdbc.WSJdbcPreparedStatement;
 import com.ibm.ws.tx.embeddable.EmbeddableWebSphereTransactionManager;
 
 /**
@@ -234,6 +236,20 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
      */
     private int numHandlesInUse;
 
+    /**
+     * The prepared statement with executeUpdate operations which are coalesced into its batch and
+     * have not run yet, or null if none. See the coalesceUpdatesBatchSize data source property.
+     * The statement may belong to any handle of this ManagedConnection.
+     */
+    private WSJdbcPreparedStatement coalescedUpdatesStatement;
+
+    /**
+     * The first error from a batch of coalesced updates in the current local transaction, or null
+     * if none. The application was told that the updates succeeded, so a local transaction with
+     * a failed batch cannot commit; it must be rolled back.
+     */
+    private SQLException coalescedUpdatesFailure;
+
     /**
      * The maximum size to allocate for new handle lists. This value is autonomically adjusted
      * if we find more handles are required.
@@ -489,7 +505,7 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
         synchronizePropertiesWithCRI();
 
         //Create the stmt cache if cachesize > 0
-        int statementCacheSize = config.statementCacheSize; 
+        int statementCacheSize = mcf.statementCacheCoordinator.getStatementCacheSize(config);
         if (statementCacheSize > 0) 
             statementCache = new CacheMap(statementCacheSize); 
 
@@ -505,6 +521,9 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
         else if (helper.shouldTraceBeDisabled(this))
             helper.disableJdbcLogging(this);
 
+        if (statementCache != null && config.statementCacheWarmupSize > 0)
+            warmStatementCache(config);
+
         if (isTraceOn && tc.isEntryEnabled()) 
             Tr.exit(this, tc, "<init>");
     }
@@ -686,6 +705,27 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
         }
     }
 
+    /**
+     * Discards the executeUpdate operations which are coalesced into the batch of a prepared statement,
+     * because they are rolled back. This method does nothing if there are no coalesced updates.
+     */
+    public final void discardCoalescedUpdates() {
+        WSJdbcPreparedStatement pstmt = coalescedUpdatesStatement;
+        if (pstmt != null) {
+            coalescedUpdatesStatement = null;
+            pstmt.discardCoalescedUpdates();
+        }
+    }
+
+    /**
+     * Discards the coalesced updates and any error from a batch of coalesced updates, because the
+     * local transaction is rolled back.
+     */
+    final void discardCoalescedUpdatesOnRollback() {
+        discardCoalescedUpdates();
+        coalescedUpdatesFailure = null;
+    }
+
     /**
      * Dissociate all connection handles from this ManagedConnection, transitioning the handles
      * to an inactive state where are not associated with any ManagedConnection. Processing
@@ -782,6 +822,68 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
         }
     }
 
+    /**
+     * Runs the executeUpdate operations which are coalesced into the batch of a prepared statement.
+     * This method does nothing if there are no coalesced updates. If the batch fails, the local
+     * transaction can no longer commit.
+     * 
+     * @throws SQLException if the batch fails. This exception is already mapped.
+     */
+    public final void executeCoalescedUpdates() throws SQLException {
+        WSJdbcPreparedStatement pstmt = coalescedUpdatesStatement;
+        if (pstmt != null) {
+            coalescedUpdatesStatement = null;
+            try {
+                pstmt.executeCoalescedUpdates();
+            } catch (SQLException x) {
+                // No FFDC code needed. Might be an application error.
+                if (coalescedUpdatesFailure == null)
+                    coalescedUpdatesFailure = x;
+                if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled())
+                    Tr.debug(this, tc, "The local transaction cannot commit after a batch of coalesced updates failed", x);
+                throw x;
+            }
+        }
+    }
+
+    /**
+     * Runs the executeUpdate operations which are coalesced into the batch of a prepared statement,
+     * so that they are part of the local transaction when it commits.
+     * 
+     * @throws SQLException if a batch of coalesced updates failed during the local transaction,
+     *             now or earlier. The transaction must be rolled back.
+     */
+    final void executeCoalescedUpdatesBeforeCommit() throws SQLException {
+        try {
+            executeCoalescedUpdates();
+        } catch (SQLException x) {
+            // No FFDC code needed. The error is recorded, and raised below.
+        }
+
+        SQLException failure = coalescedUpdatesFailure;
+        if (failure != null)
+            throw new SQLException(AdapterUtil.getNLSMessage("COALESCED_UPDATES_FAILED", failure.getMessage()),
+                            failure.getSQLState(), failure.getErrorCode(), failure);
+    }
+
+    /**
+     * @return the prepared statement with executeUpdate operations which are coalesced into its batch
+     *         and have not run yet, or null if none.
+     */
+    public final WSJdbcPreparedStatement getCoalescedUpdatesStatement() {
+        return coalescedUpdatesStatement;
+    }
+
+    /**
+     * Records the prepared statement with executeUpdate operations which are coalesced into its batch.
+     * The updates of any other statement must already have run.
+     * 
+     * @param pstmt the prepared statement.
+     */
+    public final void setCoalescedUpdatesStatement(WSJdbcPreparedStatement pstmt) {
+        coalescedUpdatesStatement = pstmt;
+    }
+
     /**
      * Invoked when enlisting in a z/OS RRS (Resource Recovery Services) global transaction.
      */
@@ -870,7 +972,7 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
      * @return the statement cache. Null if caching is not enabled.
      */
     private CacheMap getStatementCache() {
-        int newSize = dsConfig.get().statementCacheSize; 
+        int newSize = mcf.statementCacheCoordinator.getStatementCacheSize(dsConfig.get());
 
         // Check if statement cache is dynamically enabled
         if (statementCache == null && newSize > 0) {
@@ -888,6 +990,8 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
             CacheMap oldCache = statementCache;
             statementCache = newSize > 0 ? new CacheMap(newSize) : null;
             Object[] discards = newSize > 0 ? statementCache.addAll(oldCache) : oldCache.removeAll();
+            if (discards.length > 0)
+                mcf.statementCacheCoordinator.recordDiscards(discards.length);
             for (Object stmt : discards)
                 destroyStatement(stmt);
         }
@@ -1472,6 +1576,7 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
 
             if (!currentAutoCommit)
                 try { // autoCommit is off
+                    executeCoalescedUpdatesBeforeCommit();
                     sqlConn.commit();
                 } catch (SQLException se) {
                     FFDCFilter.processException(se, "com.ibm.ws.rsadapter.spi.WSRdbManagedConnectionImpl.processLocalTransactionCommittedEvent", "554", this);
@@ -1566,6 +1671,7 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
 
             if (!currentAutoCommit)
                 try { // autoCommit is off
+                    discardCoalescedUpdatesOnRollback();
                     sqlConn.rollback();
                 } catch (SQLException se) {
                     FFDCFilter.processException(se, "com.ibm.ws.rsadapter.spi.WSRdbManagedConnectionImpl.processLocalTransactionRolledbackEvent", "595", this);
@@ -2156,6 +2262,7 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
     public final Object getStatement(StatementCacheKey key) 
     {
         Object stmt = statementCache.remove(key);
+        mcf.statementCacheCoordinator.recordLookup(key, stmt != null);
         if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) { 
             if (stmt == null) {
                 Tr.debug(this, tc, "No Matching Prepared Statement found in cache");
@@ -2185,8 +2292,62 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
         CacheMap cache = getStatementCache();
         Object discardedStatement = cache == null ? statement : statementCache.add(key, statement);
 
-        if (discardedStatement != null)
+        if (discardedStatement != null) {
+            if (cache != null)
+                mcf.statementCacheCoordinator.recordDiscards(1);
             destroyStatement(discardedStatement);
+        }
+    }
+
+    /**
+     * Prepares and caches the prepared statements that are most used across the connections of the
+     * data source. Only statements with cache keys that match the initial state of this connection are
+     * prepared. Errors are ignored because statements are prepared again upon first use.
+     * 
+     * @param config the data source configuration.
+     */
+    private void warmStatementCache(DSConfig config) {
+        final boolean isTraceOn = TraceComponent.isAnyTracingEnabled();
+        if (isTraceOn && tc.isEntryEnabled())
+            Tr.entry(this, tc, "warmStatementCache", config.statementCacheWarmupSize);
+
+        int isoLevel = helper.doesStatementCacheIsoLevel() ? currentTransactionIsolation : 0;
+        int max = Math.min(config.statementCacheWarmupSize, statementCache.getMaxSize());
+        int count = 0;
+
+        for (StatementCacheKey key : mcf.statementCacheCoordinator.getHotStatements(max)) {
+            // Statements are keyed on holdability, isolation level, and schema, which can only match
+            // the initial values for this connection.
+            if (key.holdability != currentHoldability
+                || key.statementIsoLevel != isoLevel
+                || !AdapterUtil.match(key.schema, currentSchema))
+                continue;
+
+            PreparedStatement pstmt = null;
+            try {
+                pstmt = key.autoGeneratedKeys == 0
+                                ? sqlConn.prepareStatement(key.sql, key.type, key.concurrency)
+                                : sqlConn.prepareStatement(key.sql, key.autoGeneratedKeys);
+                Integer queryTimeout = config.queryTimeout;
+                if (queryTimeout != null)
+                    pstmt.setQueryTimeout(queryTimeout);
+                cacheStatement(pstmt, key);
+                count++;
+            } catch (SQLException x) {
+                // No FFDC code needed. The statement is prepared again when the application uses it.
+                if (isTraceOn && tc.isDebugEnabled())
+                    Tr.debug(this, tc, "unable to prepare statement " + key, x);
+                if (pstmt != null)
+                    try {
+                        pstmt.close();
+                    } catch (Throwable closeX) {
+                    }
+                break;
+            }
+        }
+
+        if (isTraceOn && tc.isEntryEnabled())
+            Tr.exit(this, tc, "warmStatementCache", count);
     }
 
     /**
@@ -3049,6 +3210,7 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
 
                 if (!currentAutoCommit)
                     try { // autoCommit is off
+                        discardCoalescedUpdatesOnRollback();
                         sqlConn.rollback();
                     } catch (SQLException se) {
                         FFDCFilter.processException(se, "com.ibm.ws.rsadapter.spi.WSRdbManagedConnectionImpl.cleanupTransactions", "1223", this);
@@ -254,6 +254,7 @@ public class WSRdbSpiLocalTransactionImpl implements LocalTransaction, FFDCSelfI
                 // don't allow commit/rollback when autoCommit is on.  
 
                 //  here the autocommit is always false, so we can call commit.
+                ivMC.executeCoalescedUpdatesBeforeCommit();
                 ivConnection.commit();
 
                 //Note this exception is not caught - This is because
@@ -390,6 +391,7 @@ public class WSRdbSpiLocalTransactionImpl implements LocalTransaction, FFDCSelfI
                 // don't allow commit/rollback when autoCommit is on.  
 
                 //  here the autocommit is always false, so we can call commit.
+                ivMC.discardCoalescedUpdatesOnRollback();
                 ivConnection.rollback();
 
                 //Note this exception is not caught - This is because
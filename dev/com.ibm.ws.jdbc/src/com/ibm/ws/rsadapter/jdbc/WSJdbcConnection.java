@@ -319,6 +319,21 @@ public class WSJdbcConnection extends WSJdbcObject implements Connection {
      */
     @Override
     public void beginTransactionIfNecessary() throws SQLException
+    {
+        beginTransactionIfNecessary(null);
+    }
+
+    /**
+     * Call this method before any operation which should implicitly begin a transaction.
+     * Updates which are coalesced into a batch on the ManagedConnection run first, except for
+     * the updates of the statement which is about to coalesce another update.
+     * 
+     * @param coalescingStatement a prepared statement which may coalesce the update that it is
+     *            about to run into its batch, or null.
+     * 
+     * @throws SQLException if an error occurs or the current state is not valid.
+     */
+    final void beginTransactionIfNecessary(WSJdbcPreparedStatement coalescingStatement) throws SQLException
     {
         final boolean isTraceOn = TraceComponent.isAnyTracingEnabled(); 
         if (isTraceOn && tc.isEntryEnabled())
@@ -340,6 +355,11 @@ public class WSJdbcConnection extends WSJdbcObject implements Connection {
         if (threadID != null) 
             detectMultithreadedAccess();
 
+        // Updates which are coalesced into a batch run before any other operation on the connection.
+        WSJdbcPreparedStatement coalescedUpdatesStatement = managedConn.getCoalescedUpdatesStatement();
+        if (coalescedUpdatesStatement != null && coalescedUpdatesStatement != coalescingStatement)
+            managedConn.executeCoalescedUpdates();
+
         //  - enforce isolation level on connection first if isolation level switching is
         // supported. This avoids the problem that user tries to use handle 1 to get a statement, then
         // get a different handle with different isolation level, then use the handle 1 again. It will
@@ -3079,6 +3099,8 @@ public class WSJdbcConnection extends WSJdbcObject implements Connection {
                 throw x;
             }
 
+            managedConn.executeCoalescedUpdates();
+
             // - directly call the method on the native connection
             sp = connImpl.setSavepoint();
         } catch (SQLException ex) {
@@ -3141,6 +3163,8 @@ public class WSJdbcConnection extends WSJdbcObject implements Connection {
                 throw x;
             }
 
+            managedConn.executeCoalescedUpdates();
+
             //  - directly call the method on the native connection
             sp = connImpl.setSavepoint(name);
         } catch (SQLException ex) {
@@ -3200,6 +3224,10 @@ public class WSJdbcConnection extends WSJdbcObject implements Connection {
                 throw x;
             }
 
+            // Coalesced updates are always more recent than the most recent savepoint,
+            // because setting a savepoint runs them.
+            managedConn.discardCoalescedUpdates();
+
             //  - directly call the method on the native connection
             connImpl.rollback(savepoint);
             //  - ResultSets need to be implicitly closed by rollback(savept).
@@ -18,6 +18,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Array;
 import java.sql.Blob;
+import java.sql.CallableStatement;
 import java.sql.Clob;
 import java.sql.Date;
 import java.sql.NClob;
@@ -42,6 +43,8 @@ import com.ibm.ws.ffdc.FFDCFilter;
 import com.ibm.ws.jdbc.timedoperations.WSJdbcObjectHelper;
 import com.ibm.ws.rsadapter.AdapterUtil;
 import com.ibm.ws.rsadapter.impl.StatementCacheKey;
+import com.ibm.ws.rsadapter.impl.WSRdbManagedConnectionImpl;
+import com.ibm.ws.rsadapter.impl.WSStateManager;
 
 /**
  * This class wraps a PreparedStatement.
@@ -66,6 +69,12 @@ public class WSJdbcPreparedStatement extends WSJdbcStatement implements Prepared
     
     Object sqljSection;
 
+    /**
+     * Number of executeUpdate operations which are coalesced into the batch of this statement
+     * and have not run yet. See the coalesceUpdatesBatchSize data source property.
+     */
+    private int numCoalescedUpdates;
+
     /**
      * Do not use. Constructor exists only for CallableStatement wrapper.
      */
@@ -172,6 +181,11 @@ public class WSJdbcPreparedStatement extends WSJdbcStatement implements Prepared
             Tr.debug(this, tc, "addBatch"); 
 
         try {
+            // Updates which are coalesced into the batch are not part of the application's batch.
+            WSRdbManagedConnectionImpl mc = ((WSJdbcConnection) parentWrapper).managedConn;
+            if (mc != null && mc.getCoalescedUpdatesStatement() == this)
+                mc.executeCoalescedUpdates();
+
             pstmtImpl.addBatch();
             hasBatchParameters = true; 
         } catch (SQLException ex) {
@@ -252,6 +266,20 @@ public class WSJdbcPreparedStatement extends WSJdbcStatement implements Prepared
         final boolean isTraceOn = TraceComponent.isAnyTracingEnabled(); 
 
         SQLException sqlX = null;
+        SQLException coalescedUpdatesX = null;
+
+        // Run the updates which are coalesced into the batch before the statement is cached or closed.
+        // If the batch fails, the error is raised from close, and the ManagedConnection does not allow
+        // the local transaction to commit, even when the error is not seen by the application because
+        // the statement is closed along with its connection.
+        WSRdbManagedConnectionImpl mc = ((WSJdbcConnection) parentWrapper).managedConn;
+        if (mc != null && mc.getCoalescedUpdatesStatement() == this)
+            try {
+                mc.executeCoalescedUpdates();
+            } catch (SQLException x) {
+                // No FFDC code needed. Might be an application error.
+                coalescedUpdatesX = x;
+            }
 
         // Indicate the statement is closed by setting the parent object's statement to
         // null.  This will allow us to be garbage collected.
@@ -265,8 +293,6 @@ public class WSJdbcPreparedStatement extends WSJdbcStatement implements Prepared
                 throw runtimeX;
         }
 
-        com.ibm.ws.rsadapter.impl.WSRdbManagedConnectionImpl mc;
-
         // A null key means statement caching is disabled. Do not cache. Close instead.
         // Also don't cache if the poolability hint is FALSE.   
         if (key == null || !poolabilityHint)
@@ -287,7 +313,7 @@ public class WSJdbcPreparedStatement extends WSJdbcStatement implements Prepared
             }
 
         // Do not cache unless we are associated with a ManagedConnection. 
-        else if ((mc = ((WSJdbcConnection) parentWrapper).managedConn) == null)
+        else if (mc == null)
             try {
                 if (isTraceOn && tc.isDebugEnabled())
                     Tr.debug(this, tc, 
@@ -359,6 +385,8 @@ public class WSJdbcPreparedStatement extends WSJdbcStatement implements Prepared
         key = null;
         sql = null; 
 
+        if (coalescedUpdatesX != null)
+            return coalescedUpdatesX;
         return sqlX == null ? null : WSJdbcUtil.mapException(this, sqlX); 
     }
     
@@ -516,11 +544,24 @@ public class WSJdbcPreparedStatement extends WSJdbcStatement implements Prepared
                 closeAndRemoveResultSets();
             }
 
-            parentWrapper.beginTransactionIfNecessary();
+            WSJdbcConnection connWrapper = (WSJdbcConnection) parentWrapper;
+            int batchSize = dsConfig.get().coalesceUpdatesBatchSize;
 
-            enforceStatementProperties();
+            // When updates are coalesced, the updates which are already coalesced into the batch of
+            // this statement stay in the batch, so that the update can join them. All other coalesced
+            // updates run first.
+            WSJdbcPreparedStatement coalescingStatement = batchSize > 0 ? this : null;
+
+            connWrapper.beginTransactionIfNecessary(coalescingStatement);
+
+            enforceStatementProperties(coalescingStatement);
 
-            numUpdates = pstmtImpl.executeUpdate();
+            if (isUpdateCoalescingEnabled(connWrapper, batchSize))
+                numUpdates = coalesceUpdate(connWrapper.managedConn, batchSize);
+            else {
+                connWrapper.managedConn.executeCoalescedUpdates();
+                numUpdates = pstmtImpl.executeUpdate();
+            }
         } catch (SQLException ex) {
             // No FFDC code needed. Might be an application error.  
             if (isTraceOn && tc.isEntryEnabled())
@@ -545,6 +586,99 @@ public class WSJdbcPreparedStatement extends WSJdbcStatement implements Prepared
         return numUpdates;
     }
 
+    /**
+     * Determines whether executeUpdate can be coalesced into a batch. Updates are only coalesced
+     * within a local transaction that is committed or rolled back through the resource adapter,
+     * and never for statements which have batch parameters from the application.
+     * 
+     * @param connWrapper the connection wrapper of this statement.
+     * @param batchSize the maximum number of updates to coalesce. 0 if coalescing is disabled.
+     * 
+     * @return true if the update can be coalesced, otherwise false.
+     */
+    private boolean isUpdateCoalescingEnabled(WSJdbcConnection connWrapper, int batchSize) throws SQLException {
+        return batchSize > 0
+               && !hasBatchParameters
+               && sqljSection == null
+               && !(this instanceof CallableStatement)
+               && connWrapper.managedConn.getTransactionState() == WSStateManager.LOCAL_TRANSACTION_ACTIVE
+               && !connWrapper.managedConn.getAutoCommit();
+    }
+
+    /**
+     * Adds the current parameters to the batch of coalesced updates, and runs the batch
+     * when it reaches the maximum size.
+     * 
+     * @param mc the ManagedConnection of this statement.
+     * @param batchSize the maximum number of updates to coalesce.
+     * 
+     * @return 1, the update count that is reported for a coalesced update.
+     * @throws SQLException if an error occurs adding to or running the batch.
+     */
+    private int coalesceUpdate(WSRdbManagedConnectionImpl mc, int batchSize) throws SQLException {
+        pstmtImpl.addBatch();
+        mc.setCoalescedUpdatesStatement(this);
+
+        if (++numCoalescedUpdates >= batchSize)
+            mc.executeCoalescedUpdates();
+        return 1;
+    }
+
+    /**
+     * Runs the executeUpdate operations which are coalesced into the batch of this statement.
+     * This method is invoked by the ManagedConnection, which no longer tracks this statement
+     * as having coalesced updates. The batch is cleared if it fails.
+     * 
+     * @throws SQLException if the batch fails.
+     */
+    public void executeCoalescedUpdates() throws SQLException {
+        final boolean isTraceOn = TraceComponent.isAnyTracingEnabled(); 
+
+        if (isTraceOn && tc.isEntryEnabled())
+            Tr.entry(this, tc, "executeCoalescedUpdates", numCoalescedUpdates); 
+
+        numCoalescedUpdates = 0;
+        int[] updateCounts;
+        try {
+            updateCounts = pstmtImpl.executeBatch();
+        } catch (SQLException ex) {
+            // No FFDC code needed. Might be an application error. 
+            try {
+                pstmtImpl.clearBatch();
+            } catch (SQLException clearX) {
+                // No FFDC code needed. The statement is unusable.
+                if (isTraceOn && tc.isDebugEnabled())
+                    Tr.debug(this, tc, "clearBatch", clearX);
+            }
+
+            if (isTraceOn && tc.isEntryEnabled())
+                Tr.exit(this, tc, "executeCoalescedUpdates", ex); 
+            throw WSJdbcUtil.mapException(this, ex);
+        }
+
+        if (isTraceOn && tc.isEntryEnabled())
+            Tr.exit(this, tc, "executeCoalescedUpdates", Arrays.toString(updateCounts)); 
+    }
+
+    /**
+     * Discards the executeUpdate operations which are coalesced into the batch of this statement,
+     * because the transaction is rolled back. This method is invoked by the ManagedConnection, which
+     * no longer tracks this statement as having coalesced updates.
+     */
+    public void discardCoalescedUpdates() {
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled())
+            Tr.debug(this, tc, "discardCoalescedUpdates", numCoalescedUpdates); 
+
+        numCoalescedUpdates = 0;
+        try {
+            pstmtImpl.clearBatch();
+        } catch (SQLException ex) {
+            // No FFDC code needed. The updates are rolled back with the transaction regardless.
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled())
+                Tr.debug(this, tc, "clearBatch", ex);
+        }
+    }
+
     public String getSql(){
         return sql;         
     }
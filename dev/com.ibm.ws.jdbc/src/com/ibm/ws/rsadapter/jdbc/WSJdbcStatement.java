@@ -34,6 +34,7 @@ import com.ibm.ws.jdbc.osgi.JDBCRuntimeVersion;
 import com.ibm.ws.jdbc.timedoperations.WSJdbcObjectHelper;
 import com.ibm.ws.rsadapter.AdapterUtil;
 import com.ibm.ws.rsadapter.DSConfig;
+import com.ibm.ws.rsadapter.impl.WSRdbManagedConnectionImpl;
 import com.ibm.wsspi.uow.UOWManager; 
 import com.ibm.wsspi.uow.UOWManagerFactory; 
 
@@ -199,6 +200,11 @@ public class WSJdbcStatement extends WSJdbcObject implements Statement, WSJdbcOb
             Tr.debug(this, tc, "clearBatch"); 
 
         try {
+            // Updates which are coalesced into the batch are not part of the application's batch.
+            WSRdbManagedConnectionImpl mc = ((WSJdbcConnection) parentWrapper).managedConn;
+            if (mc != null && mc.getCoalescedUpdatesStatement() == this)
+                mc.executeCoalescedUpdates();
+
             stmtImpl.clearBatch();
 
             // Reset the batch parameter flag when the batch is cleared. 
@@ -355,11 +361,33 @@ public class WSJdbcStatement extends WSJdbcObject implements Statement, WSJdbcOb
      * This method syncs the query timeout to the transaction timeout when appropriate
      * and updates the current fetchSize according to the requested fetchSize value, if needed.
      * This method should be invoked before executing the statement. 
+     * Updates which are coalesced into a batch on the connection run first, so that statements
+     * run in the order in which the application requested them.
      * 
      * @throws SQLException if an error occurs updating the Statement properties.
      */
     protected final void enforceStatementProperties() throws SQLException 
     {
+        enforceStatementProperties(null);
+    }
+
+    /**
+     * Update statement properties before executing the statement.
+     * Updates which are coalesced into a batch on the connection run first, except for the
+     * updates of the statement which is about to coalesce another update.
+     * 
+     * @param coalescingStatement a prepared statement which may coalesce the update that it is
+     *            about to run into its batch, or null.
+     * 
+     * @throws SQLException if an error occurs updating the Statement properties.
+     */
+    final void enforceStatementProperties(WSJdbcPreparedStatement coalescingStatement) throws SQLException 
+    {
+        WSRdbManagedConnectionImpl mc = ((WSJdbcConnection) parentWrapper).managedConn;
+        WSJdbcPreparedStatement coalescedUpdatesStatement = mc.getCoalescedUpdatesStatement();
+        if (coalescedUpdatesStatement != null && coalescedUpdatesStatement != coalescingStatement)
+            mc.executeCoalescedUpdates();
+
         // Synchronization not needed since this method will always be called from execute
         // methods which are already synchronized.
         // RRA does not support multithreaded access so synchronization is no
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.rsadapter.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the coordinator of the statement caches of a data source.
+ */
+public class StatementCacheCoordinatorTest {
+    private static final String POOL_NAME = "jdbc/StatementCacheCoordinatorTest";
+
+    private static StatementCacheKey prepared(String sql) {
+        return new PSCacheKey(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT,
+                        Statement.NO_GENERATED_KEYS, Connection.TRANSACTION_READ_COMMITTED, null);
+    }
+
+    private static StatementCacheKey callable(String sql) {
+        return new CSCacheKey(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT,
+                        Connection.TRANSACTION_READ_COMMITTED, null);
+    }
+
+    private static void lookup(StatementCacheCoordinator coordinator, StatementCacheKey key, int times, int statementCacheSize) {
+        for (int i = 0; i < times; i++)
+            coordinator.recordLookup(key, i > 0, statementCacheSize, POOL_NAME);
+    }
+
+    /**
+     * Records one full period of lookups, in which the number of keys used more than once is
+     * the specified number plus one key which is used for all of the remaining lookups.
+     */
+    private static void runPeriod(StatementCacheCoordinator coordinator, int keysUsedTwice, int statementCacheSize) {
+        int lookupsPerPeriod = Math.max(64, statementCacheSize * 4) * 8;
+        for (int i = 0; i < keysUsedTwice; i++)
+            lookup(coordinator, prepared("SELECT " + i + " FROM T"), 2, statementCacheSize);
+        lookup(coordinator, prepared("SELECT * FROM T"), lookupsPerPeriod - keysUsedTwice * 2, statementCacheSize);
+    }
+
+    /**
+     * The configured size is used until the first period ends, and when adaptive sizing is disabled.
+     */
+    @Test
+    public void testConfiguredSizeUntilFirstPeriodEnds() {
+        StatementCacheCoordinator coordinator = new StatementCacheCoordinator(null);
+        assertEquals(50, coordinator.getStatementCacheSize(50, true));
+        assertEquals(0, coordinator.getStatementCacheSize(0, true));
+
+        lookup(coordinator, prepared("SELECT 1 FROM T"), 1599, 50);
+        assertEquals(50, coordinator.getStatementCacheSize(50, true));
+
+        lookup(coordinator, prepared("SELECT 1 FROM T"), 1, 50);
+        assertEquals(1, coordinator.getStatementCacheSize(50, true));
+        assertEquals(50, coordinator.getStatementCacheSize(50, false));
+    }
+
+    /**
+     * The size fits the working set with some room to spare, and only changes when the
+     * working set grows or shrinks by more than a quarter.
+     */
+    @Test
+    public void testWorkingSetAndHysteresis() {
+        StatementCacheCoordinator coordinator = new StatementCacheCoordinator(null);
+
+        runPeriod(coordinator, 19, 50);
+        assertEquals(25, coordinator.getStatementCacheSize(50, true));
+
+        // a working set of 18 needs 22, which is not enough smaller to shrink the caches
+        runPeriod(coordinator, 17, 50);
+        assertEquals(25, coordinator.getStatementCacheSize(50, true));
+
+        runPeriod(coordinator, 11, 50);
+        assertEquals(15, coordinator.getStatementCacheSize(50, true));
+
+        // any growth of the working set beyond the size grows the caches
+        runPeriod(coordinator, 15, 50);
+        assertEquals(20, coordinator.getStatementCacheSize(50, true));
+        assertEquals(50, coordinator.getStatementCacheSize(50, false));
+    }
+
+    /**
+     * Keys which are used only once in a period are not part of the working set.
+     */
+    @Test
+    public void testKeysUsedOnceAreNotInWorkingSet() {
+        StatementCacheCoordinator coordinator = new StatementCacheCoordinator(null);
+        for (int i = 0; i < 40; i++)
+            lookup(coordinator, prepared("SELECT " + i + " FROM T"), 1, 50);
+        runPeriod(coordinator, 3, 50);
+        assertEquals(5, coordinator.getStatementCacheSize(50, true));
+    }
+
+    /**
+     * The adapted size never exceeds the configured statementCacheSize.
+     */
+    @Test
+    public void testNeverExceedsConfiguredSize() {
+        StatementCacheCoordinator coordinator = new StatementCacheCoordinator(null);
+        runPeriod(coordinator, 39, 10);
+        assertEquals(10, coordinator.getStatementCacheSize(10, true));
+        assertEquals(10, coordinator.getStatementCacheSize(10, false));
+    }
+
+    /**
+     * Only prepared statements used more than once are hot, most used first.
+     */
+    @Test
+    public void testHotStatements() {
+        StatementCacheCoordinator coordinator = new StatementCacheCoordinator(null);
+        StatementCacheKey a = prepared("SELECT A FROM T");
+        StatementCacheKey b = prepared("SELECT B FROM T");
+        StatementCacheKey c = prepared("SELECT C FROM T");
+        StatementCacheKey d = callable("CALL D");
+        StatementCacheKey e = prepared("SELECT E FROM T");
+        lookup(coordinator, b, 3, 50);
+        lookup(coordinator, c, 1, 50);
+        lookup(coordinator, a, 5, 50);
+        lookup(coordinator, d, 10, 50);
+        lookup(coordinator, e, 2, 50);
+
+        assertEquals(Arrays.asList(a, b, e), coordinator.getHotStatements(10));
+        assertEquals(Arrays.asList(a, b), coordinator.getHotStatements(2));
+        assertEquals(0, coordinator.getHotStatements(0).size());
+    }
+
+    @Test
+    public void testStatistics() {
+        StatementCacheCoordinator coordinator = new StatementCacheCoordinator(null);
+        lookup(coordinator, prepared("SELECT A FROM T"), 5, 50);
+        lookup(coordinator, callable("CALL D"), 2, 50);
+        assertArrayEquals(new long[] { 5, 2, 0 }, coordinator.getStatistics());
+    }
+}
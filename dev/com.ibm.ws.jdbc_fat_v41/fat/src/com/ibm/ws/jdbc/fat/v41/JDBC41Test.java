@@ -24,6 +24,7 @@ import componenttest.custom.junit.runner.FATRunner;
 import componenttest.topology.impl.LibertyServer;
 import componenttest.topology.utils.FATServletClient;
 import jdbc.fat.v41.web.BasicTestServlet;
+import jdbc.fat.v41.web.CoalesceUpdatesTestServlet;
 import jdbc.fat.v41.web.DefaultDataSourceTestServlet;
 import jdbc.fat.v41.web.NetworkTimeoutTestServlet;
 
@@ -33,7 +34,8 @@ public class JDBC41Test extends FATServletClient {
     @Server("com.ibm.ws.jdbc.fat.v41")
     @TestServlets({ @TestServlet(servlet = BasicTestServlet.class, path = appName + "/BasicTestServlet"),
                     @TestServlet(servlet = NetworkTimeoutTestServlet.class, path = appName + "/NetworkTimeoutTestServlet"),
-                    @TestServlet(servlet = DefaultDataSourceTestServlet.class, path = appName + "/DefaultDataSourceTestServlet") })
+                    @TestServlet(servlet = DefaultDataSourceTestServlet.class, path = appName + "/DefaultDataSourceTestServlet"),
+                    @TestServlet(servlet = CoalesceUpdatesTestServlet.class, path = appName + "/CoalesceUpdatesTestServlet") })
     public static LibertyServer server;
 
     @BeforeClass
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package jdbc.fat.v41.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.annotation.Resource;
+import javax.annotation.Resource.AuthenticationType;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.sql.DataSource;
+
+import org.junit.Test;
+
+import componenttest.annotation.AllowedFFDC;
+import componenttest.app.FATDatabaseServlet;
+
+/**
+ * Tests for the coalesceUpdatesBatchSize data source property, which coalesces the executeUpdate
+ * operations of a prepared statement in a local transaction into batches of 3.
+ */
+@WebServlet(urlPatterns = "/CoalesceUpdatesTestServlet")
+public class CoalesceUpdatesTestServlet extends FATDatabaseServlet {
+    private static final long serialVersionUID = 4171806447530846121L;
+    private static final String tableName = "JDBC_FAT_v41_COALESCE";
+
+    @Resource(name = "jdbc/coalesceDS", shareable = false, authenticationType = AuthenticationType.APPLICATION)
+    DataSource coalesceDS;
+
+    @Override
+    public void init() throws ServletException {
+        createTable(coalesceDS, tableName, "id int not null primary key, name varchar(30)");
+    }
+
+    /**
+     * Counts the rows of the table with ids in the specified range, using a separate connection.
+     */
+    private int countCommitted(int minId, int maxId) throws SQLException {
+        Connection con = coalesceDS.getConnection();
+        try {
+            PreparedStatement ps = con.prepareStatement("select count(*) from " + tableName + " where id between ? and ?");
+            ps.setInt(1, minId);
+            ps.setInt(2, maxId);
+            ResultSet result = ps.executeQuery();
+            assertTrue(result.next());
+            return result.getInt(1);
+        } finally {
+            con.close();
+        }
+    }
+
+    /**
+     * Updates which are coalesced into batches, including a final partial batch, are all committed.
+     */
+    @Test
+    public void testCoalescedUpdatesCommitted() throws Exception {
+        Connection con = coalesceDS.getConnection();
+        try {
+            con.setAutoCommit(false);
+            PreparedStatement ps = con.prepareStatement("insert into " + tableName + " values (?, ?)");
+            for (int id = 100; id < 107; id++) {
+                ps.setInt(1, id);
+                ps.setString(2, "name" + id);
+                assertEquals(1, ps.executeUpdate());
+            }
+            con.commit();
+            ps.close();
+        } finally {
+            con.close();
+        }
+
+        assertEquals(7, countCommitted(100, 199));
+    }
+
+    /**
+     * A query on the same connection sees the coalesced updates which did not fill a batch.
+     */
+    @Test
+    public void testCoalescedUpdatesRunBeforeQuery() throws Exception {
+        Connection con = coalesceDS.getConnection();
+        try {
+            con.setAutoCommit(false);
+            PreparedStatement ps = con.prepareStatement("insert into " + tableName + " values (?, ?)");
+            for (int id = 200; id < 202; id++) {
+                ps.setInt(1, id);
+                ps.setString(2, "name" + id);
+                assertEquals(1, ps.executeUpdate());
+            }
+
+            ResultSet result = con.createStatement().executeQuery("select count(*) from " + tableName + " where id between 200 and 299");
+            assertTrue(result.next());
+            assertEquals(2, result.getInt(1));
+            result.close();
+
+            // an update from a different statement on the connection also runs the coalesced updates first
+            ps.setInt(1, 202);
+            ps.setString(2, "name202");
+            assertEquals(1, ps.executeUpdate());
+            Statement update = con.createStatement();
+            assertEquals(3, update.executeUpdate("update " + tableName + " set name='updated' where id between 200 and 299"));
+
+            con.commit();
+            ps.close();
+            update.close();
+        } finally {
+            con.close();
+        }
+
+        assertEquals(3, countCommitted(200, 299));
+    }
+
+    /**
+     * A batch of coalesced updates which fails when the statement is closed does not allow
+     * the local transaction to commit. After rollback, none of the updates are in the database.
+     */
+    @Test
+    @AllowedFFDC({ "com.ibm.ws.rsadapter.exceptions.DataStoreAdapterException", "java.sql.SQLException" })
+    public void testFailedCoalescedUpdatesRolledBack() throws Exception {
+        Connection con = coalesceDS.getConnection();
+        try {
+            con.setAutoCommit(false);
+            PreparedStatement ps = con.prepareStatement("insert into " + tableName + " values (?, ?)");
+            ps.setInt(1, 300);
+            ps.setString(2, "name300");
+            assertEquals(1, ps.executeUpdate());
+
+            // The duplicate key is not detected until the batch runs.
+            ps.setInt(1, 300);
+            ps.setString(2, "duplicate");
+            assertEquals(1, ps.executeUpdate());
+
+            try {
+                ps.close();
+                fail("Closing the statement must run the batch with the duplicate key");
+            } catch (SQLException x) {
+                System.out.println("Batch failed as expected: " + x);
+            }
+
+            try {
+                con.commit();
+                fail("Commit must not be allowed after a batch of coalesced updates failed");
+            } catch (SQLException x) {
+                if (x.getMessage() == null || !x.getMessage().contains("DSRA9370E"))
+                    throw x;
+            }
+
+            con.rollback();
+            assertEquals(0, countCommitted(300, 399));
+
+            // The rolled back connection commits again.
+            ps = con.prepareStatement("insert into " + tableName + " values (?, ?)");
+            ps.setInt(1, 301);
+            ps.setString(2, "name301");
+            assertEquals(1, ps.executeUpdate());
+            con.commit();
+            ps.close();
+        } finally {
+            con.close();
+        }
+
+        assertEquals(1, countCommitted(300, 399));
+    }
+}
@@ -33,6 +33,8 @@ import com.ibm.ws.kernel.feature.provisioning.FeatureResource;
  * 
  * <p>
  * It is up to the caller to use this information to provide appropriate diagnostics.
+ * <p>
+ * Results may be added concurrently, when bundles are installed by more than one thread.
  */
 public class BundleInstallStatus {
     private List<Throwable> otherExceptions = null;
@@ -124,21 +126,21 @@ public class BundleInstallStatus {
         return conflictFeatures;
     }
 
-    public void addMissingBundle(FeatureResource fr) {
+    public synchronized void addMissingBundle(FeatureResource fr) {
         if (missingBundles == null)
             missingBundles = new ArrayList<FeatureResource>();
 
         missingBundles.add(fr);
     }
 
-    public void addMissingFeature(String bundleKey) {
+    public synchronized void addMissingFeature(String bundleKey) {
         if (missingFeatures == null)
             missingFeatures = new ArrayList<String>();
 
         missingFeatures.add(bundleKey);
     }
 
-    public void addBundleToStart(Bundle bundle) {
+    public synchronized void addBundleToStart(Bundle bundle) {
         if (bundlesToStart == null)
             bundlesToStart = new TreeSet<Bundle>(sortByStartLevel);
 
@@ -167,21 +169,21 @@ public class BundleInstallStatus {
         }
     };
 
-    public void addInstallException(String bundleKey, Throwable e) {
+    public synchronized void addInstallException(String bundleKey, Throwable e) {
         if (installExceptions == null)
             installExceptions = new HashMap<String, Throwable>();
 
         installExceptions.put(bundleKey, e);
     }
 
-    public void addOtherException(Throwable t) {
+    public synchronized void addOtherException(Throwable t) {
         if (otherExceptions == null)
             otherExceptions = new ArrayList<Throwable>();
 
         otherExceptions.add(t);
     }
 
-    public void addConflictFeature(String feature) {
+    public synchronized void addConflictFeature(String feature) {
         if (conflictFeatures == null)
             conflictFeatures = new ArrayList<String>();
 
@@ -25,6 +25,8 @@ import com.ibm.websphere.ras.annotation.Trivial;
  * 
  * <p>
  * It is up to the caller to use this information to provide appropriate diagnostics.
+ * <p>
+ * Exceptions may be added concurrently, when bundles are started by more than one thread.
  */
 public class BundleLifecycleStatus {
     private Map<Bundle, Throwable> startExceptions = null;
@@ -49,7 +51,7 @@ public class BundleLifecycleStatus {
         contextIsValid = false;
     }
 
-    public void addStartException(Bundle bundle, Throwable e) {
+    public synchronized void addStartException(Bundle bundle, Throwable e) {
         if (startExceptions == null)
             startExceptions = new HashMap<Bundle, Throwable>();
 
@@ -30,8 +30,17 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
@@ -167,6 +176,15 @@ public class Provisioner {
 
     private final boolean libertyBoot;
 
+    /**
+     * Framework property which sets the number of threads used to install and start
+     * feature bundles. Bundles are installed and started one at a time, on the calling
+     * thread, unless more than one thread is set.
+     */
+    static final String PROVISIONING_THREADS_PROPERTY = "com.ibm.ws.kernel.feature.provisioning.threads";
+
+    private final int provisioningThreads;
+
     public Provisioner(FeatureManager mgr, Set<String> apiPackagesToIgnore) {
         featureManager = mgr;
         kernelRegion = mgr.getDigraph().getRegion(mgr.bundleContext.getBundle());
@@ -185,6 +203,39 @@ public class Provisioner {
         this.dynamicMissRefField = tmpField;
         
         libertyBoot = Boolean.parseBoolean(mgr.bundleContext.getProperty(BootstrapConstants.LIBERTY_BOOT_PROPERTY));
+        provisioningThreads = getProvisioningThreads(mgr.bundleContext.getProperty(PROVISIONING_THREADS_PROPERTY));
+    }
+
+    @FFDCIgnore(NumberFormatException.class)
+    private static int getProvisioningThreads(String value) {
+        if (value == null) {
+            return 1;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                Tr.debug(tc, "Ignoring invalid value of " + PROVISIONING_THREADS_PROPERTY + ": " + value);
+            }
+            return 1;
+        }
+    }
+
+    /**
+     * Create an executor for concurrent provisioning. Threads are daemon threads, so that
+     * a provisioning operation that is abandoned cannot hold up a shutdown.
+     */
+    private static ExecutorService createProvisioningExecutor(int threads, final String operation) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Feature bundle " + operation + " thread-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
     }
 
     /**
@@ -215,7 +266,7 @@ public class Provisioner {
             return;
         final FrameworkWiring fwkWiring = featureManager.bundleContext.getBundle(Constants.SYSTEM_BUNDLE_LOCATION).adapt(FrameworkWiring.class);
         final File bootFile = getBootJar();
-        bundleList.foreach(new BundleList.FeatureResourceHandler() {
+        final BundleList.FeatureResourceHandler installer = new BundleList.FeatureResourceHandler() {
             @Override
             @FFDCIgnore({ IllegalStateException.class, Exception.class })
             public boolean handle(FeatureResource fr) {
@@ -335,8 +386,12 @@ public class Provisioner {
                 Bundle bundle = fetchInstalledBundle(urlString, productName);
                 if (bundle == null) {
                     ContentBasedLocalBundleRepository lbr = bundleRepositoryHolder.getBundleRepository();
-                    // Try to find the file, hopefully using the cached path
-                    File bundleFile = lbr.selectBundle(urlString, fr.getSymbolicName(), fr.getVersionRange());
+                    // Try to find the file, hopefully using the cached path.
+                    // The repository is not thread safe, and bundles may be installed concurrently.
+                    File bundleFile;
+                    synchronized (lbr) {
+                        bundleFile = lbr.selectBundle(urlString, fr.getSymbolicName(), fr.getVersionRange());
+                    }
 
                     if (bundleFile == null) {
                         if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
@@ -380,7 +435,58 @@ public class Provisioner {
 
                 return b;
             }
-        });
+        };
+
+        if (provisioningThreads > 1) {
+            final List<FeatureResource> resources = new ArrayList<FeatureResource>();
+            bundleList.foreach(new BundleList.FeatureResourceHandler() {
+                @Override
+                public boolean handle(FeatureResource fr) {
+                    resources.add(fr);
+                    return true;
+                }
+            });
+            installConcurrently(resources, installer, installStatus, provisioningThreads);
+        } else {
+            bundleList.foreach(installer);
+        }
+    }
+
+    /**
+     * Install the bundles of a bundle list concurrently. The results of each install
+     * are added to the install status, the same as for a serial install. After the
+     * framework stops, bundles which are not yet installed are skipped.
+     */
+    static void installConcurrently(List<FeatureResource> resources,
+                                    final BundleList.FeatureResourceHandler installer,
+                                    final BundleInstallStatus installStatus,
+                                    int threads) {
+        ExecutorService executor = createProvisioningExecutor(threads, "install");
+        try {
+            List<Future<?>> installs = new ArrayList<Future<?>>(resources.size());
+            for (final FeatureResource fr : resources) {
+                installs.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (installStatus.contextIsValid()) {
+                            installer.handle(fr);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> install : installs) {
+                try {
+                    install.get();
+                } catch (ExecutionException e) {
+                    installStatus.addOtherException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            installStatus.addOtherException(e);
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     private File getBootJar() {
@@ -461,33 +567,185 @@ public class Provisioner {
      *         starting bundles
      * @see BundleLifecycleStatus
      */
-    @FFDCIgnore(BundleException.class)
     public BundleLifecycleStatus preStartBundles(List<Bundle> installedBundles) {
         BundleLifecycleStatus startStatus = new BundleLifecycleStatus();
 
         if (installedBundles == null || installedBundles.size() == 0)
             return startStatus;
 
-        for (Bundle b : installedBundles) {
+        startBundles(installedBundles, startStatus, provisioningThreads);
+        return startStatus;
+    }
+
+    /**
+     * Start bundles in list order on the calling thread, or concurrently if more than
+     * one thread is used.
+     */
+    static void startBundles(List<Bundle> bundles, BundleLifecycleStatus startStatus, int threads) {
+        if (threads > 1) {
+            startConcurrently(bundles, startStatus, threads);
+            return;
+        }
+
+        for (Bundle b : bundles) {
             // Skip any null bundles in the list
             if (b == null)
                 continue;
 
-            int state = b.getState();
+            startBundle(b, startStatus);
+        }
+    }
+
+    @FFDCIgnore(BundleException.class)
+    private static void startBundle(Bundle b, BundleLifecycleStatus startStatus) {
+        int state = b.getState();
 
-            // Only start bundles that are in certain states (not UNINSTALLED, or already STARTING)
-            if (state == Bundle.UNINSTALLED || state >= org.osgi.framework.Bundle.STARTING)
+        // Only start bundles that are in certain states (not UNINSTALLED, or already STARTING)
+        if (state == Bundle.UNINSTALLED || state >= org.osgi.framework.Bundle.STARTING)
+            return;
+
+        try {
+            b.start(Bundle.START_ACTIVATION_POLICY);
+        } catch (BundleException e) {
+            // No FFDC, these are handled later.
+            startStatus.addStartException(b, e);
+        }
+    }
+
+    /**
+     * Start bundles concurrently. Start levels are started in order. Within a start
+     * level, a bundle is started once the bundles of the same start level that it is
+     * wired to have been started; bundles which do not depend on each other are started
+     * at the same time. Bundles which depend on each other in a cycle are started one at
+     * a time, in list order.
+     */
+    private static void startConcurrently(List<Bundle> bundles, final BundleLifecycleStatus startStatus, int threads) {
+        Map<Integer, List<Bundle>> bundlesByLevel = new TreeMap<Integer, List<Bundle>>();
+        for (Bundle b : bundles) {
+            // Skip any null bundles in the list
+            if (b == null || b.getState() == Bundle.UNINSTALLED)
                 continue;
 
+            Integer level = b.adapt(BundleStartLevel.class).getStartLevel();
+            List<Bundle> levelBundles = bundlesByLevel.get(level);
+            if (levelBundles == null) {
+                levelBundles = new ArrayList<Bundle>();
+                bundlesByLevel.put(level, levelBundles);
+            }
+            levelBundles.add(b);
+        }
+
+        ExecutorService executor = createProvisioningExecutor(threads, "start");
+        try {
+            for (List<Bundle> levelBundles : bundlesByLevel.values()) {
+                startLevelConcurrently(levelBundles, executor, startStatus);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            startStatus.markContextInvalid();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static void startLevelConcurrently(List<Bundle> levelBundles, ExecutorService executor,
+                                       final BundleLifecycleStatus startStatus) throws InterruptedException {
+        // For each bundle, the number of bundles it waits for, and the bundles that wait for it.
+        Map<Bundle, Integer> waitCounts = new HashMap<Bundle, Integer>();
+        Map<Bundle, List<Bundle>> waiters = new HashMap<Bundle, List<Bundle>>();
+        for (Bundle b : levelBundles) {
+            waitCounts.put(b, 0);
+        }
+        for (Bundle b : levelBundles) {
+            for (Bundle provider : getProviders(b)) {
+                if (provider != b && waitCounts.containsKey(provider)) {
+                    List<Bundle> providerWaiters = waiters.get(provider);
+                    if (providerWaiters == null) {
+                        providerWaiters = new ArrayList<Bundle>();
+                        waiters.put(provider, providerWaiters);
+                    }
+                    providerWaiters.add(b);
+                    waitCounts.put(b, waitCounts.get(b) + 1);
+                }
+            }
+        }
+
+        CompletionService<Bundle> starts = new ExecutorCompletionService<Bundle>(executor);
+        Set<Bundle> submitted = new HashSet<Bundle>();
+        int running = 0;
+        for (Bundle b : levelBundles) {
+            if (waitCounts.get(b) == 0) {
+                submitStart(starts, b, startStatus);
+                submitted.add(b);
+                running++;
+            }
+        }
+
+        while (true) {
+            if (running == 0) {
+                if (submitted.size() == waitCounts.size()) {
+                    break;
+                }
+                // The remaining bundles wait for each other: start the first of them.
+                for (Bundle b : levelBundles) {
+                    if (submitted.add(b)) {
+                        submitStart(starts, b, startStatus);
+                        running++;
+                        break;
+                    }
+                }
+            }
+
+            Bundle started;
             try {
-                b.start(Bundle.START_ACTIVATION_POLICY);
-            } catch (BundleException e) {
-                // No FFDC, these are handled later.
-                startStatus.addStartException(b, e);
+                started = starts.take().get();
+            } catch (ExecutionException e) {
+                // Only unchecked exceptions escape a start, for example when the framework stops.
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw (Error) cause;
+            }
+            running--;
+
+            List<Bundle> startedWaiters = waiters.get(started);
+            if (startedWaiters != null) {
+                for (Bundle waiter : startedWaiters) {
+                    int waitCount = waitCounts.get(waiter) - 1;
+                    waitCounts.put(waiter, waitCount);
+                    if (waitCount == 0 && submitted.add(waiter)) {
+                        submitStart(starts, waiter, startStatus);
+                        running++;
+                    }
+                }
             }
         }
+    }
 
-        return startStatus;
+    private static void submitStart(CompletionService<Bundle> starts, final Bundle b, final BundleLifecycleStatus startStatus) {
+        starts.submit(new Callable<Bundle>() {
+            @Override
+            public Bundle call() {
+                startBundle(b, startStatus);
+                return b;
+            }
+        });
+    }
+
+    /**
+     * @return the bundles which provide the capabilities a bundle is wired to, or an empty list if the bundle is not resolved
+     */
+    private static List<Bundle> getProviders(Bundle b) {
+        BundleWiring wiring = b.adapt(BundleWiring.class);
+        if (wiring == null) {
+            return Collections.emptyList();
+        }
+        List<Bundle> providers = new ArrayList<Bundle>();
+        for (BundleWire wire : wiring.getRequiredWires(null)) {
+            providers.add(wire.getProvider().getBundle());
+        }
+        return providers;
     }
 
     /**
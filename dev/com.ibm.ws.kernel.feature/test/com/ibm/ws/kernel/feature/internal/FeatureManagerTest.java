@@ -255,6 +255,8 @@ public class FeatureManagerTest {
 
                     allowing(mockBundleContext).getProperty("wlp.liberty.boot");
                     will(returnValue(null));
+                    allowing(mockBundleContext).getProperty("com.ibm.ws.kernel.feature.provisioning.threads");
+                    will(returnValue(null));
                 }
             });
             fm.activate(mockComponentContext, new HashMap<String, Object>());
@@ -0,0 +1,374 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.kernel.feature.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.startlevel.BundleStartLevel;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+
+import test.common.SharedOutputManager;
+
+import com.ibm.ws.kernel.feature.provisioning.FeatureResource;
+
+/**
+ * Tests for the concurrent install and start of feature bundles by the Provisioner.
+ * The bundles are simple fakes: jmock expectations are not thread safe.
+ */
+public class ProvisionerConcurrencyTest {
+    @Rule
+    public final SharedOutputManager outputMgr = SharedOutputManager.getInstance();
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    /** The names of the started bundles, in start order. */
+    private final List<String> started = Collections.synchronizedList(new ArrayList<String>());
+
+    /** The number of bundle starts in progress, and the most that were in progress at once. */
+    private final AtomicInteger starting = new AtomicInteger();
+    private final AtomicInteger maxStarting = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A fake bundle, which records when it is started and is wired to its providers.
+     */
+    private class FakeBundle implements InvocationHandler {
+        final String name;
+        final Bundle bundle;
+        final List<Bundle> providers = new ArrayList<Bundle>();
+        int state = Bundle.RESOLVED;
+        int startLevel = 1;
+        CountDownLatch awaitOnStart;
+        CountDownLatch countDownOnStart;
+        BundleException startFailure;
+        volatile Thread startThread;
+        volatile boolean awaitTimedOut;
+
+        FakeBundle(String name) {
+            this.name = name;
+            this.bundle = (Bundle) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Bundle.class }, this);
+        }
+
+        FakeBundle wiredTo(FakeBundle... bundles) {
+            for (FakeBundle b : bundles) {
+                providers.add(b.bundle);
+            }
+            return this;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if ("getState".equals(methodName)) {
+                return state;
+            } else if ("start".equals(methodName)) {
+                start();
+                return null;
+            } else if ("adapt".equals(methodName)) {
+                if (args[0] == BundleWiring.class) {
+                    return fake(BundleWiring.class, name + " wiring", requiredWires());
+                } else if (args[0] == BundleStartLevel.class) {
+                    return fake(BundleStartLevel.class, name + " start level", startLevel);
+                }
+                return null;
+            } else if ("getSymbolicName".equals(methodName) || "toString".equals(methodName)) {
+                return name;
+            } else if ("hashCode".equals(methodName)) {
+                return System.identityHashCode(proxy);
+            } else if ("equals".equals(methodName)) {
+                return proxy == args[0];
+            }
+            throw new UnsupportedOperationException(methodName);
+        }
+
+        private List<BundleWire> requiredWires() {
+            List<BundleWire> wires = new ArrayList<BundleWire>();
+            for (Bundle provider : providers) {
+                BundleRevision revision = fake(BundleRevision.class, provider + " revision", provider);
+                wires.add(fake(BundleWire.class, name + " wire to " + provider, revision));
+            }
+            return wires;
+        }
+
+        private void start() throws Exception {
+            int now = starting.incrementAndGet();
+            int max;
+            while (now > (max = maxStarting.get()) && !maxStarting.compareAndSet(max, now)) {
+                // retry
+            }
+            try {
+                startThread = Thread.currentThread();
+                if (awaitOnStart != null && !awaitOnStart.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    awaitTimedOut = true;
+                }
+                if (startFailure != null) {
+                    throw startFailure;
+                }
+                state = Bundle.ACTIVE;
+                started.add(name);
+                if (countDownOnStart != null) {
+                    countDownOnStart.countDown();
+                }
+            } finally {
+                starting.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Create a fake whose methods, other than the methods of Object, all return the same value.
+     */
+    private static <T> T fake(Class<T> type, final String name, final Object result) {
+        return type.cast(Proxy.newProxyInstance(ProvisionerConcurrencyTest.class.getClassLoader(), new Class<?>[] { type }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("toString".equals(method.getName())) {
+                    return name;
+                } else if ("hashCode".equals(method.getName())) {
+                    return System.identityHashCode(proxy);
+                } else if ("equals".equals(method.getName())) {
+                    return proxy == args[0];
+                }
+                return result;
+            }
+        }));
+    }
+
+    private static List<Bundle> bundles(FakeBundle... fakes) {
+        List<Bundle> bundles = new ArrayList<Bundle>();
+        for (FakeBundle fake : fakes) {
+            bundles.add(fake == null ? null : fake.bundle);
+        }
+        return bundles;
+    }
+
+    private void assertStartedBefore(String first, String second) {
+        assertTrue(started.toString(), started.indexOf(first) >= 0);
+        assertTrue(started.toString(), started.indexOf(first) < started.indexOf(second));
+    }
+
+    /**
+     * A bundle starts after the bundles it is wired to, while a bundle that does not
+     * depend on them starts at the same time.
+     */
+    @Test
+    public void testStartLevelDependencyOrder() throws Exception {
+        FakeBundle a = new FakeBundle("a");
+        FakeBundle b = new FakeBundle("b").wiredTo(a);
+        FakeBundle c = new FakeBundle("c").wiredTo(b, a);
+        FakeBundle d = new FakeBundle("d");
+        FakeBundle e = new FakeBundle("e").wiredTo(new FakeBundle("other level"));
+
+        // a cannot finish starting until d has started
+        a.awaitOnStart = d.countDownOnStart = new CountDownLatch(1);
+
+        BundleLifecycleStatus status = new BundleLifecycleStatus();
+        Provisioner.startLevelConcurrently(bundles(c, b, a, d, e), executor, status);
+
+        assertEquals(started.toString(), 5, started.size());
+        assertFalse("a started before d, so they did not start at the same time", a.awaitTimedOut);
+        assertStartedBefore("a", "b");
+        assertStartedBefore("b", "c");
+        assertStartedBefore("d", "a");
+        assertFalse(status.startExceptions());
+    }
+
+    /**
+     * Bundles which depend on each other in a cycle start one at a time, in list order,
+     * and the bundles which depend on the cycle start after it.
+     */
+    @Test
+    public void testStartLevelCycleFallback() throws Exception {
+        FakeBundle a = new FakeBundle("a");
+        FakeBundle b = new FakeBundle("b");
+        FakeBundle c = new FakeBundle("c");
+        a.wiredTo(c);
+        b.wiredTo(a);
+        c.wiredTo(b);
+        FakeBundle d = new FakeBundle("d").wiredTo(a);
+
+        BundleLifecycleStatus status = new BundleLifecycleStatus();
+        Provisioner.startLevelConcurrently(bundles(b, a, c, d), executor, status);
+
+        // b is first in the list; the others are started as the bundles they wait for start
+        assertEquals(Arrays.asList("b", "c", "a", "d"), started);
+        assertEquals(1, maxStarting.get());
+        assertFalse(status.startExceptions());
+    }
+
+    /**
+     * A bundle which fails to start is recorded, and the bundles which depend on it
+     * are still started.
+     */
+    @Test
+    public void testStartLevelFailure() throws Exception {
+        FakeBundle a = new FakeBundle("a");
+        FakeBundle b = new FakeBundle("b").wiredTo(a);
+        BundleException failure = new BundleException("expected");
+        a.startFailure = failure;
+
+        BundleLifecycleStatus status = new BundleLifecycleStatus();
+        Provisioner.startLevelConcurrently(bundles(a, b), executor, status);
+
+        assertEquals(Arrays.asList("b"), started);
+        assertTrue(status.startExceptions());
+        assertSame(failure, status.getStartExceptions().get(a.bundle));
+    }
+
+    /**
+     * Start levels are started in order, and only bundles which are not started yet are started.
+     */
+    @Test
+    public void testStartBundlesByLevel() throws Exception {
+        FakeBundle a = new FakeBundle("a");
+        a.startLevel = 3;
+        FakeBundle b = new FakeBundle("b");
+        b.startLevel = 2;
+        FakeBundle c = new FakeBundle("c").wiredTo(a);
+        c.startLevel = 2;
+        FakeBundle active = new FakeBundle("active");
+        active.state = Bundle.ACTIVE;
+        FakeBundle uninstalled = new FakeBundle("uninstalled");
+        uninstalled.state = Bundle.UNINSTALLED;
+
+        BundleLifecycleStatus status = new BundleLifecycleStatus();
+        Provisioner.startBundles(bundles(a, null, b, active, c, uninstalled), status, 4);
+
+        assertEquals(3, started.size());
+        assertStartedBefore("b", "a");
+        assertStartedBefore("c", "a");
+        assertFalse(status.startExceptions());
+    }
+
+    /**
+     * With one thread, bundles are started on the calling thread in list order,
+     * without looking at how they are wired.
+     */
+    @Test
+    public void testSingleThreadStartsSerially() throws Exception {
+        FakeBundle a = new FakeBundle("a");
+        FakeBundle b = new FakeBundle("b").wiredTo(a);
+        FakeBundle c = new FakeBundle("c");
+        c.startLevel = 0;
+        FakeBundle active = new FakeBundle("active");
+        active.state = Bundle.ACTIVE;
+
+        BundleLifecycleStatus status = new BundleLifecycleStatus();
+        Provisioner.startBundles(bundles(b, null, a, active, c), status, 1);
+
+        assertEquals(Arrays.asList("b", "a", "c"), started);
+        for (FakeBundle fake : Arrays.asList(a, b, c)) {
+            assertSame(Thread.currentThread(), fake.startThread);
+        }
+        assertEquals(1, maxStarting.get());
+    }
+
+    /**
+     * Feature resources are installed on several threads, and each is installed once.
+     */
+    @Test
+    public void testInstallConcurrently() throws Exception {
+        List<FeatureResource> resources = new ArrayList<FeatureResource>();
+        for (int i = 0; i < 20; i++) {
+            resources.add(fake(FeatureResource.class, "resource" + i, null));
+        }
+
+        // The first two installs can only complete when they run at the same time.
+        final CountDownLatch together = new CountDownLatch(2);
+        final AtomicInteger timeouts = new AtomicInteger();
+        final List<FeatureResource> installed = Collections.synchronizedList(new ArrayList<FeatureResource>());
+        BundleList.FeatureResourceHandler installer = new BundleList.FeatureResourceHandler() {
+            @Override
+            public boolean handle(FeatureResource fr) {
+                together.countDown();
+                try {
+                    if (!together.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                        timeouts.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                installed.add(fr);
+                return true;
+            }
+        };
+
+        BundleInstallStatus status = new BundleInstallStatus();
+        Provisioner.installConcurrently(resources, installer, status, 2);
+
+        assertEquals(0, timeouts.get());
+        assertEquals(resources.size(), installed.size());
+        assertTrue(installed.containsAll(resources));
+        assertFalse(status.otherExceptions());
+    }
+
+    /**
+     * An unexpected install failure is recorded, and nothing is installed once the framework stops.
+     */
+    @Test
+    public void testInstallConcurrentlyFailures() throws Exception {
+        final RuntimeException failure = new IllegalArgumentException("expected");
+        final AtomicInteger installs = new AtomicInteger();
+        BundleList.FeatureResourceHandler installer = new BundleList.FeatureResourceHandler() {
+            @Override
+            public boolean handle(FeatureResource fr) {
+                installs.incrementAndGet();
+                throw failure;
+            }
+        };
+
+        BundleInstallStatus status = new BundleInstallStatus();
+        Provisioner.installConcurrently(Collections.singletonList(fake(FeatureResource.class, "failing", null)), installer, status, 2);
+        assertEquals(1, installs.get());
+        assertEquals(Collections.singletonList(failure), status.getOtherExceptions());
+
+        status = new BundleInstallStatus();
+        status.markContextInvalid(new IllegalStateException("expected"));
+        Provisioner.installConcurrently(Collections.singletonList(fake(FeatureResource.class, "skipped", null)), installer, status, 2);
+        assertEquals(1, installs.get());
+        assertFalse(status.otherExceptions());
+    }
+}
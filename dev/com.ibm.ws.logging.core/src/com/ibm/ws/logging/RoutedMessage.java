@@ -28,7 +28,7 @@ public interface RoutedMessage {
     public String getFormattedVerboseMsg();
 
     /**
-     * 
+     * @return the record as written to messages.log, which is JSON when messages.log is configured for JSON.
      */
     public String getMessageLogFormat();
 
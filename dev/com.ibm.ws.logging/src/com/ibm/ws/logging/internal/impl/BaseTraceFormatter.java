@@ -406,6 +406,61 @@ public class BaseTraceFormatter extends Formatter {
         return sb.toString();
     }
 
+    /**
+     * The JSON form of {@link #messageLogFormat}, used when messages.log is
+     * configured for JSON output.
+     *
+     * @param logRecord
+     * @param formattedVerboseMsg the result of {@link #formatVerboseMessage}
+     * @return messages.log record as a single line of JSON
+     */
+    public String messageLogJsonFormat(LogRecord logRecord, String formattedVerboseMsg) {
+        JsonLogEncoder json = JsonLogEncoder.getInstance().start(JsonLogEncoder.MESSAGE_TYPE);
+        json.dateField(JsonLogEncoder.DATETIME, logRecord.getMillis());
+        json.field(JsonLogEncoder.THREAD_ID, DataFormatHelper.getThreadId());
+        json.field(JsonLogEncoder.MODULE, nonNullString(logRecord.getLoggerName(), logRecord.getSourceClassName()));
+        json.field(JsonLogEncoder.LOGLEVEL, logRecord.getLevel().getName());
+        int idLength = JsonLogEncoder.messageIdLength(formattedVerboseMsg);
+        if (idLength > 0) {
+            json.field(JsonLogEncoder.MESSAGE_ID, formattedVerboseMsg, 0, idLength);
+        }
+        json.field(JsonLogEncoder.MESSAGE, formattedVerboseMsg);
+        addJsonThrowable(json, logRecord);
+        return json.end();
+    }
+
+    /**
+     * The JSON trace format: one JSON object per line
+     */
+    private String createJsonString(LogRecord logRecord, Object id, String txt) {
+        WsLogRecord wsLogRecord = getWsLogRecord(logRecord);
+
+        JsonLogEncoder json = JsonLogEncoder.getInstance().start(JsonLogEncoder.TRACE_TYPE);
+        json.dateField(JsonLogEncoder.DATETIME, logRecord.getMillis());
+        json.field(JsonLogEncoder.THREAD_ID, DataFormatHelper.getThreadId());
+        json.field(JsonLogEncoder.MODULE, logRecord.getLoggerName());
+        json.field(JsonLogEncoder.LOGLEVEL, logRecord.getLevel().getName());
+        json.field(JsonLogEncoder.CLASS_NAME, logRecord.getSourceClassName());
+        json.field(JsonLogEncoder.METHOD_NAME, logRecord.getSourceMethodName());
+        if (id != null) {
+            json.field(JsonLogEncoder.OBJECT_ID, generateObjectId(id, false));
+        }
+        if (wsLogRecord != null) {
+            json.field(JsonLogEncoder.CORRELATION_ID, wsLogRecord.getCorrelationId());
+        }
+        json.field(JsonLogEncoder.MESSAGE, txt);
+        addJsonThrowable(json, logRecord);
+        return json.end();
+    }
+
+    private void addJsonThrowable(JsonLogEncoder json, LogRecord logRecord) {
+        Throwable t = logRecord.getThrown();
+        if (t != null) {
+            json.field(JsonLogEncoder.EXCEPTION_NAME, t.getClass().getName());
+            json.field(JsonLogEncoder.STACK_TRACE, DataFormatHelper.throwableToString(t));
+        }
+    }
+
     /**
      * Format the given record into the desired trace format
      *
@@ -418,6 +473,9 @@ public class BaseTraceFormatter extends Formatter {
      * @return String
      */
     private String createFormattedString(LogRecord logRecord, Object id, String txt) {
+        if (traceFormat == TraceFormat.JSON) {
+            return createJsonString(logRecord, id, txt);
+        }
 
         String objId;
         WsLogRecord wsLogRecord = getWsLogRecord(logRecord);
@@ -619,6 +677,9 @@ public class BaseTraceFormatter extends Formatter {
             nlPad = nlAdvancedPadding;
         } else if (TraceFormat.BASIC.equals(traceFormat)) {
             nlPad = nlBasicPadding;
+        } else if (TraceFormat.JSON.equals(traceFormat)) {
+            // the message is a single escaped JSON string, padding would only add noise
+            nlPad = LoggingConstants.nl;
         } else {
             nlPad = nlEnhancedPadding;
         }
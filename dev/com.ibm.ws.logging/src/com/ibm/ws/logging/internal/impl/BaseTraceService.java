@@ -34,6 +34,8 @@ import com.ibm.ws.logging.WsTraceRouter;
 import com.ibm.ws.logging.internal.PackageProcessor;
 import com.ibm.ws.logging.internal.TraceSpecification;
 import com.ibm.ws.logging.internal.WsLogRecord;
+import com.ibm.ws.logging.internal.impl.LoggingConstants.MessageLogFormat;
+import com.ibm.ws.logging.internal.impl.LoggingConstants.TraceFormat;
 import com.ibm.wsspi.logging.LogHandler;
 import com.ibm.wsspi.logging.MessageRouter;
 import com.ibm.wsspi.logprovider.LogProviderConfig;
@@ -145,6 +147,9 @@ public class BaseTraceService implements TrService {
     /** If true, format the date and time format for log entries in messages.log, trace.log, and FFDC files in ISO-8601 format. */
     protected volatile boolean isoDateFormat = false;
 
+    /** True if messages.log is written as JSON rather than text */
+    protected volatile boolean jsonMessages = false;
+
     /** Writer sending messages to the messages.log file */
     protected volatile TraceWriter messagesLog = null;
 
@@ -258,6 +263,8 @@ public class BaseTraceService implements TrService {
             formatter = new BaseTraceFormatter(trConfig.getTraceFormat());
         }
 
+        jsonMessages = trConfig.getMessageFormat() == MessageLogFormat.JSON;
+
         //Gets the configured boolean value to determine if the date and time should be in ISO-8601 format
         isoDateFormat = trConfig.getIsoDateFormat();
         if (isoDateFormat != BaseTraceFormatter.useIsoDateFormat) {
@@ -434,8 +441,8 @@ public class BaseTraceService implements TrService {
     public void echo(SystemLogHolder holder, LogRecord logRecord) {
         TraceWriter detailLog = traceLog;
 
-        // Tee to messages.log (always)
-        String message = formatter.messageLogFormat(logRecord, logRecord.getMessage());
+        // Tee to messages.log (always), formatting the record only in the configured format
+        String message = jsonMessages ? formatter.messageLogJsonFormat(logRecord, logRecord.getMessage()) : formatter.messageLogFormat(logRecord, logRecord.getMessage());
         messagesLog.writeRecord(message);
         invokeMessageRouters(new RoutedMessageImpl(logRecord.getMessage(), logRecord.getMessage(), message, logRecord));
 
@@ -551,7 +558,8 @@ public class BaseTraceService implements TrService {
 
             formattedMsg = formatter.formatMessage(logRecord);
             formattedVerboseMsg = formatter.formatVerboseMessage(logRecord, formattedMsg);
-            String messageLogFormat = formatter.messageLogFormat(logRecord, formattedVerboseMsg);
+            // Only the configured format of messages.log is built; routers receive the same record.
+            String messageLogFormat = jsonMessages ? formatter.messageLogJsonFormat(logRecord, formattedVerboseMsg) : formatter.messageLogFormat(logRecord, formattedVerboseMsg);
 
             // Look for external log handlers. They may suppress "normal" log
             // processing, which would prevent it from showing up in other logs.
@@ -741,7 +749,8 @@ public class BaseTraceService implements TrService {
     }
 
     private FileLogHeader newFileLogHeader(boolean trace) {
-        return new FileLogHeader(logHeader, trace, javaLangInstrument);
+        boolean json = trace ? formatter.getTraceFormat() == TraceFormat.JSON : jsonMessages;
+        return new FileLogHeader(logHeader, trace, javaLangInstrument, json);
     }
 
     public final static class SystemLogHolder extends Level implements TraceWriter {
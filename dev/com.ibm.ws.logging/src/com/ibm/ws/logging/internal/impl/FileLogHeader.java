@@ -18,14 +18,29 @@ public class FileLogHeader {
     private final String header;
     private final boolean javaLangInstrument;
     private final boolean trace;
+    private final boolean json;
 
     public FileLogHeader(String header, boolean trace, boolean javaLangInstrument) {
+        this(header, trace, javaLangInstrument, false);
+    }
+
+    /**
+     * @param json true if the log is written as JSON, in which case the header is written
+     *            as a single JSON record rather than as a text banner
+     */
+    public FileLogHeader(String header, boolean trace, boolean javaLangInstrument, boolean json) {
         this.header = header;
         this.trace = trace;
         this.javaLangInstrument = javaLangInstrument;
+        this.json = json;
     }
 
     public void print(PrintStream ps) {
+        if (json) {
+            printJson(ps);
+            return;
+        }
+
         ps.println(BaseTraceFormatter.banner);
 
         ps.print(header);
@@ -40,4 +55,25 @@ public class FileLogHeader {
 
         ps.println(BaseTraceFormatter.banner);
     }
+
+    private void printJson(PrintStream ps) {
+        StringBuilder sb = new StringBuilder(header);
+        if (trace) {
+            sb.append("trace.specification = ").append(TrConfigurator.getEffectiveTraceSpec()).append(LoggingConstants.nl);
+
+            if (!javaLangInstrument) {
+                sb.append("java.lang.instrument = ").append(javaLangInstrument).append(LoggingConstants.nl);
+            }
+        }
+        // the record is a single line, so drop the trailing line separator rather than escape it
+        int end = sb.length();
+        while (end > 0 && (sb.charAt(end - 1) == '\n' || sb.charAt(end - 1) == '\r')) {
+            end--;
+        }
+
+        JsonLogEncoder encoder = JsonLogEncoder.getInstance().start(JsonLogEncoder.HEADER_TYPE);
+        encoder.dateField(JsonLogEncoder.DATETIME, System.currentTimeMillis());
+        encoder.field(JsonLogEncoder.MESSAGE, sb.toString(), 0, end);
+        ps.println(encoder.end());
+    }
 }
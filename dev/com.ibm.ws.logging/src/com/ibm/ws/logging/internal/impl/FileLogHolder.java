@@ -58,7 +58,7 @@ public class FileLogHolder implements TraceWriter {
      * The header written at the beginning of all log files, or null to write
      * nothing.
      */
-    private final FileLogHeader logHeader;
+    private volatile FileLogHeader logHeader;
 
     protected final FileLogSet fileLogSet = new FileLogSet(true);
 
@@ -123,6 +123,8 @@ public class FileLogHolder implements TraceWriter {
         // maxFiles or maxBytes
         if (oldLog != null && oldLog instanceof FileLogHolder) {
             logHolder = (FileLogHolder) oldLog;
+            // the header may have changed (e.g. to JSON), it is used the next time a file is created
+            logHolder.logHeader = logHeader;
             logHolder.update(logDirectory, fileName, fileExtension, maxFiles, maxSizeBytes);
         } else {
             if (oldLog != null) {
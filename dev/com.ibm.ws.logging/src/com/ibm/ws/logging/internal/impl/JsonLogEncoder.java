@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.logging.internal.impl;
+
+/**
+ * Writes a log record as a single line JSON object.
+ * <p>
+ * Field names are encoded once, up front, and each thread reuses its own
+ * encoder and buffer: values are escaped straight into the buffer, so the only
+ * allocation for a record is the String handed to the log writer.
+ */
+public class JsonLogEncoder {
+
+    public static final String MESSAGE_TYPE = "liberty_message";
+    public static final String TRACE_TYPE = "liberty_trace";
+    public static final String HEADER_TYPE = "liberty_header";
+
+    static final char[] DATETIME = name("ibm_datetime");
+    static final char[] THREAD_ID = name("ibm_threadId");
+    static final char[] MODULE = name("module");
+    static final char[] LOGLEVEL = name("loglevel");
+    static final char[] CLASS_NAME = name("ibm_className");
+    static final char[] METHOD_NAME = name("ibm_methodName");
+    static final char[] OBJECT_ID = name("ibm_objectId");
+    static final char[] CORRELATION_ID = name("ibm_correlationId");
+    static final char[] MESSAGE_ID = name("ibm_messageId");
+    static final char[] MESSAGE = name("message");
+    static final char[] EXCEPTION_NAME = name("ibm_exceptionName");
+    static final char[] STACK_TRACE = name("ibm_stackTrace");
+
+    private static final char[] TYPE = "{\"type\":".toCharArray();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** Buffers that grew past this while formatting a huge record are not kept */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<JsonLogEncoder> encoders = new ThreadLocal<JsonLogEncoder>() {
+        @Override
+        protected JsonLogEncoder initialValue() {
+            return new JsonLogEncoder();
+        }
+    };
+
+    private StringBuilder sb = new StringBuilder(512);
+
+    private static char[] name(String name) {
+        return (",\"" + name + "\":").toCharArray();
+    }
+
+    /**
+     * @return the encoder for the calling thread
+     */
+    public static JsonLogEncoder getInstance() {
+        return encoders.get();
+    }
+
+    /**
+     * Begin a new record, discarding anything left from the previous one.
+     *
+     * @param type the value of the record's type field
+     * @return this encoder
+     */
+    public JsonLogEncoder start(String type) {
+        sb.setLength(0);
+        sb.append(TYPE);
+        appendString(type, 0, type.length());
+        return this;
+    }
+
+    /**
+     * Add a string field; null values are left out.
+     */
+    public JsonLogEncoder field(char[] name, String value) {
+        if (value != null) {
+            sb.append(name);
+            appendString(value, 0, value.length());
+        }
+        return this;
+    }
+
+    /**
+     * Add a string field whose value is the given range of value.
+     */
+    public JsonLogEncoder field(char[] name, String value, int start, int end) {
+        sb.append(name);
+        appendString(value, start, end);
+        return this;
+    }
+
+    /**
+     * Add a timestamp field, in ISO-8601 UTC form with milliseconds.
+     */
+    public JsonLogEncoder dateField(char[] name, long millis) {
+        sb.append(name).append('"');
+        long days = millis / 86400000L;
+        long msOfDay = millis % 86400000L;
+        if (msOfDay < 0) {
+            days--;
+            msOfDay += 86400000L;
+        }
+
+        // civil date from days since the epoch (proleptic Gregorian calendar)
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        int ms = (int) msOfDay;
+        appendDigits((int) year, 4).append('-');
+        appendDigits(month, 2).append('-');
+        appendDigits(day, 2).append('T');
+        appendDigits(ms / 3600000, 2).append(':');
+        appendDigits((ms / 60000) % 60, 2).append(':');
+        appendDigits((ms / 1000) % 60, 2).append('.');
+        appendDigits(ms % 1000, 3).append("Z\"");
+        return this;
+    }
+
+    /**
+     * Finish the record.
+     *
+     * @return the record as a single line of JSON
+     */
+    public String end() {
+        sb.append('}');
+        String s = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            sb = new StringBuilder(512);
+        }
+        return s;
+    }
+
+    private StringBuilder appendDigits(int value, int width) {
+        int divisor = 1;
+        for (int i = 1; i < width; i++) {
+            divisor *= 10;
+        }
+        if (value >= divisor * 10) {
+            // wider than expected (a year past 9999): write it all
+            return sb.append(value);
+        }
+        for (; divisor > 0; divisor /= 10) {
+            sb.append((char) ('0' + (value / divisor) % 10));
+        }
+        return sb;
+    }
+
+    private void appendString(String value, int start, int end) {
+        sb.append('"');
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Find the message id at the start of a formatted message, such as the
+     * CWWKF0011I in "CWWKF0011I: The server is ready".
+     *
+     * @return the length of the id, or 0 if the message does not start with one
+     */
+    static int messageIdLength(String msg) {
+        if (msg == null) {
+            return 0;
+        }
+        int len = Math.min(msg.length(), 16);
+        for (int i = 0; i < len; i++) {
+            char c = msg.charAt(i);
+            if (c == ':') {
+                return (i >= 8 && Character.isLetter(msg.charAt(i - 1))) ? i : 0;
+            }
+            if (!((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+}
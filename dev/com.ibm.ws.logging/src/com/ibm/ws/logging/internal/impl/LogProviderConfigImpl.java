@@ -23,6 +23,7 @@ import com.ibm.websphere.logging.WsLevel;
 import com.ibm.websphere.ras.Tr;
 import com.ibm.websphere.ras.TraceComponent;
 import com.ibm.ws.logging.internal.impl.LoggingConstants.FFDCSummaryPolicy;
+import com.ibm.ws.logging.internal.impl.LoggingConstants.MessageLogFormat;
 import com.ibm.ws.logging.internal.impl.LoggingConstants.TraceFormat;
 import com.ibm.wsspi.logging.TextFileOutputStreamFactory;
 import com.ibm.wsspi.logprovider.FFDCFilterService;
@@ -57,6 +58,9 @@ public class LogProviderConfigImpl implements LogProviderConfig {
     /** Configured trace format: default is enhanced */
     protected volatile TraceFormat traceFormat = TraceFormat.ENHANCED;
 
+    /** Configured messages.log format: default is simple (text) */
+    protected volatile MessageLogFormat messageFormat = MessageLogFormat.SIMPLE;
+
     /** Format the date and time in ISO-8601 format */
     protected volatile boolean isoDateFormat = false;
 
@@ -166,6 +170,7 @@ public class LogProviderConfigImpl implements LogProviderConfig {
 
         traceSpec = InitConfgAttribute.TRACE_SPEC.getStringValue(c, traceSpec, isInit);
         traceFormat = InitConfgAttribute.TRACE_FORMAT.getTraceFormatValue(c, traceFormat, isInit);
+        messageFormat = InitConfgAttribute.MESSAGE_FORMAT.getMessageLogFormatValue(c, messageFormat, isInit);
 
         isoDateFormat = InitConfgAttribute.ISO_DATE_FORMAT.getBooleanValue(c, isoDateFormat, isInit);
 
@@ -233,6 +238,10 @@ public class LogProviderConfigImpl implements LogProviderConfig {
         return traceFormat;
     }
 
+    public MessageLogFormat getMessageFormat() {
+        return messageFormat;
+    }
+
     public boolean getIsoDateFormat() {
         return isoDateFormat;
     }
@@ -322,6 +331,7 @@ public class LogProviderConfigImpl implements LogProviderConfig {
         sb.append(",copySystemStreams=").append(copySystemStreams);
         sb.append(",messageFileName=").append(messageFileName);
         sb.append(",traceFormat=").append(traceFormat);
+        sb.append(",messageFormat=").append(messageFormat);
         sb.append(",isoDateFormat=").append(isoDateFormat);
         sb.append(",traceFileName=").append(traceFileName);
         sb.append("]");
@@ -340,6 +350,7 @@ public class LogProviderConfigImpl implements LogProviderConfig {
         TRACE_FILE_NAME("traceFileName", "com.ibm.ws.logging.trace.file.name"),
         TRACE_SPEC("traceSpecification", "com.ibm.ws.logging.trace.specification"),
         TRACE_FORMAT("traceFormat", "com.ibm.ws.logging.trace.format"),
+        MESSAGE_FORMAT("messageFormat", "com.ibm.ws.logging.message.format"),
         ISO_DATE_FORMAT("isoDateFormat", "com.ibm.ws.logging.isoDateFormat"),
         HIDE_MESSAGES("hideMessage", "com.ibm.ws.logging.hideMessage");
 
@@ -375,6 +386,15 @@ public class LogProviderConfigImpl implements LogProviderConfig {
             return newValue;
         }
 
+        MessageLogFormat getMessageLogFormatValue(Map<String, Object> config, MessageLogFormat defaultValue, boolean isInit) {
+            Object value = config.get(isInit ? propertyKey : configKey);
+            MessageLogFormat newValue = LoggingConfigUtils.getMessageLogFormatValue(value, defaultValue);
+            if (isInit && newValue != defaultValue) {
+                config.put(propertyKey, newValue.name());
+            }
+            return newValue;
+        }
+
         Level getLogLevelValue(Map<String, Object> config, Level defaultValue, boolean isInit) {
             Object value = config.get(isInit ? propertyKey : configKey);
             return LoggingConfigUtils.getLogLevel(value, defaultValue);
@@ -19,6 +19,7 @@ import java.util.logging.Level;
 import com.ibm.websphere.logging.WsLevel;
 import com.ibm.ws.ffdc.annotation.FFDCIgnore;
 import com.ibm.ws.logging.internal.impl.LoggingConstants.FFDCSummaryPolicy;
+import com.ibm.ws.logging.internal.impl.LoggingConstants.MessageLogFormat;
 import com.ibm.ws.logging.internal.impl.LoggingConstants.TraceFormat;
 
 /**
@@ -171,6 +172,25 @@ public class LoggingConfigUtils {
         return defaultValue;
     }
 
+    /**
+     * Convert the property value to a MessageLogFormat type
+     *
+     * @param s
+     *            String value
+     * @return MessageLogFormat, or the default if the value is not recognized
+     */
+    public static MessageLogFormat getMessageLogFormatValue(Object newValue, MessageLogFormat defaultValue) {
+        if (newValue != null && newValue instanceof String) {
+            String strValue = ((String) newValue).toUpperCase();
+            try {
+                return MessageLogFormat.valueOf(strValue);
+            } catch (Exception e) {
+            }
+        }
+
+        return defaultValue;
+    }
+
     public static FFDCSummaryPolicy getFFDCSummaryPolicy(Object newValue, FFDCSummaryPolicy defaultValue) {
         if (newValue != null && newValue instanceof String) {
             String strValue = ((String) newValue).toUpperCase();
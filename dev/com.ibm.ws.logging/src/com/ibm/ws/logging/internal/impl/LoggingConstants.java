@@ -12,7 +12,11 @@ package com.ibm.ws.logging.internal.impl;
 
 public interface LoggingConstants {
     public static enum TraceFormat {
-        BASIC, ENHANCED, ADVANCED;
+        BASIC, ENHANCED, ADVANCED, JSON;
+    }
+
+    public static enum MessageLogFormat {
+        SIMPLE, JSON;
     }
 
     String DEFAULT_LOG_LEVEL = "AUDIT";
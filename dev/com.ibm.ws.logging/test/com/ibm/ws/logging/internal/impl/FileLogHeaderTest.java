@@ -22,17 +22,20 @@ import test.common.junit.matchers.RegexMatcher;
 
 public class FileLogHeaderTest {
     private String printFileLogHeader(boolean trace, boolean javaLangInstrument) {
+        String s = print(new FileLogHeader("header" + LoggingConstants.nl, trace, javaLangInstrument));
+        Assert.assertThat(s, Matchers.containsString("header" + LoggingConstants.nl));
+        return s;
+    }
+
+    private String print(FileLogHeader flh) {
         try {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             PrintStream out = new PrintStream(baos, true, "UTF-8");
 
-            final String header = "header" + LoggingConstants.nl;
-            FileLogHeader flh = new FileLogHeader(header, trace, javaLangInstrument);
             flh.print(out);
             byte[] bytes = baos.toByteArray();
 
             String s = new String(bytes, "UTF-8");
-            Assert.assertThat(s, Matchers.containsString("header" + LoggingConstants.nl));
             Assert.assertThat(s, new RegexMatcher("\n$"));
 
             return s;
@@ -54,4 +57,16 @@ public class FileLogHeaderTest {
         Assert.assertThat(printFileLogHeader(false, true), Matchers.not(Matchers.containsString("java.lang.instrument")));
         Assert.assertThat(printFileLogHeader(true, true), Matchers.not(Matchers.containsString("java.lang.instrument")));
     }
+
+    @Test
+    public void testPrintJson() {
+        String s = print(new FileLogHeader("product = Liberty" + LoggingConstants.nl + "wlp.install.dir = /wlp/" + LoggingConstants.nl, true, false, true));
+        // a single JSON record, with no text banner
+        Assert.assertThat(s, new RegexMatcher("^\\{\"type\":\"liberty_header\",\"ibm_datetime\":\"[^\"]+\",\"message\":\".*\"\\}" + LoggingConstants.nl + "$"));
+        Assert.assertThat(s, Matchers.not(Matchers.containsString(BaseTraceFormatter.banner)));
+        Assert.assertThat(s.trim(), Matchers.not(Matchers.containsString("\n")));
+        Assert.assertThat(s, Matchers.containsString("\"message\":\"product = Liberty"));
+        Assert.assertThat(s, Matchers.containsString("trace.specification = "));
+        Assert.assertThat(s, Matchers.containsString("java.lang.instrument = false\"}"));
+    }
 }
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.logging.internal.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.ibm.websphere.ras.DataFormatHelper;
+import com.ibm.ws.logging.internal.impl.LoggingConstants.TraceFormat;
+
+/**
+ * Unit tests for the JSON log and trace format.
+ */
+public class JsonLogEncoderTest {
+
+    static final BaseTraceFormatter jsonFormatter = new BaseTraceFormatter(TraceFormat.JSON);
+    static final BaseTraceFormatter enhancedFormatter = new BaseTraceFormatter(TraceFormat.ENHANCED);
+
+    private static LogRecord record(Level level, String msg) {
+        LogRecord logRecord = new LogRecord(level, msg);
+        logRecord.setLoggerName("com.ibm.example");
+        logRecord.setSourceClassName("com.ibm.example.Thing");
+        logRecord.setSourceMethodName("doIt");
+        logRecord.setMillis(1234567890123L);
+        return logRecord;
+    }
+
+    @Test
+    public void testEscaping() {
+        String s = JsonLogEncoder.getInstance().start("t").field(JsonLogEncoder.MESSAGE, "a\"b\\c\nd\te\u0001").field(JsonLogEncoder.MODULE, null).end();
+        assertEquals("{\"type\":\"t\",\"message\":\"a\\\"b\\\\c\\nd\\te\\u0001\"}", s);
+    }
+
+    @Test
+    public void testDates() {
+        assertEquals("{\"type\":\"t\",\"ibm_datetime\":\"1970-01-01T00:00:00.000Z\"}",
+                     JsonLogEncoder.getInstance().start("t").dateField(JsonLogEncoder.DATETIME, 0L).end());
+        assertEquals("{\"type\":\"t\",\"ibm_datetime\":\"2009-02-13T23:31:30.123Z\"}",
+                     JsonLogEncoder.getInstance().start("t").dateField(JsonLogEncoder.DATETIME, 1234567890123L).end());
+        assertEquals("{\"type\":\"t\",\"ibm_datetime\":\"2000-02-29T12:00:00.001Z\"}",
+                     JsonLogEncoder.getInstance().start("t").dateField(JsonLogEncoder.DATETIME, 951825600001L).end());
+        assertEquals("{\"type\":\"t\",\"ibm_datetime\":\"1969-12-31T23:59:59.999Z\"}",
+                     JsonLogEncoder.getInstance().start("t").dateField(JsonLogEncoder.DATETIME, -1L).end());
+    }
+
+    @Test
+    public void testMessageId() {
+        assertEquals(10, JsonLogEncoder.messageIdLength("CWWKF0011I: The server is ready"));
+        assertEquals(9, JsonLogEncoder.messageIdLength("SRVE0242I: [app]"));
+        assertEquals(0, JsonLogEncoder.messageIdLength("Hello: world"));
+        assertEquals(0, JsonLogEncoder.messageIdLength("CWWKF0011: no level letter"));
+        assertEquals(0, JsonLogEncoder.messageIdLength("CWWKF0011I"));
+        assertEquals(0, JsonLogEncoder.messageIdLength(null));
+    }
+
+    @Test
+    public void testMessageLogJsonFormat() {
+        String msg = "CWWKF0011I: The server \"defaultServer\" is ready";
+        String s = jsonFormatter.messageLogJsonFormat(record(Level.INFO, msg), msg);
+        assertEquals("{\"type\":\"liberty_message\",\"ibm_datetime\":\"2009-02-13T23:31:30.123Z\",\"ibm_threadId\":\"" + DataFormatHelper.getThreadId()
+                     + "\",\"module\":\"com.ibm.example\",\"loglevel\":\"INFO\",\"ibm_messageId\":\"CWWKF0011I\""
+                     + ",\"message\":\"CWWKF0011I: The server \\\"defaultServer\\\" is ready\"}", s);
+    }
+
+    @Test
+    public void testTraceJsonFormat() {
+        LogRecord logRecord = record(Level.FINE, "line one");
+        logRecord.setThrown(new IllegalStateException("bad"));
+        String s = jsonFormatter.traceLogFormat(logRecord, null, null, "line one" + LoggingConstants.nl + "line two");
+        assertTrue(s, s.startsWith("{\"type\":\"liberty_trace\",\"ibm_datetime\":\"2009-02-13T23:31:30.123Z\","));
+        assertTrue(s, s.contains(",\"module\":\"com.ibm.example\",\"loglevel\":\"FINE\",\"ibm_className\":\"com.ibm.example.Thing\",\"ibm_methodName\":\"doIt\","));
+        assertTrue(s, s.contains(",\"ibm_exceptionName\":\"java.lang.IllegalStateException\",\"ibm_stackTrace\":\"java.lang.IllegalStateException: bad"));
+        assertTrue(s, s.endsWith("\"}"));
+        // one record per line
+        assertFalse(s, s.contains("\n"));
+        assertFalse(s, s.contains("\r"));
+    }
+
+    /**
+     * Compares the cost of formatting a messages.log and a trace.log record as JSON
+     * with the text formats. Run by hand.
+     */
+    @Ignore
+    @Test
+    public void testThroughput() {
+        String msg = "CWWKF0011I: The server defaultServer is ready to run a smarter planet.";
+        LogRecord logRecord = record(Level.INFO, msg);
+        int iterations = 2000000;
+        for (int round = 0; round < 3; round++) {
+            long length = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                length += enhancedFormatter.messageLogFormat(logRecord, msg).length();
+                length += enhancedFormatter.traceLogFormat(logRecord, null, msg, msg).length();
+            }
+            long text = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                length += jsonFormatter.messageLogJsonFormat(logRecord, msg).length();
+                length += jsonFormatter.traceLogFormat(logRecord, null, msg, msg).length();
+            }
+            long json = System.nanoTime() - start;
+
+            System.out.println("text " + (text / iterations) + "ns/record pair, json " + (json / iterations) + "ns/record pair (" + length + ")");
+        }
+    }
+}
@@ -90,6 +90,9 @@ public class CommsConstants
     public final static String RA_HIGH_QUEUE_BYTES_TO_KEY = SIBPF + "RAHighQueueBytesTimeOut";
     public final static String RA_HIGH_QUEUE_BYTES_TO = "2000";
     // End D214620
+    // The read ahead window of consumers of a destination can be set by appending the destination name
+    // to the RAHighQueueBytes property name, for example RAHighQueueBytes.MyQueue. It overrides RAHighQueueBytes.
+    public final static String RA_HIGH_QUEUE_BYTES_DEST_KEY_PREFIX = RA_HIGH_QUEUE_BYTES_KEY + ".";
 
     // These SIB properties allow the modification of the capabilities that we inform our peer
     // about during our initial handshake phase.
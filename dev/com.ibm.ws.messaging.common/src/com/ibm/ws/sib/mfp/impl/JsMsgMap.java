@@ -136,6 +136,18 @@ public class JsMsgMap extends AbstractMap<String,Object> implements FFDCSelfIntr
     return backingMap.entrySet();
   }
 
+  // Look ups are delegated to the backingMap, rather than left to AbstractMap which
+  // would iterate over the entrySet. Selectors and the property getters look up single
+  // items, so this keeps them from visiting every entry of a HashMap and, for a map which
+  // is still a view on the JMF lists, from creating an entry for each item.
+  public Object get(Object key) {
+    return backingMap.get(key);
+  }
+
+  public boolean containsKey(Object key) {
+    return backingMap.containsKey(key);
+  }
+
   // The first update to a map causes us to have to write the whole map out again
   // during encode. Therefore don't do a 'first update' unless necessary.
   // Once we've made one update, others don't matter so save time by not checking.  d317373.1
@@ -193,6 +205,17 @@ public class JsMsgMap extends AbstractMap<String,Object> implements FFDCSelfIntr
       return entries;
     }
 
+    // Find the item by its position in the key list. JMF decodes list items on demand,
+    // so only the keys up to the one found, and the value of that one item, are decoded.
+    public Object get(Object key) {
+      int index = ((List)keyList).indexOf(key);
+      return (index < 0) ? null : ((List)valueList).get(index);
+    }
+
+    public boolean containsKey(Object key) {
+      return ((List)keyList).indexOf(key) >= 0;
+    }
+
     private class ListSet extends AbstractSet<Map.Entry<String,Object>> {
       public int size() {
         return keyList.size();
@@ -43,6 +43,7 @@ import com.ibm.ws.sib.comms.client.proxyqueue.AsynchConsumerProxyQueue;
 import com.ibm.ws.sib.comms.client.proxyqueue.BrowserProxyQueue;
 import com.ibm.ws.sib.comms.client.proxyqueue.ProxyQueueConversationGroup;
 import com.ibm.ws.sib.comms.client.proxyqueue.ProxyQueueConversationGroupFactory;
+import com.ibm.ws.sib.comms.client.proxyqueue.queue.ReadAheadQueue;
 import com.ibm.ws.sib.comms.common.CommsByteBuffer;
 import com.ibm.ws.sib.comms.common.CommsLightTrace;
 import com.ibm.ws.sib.comms.common.CommsUtils;
@@ -1437,6 +1438,7 @@ public class ConnectionProxy extends Proxy implements SICoreConnection
                     checkAlreadyClosed();
                     AsynchConsumerProxyQueue proxyQueue = null;
                     ProxyQueueConversationGroup pqcg = null;
+                    int readAheadBytes = HIGH_QUEUE_BYTES;
 
 // Are we creating a read-ahead consumer?
                     if (enableReadAhead)
@@ -1446,8 +1448,9 @@ public class ConnectionProxy extends Proxy implements SICoreConnection
 // group to create the proxy queue in.
                         pqcg = getProxyQueueConversationGroup();
 
-// Create the read ahead proxy queue.
-                        proxyQueue = pqcg.createReadAheadProxyQueue(unrecoverableReliability);
+// Create the read ahead proxy queue, reading ahead the number of bytes set for the destination.
+                        readAheadBytes = ReadAheadQueue.getHighQueueBytes(destAddress == null ? null : destAddress.getDestinationName());
+                        proxyQueue = pqcg.createReadAheadProxyQueue(unrecoverableReliability, readAheadBytes);
                     }
 
                     CommsByteBuffer request = getCommsByteBuffer();
@@ -1505,7 +1508,7 @@ public class ConnectionProxy extends Proxy implements SICoreConnection
                     }
 
 // Requested bytes
-                    request.putInt(HIGH_QUEUE_BYTES);
+                    request.putInt(readAheadBytes);
 
 // Now put the destination type
                     if (destType == null)
@@ -1962,6 +1965,7 @@ public class ConnectionProxy extends Proxy implements SICoreConnection
                         enableReadAhead = false;
 
                     AsynchConsumerProxyQueue proxyQueue = null;
+                    int readAheadBytes = HIGH_QUEUE_BYTES;
                     // Are we creating a read-ahead consumer?
                     if (enableReadAhead)
                     {
@@ -1970,8 +1974,9 @@ public class ConnectionProxy extends Proxy implements SICoreConnection
                         // group to create the proxy queue in.
                         ProxyQueueConversationGroup pqcg = getProxyQueueConversationGroup();
 
-                        // Create the read ahead proxy queue.
-                        proxyQueue = pqcg.createReadAheadProxyQueue(unrecoverableReliability);
+                        // Create the read ahead proxy queue, reading ahead the number of bytes set for the destination.
+                        readAheadBytes = ReadAheadQueue.getHighQueueBytes(destAddr == null ? null : destAddr.getDestinationName());
+                        proxyQueue = pqcg.createReadAheadProxyQueue(unrecoverableReliability, readAheadBytes);
                     }
 
                     CommsByteBuffer request = getCommsByteBuffer();
@@ -2018,7 +2023,7 @@ public class ConnectionProxy extends Proxy implements SICoreConnection
                     }
 
                     // BIT 32 Requested bytes
-                    request.putInt(HIGH_QUEUE_BYTES);
+                    request.putInt(readAheadBytes);
 
                     // BIT16 Unrecoverable reliability
                     if (unrecoverableReliability == null)
@@ -82,10 +82,12 @@ public interface ProxyQueueConversationGroup
     * Creates a new read ahead proxy queue.
     * 
     * @param unrecoverableReliabilty
+    * @param highQueueBytes The number of bytes to read ahead. This must be the number of bytes
+    * requested when the consumer session is created.
     * 
     * @return ReadAheadProxyQueue
     */
-   AsynchConsumerProxyQueue createReadAheadProxyQueue(Reliability unrecoverableReliabilty)  // f187521.2.1
+   AsynchConsumerProxyQueue createReadAheadProxyQueue(Reliability unrecoverableReliabilty, int highQueueBytes)  // f187521.2.1
       throws SIResourceException, SIIncorrectCallException;
 
    /**
@@ -832,12 +832,31 @@ public abstract class AsynchConsumerProxyQueueImpl implements AsynchConsumerProx
    * @return Returns the queue this proxy queue should use.
    */
   Queue obtainQueue (final int queueType, final OrderingContext oc, final Reliability unrecoverableReliability) {
-    if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(this, tc, "obtainQueue", "queueType="+queueType+", oc="+oc+", unrecoverableReliability="+unrecoverableReliability);
+    return obtainQueue(queueType, oc, unrecoverableReliability, 0);
+  }
+
+  /*
+   * As obtainQueue(int, OrderingContext, Reliability), but for read-ahead the number of bytes to read ahead
+   * can be specified. It must be the number of bytes requested when the consumer session was created.
+   *
+   * @param queueType The type of queue to create.
+   * @param oc The ordering context associated with this queue
+   * @param unrecoverableReliability The unrecoverable reliability to use for read ahead
+   * @param highQueueBytes The number of bytes to read ahead, or 0 for the default
+   *
+   * @return Returns the queue this proxy queue should use.
+   */
+  Queue obtainQueue (final int queueType, final OrderingContext oc, final Reliability unrecoverableReliability, final int highQueueBytes) {
+    if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(this, tc, "obtainQueue", "queueType="+queueType+", oc="+oc+", unrecoverableReliability="+unrecoverableReliability+", highQueueBytes="+highQueueBytes);
 
     Queue q = null;
 
      if (queueType == READAHEAD) {
-       q = new ReadAheadQueue(id, convHelper, unrecoverableReliability);
+       if (highQueueBytes > 0) {
+         q = new ReadAheadQueue(id, convHelper, true, unrecoverableReliability, highQueueBytes);
+       } else {
+         q = new ReadAheadQueue(id, convHelper, unrecoverableReliability);
+       }
      } else if (queueType == ASYNCH) {
        q = new AsynchConsumerQueue(false);
      } else { // Must be ordered
@@ -215,18 +215,18 @@ public class ProxyQueueConversationGroupImpl implements ProxyQueueConversationGr
 
    /**
     * Creates a new read ahead proxy queue for this group.
-    * @see com.ibm.ws.sib.comms.client.proxyqueue.ProxyQueueConversationGroup#createReadAheadProxyQueue(Reliability)
+    * @see com.ibm.ws.sib.comms.client.proxyqueue.ProxyQueueConversationGroup#createReadAheadProxyQueue(Reliability, int)
     */
-   public synchronized AsynchConsumerProxyQueue createReadAheadProxyQueue(Reliability unrecoverableReliability) // f187521.2.1
+   public synchronized AsynchConsumerProxyQueue createReadAheadProxyQueue(Reliability unrecoverableReliability, int highQueueBytes) // f187521.2.1
       throws SIResourceException, SIIncorrectCallException
 	{
-      if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(tc, "createReadAheadProxyQueue");
+      if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(tc, "createReadAheadProxyQueue", ""+highQueueBytes);
       checkClosed();
       
       // begin D249096
       short id = nextId();
       AsynchConsumerProxyQueue proxyQueue = 
-         new ReadAheadSessionProxyQueueImpl(this, id, conversation, unrecoverableReliability);   // f187521.2.1 // f191114
+         new ReadAheadSessionProxyQueueImpl(this, id, conversation, unrecoverableReliability, highQueueBytes);   // f187521.2.1 // f191114
       // end D249096
       
       idToProxyQueueMap.put(new ImmutableId(id), proxyQueue);
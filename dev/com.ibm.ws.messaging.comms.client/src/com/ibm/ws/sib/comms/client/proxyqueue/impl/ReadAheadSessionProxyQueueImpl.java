@@ -62,14 +62,15 @@ public final class ReadAheadSessionProxyQueueImpl extends ReadAheadProxyQueueImp
    * @param conversation The conversation the proxy queue should use
    * when communicating with the ME sending it messages.
    * @param unrecoverableReliability
+   * @param highQueueBytes The number of bytes to read ahead, or 0 for the default.
    */
-  public ReadAheadSessionProxyQueueImpl (final ProxyQueueConversationGroupImpl group, final short id, final Conversation conversation, final Reliability unrecoverableReliability) {
+  public ReadAheadSessionProxyQueueImpl (final ProxyQueueConversationGroupImpl group, final short id, final Conversation conversation, final Reliability unrecoverableReliability, final int highQueueBytes) {
     super(group, id, conversation);
-    if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(this, tc, "<init>", "group="+group+", id="+id+", conversation="+conversation+", unrecoverableReliability="+unrecoverableReliability);
+    if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(this, tc, "<init>", "group="+group+", id="+id+", conversation="+conversation+", unrecoverableReliability="+unrecoverableReliability+", highQueueBytes="+highQueueBytes);
 
     setType(READAHEAD);
     this.unrecoverableReliability = unrecoverableReliability;
-    setQueue(obtainQueue(READAHEAD, null, unrecoverableReliability));
+    setQueue(obtainQueue(READAHEAD, null, unrecoverableReliability, highQueueBytes));
     setReadAhead(true);
 
     if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.exit(this, tc, "<init>");
@@ -55,7 +55,9 @@ import com.ibm.wsspi.sib.core.exception.SIConnectionLostException;
  * Configurable paramters and their possible values:
  * <ul>
  *   <li>HIGH_QUEUE_BYTES - The number of bytes to cache in advance. If the alteration algorithm
- *       is enabled then this is the number of bytes cached initially.<br>
+ *       is enabled then this is the number of bytes cached initially. The value can be set for the
+ *       consumers of a single destination by appending the destination name to the property name,
+ *       in which case it is limited to HIGH_QUEUE_BYTES_MAX.<br>
  *       Possible values are non-zero positive integers.</li>
  *   <li>LOW_QUEUE_FACTOR - This value indicates what the low watermark is set to. It is expressed
  *       as a factor of HIGH_QUEUE_BYTES. So, for example, setting this to 0.4 indicates that when
@@ -120,11 +122,14 @@ public class ReadAheadQueue implements Queue
 
    // *** Used for pacing ***
 
-   /** The upper watermark for the amount of bytes read ahead */
-   private int HIGH_QUEUE_BYTES =
+   /** The default upper watermark for the amount of bytes read ahead */
+   private static final int DEFAULT_HIGH_QUEUE_BYTES =
             CommsUtils.getRuntimeIntProperty(CommsConstants.RA_HIGH_QUEUE_BYTES_KEY,
                                              CommsConstants.RA_HIGH_QUEUE_BYTES);
 
+   /** The upper watermark for the amount of bytes read ahead */
+   private int HIGH_QUEUE_BYTES = DEFAULT_HIGH_QUEUE_BYTES;
+
    /** The low queue bytes multiplier */
    private static final double LOW_QUEUE_FACTOR =
             CommsUtils.getRuntimeDoubleProperty(CommsConstants.RA_LOW_QUEUE_BYTES_FACTOR_KEY,
@@ -148,7 +153,7 @@ public class ReadAheadQueue implements Queue
                                              CommsConstants.RA_HIGH_QUEUE_BYTES_TO);
 
    /** The lower watermark - when we have given more messages to the client, we request more */
-   private int LOW_QUEUE_BYTES = (int) (HIGH_QUEUE_BYTES * LOW_QUEUE_FACTOR);
+   private int LOW_QUEUE_BYTES;
 
    /** A flag to indicate whether we are pacing or not */
    private boolean trackBytes;
@@ -220,6 +225,23 @@ public class ReadAheadQueue implements Queue
     */
    public ReadAheadQueue(short id, ConversationHelper convHelper, boolean track,
                          Reliability unrecoverableReliability)
+   {
+      this(id, convHelper, track, unrecoverableReliability, DEFAULT_HIGH_QUEUE_BYTES);
+   }
+
+   /**
+    * Constructor which takes the number of bytes to read ahead.
+    *
+    * @param id The unique ID to assign to this queue.
+    * @param convHelper The conversation helper to use when communicating
+    * with the ME sending messages to this queue.
+    * @param track Flag to indicate whether we should track the bytes on this queue
+    * @param unrecoverableReliability
+    * @param highQueueBytes The number of bytes to read ahead. This must be the number of bytes
+    * requested when the consumer session was created.
+    */
+   public ReadAheadQueue(short id, ConversationHelper convHelper, boolean track,
+                         Reliability unrecoverableReliability, int highQueueBytes)
    {
       if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(this, tc, "<init>",
                                            new Object[]
@@ -227,12 +249,16 @@ public class ReadAheadQueue implements Queue
                                              ""+id,
                                              convHelper,
                                              ""+track,
-                                             unrecoverableReliability
+                                             unrecoverableReliability,
+                                             ""+highQueueBytes
                                            });
 
       this.convHelper = convHelper;
       this.trackBytes = track;
 
+      HIGH_QUEUE_BYTES = highQueueBytes;
+      LOW_QUEUE_BYTES = (int) (HIGH_QUEUE_BYTES * LOW_QUEUE_FACTOR);
+
       if (unrecoverableReliability != null)
       {
          this.unrecoverableReliability = unrecoverableReliability;
@@ -257,6 +283,39 @@ public class ReadAheadQueue implements Queue
       if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.exit(this, tc, "<init>");
    }
 
+   /**
+    * Returns the number of bytes to read ahead for a consumer of a destination. This is the value
+    * of the RAHighQueueBytes property qualified with the destination name if it is set, limited to
+    * HIGH_QUEUE_BYTES_MAX, and otherwise the value of the RAHighQueueBytes property.
+    *
+    * @param destinationName The name of the destination, or null if it is not known.
+    *
+    * @return Returns the number of bytes to read ahead.
+    */
+   public static int getHighQueueBytes(String destinationName)
+   {
+      if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(tc, "getHighQueueBytes", destinationName);
+
+      int highQueueBytes = DEFAULT_HIGH_QUEUE_BYTES;
+
+      if (destinationName != null)
+      {
+         String destKey = CommsConstants.RA_HIGH_QUEUE_BYTES_DEST_KEY_PREFIX + destinationName;
+
+         // Only the qualified property is limited, so that a larger RAHighQueueBytes is still used
+         if (CommsUtils.getRuntimeProperty(destKey, null) != null)
+         {
+            int destHighQueueBytes =
+               CommsUtils.getRuntimeIntProperty(destKey, String.valueOf(DEFAULT_HIGH_QUEUE_BYTES));
+
+            if (destHighQueueBytes > 0) highQueueBytes = Math.min(destHighQueueBytes, HIGH_QUEUE_BYTES_MAX);
+         }
+      }
+
+      if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.exit(tc, "getHighQueueBytes", ""+highQueueBytes);
+      return highQueueBytes;
+   }
+
    /**
     * Places a message on to the front of the proxy queue so that the next get
     * operation will consume it.
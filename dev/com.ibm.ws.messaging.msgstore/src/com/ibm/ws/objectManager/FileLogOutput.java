@@ -257,6 +257,9 @@ public class FileLogOutput
 
     private int[] numberOfFlushWaitersFrequency = new int[17];
     private int[] numberOfPagesWrittenFrequency = new int[17];
+    // The time taken to write and force each flush set, bin n counts times below 2**n microseconds. 
+    private int[] flushMicrosecondsFrequency = new int[17];
+    private long maximumFlushMicroseconds = 0;
 
     // for GetStats...
 
@@ -1912,6 +1915,14 @@ public class FileLogOutput
         }
         statistics.put("numberOfPagesWritttenFrequency", histogram);
 
+        histogram = "(<2**0-15 >=2**15 microseconds) ";
+        for (int n = 0; n < flushMicrosecondsFrequency.length; n++) {
+            histogram += flushMicrosecondsFrequency[n] + " ";
+            flushMicrosecondsFrequency[n] = 0;
+        }
+        statistics.put("flushMicrosecondsFrequency", histogram);
+        statistics.put("maximumFlushMicroseconds", Long.toString(maximumFlushMicroseconds));
+
         totalBytesWritten = 0; // Number of bytes written so far.
         totalNumberOfFlushRequests = 0; // Number of times flush() was invoked.
         totalNumberOfLogBufferWrites = 0; // Number of times the logBuffer is has written.
@@ -1926,6 +1937,7 @@ public class FileLogOutput
         flushHelperWaitingMilliseconds = 0;
         paddingStalledMilliseconds = 0;
         writeUpdateStateMilliseconds = 0;
+        maximumFlushMicroseconds = 0;
         stalledForMultiPartID = 0;
         totalPaddingBytesWritten = 0;
         totalPaddingRecords = 0;
@@ -2586,12 +2598,23 @@ public class FileLogOutput
                     // and requesting the notify.
                     int copyOfFirstPageFilling = firstPageFilling;
                     int copyOfFirstPageToFlush = firstPageToFlush;
+                    long flushStartNanoseconds = 0;
+                    if (gatherStatistics)
+                        flushStartNanoseconds = System.nanoTime();
+
                     performFlush(copyOfFirstPageFilling);
 
                     if (gatherStatistics) {
                         long now = System.currentTimeMillis();
                         flushingMilliseconds += now - lastFlushMilliseconds;
                         lastFlushMilliseconds = now;
+
+                        // Record the latency of this flush set, all of the waiters for its pages see this latency.
+                        long flushMicroseconds = (System.nanoTime() - flushStartNanoseconds) / 1000;
+                        if (flushMicroseconds > maximumFlushMicroseconds)
+                            maximumFlushMicroseconds = flushMicroseconds;
+                        int bin = 64 - Long.numberOfLeadingZeros(flushMicroseconds);
+                        flushMicrosecondsFrequency[Math.min(bin, flushMicrosecondsFrequency.length - 1)]++;
                     } // if (gatherStatistics).
 
                     // Release threads waiting for the flush.
@@ -11,10 +11,13 @@
 package com.ibm.ws.sib.matchspace.impl;
 
 // Import files
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import com.ibm.ws.sib.matchspace.selector.impl.CompiledSelector;
 import com.ibm.ws.sib.matchspace.selector.impl.OrdinalPosition;
 import com.ibm.ws.sib.matchspace.utils.MatchSpaceConstants;
 import com.ibm.ws.sib.matchspace.utils.Trace;
@@ -58,6 +61,21 @@ public final class DifficultMatcher extends ContentMatcher
 
   private static final int INIT_MTTL_SIZE = 0;
 
+  /** System property that enables evaluation of expressions by compiled evaluators
+   * (see CompiledSelector) rather than by interpretation of the Selector tree.
+   **/
+  public static final String COMPILED_SELECTORS_PROPERTY =
+    "com.ibm.ws.sib.matchspace.compiledSelectors";
+
+  private static final boolean compiledSelectors =
+    ((Boolean) AccessController.doPrivileged(new PrivilegedAction()
+    {
+      public Object run()
+      {
+        return Boolean.valueOf(Boolean.getBoolean(COMPILED_SELECTORS_PROPERTY));
+      }
+    })).booleanValue();
+
   //------------------------------------------------------------------------------
   // Class DifficultMatcher.MatchTargetTypeList
   //------------------------------------------------------------------------------
@@ -256,6 +274,12 @@ public final class DifficultMatcher extends ContentMatcher
    **/
   List objs;
 
+  /** Vector of the compiled evaluators of the expressions rooted in the roots instance
+   * variable, when compiled selectors are enabled.  An element is null if its expression
+   * could not be compiled, in which case the expression is evaluated by the Evaluator.
+   **/
+  List compiled;
+
   /** The MatchTargetTypeList for all targets with no corresponding expression and are
    * therefore always matched when this node is visited.
    **/
@@ -280,6 +304,8 @@ public final class DifficultMatcher extends ContentMatcher
       tc.entry(cclass, "DifficultMatcher", "pid: " + pid);
     roots = new ArrayList(2);
     objs = new ArrayList(2);
+    if (compiledSelectors)
+      compiled = new ArrayList(2);
     alwaysMatch = new MatchTargetTypeList();
 
     if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled())
@@ -338,6 +364,8 @@ public final class DifficultMatcher extends ContentMatcher
           //Add new type list with corresponding expression.
           objs.add(tlist);
           roots.add(expr);
+          if (compiled != null)
+            compiled.add(CompiledSelector.compile(expr, Matching.getEvaluator()));
         }
         else
         {
@@ -464,12 +492,17 @@ public final class DifficultMatcher extends ContentMatcher
         }
         else
         {
-          res = (Boolean) Matching.getEvaluator().eval(
-              (Selector) roots.get(current),
-              msg,
-              cache,
-              contextValue,
-              false);            
+          CompiledSelector compiledExpr =
+            (compiled == null) ? null : (CompiledSelector) compiled.get(current);
+          if (compiledExpr != null)
+            res = (Boolean) compiledExpr.eval(msg, cache);
+          else
+            res = (Boolean) Matching.getEvaluator().eval(
+                (Selector) roots.get(current),
+                msg,
+                cache,
+                contextValue,
+                false);            
         }
         
         if (res != null && res.booleanValue())
@@ -548,6 +581,8 @@ public final class DifficultMatcher extends ContentMatcher
           {
             objs.remove(i);
             roots.remove(i);
+            if (compiled != null)
+              compiled.remove(i);
           }
         }
       }
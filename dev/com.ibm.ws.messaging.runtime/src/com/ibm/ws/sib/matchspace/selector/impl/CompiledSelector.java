@@ -0,0 +1,404 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.sib.matchspace.selector.impl;
+
+import java.util.ArrayList;
+
+import com.ibm.ws.sib.matchspace.BadMessageFormatMatchingException;
+import com.ibm.ws.sib.matchspace.EvalCache;
+import com.ibm.ws.sib.matchspace.Identifier;
+import com.ibm.ws.sib.matchspace.Literal;
+import com.ibm.ws.sib.matchspace.MatchSpaceKey;
+import com.ibm.ws.sib.matchspace.Operator;
+import com.ibm.ws.sib.matchspace.Selector;
+import com.ibm.ws.sib.matchspace.tools.Evaluator;
+import com.ibm.ws.sib.matchspace.utils.MatchSpaceConstants;
+import com.ibm.ws.sib.matchspace.utils.Trace;
+import com.ibm.ws.sib.matchspace.utils.TraceUtils;
+
+/** A CompiledSelector evaluates a Selector tree with a tree of evaluators that are each
+ * specialized for one node of the Selector tree.  The type of each node is resolved
+ * once, when the tree is compiled, rather than every time the tree is evaluated, and
+ * AND and OR stop evaluating as soon as the result is known.  Otherwise, the results
+ * are those of EvaluatorImpl in non-permissive mode without a context value.
+ *
+ * The compiled form of a node is kept with the node, so a Selector tree that has been
+ * interned is compiled once for all the subscriptions that share it, and compiled
+ * subtrees are shared in the same way as the subtrees themselves.  Results of shared
+ * subtrees are kept in the EvalCache, as they are by EvaluatorImpl.
+ **/
+
+public abstract class CompiledSelector
+{
+  private static final Class cclass = CompiledSelector.class;
+  private static Trace tc = TraceUtils.getTrace(CompiledSelector.class,
+      MatchSpaceConstants.MSG_GROUP_LISTS);
+
+  /** The node that this evaluator was compiled from */
+  final Selector selector;
+
+  CompiledSelector(Selector selector)
+  {
+    this.selector = selector;
+  }
+
+  /** Compile a Selector tree.  Trees that contain extended (XPath) nodes are not
+   * compiled.
+   *
+   * @param sel the Selector tree, which should have been interned
+   *
+   * @param evaluator the Evaluator whose results the compiled tree reproduces
+   *
+   * @return the compiled tree, or null if the tree cannot be compiled
+   **/
+
+  public static CompiledSelector compile(Selector sel, Evaluator evaluator)
+  {
+    if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+      tc.entry(cclass, "compile", new Object[] { sel, evaluator });
+
+    CompiledSelector result = null;
+    if (evaluator instanceof EvaluatorImpl)
+      result = compileNode(sel, (EvaluatorImpl) evaluator);
+
+    if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+      tc.exit(cclass, "compile", result);
+    return result;
+  }
+
+  // Working subroutine of compile
+
+  private static CompiledSelector compileNode(Selector sel, EvaluatorImpl evaluator)
+  {
+    if (sel.getType() == Selector.INVALID || sel.isExtended() || !(sel instanceof SelectorImpl))
+      return null;
+
+    SelectorImpl node = (SelectorImpl) sel;
+    if (node.compiled != null)
+      return node.compiled;
+
+    CompiledSelector result = null;
+    if (sel instanceof Literal)
+      result = new CompiledLiteral(sel);
+    else if (sel instanceof Identifier)
+      result = new CompiledIdentifier(sel);
+    else if (sel instanceof Operator && !(sel instanceof ExtensionOperatorImpl))
+    {
+      Operator op = (Operator) sel;
+      Selector[] operands = op.getOperands();
+      CompiledSelector operand0 = compileNode(operands[0], evaluator);
+      CompiledSelector operand1 = operands.length == 1 ? null : compileNode(operands[1], evaluator);
+      if (operand0 != null && (operands.length == 1 || operand1 != null))
+      {
+        switch (op.getOp())
+        {
+          case Selector.NOT :
+          case Selector.NEG :
+          case Selector.ISNULL :
+            result = new CompiledUnary(sel, op.getOp(), operand0);
+            break;
+          case Selector.LIKE :
+          case Selector.TOPIC_LIKE :
+            if (sel instanceof LikeOperatorImpl)
+              result = new CompiledLike(sel, ((LikeOperatorImpl) sel).getInternalPattern(), operand0);
+            break;
+          case Selector.NE :
+          case Selector.EQ :
+          case Selector.GT :
+          case Selector.LT :
+          case Selector.GE :
+          case Selector.LE :
+            result = new CompiledComparison(sel, op.getOp(), operand0, operand1, evaluator);
+            break;
+          case Selector.PLUS :
+          case Selector.MINUS :
+          case Selector.TIMES :
+          case Selector.DIV :
+            result = new CompiledArithmetic(sel, op.getOp(), operand0, operand1);
+            break;
+          case Selector.AND :
+            result = new CompiledAnd(sel, operand0, operand1);
+            break;
+          case Selector.OR :
+            result = new CompiledOr(sel, operand0, operand1);
+            break;
+          default :
+            // Leave any other operator to the Evaluator
+            break;
+        }
+      }
+    }
+
+    node.compiled = result;
+    return result;
+  }
+
+  /** Evaluates the compiled Selector tree.
+   *
+   * @param bind the MatchSpaceKey to use in evaluating identifiers
+   *
+   * @param cache the EvalCache for the results of shared subtrees
+   *
+   * @return the result, as for EvaluatorImpl.eval
+   *
+   * @exception BadMessageFormatMatchingException when the method is unable to determine a
+   * value because the message from which the value must be extracted is corrupted or
+   * ill-formed.
+   **/
+
+  public Object eval(MatchSpaceKey bind, EvalCache cache)
+    throws BadMessageFormatMatchingException
+  {
+    // The uniqueId can be reassigned when the InternTable is compressed, so it is not
+    // kept by the compiled form.
+    int id = selector.getUniqueId();
+    Object ans;
+    if (id != 0)
+    {
+      ans = cache.getExprValue(id);
+      if (ans != null)
+        return ans;
+    }
+
+    ans = evalNode(bind, cache);
+    if (id != 0)
+      cache.saveExprValue(id, ans);
+    return ans;
+  }
+
+  /** Evaluate this node, without reference to the EvalCache for this node */
+
+  abstract Object evalNode(MatchSpaceKey bind, EvalCache cache)
+    throws BadMessageFormatMatchingException;
+
+  public String toString()
+  {
+    return "Compiled(" + selector + ")";
+  }
+
+  // A literal value
+
+  private static final class CompiledLiteral extends CompiledSelector
+  {
+    private final Object value;
+
+    CompiledLiteral(Selector sel)
+    {
+      super(sel);
+      value = ((Literal) sel).getValue();
+    }
+
+    public Object eval(MatchSpaceKey bind, EvalCache cache)
+    {
+      return value;
+    }
+
+    Object evalNode(MatchSpaceKey bind, EvalCache cache)
+    {
+      return value;
+    }
+  }
+
+  // An identifier, whose value is provided by the MatchSpaceKey
+
+  private static final class CompiledIdentifier extends CompiledSelector
+  {
+    private final Identifier id;
+    private final boolean returnList;
+
+    CompiledIdentifier(Selector sel)
+    {
+      super(sel);
+      id = (Identifier) sel;
+      returnList = id.getType() != Selector.BOOLEAN;
+    }
+
+    Object evalNode(MatchSpaceKey bind, EvalCache cache)
+      throws BadMessageFormatMatchingException
+    {
+      return bind.getIdentifierValue(id, false, null, returnList);
+    }
+  }
+
+  // NOT, NEG and ISNULL
+
+  private static final class CompiledUnary extends CompiledSelector
+  {
+    private final int op;
+    private final CompiledSelector operand;
+
+    CompiledUnary(Selector sel, int op, CompiledSelector operand)
+    {
+      super(sel);
+      this.op = op;
+      this.operand = operand;
+    }
+
+    Object evalNode(MatchSpaceKey bind, EvalCache cache)
+      throws BadMessageFormatMatchingException
+    {
+      Object val0 = operand.eval(bind, cache);
+      switch (op)
+      {
+        case Selector.NOT :
+          return val0 instanceof Boolean ? EvaluatorImpl.not((Boolean) val0) : null;
+        case Selector.NEG :
+          return val0 instanceof Number ? EvaluatorImpl.neg((Number) val0) : null;
+        default : // ISNULL
+          return Boolean.valueOf(val0 == null);
+      }
+    }
+  }
+
+  // LIKE and TOPIC_LIKE
+
+  private static final class CompiledLike extends CompiledSelector
+  {
+    private final Pattern pattern;
+    private final CompiledSelector operand;
+
+    CompiledLike(Selector sel, Pattern pattern, CompiledSelector operand)
+    {
+      super(sel);
+      this.pattern = pattern;
+      this.operand = operand;
+    }
+
+    Object evalNode(MatchSpaceKey bind, EvalCache cache)
+      throws BadMessageFormatMatchingException
+    {
+      Object val0 = operand.eval(bind, cache);
+      return val0 instanceof String ? Boolean.valueOf(pattern.match((String) val0)) : null;
+    }
+  }
+
+  // The comparison operators
+
+  private static final class CompiledComparison extends CompiledSelector
+  {
+    private final int op;
+    private final CompiledSelector operand0;
+    private final CompiledSelector operand1;
+    private final EvaluatorImpl evaluator;
+
+    CompiledComparison(Selector sel, int op, CompiledSelector operand0, CompiledSelector operand1,
+        EvaluatorImpl evaluator)
+    {
+      super(sel);
+      this.op = op;
+      this.operand0 = operand0;
+      this.operand1 = operand1;
+      this.evaluator = evaluator;
+    }
+
+    Object evalNode(MatchSpaceKey bind, EvalCache cache)
+      throws BadMessageFormatMatchingException
+    {
+      Object val0 = operand0.eval(bind, cache);
+      Object val1 = operand1.eval(bind, cache);
+
+      if (val0 instanceof ArrayList)
+      {
+        boolean overallTrue = op == Selector.EQ || op == Selector.GT || op == Selector.LT;
+        return evaluator.compareList((ArrayList) val0, val1, false, false, overallTrue);
+      }
+
+      switch (op)
+      {
+        case Selector.NE :
+          return EvaluatorImpl.not(EvaluatorImpl.compare(val0, val1, false, false));
+        case Selector.EQ :
+          return EvaluatorImpl.compare(val0, val1, false, false);
+        case Selector.GT :
+          return EvaluatorImpl.compare(val1, val0, true, false);
+        case Selector.LT :
+          return EvaluatorImpl.compare(val0, val1, true, false);
+        case Selector.GE :
+          return EvaluatorImpl.not(EvaluatorImpl.compare(val0, val1, true, false));
+        default : // LE
+          return EvaluatorImpl.not(EvaluatorImpl.compare(val1, val0, true, false));
+      }
+    }
+  }
+
+  // The arithmetic operators
+
+  private static final class CompiledArithmetic extends CompiledSelector
+  {
+    private final int op;
+    private final CompiledSelector operand0;
+    private final CompiledSelector operand1;
+
+    CompiledArithmetic(Selector sel, int op, CompiledSelector operand0, CompiledSelector operand1)
+    {
+      super(sel);
+      this.op = op;
+      this.operand0 = operand0;
+      this.operand1 = operand1;
+    }
+
+    Object evalNode(MatchSpaceKey bind, EvalCache cache)
+      throws BadMessageFormatMatchingException
+    {
+      Object val0 = operand0.eval(bind, cache);
+      Object val1 = operand1.eval(bind, cache);
+      return EvaluatorImpl.promoteAndEvaluate(op, val0, val1, false);
+    }
+  }
+
+  // AND, which does not evaluate its second operand if the first is false
+
+  private static final class CompiledAnd extends CompiledSelector
+  {
+    private final CompiledSelector operand0;
+    private final CompiledSelector operand1;
+
+    CompiledAnd(Selector sel, CompiledSelector operand0, CompiledSelector operand1)
+    {
+      super(sel);
+      this.operand0 = operand0;
+      this.operand1 = operand1;
+    }
+
+    Object evalNode(MatchSpaceKey bind, EvalCache cache)
+      throws BadMessageFormatMatchingException
+    {
+      Boolean val0 = (Boolean) operand0.eval(bind, cache);
+      if (Boolean.FALSE.equals(val0))
+        return Boolean.FALSE;
+      return EvaluatorImpl.and(val0, (Boolean) operand1.eval(bind, cache));
+    }
+  }
+
+  // OR, which does not evaluate its second operand if the first is true
+
+  private static final class CompiledOr extends CompiledSelector
+  {
+    private final CompiledSelector operand0;
+    private final CompiledSelector operand1;
+
+    CompiledOr(Selector sel, CompiledSelector operand0, CompiledSelector operand1)
+    {
+      super(sel);
+      this.operand0 = operand0;
+      this.operand1 = operand1;
+    }
+
+    Object evalNode(MatchSpaceKey bind, EvalCache cache)
+      throws BadMessageFormatMatchingException
+    {
+      Boolean val0 = (Boolean) operand0.eval(bind, cache);
+      if (Boolean.TRUE.equals(val0))
+        return Boolean.TRUE;
+      return EvaluatorImpl.or(val0, (Boolean) operand1.eval(bind, cache));
+    }
+  }
+}
@@ -864,7 +864,7 @@ public class EvaluatorImpl implements Evaluator
 
   // Evaluate a binary numeric operator with numeric result
 
-  private static Object promoteAndEvaluate(
+  static Object promoteAndEvaluate(
     int op,
     Object val0,
     Object val1,
@@ -1108,7 +1108,7 @@ public class EvaluatorImpl implements Evaluator
   /**
    * Negate the value
    */
-  private static Number neg(Number n) 
+  static Number neg(Number n) 
   {
     switch (getType(n)) 
     {
@@ -42,6 +42,11 @@ public abstract class SelectorImpl implements Selector, Cloneable
 
   private int refCount;
 
+  // The compiled form of this node, set by CompiledSelector.compile.  Interned nodes are
+  // shared, so the compiled form is shared by all the trees that contain this node.
+
+  CompiledSelector compiled;
+
   /** The number of Identifiers in this Selector subtree.  The Identifier subclass sets
    * this field to 1, the Literal subclass sets it to 0, and the Operator subclass sets it
    * to the sum of the values for its operands.
@@ -221,7 +226,9 @@ public abstract class SelectorImpl implements Selector, Cloneable
   {
     try
     {
-      return super.clone();
+      SelectorImpl result = (SelectorImpl) super.clone();
+      result.compiled = null;
+      return result;
     }
     catch (CloneNotSupportedException e)
     {
@@ -0,0 +1,349 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.sib.matchspace.selector.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.ibm.ws.sib.matchspace.EvalCache;
+import com.ibm.ws.sib.matchspace.Identifier;
+import com.ibm.ws.sib.matchspace.MatchSpaceKey;
+import com.ibm.ws.sib.matchspace.Selector;
+
+/** Differential tests of CompiledSelector, which check that a compiled Selector tree
+ * gives the same results as EvaluatorImpl for randomly generated trees and messages.
+ **/
+
+public class CompiledSelectorTest
+{
+  private static final long SEED = 20181017L;
+
+  /** An Evaluator with list comparisons, in the manner of XPath10EvaluatorImpl, so that
+   * the flags that the compiled comparisons pass to compareList change the results.
+   **/
+
+  static final class ListEvaluator extends EvaluatorImpl
+  {
+    protected Boolean compareList(
+      ArrayList firstList,
+      Object val1,
+      boolean lessThan,
+      boolean permissive,
+      boolean overallTrue)
+    {
+      for (int i = 0; i < firstList.size(); i++)
+      {
+        Boolean result = compare(firstList.get(i), val1, lessThan, permissive);
+        if (result != null && result.booleanValue() == overallTrue)
+          return result;
+      }
+      return null;
+    }
+  }
+
+  /** A message whose identifier values are held in a Map.  As for a real message, a value
+   * is only returned if it fits the type of the Identifier.
+   **/
+
+  static final class Message implements MatchSpaceKey
+  {
+    final Map values = new HashMap();
+
+    public Object getIdentifierValue(Identifier id, boolean ignoreType, Object contextValue,
+        boolean returnList)
+    {
+      Object value = values.get(id.getName());
+      if (value instanceof ArrayList)
+        return returnList ? value : null;
+      switch (id.getType())
+      {
+        case Selector.BOOLEAN :
+          return value instanceof Boolean ? value : null;
+        case Selector.STRING :
+          return value instanceof String ? value : null;
+        case Selector.NUMERIC :
+        case Selector.INT :
+        case Selector.LONG :
+        case Selector.FLOAT :
+        case Selector.DOUBLE :
+          return value instanceof Number ? value : null;
+        default :
+          return value;
+      }
+    }
+
+    public Object getIdentifierValue(Identifier id, boolean ignoreType)
+    {
+      return getIdentifierValue(id, ignoreType, null, false);
+    }
+
+    public Object getRootContext()
+    {
+      return null;
+    }
+
+    public String toString()
+    {
+      return values.toString();
+    }
+  }
+
+  private static final int BOOLEAN = 0, NUMERIC = 1, STRING = 2;
+
+  private static final String[] PATTERNS = { "a%", "%b", "_b%" };
+
+  private final Random random = new Random(SEED);
+  private final EvaluatorImpl evaluator = new ListEvaluator();
+
+  private Object randomNumber()
+  {
+    int n = random.nextInt(7) - 3;
+    switch (random.nextInt(4))
+    {
+      case 0 :
+        return new Integer(n);
+      case 1 :
+        return new Long(n);
+      case 2 :
+        return new Float(n / 2f);
+      default :
+        return new Double(n / 2d);
+    }
+  }
+
+  private Object randomValue(String name)
+  {
+    if (random.nextInt(5) == 0)
+      return null;
+    switch (name.charAt(0))
+    {
+      case 'b' :
+        return Boolean.valueOf(random.nextBoolean());
+      case 'n' :
+        return randomNumber();
+      case 's' :
+        return new String[] { "ab", "b", "abc", "" }[random.nextInt(4)];
+      default : // a list
+        ArrayList list = new ArrayList();
+        for (int i = random.nextInt(4); i > 0; i--)
+          list.add(randomNumber());
+        return list;
+    }
+  }
+
+  private Message randomMessage()
+  {
+    Message message = new Message();
+    String[] names = { "b0", "b1", "b2", "n0", "n1", "n2", "s0", "s1", "l0", "l1" };
+    for (int i = 0; i < names.length; i++)
+      message.values.put(names[i], randomValue(names[i]));
+    return message;
+  }
+
+  private Selector identifier(int kind)
+  {
+    String prefix = kind == BOOLEAN ? "b" : kind == NUMERIC ? "n" : "s";
+    return new IdentifierImpl(prefix + random.nextInt(kind == STRING ? 2 : 3));
+  }
+
+  private Selector literal(int kind)
+  {
+    switch (kind)
+    {
+      case BOOLEAN :
+        return new LiteralImpl(Boolean.valueOf(random.nextBoolean()));
+      case NUMERIC :
+        return new LiteralImpl(randomNumber());
+      default :
+        return new LiteralImpl(new String[] { "ab", "b" }[random.nextInt(2)]);
+    }
+  }
+
+  /** Generate a random Selector tree.  Every Operator contains an Identifier, so that the
+   * constructors do not replace any subtree with a Literal.
+   *
+   * @param kind BOOLEAN, NUMERIC or STRING
+   * @param depth the maximum depth of the tree
+   * @param needId true if the tree must contain an Identifier
+   **/
+
+  private Selector generate(int kind, int depth, boolean needId)
+  {
+    if (kind == STRING || depth == 0 || random.nextInt(5) == 0)
+      return needId || random.nextInt(4) != 0 ? identifier(kind) : literal(kind);
+
+    Selector result;
+    if (kind == NUMERIC)
+    {
+      if (random.nextInt(5) == 0)
+        result = new OperatorImpl(Selector.NEG, generate(NUMERIC, depth - 1, true));
+      else
+        result = binary(Selector.PLUS + random.nextInt(4), NUMERIC, depth);
+    }
+    else
+    {
+      switch (random.nextInt(7))
+      {
+        case 0 :
+          result = new OperatorImpl(Selector.NOT, generate(BOOLEAN, depth - 1, true));
+          break;
+        case 1 :
+        case 2 :
+          result = binary(Selector.AND + random.nextInt(2), BOOLEAN, depth);
+          break;
+        case 3 :
+          result = new OperatorImpl(Selector.ISNULL, identifier(random.nextInt(3)));
+          break;
+        case 4 :
+          String pattern = PATTERNS[random.nextInt(PATTERNS.length)];
+          result = new LikeOperatorImpl(Selector.LIKE, identifier(STRING),
+              (Pattern) Pattern.parsePattern(pattern, false, '\0'), pattern, false, '\0');
+          break;
+        case 5 :
+          // Equality of strings or booleans
+          int op = random.nextBoolean() ? Selector.EQ : Selector.NE;
+          result = random.nextBoolean() ? binary(op, STRING, depth) : binary(op, BOOLEAN, depth);
+          break;
+        default :
+          // Comparison of numbers, where the first operand might be a list
+          op = Selector.NE + random.nextInt(6);
+          if (random.nextInt(3) == 0)
+            result = new OperatorImpl(op, new IdentifierImpl("l" + random.nextInt(2)),
+                generate(NUMERIC, depth - 1, false));
+          else
+            result = binary(op, NUMERIC, depth);
+          break;
+      }
+    }
+    assertTrue("Invalid tree " + result, result.getType() != Selector.INVALID);
+    return result;
+  }
+
+  private Selector binary(int op, int kind, int depth)
+  {
+    Selector operand0 = generate(kind, depth - 1, false);
+    return new OperatorImpl(op, operand0, generate(kind, depth - 1, operand0.getNumIds() == 0));
+  }
+
+  private void assertSameResult(Selector tree, Message message) throws Exception
+  {
+    CompiledSelector compiled = CompiledSelector.compile(tree, evaluator);
+    assertNotNull("Not compiled: " + tree, compiled);
+    assertEquals(tree + " with " + message,
+        evaluator.eval(tree, message, EvalCache.DUMMY, null, false),
+        compiled.eval(message, EvalCache.DUMMY));
+  }
+
+  /** Compare the results of random trees for random messages. */
+
+  @Test
+  public void testRandomTrees() throws Exception
+  {
+    Map results = new HashMap();
+    for (int t = 0; t < 2000; t++)
+    {
+      Selector tree = generate(BOOLEAN, 1 + t % 5, true);
+      CompiledSelector compiled = CompiledSelector.compile(tree, evaluator);
+      assertNotNull("Not compiled: " + tree, compiled);
+
+      for (int m = 0; m < 20; m++)
+      {
+        Message message = randomMessage();
+        Object expected;
+        try
+        {
+          expected = evaluator.eval(tree, message, EvalCache.DUMMY, null, false);
+        }
+        catch (ArithmeticException e)
+        {
+          // Integer division by zero.  The compiled tree might not reach the division,
+          // because AND and OR stop once the result is known.
+          continue;
+        }
+        assertEquals(tree + " with " + message + " (seed " + SEED + ")",
+            expected, compiled.eval(message, EvalCache.DUMMY));
+        results.put(expected, tree);
+      }
+    }
+
+    // The trees cover all three truth values
+    assertTrue(results.containsKey(Boolean.TRUE));
+    assertTrue(results.containsKey(Boolean.FALSE));
+    assertTrue(results.containsKey(null));
+  }
+
+  /** AND, OR and NOT follow three-valued logic, including when AND and OR stop early. */
+
+  @Test
+  public void testThreeValuedLogic() throws Exception
+  {
+    Boolean[] values = { Boolean.TRUE, Boolean.FALSE, null };
+    for (int i = 0; i < values.length; i++)
+      for (int j = 0; j < values.length; j++)
+      {
+        Message message = new Message();
+        message.values.put("b0", values[i]);
+        message.values.put("b1", values[j]);
+
+        assertSameResult(new OperatorImpl(Selector.AND, new IdentifierImpl("b0"), new IdentifierImpl("b1")), message);
+        assertSameResult(new OperatorImpl(Selector.OR, new IdentifierImpl("b0"), new IdentifierImpl("b1")), message);
+        assertSameResult(new OperatorImpl(Selector.NOT, new IdentifierImpl("b0")), message);
+      }
+  }
+
+  /** NE, GE and LE are negations of EQ and LT, which are unknown when an operand is
+   * missing.
+   **/
+
+  @Test
+  public void testNegatedComparisons() throws Exception
+  {
+    Object[] values = { new Integer(1), new Double(1.5), new Long(2), null };
+    for (int op = Selector.NE; op <= Selector.EQ; op++)
+      for (int i = 0; i < values.length; i++)
+        for (int j = 0; j < values.length; j++)
+        {
+          Message message = new Message();
+          message.values.put("n0", values[i]);
+          message.values.put("n1", values[j]);
+          assertSameResult(new OperatorImpl(op, new IdentifierImpl("n0"), new IdentifierImpl("n1")), message);
+        }
+  }
+
+  /** The comparisons of a list pass the same flags to compareList as EvaluatorImpl. */
+
+  @Test
+  public void testListComparisons() throws Exception
+  {
+    Object[] lists = {
+      new ArrayList(),
+      new ArrayList(Arrays.asList(new Object[] { new Integer(1) })),
+      new ArrayList(Arrays.asList(new Object[] { new Integer(1), new Integer(3) })),
+      new ArrayList(Arrays.asList(new Object[] { new Integer(2), new Integer(2) }))
+    };
+    for (int op = Selector.NE; op <= Selector.EQ; op++)
+      for (int i = 0; i < lists.length; i++)
+      {
+        Message message = new Message();
+        message.values.put("l0", lists[i]);
+        assertSameResult(new OperatorImpl(op, new IdentifierImpl("l0"), new LiteralImpl(new Integer(2))), message);
+      }
+  }
+}
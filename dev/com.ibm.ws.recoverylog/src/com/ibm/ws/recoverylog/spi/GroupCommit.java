@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.ws.recoverylog.spi;
+
+import java.security.PrivilegedAction;
+
+import com.ibm.tx.util.logging.Tr;
+import com.ibm.tx.util.logging.TraceComponent;
+
+//------------------------------------------------------------------------------
+//Class: GroupCommit
+//------------------------------------------------------------------------------
+/**
+ * <p>
+ * Combines the force requests of concurrent callers into a single force of the
+ * log file.
+ * </p>
+ *
+ * <p>
+ * Each force request takes a ticket. A caller requests a force only after its data
+ * has been written to the log file, so a force which starts after a ticket was taken
+ * makes the data of that ticket persistent. One caller at a time, the leader, forces
+ * the file on behalf of all of the tickets taken before the force started; the other
+ * callers wait for a force which covers their ticket. No caller returns before its
+ * data is on disk.
+ * </p>
+ *
+ * <p>
+ * The leader can wait, up to a configured maximum time, for further requests to join
+ * the group before it forces the file. A failed force fails every request that it
+ * covers, and every later request: the recovery log is marked as failed by the caller.
+ * </p>
+ */
+class GroupCommit
+{
+    private static final TraceComponent tc = Tr.register(GroupCommit.class,
+                                                         TraceConstants.TRACE_GROUP, TraceConstants.NLS_FILE);
+
+    /**
+     * System property which enables group commit of log forces.
+     */
+    static final String GROUP_COMMIT_PROPERTY = "com.ibm.ws.recoverylog.spi.GroupCommit";
+
+    /**
+     * System property for the maximum time, in microseconds, that a force waits for
+     * further requests to join its group. The default is not to wait.
+     */
+    static final String GROUP_COMMIT_MAX_WAIT_PROPERTY = "com.ibm.ws.recoverylog.spi.GroupCommitMaxWait";
+
+    /**
+     * The number of forces between summary trace points.
+     */
+    private static final long STATISTICS_INTERVAL = 1000;
+
+    private final Object _lock = new Object();
+
+    /**
+     * The maximum time, in nanoseconds, that a leader waits before it forces the file.
+     */
+    private final long _maxWaitNanos;
+
+    /**
+     * The last ticket taken.
+     */
+    private long _requested;
+
+    /**
+     * The last ticket which is covered by a completed force.
+     */
+    private long _forced;
+
+    /**
+     * True while a leader is forcing the file.
+     */
+    private boolean _forcing;
+
+    /**
+     * The failure of a force. Once set, all further requests fail.
+     */
+    private InternalLogException _failure;
+
+    // Statistics, protected by _lock
+    private long _forceCount;
+    private long _requestCount;
+    private long _maxBatchSize;
+    private long _totalForceNanos;
+    private long _maxForceNanos;
+
+    //------------------------------------------------------------------------------
+    // Method: GroupCommit.GroupCommit
+    //------------------------------------------------------------------------------
+    GroupCommit(long maxWaitMicros)
+    {
+        _maxWaitNanos = maxWaitMicros > 0 ? maxWaitMicros * 1000 : 0;
+    }
+
+    //------------------------------------------------------------------------------
+    // Method: GroupCommit.create
+    //------------------------------------------------------------------------------
+    /**
+     * Create the group commit for a log, if group commit is enabled.
+     *
+     * @return The group commit, or null if log forces are not grouped.
+     */
+    static GroupCommit create()
+    {
+        if (tc.isEntryEnabled())
+            Tr.entry(tc, "create");
+
+        final long[] config = java.security.AccessController.doPrivileged(new PrivilegedAction<long[]>()
+        {
+            @Override
+            public long[] run()
+            {
+                return new long[] { Boolean.getBoolean(GROUP_COMMIT_PROPERTY) ? 1 : 0, Long.getLong(GROUP_COMMIT_MAX_WAIT_PROPERTY, 0) };
+            }
+        });
+
+        final GroupCommit groupCommit = config[0] != 0 ? new GroupCommit(config[1]) : null;
+
+        if (tc.isEntryEnabled())
+            Tr.exit(tc, "create", groupCommit);
+        return groupCommit;
+    }
+
+    //------------------------------------------------------------------------------
+    // Method: GroupCommit.force
+    //------------------------------------------------------------------------------
+    /**
+     * Force the log file, or wait for a force by another caller, so that all of the
+     * data written to the file before this call is persistent.
+     *
+     * @param file The file to force.
+     *
+     * @exception InternalLogException The force which covers this request failed.
+     */
+    void force(LogFileHandle file) throws InternalLogException
+    {
+        if (tc.isEntryEnabled())
+            Tr.entry(tc, "force", new Object[] { this, file });
+
+        boolean interrupted = false;
+        final long ticket;
+
+        synchronized (_lock)
+        {
+            ticket = ++_requested;
+
+            while (true)
+            {
+                if (_forced >= ticket)
+                {
+                    if (interrupted)
+                        Thread.currentThread().interrupt();
+                    if (tc.isEntryEnabled())
+                        Tr.exit(tc, "force", "grouped");
+                    return;
+                }
+
+                if (_failure != null)
+                {
+                    if (interrupted)
+                        Thread.currentThread().interrupt();
+                    if (tc.isEntryEnabled())
+                        Tr.exit(tc, "force", "InternalLogException");
+                    throw new InternalLogException(_failure);
+                }
+
+                if (!_forcing)
+                    break;
+
+                try
+                {
+                    _lock.wait();
+                } catch (InterruptedException exc)
+                {
+                    // The caller's data must be persistent before it returns, so carry on
+                    // waiting and restore the interrupt when the force is complete.
+                    interrupted = true;
+                }
+            }
+
+            // This caller is the leader.
+            _forcing = true;
+
+            if (_maxWaitNanos > 0)
+            {
+                // Give other callers the chance to join the group.
+                final long deadline = System.nanoTime() + _maxWaitNanos;
+                long remaining = _maxWaitNanos;
+                while (remaining > 0)
+                {
+                    try
+                    {
+                        _lock.wait(remaining / 1000000, (int) (remaining % 1000000));
+                    } catch (InterruptedException exc)
+                    {
+                        interrupted = true;
+                        break;
+                    }
+                    remaining = deadline - System.nanoTime();
+                }
+            }
+        }
+
+        final long coveredTicket;
+        final long batchSize;
+        synchronized (_lock)
+        {
+            coveredTicket = _requested;
+            batchSize = coveredTicket - _forced;
+        }
+
+        InternalLogException failure = null;
+        final long start = System.nanoTime();
+        try
+        {
+            file.force();
+        } catch (InternalLogException exc)
+        {
+            // The file handle has already issued an FFDC
+            failure = exc;
+        } catch (RuntimeException exc)
+        {
+            failure = new InternalLogException(exc);
+        } catch (Error err)
+        {
+            failure = new InternalLogException(err);
+        }
+        final long forceNanos = System.nanoTime() - start;
+
+        synchronized (_lock)
+        {
+            if (failure == null)
+            {
+                _forced = coveredTicket;
+            }
+            else
+            {
+                _failure = failure;
+            }
+            _forcing = false;
+
+            _forceCount++;
+            _requestCount += batchSize;
+            _totalForceNanos += forceNanos;
+            if (batchSize > _maxBatchSize)
+                _maxBatchSize = batchSize;
+            if (forceNanos > _maxForceNanos)
+                _maxForceNanos = forceNanos;
+
+            if (tc.isDebugEnabled())
+            {
+                Tr.debug(tc, "Forced " + batchSize + " requests in " + forceNanos / 1000 + " microseconds");
+                if (_forceCount % STATISTICS_INTERVAL == 0)
+                    Tr.debug(tc, "Group commit statistics " + this);
+            }
+
+            _lock.notifyAll();
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        if (failure != null)
+        {
+            if (tc.isEntryEnabled())
+                Tr.exit(tc, "force", failure);
+            throw failure;
+        }
+
+        if (tc.isEntryEnabled())
+            Tr.exit(tc, "force");
+    }
+
+    @Override
+    public String toString()
+    {
+        synchronized (_lock)
+        {
+            return "GroupCommit[forces=" + _forceCount +
+                   ", requests=" + _requestCount +
+                   ", averageBatchSize=" + (_forceCount == 0 ? 0 : (double) _requestCount / _forceCount) +
+                   ", maxBatchSize=" + _maxBatchSize +
+                   ", averageForceMicros=" + (_forceCount == 0 ? 0 : _totalForceNanos / _forceCount / 1000) +
+                   ", maxForceMicros=" + _maxForceNanos / 1000 +
+                   ", maxWaitMicros=" + _maxWaitNanos / 1000 + "]";
+        }
+    }
+}
@@ -154,6 +154,12 @@ class LogHandle
      */
     FailureScope _failureScope;
 
+    /**
+     * Groups the force requests of concurrent callers, or null if each caller
+     * forces the active file itself.
+     */
+    private final GroupCommit _groupCommit = GroupCommit.create();
+
     //------------------------------------------------------------------------------
     // Method: LogHandle.LogHandle          
     //------------------------------------------------------------------------------
@@ -928,7 +934,16 @@ class LogHandle
         //  hit when calling the force method 
         if (!Configuration._isSnapshotSafe)
         {
-            _activeFile.force();
+            // Concurrent forces are grouped. In snapshot safe mode, above, each force
+            // is made under the suspend lock, so there are no concurrent forces to group.
+            if (_groupCommit != null)
+            {
+                _groupCommit.force(_activeFile);
+            }
+            else
+            {
+                _activeFile.force();
+            }
         }
 
         if (tc.isEntryEnabled())
@@ -38,6 +38,7 @@ import com.ibm.websphere.servlet.session.IBMSessionListener;
 import com.ibm.ws.session.http.HttpSessionAttributeObserver;
 import com.ibm.ws.session.store.memory.MemoryStore;
 import com.ibm.ws.session.store.memory.SessionSimpleHashMap;
+import com.ibm.ws.session.store.offheap.OffHeapStore;
 import com.ibm.ws.session.utils.IDGeneratorImpl;
 import com.ibm.ws.session.utils.LoggingUtil;
 import com.ibm.ws.util.WSThreadLocal;
@@ -336,6 +337,9 @@ public class SessionContext {
         if (service != null) {
             store = service.createStore(smc, smid, sc, storeHelper, _sap.getAppClassLoader(), applicationSessionStore);
         }
+        if (store == null && smc.getEnableOffHeapStore() && smc.isUsingMemory() && !applicationSessionStore) {
+            store = new OffHeapStore(smc, smid, sc, storeHelper, _sap.getAppClassLoader(), removeAttrOnInvalidate);
+        }
         if (store == null) {
             if(!removeAttrOnInvalidate)
                 store = new MemoryStore(smc, smid, sc, storeHelper, applicationSessionStore);
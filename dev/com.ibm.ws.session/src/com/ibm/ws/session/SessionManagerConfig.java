@@ -195,6 +195,12 @@ public class SessionManagerConfig implements Cloneable {
     private boolean useSeparateSessionInvalidatorThreadPool = true; //set default to true so that ScheduledExecutorService is used as thread scheduler
     
     private int connectionRetryCount = 2; // Feature 68570
+
+    // keep serialized attributes of idle sessions off the heap - see OffHeapStore
+    private boolean enableOffHeapStore = false;
+    private int offHeapStoreMemorySize = 64; // megabytes
+    private int offHeapStoreOverflowSize = 1024; // megabytes, 0 for no overflow file
+    private String offHeapStoreOverflowDirectory = null; // temporary directory when null
     
     // finished Custom Properties
 
@@ -1017,6 +1023,38 @@ public class SessionManagerConfig implements Cloneable {
     public void setConnectionRetryCount(int i) {
         connectionRetryCount = i;
     }
+
+    public boolean getEnableOffHeapStore() {
+        return enableOffHeapStore;
+    }
+
+    public void setEnableOffHeapStore(boolean b) {
+        enableOffHeapStore = b;
+    }
+
+    public int getOffHeapStoreMemorySize() {
+        return offHeapStoreMemorySize;
+    }
+
+    public void setOffHeapStoreMemorySize(int megabytes) {
+        offHeapStoreMemorySize = megabytes;
+    }
+
+    public int getOffHeapStoreOverflowSize() {
+        return offHeapStoreOverflowSize;
+    }
+
+    public void setOffHeapStoreOverflowSize(int megabytes) {
+        offHeapStoreOverflowSize = megabytes;
+    }
+
+    public String getOffHeapStoreOverflowDirectory() {
+        return offHeapStoreOverflowDirectory;
+    }
+
+    public void setOffHeapStoreOverflowDirectory(String directory) {
+        offHeapStoreOverflowDirectory = directory;
+    }
     
     public void printSessionManagerConfigForDebug(Logger logger) {
         if (com.ibm.ejs.ras.TraceComponent.isAnyTracingEnabled() && logger.isLoggable(Level.FINE)) {
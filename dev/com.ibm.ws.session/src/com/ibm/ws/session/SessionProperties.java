@@ -62,6 +62,10 @@ final public class SessionProperties {
         FullyQualifiedPropertiesMap.put("InvalidateOnUnauthorizedSessionRequestException", "invalidateOnUnauthorizedSessionRequestException");
         FullyQualifiedPropertiesMap.put("ExpectedCloneIds", "expectedCloneIds"); //PI18177
         FullyQualifiedPropertiesMap.put("ConnectionRetryCount ","connectionRetryCount"); //Feature 68570
+        FullyQualifiedPropertiesMap.put("OffHeapSessionStore", "offHeapSessionStore");
+        FullyQualifiedPropertiesMap.put("OffHeapSessionStoreMemorySize", "offHeapSessionStoreMemorySize");
+        FullyQualifiedPropertiesMap.put("OffHeapSessionStoreOverflowSize", "offHeapSessionStoreOverflowSize");
+        FullyQualifiedPropertiesMap.put("OffHeapSessionStoreOverflowDirectory", "offHeapSessionStoreOverflowDirectory");
     }
 
     private SessionProperties() {}
@@ -578,6 +582,58 @@ final public class SessionProperties {
             }
         } // Feature 68570 End
 
+        // Serialized attributes of idle in-memory sessions are kept off the heap, overflowing to a local file
+        final String propOffHeapSessionStore = "OffHeapSessionStore";
+        strProp = getStringProperty(propOffHeapSessionStore, xtpProperties);
+        if (strProp != null) {
+            booleanProp = Boolean.valueOf(strProp);
+            if (shouldSetAndDoLogging(propOffHeapSessionStore, false, baseServerLevelConfig, xtpProperties, booleanProp, null, false)) {
+                smc.setEnableOffHeapStore(booleanProp.booleanValue());
+            }
+        }
+
+        final String propOffHeapSessionStoreMemorySize = "OffHeapSessionStoreMemorySize";
+        strProp = getStringProperty(propOffHeapSessionStoreMemorySize, xtpProperties);
+        if (strProp != null) {
+            try {
+                int megabytes = Integer.parseInt(strProp);
+                if (megabytes < 1) {
+                    throw new NumberFormatException(strProp);
+                }
+                if (shouldSetAndDoLogging(propOffHeapSessionStoreMemorySize, false, baseServerLevelConfig, xtpProperties, Integer.valueOf(megabytes), null, false)) {
+                    smc.setOffHeapStoreMemorySize(megabytes);
+                }
+            } catch (NumberFormatException nfe) {
+                LoggingUtil.SESSION_LOGGER_CORE.logp(Level.WARNING, methodClassName, methodName, invalidPropFoundMessage, new Object[] { propOffHeapSessionStoreMemorySize,
+                                                                                                                                        strProp });
+            }
+        }
+
+        final String propOffHeapSessionStoreOverflowSize = "OffHeapSessionStoreOverflowSize";
+        strProp = getStringProperty(propOffHeapSessionStoreOverflowSize, xtpProperties);
+        if (strProp != null) {
+            try {
+                int megabytes = Integer.parseInt(strProp);
+                if (megabytes < 0) {
+                    throw new NumberFormatException(strProp);
+                }
+                if (shouldSetAndDoLogging(propOffHeapSessionStoreOverflowSize, false, baseServerLevelConfig, xtpProperties, Integer.valueOf(megabytes), null, false)) {
+                    smc.setOffHeapStoreOverflowSize(megabytes);
+                }
+            } catch (NumberFormatException nfe) {
+                LoggingUtil.SESSION_LOGGER_CORE.logp(Level.WARNING, methodClassName, methodName, invalidPropFoundMessage, new Object[] { propOffHeapSessionStoreOverflowSize,
+                                                                                                                                        strProp });
+            }
+        }
+
+        final String propOffHeapSessionStoreOverflowDirectory = "OffHeapSessionStoreOverflowDirectory";
+        strProp = getStringProperty(propOffHeapSessionStoreOverflowDirectory, xtpProperties);
+        if (strProp != null) {
+            if (shouldSetAndDoLogging(propOffHeapSessionStoreOverflowDirectory, false, baseServerLevelConfig, xtpProperties, strProp, null, false)) {
+                smc.setOffHeapStoreOverflowDirectory(strProp);
+            }
+        }
+
     }
 
     /*
@@ -182,14 +182,7 @@ public class MemoryStore implements IStore {
         // the newId parm...it could be removed, but its now part of the IStore
         // interface.
         if ((sess == null) && (_sessions.get(id) == null)) {
-            if(!_removeAttrOnInvalidate)
-                sess = new MemorySession(this, id, _storeCallback);
-            else{
-                if (com.ibm.ejs.ras.TraceComponent.isAnyTracingEnabled() && LoggingUtil.SESSION_LOGGER_CORE.isLoggable(Level.FINE)) {
-                    LoggingUtil.SESSION_LOGGER_CORE.logp(Level.FINE, methodClassName, methodNames[CREATE_SESSION], "Create MemorySession with _removeAttrOnInvalidate -->" + _removeAttrOnInvalidate );
-                }
-                sess = new MemorySession(this, id, _storeCallback, _removeAttrOnInvalidate);
-            }
+            sess = newSession(id, _removeAttrOnInvalidate);
             sess.setUserName(ANONYMOUS_USER);
             // since this was a newly created session, we need to update the
             // lastAccessTime to the create time
@@ -215,6 +208,19 @@ public class MemoryStore implements IStore {
         return sess;
     }
 
+    /*
+     * Creates the session object for a new id.
+     * Overridden by stores that keep their sessions in a MemorySession subclass
+     */
+    protected MemorySession newSession(String id, boolean removeAttrOnInvalidate) {
+        if(!removeAttrOnInvalidate)
+            return new MemorySession(this, id, _storeCallback);
+        if (com.ibm.ejs.ras.TraceComponent.isAnyTracingEnabled() && LoggingUtil.SESSION_LOGGER_CORE.isLoggable(Level.FINE)) {
+            LoggingUtil.SESSION_LOGGER_CORE.logp(Level.FINE, methodClassName, methodNames[CREATE_SESSION], "Create MemorySession with _removeAttrOnInvalidate -->" + removeAttrOnInvalidate );
+        }
+        return new MemorySession(this, id, _storeCallback, removeAttrOnInvalidate);
+    }
+
     /*
      * @see com.ibm.wsspi.session.IStore#getSession(java.lang.String, int)
      */
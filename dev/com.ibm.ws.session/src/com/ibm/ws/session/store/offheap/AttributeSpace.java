@@ -0,0 +1,409 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.session.store.offheap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.logging.Level;
+
+import com.ibm.ws.session.utils.LoggingUtil;
+
+/*
+ * Holds serialized session attributes outside of the Java heap.
+ *
+ * Values are appended into fixed size segments. Resident segments are direct
+ * buffers; once they are all in use the least recently used one has its live
+ * values moved into segments mapped from an overflow file, which frees it for
+ * new values. A value read from the overflow file is moved back into a resident
+ * segment when one has room.
+ *
+ * Callers hold on to a slot number rather than a location, so values can be
+ * moved between segments without the owning session knowing. The space held
+ * by a released value is reclaimed once every value in its segment has been
+ * released, or, for a resident segment, when the segment is moved out.
+ *
+ * All methods are synchronized on the space; each call only copies bytes.
+ */
+public class AttributeSpace {
+
+    private static final String methodClassName = "AttributeSpace";
+
+    private static final int RESIDENT = 0;
+    private static final int OVERFLOW = 1;
+
+    /*
+     * A region that values are appended to until it is full
+     */
+    static final class Segment {
+        final int tier;
+        final int index;
+        final ByteBuffer buffer;
+        int used;
+        int live;
+        long lastUsed;
+        // slot and offset of each value appended since the segment was last emptied
+        int[] slots = new int[64];
+        int[] offsets = new int[64];
+        int entries;
+
+        Segment(int tier, int index, ByteBuffer buffer) {
+            this.tier = tier;
+            this.index = index;
+            this.buffer = buffer;
+        }
+
+        void add(int slot, int offset) {
+            if (entries == slots.length) {
+                int[] s = new int[entries * 2];
+                int[] o = new int[entries * 2];
+                System.arraycopy(slots, 0, s, 0, entries);
+                System.arraycopy(offsets, 0, o, 0, entries);
+                slots = s;
+                offsets = o;
+            }
+            slots[entries] = slot;
+            offsets[entries] = offset;
+            entries++;
+        }
+
+        void reset() {
+            used = 0;
+            live = 0;
+            entries = 0;
+        }
+    }
+
+    private final int segmentSize;
+    private final Segment[][] segments = new Segment[2][];
+    private final int[] segmentCount = new int[2];
+    private final Segment[] current = new Segment[2];
+    private final ArrayList<Segment> emptyResident = new ArrayList<Segment>();
+    private final ArrayList<Segment> emptyOverflow = new ArrayList<Segment>();
+
+    private final File overflowDirectory;
+    private File overflowFile;
+    private RandomAccessFile overflowAccess;
+    private FileChannel overflowChannel;
+
+    // slot -> encoded location, or -1 when the slot is free
+    private long[] locations = new long[256];
+    private int[] lengths = new int[256];
+    private int[] freeSlots = new int[256];
+    private int freeSlotCount = 0;
+    private int slotCount = 0;
+
+    private long tick = 0;
+    private boolean closed = false;
+
+    /*
+     * The space uses up to residentSegments direct buffers and overflowSegments
+     * regions of the overflow file, each segmentSize bytes. The overflow file is
+     * created in overflowDirectory, or the temporary directory when that is null,
+     * the first time it is needed.
+     */
+    public AttributeSpace(int segmentSize, int residentSegments, int overflowSegments, File overflowDirectory) {
+        this.segmentSize = segmentSize;
+        this.segments[RESIDENT] = new Segment[Math.max(residentSegments, 1)];
+        this.segments[OVERFLOW] = new Segment[Math.max(overflowSegments, 0)];
+        this.overflowDirectory = overflowDirectory;
+    }
+
+    private static long encode(int tier, int index, int offset) {
+        return ((long) tier << 62) | ((long) index << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private Segment segmentAt(long location) {
+        return segments[(int) (location >>> 62)][(int) ((location >>> 32) & 0x3FFFFFFF)];
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    /*
+     * Copies data into the space and returns the slot that now holds it, or -1
+     * if the value is larger than a segment or there is no room left.
+     */
+    public synchronized int store(byte[] data) {
+        if (closed || data.length > segmentSize) {
+            return -1;
+        }
+        Segment target = allocate(RESIDENT, data.length);
+        while (target == null && evictLeastRecentlyUsed()) {
+            target = allocate(RESIDENT, data.length);
+        }
+        if (target == null) {
+            target = allocate(OVERFLOW, data.length);
+            if (target == null) {
+                return -1;
+            }
+        }
+        int slot = newSlot();
+        write(target, slot, data, 0, data.length);
+        return slot;
+    }
+
+    /*
+     * Returns a copy of the value held in slot, or null once the space is closed
+     */
+    public synchronized byte[] load(int slot) {
+        if (closed) {
+            return null;
+        }
+        long location = locations[slot];
+        Segment s = segmentAt(location);
+        byte[] data = new byte[lengths[slot]];
+        ByteBuffer view = s.buffer.duplicate();
+        view.position(offsetOf(location));
+        view.get(data);
+        s.lastUsed = ++tick;
+        if (s.tier == OVERFLOW) {
+            // bring it back if that can be done without pushing anything else out
+            Segment target = allocate(RESIDENT, data.length);
+            if (target != null) {
+                unlink(s, data.length);
+                write(target, slot, data, 0, data.length);
+            }
+        }
+        return data;
+    }
+
+    /*
+     * Returns whether slot holds exactly the bytes in data
+     */
+    public synchronized boolean contentEquals(int slot, byte[] data) {
+        if (closed || lengths[slot] != data.length) {
+            return false;
+        }
+        long location = locations[slot];
+        ByteBuffer view = segmentAt(location).buffer.duplicate();
+        view.position(offsetOf(location));
+        for (int i = 0; i < data.length; i++) {
+            if (view.get() != data[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Releases the value held in slot; the slot must not be used again
+     */
+    public synchronized void release(int slot) {
+        if (closed) {
+            return;
+        }
+        unlink(segmentAt(locations[slot]), lengths[slot]);
+        locations[slot] = -1L;
+        if (freeSlotCount == freeSlots.length) {
+            int[] f = new int[freeSlotCount * 2];
+            System.arraycopy(freeSlots, 0, f, 0, freeSlotCount);
+            freeSlots = f;
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    /*
+     * Releases every segment and deletes the overflow file
+     */
+    public synchronized void close() {
+        closed = true;
+        emptyResident.clear();
+        emptyOverflow.clear();
+        for (int tier = RESIDENT; tier <= OVERFLOW; tier++) {
+            current[tier] = null;
+            for (int i = 0; i < segmentCount[tier]; i++) {
+                segments[tier][i] = null;
+            }
+            segmentCount[tier] = 0;
+        }
+        if (overflowChannel != null) {
+            try {
+                overflowAccess.close();
+            } catch (IOException e) {
+                com.ibm.ws.ffdc.FFDCFilter.processException(e, "com.ibm.ws.session.store.offheap.AttributeSpace.close", "222", this);
+            }
+            if (!overflowFile.delete()) {
+                // still mapped on some platforms until the buffers are collected
+                overflowFile.deleteOnExit();
+            }
+            overflowChannel = null;
+            overflowAccess = null;
+        }
+    }
+
+    /*
+     * Bytes held by live values in resident segments
+     */
+    public synchronized long getResidentBytes() {
+        return liveBytes(RESIDENT);
+    }
+
+    /*
+     * Bytes held by live values in the overflow file
+     */
+    public synchronized long getOverflowBytes() {
+        return liveBytes(OVERFLOW);
+    }
+
+    private long liveBytes(int tier) {
+        long total = 0;
+        for (int i = 0; i < segmentCount[tier]; i++) {
+            total += segments[tier][i].live;
+        }
+        return total;
+    }
+
+    private int newSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (slotCount == locations.length) {
+            long[] l = new long[slotCount * 2];
+            int[] n = new int[slotCount * 2];
+            System.arraycopy(locations, 0, l, 0, slotCount);
+            System.arraycopy(lengths, 0, n, 0, slotCount);
+            locations = l;
+            lengths = n;
+        }
+        return slotCount++;
+    }
+
+    private void write(Segment target, int slot, byte[] data, int offset, int length) {
+        int position = target.used;
+        ByteBuffer view = target.buffer.duplicate();
+        view.position(position);
+        view.put(data, offset, length);
+        target.used += length;
+        target.live += length;
+        target.lastUsed = ++tick;
+        target.add(slot, position);
+        locations[slot] = encode(target.tier, target.index, position);
+        lengths[slot] = length;
+    }
+
+    /*
+     * Accounts for a value leaving segment s, and recycles the segment once nothing in it is live
+     */
+    private void unlink(Segment s, int length) {
+        s.live -= length;
+        if (s.live == 0 && s != current[s.tier]) {
+            s.reset();
+            (s.tier == RESIDENT ? emptyResident : emptyOverflow).add(s);
+        }
+    }
+
+    /*
+     * Returns a segment of the given tier with room for length more bytes, or null
+     */
+    private Segment allocate(int tier, int length) {
+        Segment s = current[tier];
+        if (s != null && s.used + length <= segmentSize) {
+            return s;
+        }
+        if (s != null && s.live == 0) {
+            // nothing in it is live any more, so start it again
+            s.reset();
+            return s;
+        }
+        ArrayList<Segment> empty = (tier == RESIDENT ? emptyResident : emptyOverflow);
+        if (!empty.isEmpty()) {
+            s = empty.remove(empty.size() - 1);
+        } else if (segmentCount[tier] < segments[tier].length) {
+            s = newSegment(tier);
+            if (s == null) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+        current[tier] = s;
+        return s;
+    }
+
+    private Segment newSegment(int tier) {
+        int index = segmentCount[tier];
+        ByteBuffer buffer;
+        if (tier == RESIDENT) {
+            buffer = ByteBuffer.allocateDirect(segmentSize);
+        } else {
+            try {
+                if (overflowChannel == null) {
+                    overflowFile = File.createTempFile("sessions", ".overflow", overflowDirectory);
+                    overflowFile.deleteOnExit();
+                    overflowAccess = new RandomAccessFile(overflowFile, "rw");
+                    overflowChannel = overflowAccess.getChannel();
+                    if (com.ibm.ejs.ras.TraceComponent.isAnyTracingEnabled() && LoggingUtil.SESSION_LOGGER_CORE.isLoggable(Level.FINE)) {
+                        LoggingUtil.SESSION_LOGGER_CORE.logp(Level.FINE, methodClassName, "newSegment", "created overflow file " + overflowFile);
+                    }
+                }
+                buffer = overflowChannel.map(FileChannel.MapMode.READ_WRITE, (long) index * segmentSize, segmentSize);
+            } catch (IOException e) {
+                com.ibm.ws.ffdc.FFDCFilter.processException(e, "com.ibm.ws.session.store.offheap.AttributeSpace.newSegment", "336", this);
+                // don't keep trying to grow a file we can't write
+                segments[OVERFLOW] = Arrays.copyOf(segments[OVERFLOW], segmentCount[OVERFLOW]);
+                return null;
+            }
+        }
+        Segment s = new Segment(tier, index, buffer);
+        segments[tier][index] = s;
+        segmentCount[tier]++;
+        return s;
+    }
+
+    /*
+     * Moves the live values of the least recently used resident segment into the
+     * overflow file. Returns false if nothing could be freed.
+     */
+    private boolean evictLeastRecentlyUsed() {
+        Segment victim = null;
+        for (int i = 0; i < segmentCount[RESIDENT]; i++) {
+            Segment s = segments[RESIDENT][i];
+            if (s.used > 0 && (victim == null || s.lastUsed < victim.lastUsed)) {
+                victim = s;
+            }
+        }
+        if (victim == null) {
+            return false;
+        }
+        ByteBuffer source = victim.buffer.duplicate();
+        for (int i = 0; i < victim.entries; i++) {
+            int slot = victim.slots[i];
+            int offset = victim.offsets[i];
+            if (locations[slot] != encode(RESIDENT, victim.index, offset)) {
+                continue; // released or already moved
+            }
+            int length = lengths[slot];
+            Segment target = allocate(OVERFLOW, length);
+            if (target == null) {
+                if (com.ibm.ejs.ras.TraceComponent.isAnyTracingEnabled() && LoggingUtil.SESSION_LOGGER_CORE.isLoggable(Level.FINE)) {
+                    LoggingUtil.SESSION_LOGGER_CORE.logp(Level.FINE, methodClassName, "evictLeastRecentlyUsed", "overflow file is full");
+                }
+                return false;
+            }
+            byte[] data = new byte[length];
+            source.position(offset);
+            source.get(data);
+            victim.live -= length;
+            write(target, slot, data, 0, length);
+        }
+        victim.reset();
+        if (victim != current[RESIDENT]) {
+            emptyResident.add(victim);
+        }
+        return true;
+    }
+}
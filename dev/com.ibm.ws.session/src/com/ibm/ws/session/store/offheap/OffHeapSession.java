@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.session.store.offheap;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.logging.Level;
+
+import com.ibm.ws.session.store.memory.MemorySession;
+import com.ibm.ws.session.utils.LoggingUtil;
+import com.ibm.wsspi.session.IStoreCallback;
+
+/*
+ * MemorySession whose serializable attributes live in the store's AttributeSpace
+ * between requests.
+ *
+ * An attribute is deserialized into _attributes the first time a request asks
+ * for it. When the last request using the session releases it, attributes that
+ * were set, or whose serialized form no longer matches the stored copy, are
+ * written back, and the heap copies are dropped.
+ */
+public class OffHeapSession extends MemorySession {
+
+    private static final long serialVersionUID = -2304928436185672093L;
+    private static final String methodClassName = "OffHeapSession";
+
+    private final OffHeapStore _offHeapStore;
+    private final boolean _removeAttributesOnInvalidate;
+    // attribute name -> slot holding its last written form
+    private final Hashtable _slots = new Hashtable(5);
+    // attributes set since the session was last stored
+    private final HashSet _changed = new HashSet(5);
+
+    public OffHeapSession(OffHeapStore store, String id, IStoreCallback storeCallback, boolean removeAttrOnInvalidate) {
+        super(store, id, storeCallback, removeAttrOnInvalidate);
+        _offHeapStore = store;
+        _removeAttributesOnInvalidate = removeAttrOnInvalidate;
+    }
+
+    /*
+     * @see com.ibm.wsspi.session.ISession#getAttribute(java.lang.Object)
+     */
+    @Override
+    public synchronized Object getAttribute(Object name) {
+        loadAttribute(name);
+        return super.getAttribute(name);
+    }
+
+    /*
+     * @see com.ibm.wsspi.session.ISession#setAttribute(java.lang.Object, java.lang.Object, java.lang.Boolean)
+     */
+    @Override
+    public synchronized Object setAttribute(Object name, Object value, Boolean newIsListener) {
+        // listeners are told the value being replaced
+        loadAttribute(name);
+        Object oldValue = super.setAttribute(name, value, newIsListener);
+        _changed.add(name);
+        return oldValue;
+    }
+
+    /*
+     * @see com.ibm.wsspi.session.ISession#removeAttribute(java.lang.Object)
+     */
+    @Override
+    public synchronized Object removeAttribute(Object name) {
+        loadAttribute(name);
+        Object oldValue = super.removeAttribute(name);
+        _changed.remove(name);
+        releaseSlot(name);
+        return oldValue;
+    }
+
+    /*
+     * @see com.ibm.wsspi.session.ISession#invalidate()
+     */
+    @Override
+    public synchronized void invalidate() {
+        if (_removeAttributesOnInvalidate && _isValid && !invalInProgress) {
+            // every attribute is removed one at a time, so they all need to be on the heap
+            loadAllAttributes();
+        }
+        super.invalidate();
+        if (!_isValid) {
+            releaseAllSlots();
+        }
+    }
+
+    /*
+     * @see com.ibm.ws.session.store.memory.MemorySession#getSwappableData()
+     */
+    @Override
+    public Hashtable getSwappableData() {
+        synchronized (this) {
+            loadAllAttributes();
+        }
+        return super.getSwappableData();
+    }
+
+    /*
+     * Called by the store when a request releases the session. Writes the
+     * attributes that changed, and drops the heap copies once no request is
+     * using the session.
+     */
+    synchronized void storeAttributes() {
+        if (!_isValid || _attributes == null) {
+            return;
+        }
+        boolean unload = _refCount <= 0;
+        AttributeSpace space = _offHeapStore.getSpace();
+        int written = 0;
+        Object[] names = _attributes.keySet().toArray();
+        for (int i = 0; i < names.length; i++) {
+            Object name = names[i];
+            Object value = _attributes.get(name);
+            if (!(value instanceof Serializable)) {
+                releaseSlot(name);
+                continue;
+            }
+            Integer slot = (Integer) _slots.get(name);
+            boolean changed = slot == null || _changed.contains(name);
+            if (changed || !isImmutable(value)) {
+                // a value that was only read may still have been modified in place
+                byte[] data = _offHeapStore.serialize(value);
+                if (data == null) {
+                    releaseSlot(name);
+                    continue;
+                }
+                if (changed || !space.contentEquals(slot.intValue(), data)) {
+                    int newSlot = space.store(data);
+                    releaseSlot(name);
+                    if (newSlot < 0) {
+                        // no room left, so keep it on the heap
+                        continue;
+                    }
+                    _slots.put(name, Integer.valueOf(newSlot));
+                    written++;
+                }
+            }
+            if (unload) {
+                _attributes.remove(name);
+            }
+        }
+        _changed.clear();
+        if (com.ibm.ejs.ras.TraceComponent.isAnyTracingEnabled() && LoggingUtil.SESSION_LOGGER_CORE.isLoggable(Level.FINE)) {
+            StringBuffer sb = new StringBuffer("written=").append(written).append(" unloaded=").append(unload).append(appNameAndIdString);
+            LoggingUtil.SESSION_LOGGER_CORE.logp(Level.FINE, methodClassName, "storeAttributes", sb.toString());
+        }
+    }
+
+    /*
+     * Values of these types can only change through setAttribute
+     */
+    private static boolean isImmutable(Object value) {
+        return value instanceof String || value instanceof Boolean || value instanceof Integer || value instanceof Long
+               || value instanceof Character || value instanceof Short || value instanceof Byte || value instanceof Double
+               || value instanceof Float;
+    }
+
+    private void loadAttribute(Object name) {
+        if (_attributes == null || _attributes.containsKey(name)) {
+            return;
+        }
+        Integer slot = (Integer) _slots.get(name);
+        if (slot == null) {
+            return;
+        }
+        byte[] data = _offHeapStore.getSpace().load(slot.intValue());
+        Object value = (data == null) ? null : _offHeapStore.deserialize(data);
+        if (value == null) {
+            // The stored form can't be read back (deserialize has logged why), or the store
+            // is stopped. The attribute is lost, so give back its slot rather than keeping it.
+            LoggingUtil.SESSION_LOGGER_CORE.logp(Level.WARNING, methodClassName, "loadAttribute", "attribute " + name + " could not be loaded and was removed"
+                                                                                              + appNameAndIdString);
+            releaseSlot(name);
+            return;
+        }
+        _attributes.put(name, value);
+    }
+
+    private void loadAllAttributes() {
+        Object[] names = _slots.keySet().toArray();
+        for (int i = 0; i < names.length; i++) {
+            loadAttribute(names[i]);
+        }
+    }
+
+    private void releaseSlot(Object name) {
+        Integer slot = (Integer) _slots.remove(name);
+        if (slot != null) {
+            _offHeapStore.getSpace().release(slot.intValue());
+        }
+    }
+
+    private void releaseAllSlots() {
+        AttributeSpace space = _offHeapStore.getSpace();
+        for (Iterator it = _slots.values().iterator(); it.hasNext();) {
+            space.release(((Integer) it.next()).intValue());
+        }
+        _slots.clear();
+        _changed.clear();
+    }
+}
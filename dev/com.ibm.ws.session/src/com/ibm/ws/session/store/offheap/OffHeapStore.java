@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.session.store.offheap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.logging.Level;
+
+import javax.servlet.ServletContext;
+
+import com.ibm.ws.session.MemoryStoreHelper;
+import com.ibm.ws.session.SessionManagerConfig;
+import com.ibm.ws.session.store.memory.MemorySession;
+import com.ibm.ws.session.store.memory.MemoryStore;
+import com.ibm.ws.session.utils.LoggingUtil;
+import com.ibm.wsspi.session.ISession;
+
+/*
+ * In-memory store that keeps the serializable attributes of idle sessions
+ * serialized outside of the Java heap, spilling to a local file when the
+ * configured memory is used up. Session metadata, and attributes that can't
+ * be serialized, stay on the heap as they do in MemoryStore.
+ */
+public class OffHeapStore extends MemoryStore {
+
+    private static final String methodClassName = "OffHeapStore";
+
+    // the memory and overflow sizes are configured in megabytes, so one segment per megabyte
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+
+    private final AttributeSpace _space;
+    private final ClassLoader _classLoader;
+
+    /*
+     * Resolves attribute classes with the application's class loader
+     */
+    private static final class AttributeInputStream extends ObjectInputStream {
+        private final ClassLoader _loader;
+
+        AttributeInputStream(InputStream in, ClassLoader loader) throws IOException {
+            super(in);
+            _loader = loader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (_loader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, _loader);
+                } catch (ClassNotFoundException e) {
+                    // fall through - primitive types are only known to the default
+                }
+            }
+            return super.resolveClass(desc);
+        }
+    }
+
+    public OffHeapStore(SessionManagerConfig smc, String storeId, ServletContext sc, MemoryStoreHelper storeHelper, ClassLoader classLoader, boolean removeAttrOnInvalidate) {
+        super(smc, storeId, sc, storeHelper, false, removeAttrOnInvalidate);
+        _classLoader = classLoader;
+        String directory = smc.getOffHeapStoreOverflowDirectory();
+        _space = new AttributeSpace(SEGMENT_SIZE, smc.getOffHeapStoreMemorySize(), smc.getOffHeapStoreOverflowSize(), directory == null ? null : new File(directory));
+        if (com.ibm.ejs.ras.TraceComponent.isAnyTracingEnabled() && LoggingUtil.SESSION_LOGGER_CORE.isLoggable(Level.FINE)) {
+            StringBuffer sb = new StringBuffer("memory=").append(smc.getOffHeapStoreMemorySize()).append("MB overflow=").append(smc.getOffHeapStoreOverflowSize()).append("MB directory=").append(directory).append(appNameForLogging);
+            LoggingUtil.SESSION_LOGGER_CORE.logp(Level.FINE, methodClassName, "OffHeapStore", sb.toString());
+        }
+    }
+
+    /*
+     * @see com.ibm.ws.session.store.memory.MemoryStore#newSession(java.lang.String, boolean)
+     */
+    @Override
+    protected MemorySession newSession(String id, boolean removeAttrOnInvalidate) {
+        return new OffHeapSession(this, id, _storeCallback, removeAttrOnInvalidate);
+    }
+
+    /*
+     * @see com.ibm.wsspi.session.IStore#releaseSession(ISession)
+     * called at the end of every request that used the session, with the session locked
+     */
+    @Override
+    public void releaseSession(ISession session) {
+        if (session instanceof OffHeapSession) {
+            ((OffHeapSession) session).storeAttributes();
+        }
+    }
+
+    /*
+     * Invalidates all sessions, then gives back the memory and overflow file
+     */
+    @Override
+    public synchronized void stop() {
+        super.stop();
+        _space.close();
+    }
+
+    AttributeSpace getSpace() {
+        return _space;
+    }
+
+    /*
+     * Returns the serialized form of value, or null if it can't be serialized
+     */
+    byte[] serialize(Object value) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            ObjectOutputStream oos = new ObjectOutputStream(baos);
+            oos.writeObject(value);
+            oos.close();
+        } catch (NotSerializableException e) {
+            // something the attribute refers to isn't serializable, so it stays on the heap
+            if (com.ibm.ejs.ras.TraceComponent.isAnyTracingEnabled() && LoggingUtil.SESSION_LOGGER_CORE.isLoggable(Level.FINE)) {
+                LoggingUtil.SESSION_LOGGER_CORE.logp(Level.FINE, methodClassName, "serialize", "not serializable: " + e.getMessage() + appNameForLogging);
+            }
+            return null;
+        } catch (IOException e) {
+            com.ibm.ws.ffdc.FFDCFilter.processException(e, "com.ibm.ws.session.store.offheap.OffHeapStore.serialize", "133", this);
+            return null;
+        }
+        return baos.toByteArray();
+    }
+
+    /*
+     * Reads an attribute back from the bytes written by serialize, or returns null if it can't be read
+     */
+    Object deserialize(byte[] data) {
+        try {
+            ObjectInputStream ois = new AttributeInputStream(new ByteArrayInputStream(data), _classLoader);
+            try {
+                return ois.readObject();
+            } finally {
+                ois.close();
+            }
+        } catch (Exception e) {
+            com.ibm.ws.ffdc.FFDCFilter.processException(e, "com.ibm.ws.session.store.offheap.OffHeapStore.deserialize", "151", this);
+            LoggingUtil.SESSION_LOGGER_CORE.logp(Level.SEVERE, methodClassName, "deserialize", "CommonMessage.exception", e);
+            return null;
+        }
+    }
+}
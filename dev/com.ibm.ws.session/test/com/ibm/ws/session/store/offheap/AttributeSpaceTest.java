@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.session.store.offheap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the off-heap attribute space, using 64 byte segments so that
+ * a few values fill the memory and overflow to the file.
+ */
+public class AttributeSpaceTest {
+    private static final int SEGMENT_SIZE = 64;
+
+    private File overflowDirectory;
+    private AttributeSpace space;
+
+    @Before
+    public void setUp() throws IOException {
+        overflowDirectory = File.createTempFile("AttributeSpaceTest", "");
+        assertTrue(overflowDirectory.delete());
+        assertTrue(overflowDirectory.mkdir());
+    }
+
+    @After
+    public void tearDown() {
+        if (space != null) {
+            space.close();
+        }
+        File[] files = overflowDirectory.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            files[i].delete();
+        }
+        overflowDirectory.delete();
+    }
+
+    private static byte[] value(int fill, int length) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, (byte) fill);
+        return data;
+    }
+
+    private int overflowFiles() {
+        File[] files = overflowDirectory.listFiles();
+        return files == null ? 0 : files.length;
+    }
+
+    @Test
+    public void testStoreAndLoad() {
+        space = new AttributeSpace(SEGMENT_SIZE, 2, 0, overflowDirectory);
+        int a = space.store(value(1, 20));
+        int b = space.store(value(2, 30));
+        assertTrue(a >= 0 && b >= 0 && a != b);
+
+        assertArrayEquals(value(1, 20), space.load(a));
+        assertArrayEquals(value(2, 30), space.load(b));
+        assertTrue(space.contentEquals(a, value(1, 20)));
+        assertFalse(space.contentEquals(a, value(3, 20)));
+        assertFalse(space.contentEquals(a, value(1, 21)));
+        assertEquals(50, space.getResidentBytes());
+        assertEquals(0, space.getOverflowBytes());
+    }
+
+    @Test
+    public void testValueLargerThanSegmentIsRejected() {
+        space = new AttributeSpace(SEGMENT_SIZE, 2, 2, overflowDirectory);
+        assertEquals(-1, space.store(value(1, SEGMENT_SIZE + 1)));
+        assertTrue(space.store(value(1, SEGMENT_SIZE)) >= 0);
+    }
+
+    /**
+     * Once the resident segments are full, the least recently used one is moved
+     * into the overflow file, and every value can still be loaded.
+     */
+    @Test
+    public void testOverflowToFile() {
+        space = new AttributeSpace(SEGMENT_SIZE, 2, 4, overflowDirectory);
+        int[] slots = new int[5];
+        for (int i = 0; i < 4; i++) {
+            slots[i] = space.store(value(i, 32));
+        }
+        assertEquals(128, space.getResidentBytes());
+        assertEquals(0, overflowFiles());
+
+        // the first segment, holding values 0 and 1, is the least recently used
+        slots[4] = space.store(value(4, 32));
+        assertTrue(slots[4] >= 0);
+        assertEquals(1, overflowFiles());
+        assertEquals(96, space.getResidentBytes());
+        assertEquals(64, space.getOverflowBytes());
+
+        // values 2 to 4 are resident, so loading them leaves the overflow file as it is
+        for (int i = 2; i < 5; i++) {
+            assertArrayEquals(value(i, 32), space.load(slots[i]));
+        }
+        assertEquals(64, space.getOverflowBytes());
+
+        // a value loaded from the overflow file moves back into memory when there is room
+        assertArrayEquals(value(0, 32), space.load(slots[0]));
+        assertEquals(128, space.getResidentBytes());
+        assertEquals(32, space.getOverflowBytes());
+        assertArrayEquals(value(1, 32), space.load(slots[1]));
+        assertEquals(32, space.getOverflowBytes());
+        assertArrayEquals(value(0, 32), space.load(slots[0]));
+    }
+
+    /**
+     * A value is rejected when memory is full and there is no overflow file.
+     */
+    @Test
+    public void testFullSpaceRejectsValues() {
+        space = new AttributeSpace(SEGMENT_SIZE, 1, 0, overflowDirectory);
+        int a = space.store(value(1, 32));
+        int b = space.store(value(2, 32));
+        assertTrue(a >= 0 && b >= 0);
+        assertEquals(-1, space.store(value(3, 32)));
+        assertEquals(0, overflowFiles());
+
+        // the rejected value didn't disturb the stored ones
+        assertArrayEquals(value(1, 32), space.load(a));
+        assertArrayEquals(value(2, 32), space.load(b));
+    }
+
+    @Test
+    public void testFullOverflowRejectsValues() {
+        space = new AttributeSpace(SEGMENT_SIZE, 1, 1, overflowDirectory);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(space.store(value(i, 32)) >= 0);
+        }
+        assertEquals(SEGMENT_SIZE, space.getResidentBytes());
+        assertEquals(SEGMENT_SIZE, space.getOverflowBytes());
+        assertEquals(-1, space.store(value(4, 32)));
+    }
+
+    /**
+     * Released slots are reused, and a segment is reused once all of its values are released.
+     */
+    @Test
+    public void testRelease() {
+        space = new AttributeSpace(SEGMENT_SIZE, 1, 0, overflowDirectory);
+        int a = space.store(value(1, 32));
+        int b = space.store(value(2, 32));
+        space.release(a);
+        assertEquals(32, space.getResidentBytes());
+
+        // half of the segment is still live, so there is no room yet
+        assertEquals(-1, space.store(value(3, 32)));
+
+        space.release(b);
+        assertEquals(0, space.getResidentBytes());
+        int c = space.store(value(3, 32));
+        assertTrue(c == a || c == b);
+        assertArrayEquals(value(3, 32), space.load(c));
+        assertEquals(32, space.getResidentBytes());
+    }
+
+    /**
+     * Releasing every value of an overflow segment frees it for the next resident segment
+     * that is moved out.
+     */
+    @Test
+    public void testReleaseInOverflowFile() {
+        space = new AttributeSpace(SEGMENT_SIZE, 1, 1, overflowDirectory);
+        int[] slots = new int[4];
+        for (int i = 0; i < 4; i++) {
+            slots[i] = space.store(value(i, 32));
+        }
+        assertEquals(-1, space.store(value(4, 32)));
+
+        // values 0 and 1 are in the overflow file
+        space.release(slots[0]);
+        space.release(slots[1]);
+        assertEquals(0, space.getOverflowBytes());
+
+        int slot = space.store(value(4, 32));
+        assertTrue(slot >= 0);
+        assertEquals(SEGMENT_SIZE, space.getOverflowBytes());
+        assertEquals(32, space.getResidentBytes());
+        assertArrayEquals(value(2, 32), space.load(slots[2]));
+        assertArrayEquals(value(4, 32), space.load(slot));
+    }
+
+    @Test
+    public void testClose() {
+        space = new AttributeSpace(SEGMENT_SIZE, 1, 2, overflowDirectory);
+        int slot = space.store(value(1, 32));
+        space.store(value(2, 32));
+        space.store(value(3, 32));
+        assertEquals(1, overflowFiles());
+
+        space.close();
+        assertEquals(0, overflowFiles());
+        assertNull(space.load(slot));
+        assertEquals(-1, space.store(value(4, 32)));
+        assertEquals(0, space.getResidentBytes());
+        space.release(slot);
+    }
+}
@@ -30,7 +30,7 @@ import com.ibm.ejs.ras.TraceComponent;
  * the buffer. The buffer contains a expedited FIFO buffer, whose objects
  * will be removed before objects in the main buffer.
  */
-public class BoundedBuffer<T> implements BlockingQueue<T> {
+public class BoundedBuffer<T> implements ExpandableQueue<T> {
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
     //
     // Implementation Note:  the buffer is implemented using a circular
@@ -803,6 +803,7 @@ public class BoundedBuffer<T> implements BlockingQueue<T> {
      *            The amount by which the buffer's capacity should be increased.
      */
     @SuppressWarnings("unchecked")
+    @Override
     public synchronized void expand(int additionalCapacity) {
         if (additionalCapacity <= 0) {
             throw new IllegalArgumentException();
@@ -867,6 +868,7 @@ public class BoundedBuffer<T> implements BlockingQueue<T> {
      *            The amount by which the expedited buffer's capacity should be increased.
      */
     @SuppressWarnings("unchecked")
+    @Override
     public synchronized void expandExpedited(int additionalCapacity) {
         if (additionalCapacity <= 0) {
             throw new IllegalArgumentException();
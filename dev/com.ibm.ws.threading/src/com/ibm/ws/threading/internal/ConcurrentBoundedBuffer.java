@@ -0,0 +1,383 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.threading.internal;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.websphere.ras.annotation.Trivial;
+
+/**
+ * Lock-free alternative to BoundedBuffer. Like BoundedBuffer, this is a bounded FIFO with an
+ * expedited lane whose items are removed before items in the main lane, and where the capacity of
+ * either lane can be increased via expand/expandExpedited.
+ *
+ * Items are held in two ConcurrentLinkedQueue instances (as in DoubleQueue) rather than in arrays
+ * guarded by monitors. Capacity is tracked by a pair of semaphores whose permits represent the free
+ * slots in each lane, and availability of items is tracked by a third semaphore whose permits represent
+ * the number of items that can be polled. None of the put/offer/poll/take paths acquire a monitor;
+ * the semaphores only block a thread when it needs to wait for space or for an item.
+ *
+ * @param <T> type of queue item
+ */
+@Trivial
+public class ConcurrentBoundedBuffer<T> extends AbstractQueue<T> implements ExpandableQueue<T> {
+    private static final TraceComponent tc = Tr.register(ConcurrentBoundedBuffer.class);
+
+    /**
+     * Queue for expedited offer/add, which is preferred for polling/removal.
+     */
+    private final ConcurrentLinkedQueue<T> expeditedQueue = new ConcurrentLinkedQueue<T>();
+
+    /**
+     * Queue for normal offer/add.
+     */
+    private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<T>();
+
+    /**
+     * Count of items available for poll/removal.
+     */
+    private final ReduceableSemaphore available = new ReduceableSemaphore(0, false);
+
+    /**
+     * Free slots in the main lane. Expanding the lane releases additional permits.
+     */
+    private final ReduceableSemaphore space;
+
+    /**
+     * Free slots in the expedited lane. Expanding the lane releases additional permits.
+     */
+    private final ReduceableSemaphore expeditedSpace;
+
+    /**
+     * Total capacity of the main lane, for reporting only.
+     */
+    private final AtomicInteger capacity;
+
+    /**
+     * Total capacity of the expedited lane, for reporting only.
+     */
+    private final AtomicInteger expeditedCapacity;
+
+    /**
+     * Create a ConcurrentBoundedBuffer with the given capacities.
+     *
+     * @param capacity initial capacity of the main lane.
+     * @param expeditedCapacity initial capacity of the expedited lane.
+     * @throws IllegalArgumentException if either capacity is less than or equal to zero.
+     */
+    public ConcurrentBoundedBuffer(int capacity, int expeditedCapacity) {
+        if (capacity <= 0 || expeditedCapacity <= 0)
+            throw new IllegalArgumentException();
+
+        this.capacity = new AtomicInteger(capacity);
+        this.expeditedCapacity = new AtomicInteger(expeditedCapacity);
+        space = new ReduceableSemaphore(capacity, false);
+        expeditedSpace = new ReduceableSemaphore(expeditedCapacity, false);
+
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled())
+            Tr.debug(this, tc, "Created concurrent bounded buffer: capacity=" + capacity + " expedited capacity=" + expeditedCapacity);
+    }
+
+    /**
+     * Returns the overall capacity of the buffer, including both lanes.
+     * Note that this is how much the buffer can hold, not how much space is unused.
+     */
+    public int capacity() {
+        return capacity.get() + expeditedCapacity.get();
+    }
+
+    @Override
+    public boolean contains(Object item) {
+        return queue.contains(item) || expeditedQueue.contains(item);
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> col) {
+        int count = 0;
+        for (T item; (item = poll()) != null; count++)
+            col.add(item);
+        return count;
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> col, int maxElements) {
+        int count = 0;
+        for (T item; count < maxElements && (item = poll()) != null; count++)
+            col.add(item);
+        return count;
+    }
+
+    /**
+     * Increases the main lane's capacity by the given amount. Producers that are blocked
+     * waiting for space are able to proceed as soon as the permits are released.
+     */
+    @Override
+    public void expand(int additionalCapacity) {
+        if (additionalCapacity <= 0)
+            throw new IllegalArgumentException();
+
+        capacity.addAndGet(additionalCapacity);
+        space.release(additionalCapacity);
+    }
+
+    /**
+     * Increases the expedited lane's capacity by the given amount.
+     */
+    @Override
+    public void expandExpedited(int additionalCapacity) {
+        if (additionalCapacity <= 0)
+            throw new IllegalArgumentException();
+
+        expeditedCapacity.addAndGet(additionalCapacity);
+        expeditedSpace.release(additionalCapacity);
+    }
+
+    /**
+     * Adds an item to its lane, for which space must already have been reserved.
+     */
+    private void insert(T item, boolean expedite) {
+        if (expedite)
+            expeditedQueue.offer(item);
+        else
+            queue.offer(item);
+        available.release();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return available.availablePermits() <= 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new QueueIterator();
+    }
+
+    // Iterate the expedited queue, then once exhausted, switch to the main queue.
+    private class QueueIterator implements Iterator<T> {
+        private boolean isExpedited = true;
+        private Iterator<T> it = expeditedQueue.iterator();
+        private boolean skipCheck; // after .hasNext returns true, the subsequent .next must return a value, so we should not check it again
+
+        @Override
+        public boolean hasNext() {
+            if (isExpedited) {
+                if (it.hasNext())
+                    return skipCheck = true;
+                it = queue.iterator();
+                isExpedited = false;
+            }
+            return it.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (isExpedited && !skipCheck && !it.hasNext()) {
+                it = queue.iterator();
+                isExpedited = false;
+            }
+            skipCheck = false;
+            return it.next();
+        }
+
+        @Override
+        public void remove() {
+            // Cannot be implemented because a delegated it.remove() does not indicate whether or not
+            // the item was actually removed, which makes it impossible to reliably update the semaphores.
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public boolean offer(T item) {
+        if (item == null)
+            throw new IllegalArgumentException();
+
+        boolean expedite = item instanceof QueueItem && ((QueueItem) item).isExpedited();
+        if (!(expedite ? expeditedSpace : space).tryAcquire())
+            return false;
+
+        insert(item, expedite);
+        return true;
+    }
+
+    @Override
+    public boolean offer(T item, long timeout, TimeUnit unit) throws InterruptedException {
+        if (item == null)
+            throw new IllegalArgumentException();
+
+        boolean expedite = item instanceof QueueItem && ((QueueItem) item).isExpedited();
+        if (!(expedite ? expeditedSpace : space).tryAcquire(timeout, unit))
+            return false;
+
+        insert(item, expedite);
+        return true;
+    }
+
+    @Override
+    public T peek() {
+        T t = expeditedQueue.peek();
+        return t == null ? queue.peek() : t;
+    }
+
+    @Override
+    public T poll() {
+        while (available.tryAcquire()) {
+            T t = remove1();
+            if (t == null) {
+                available.release(); // another thread is removing, put the permit back
+                Thread.yield();
+            } else
+                return t;
+        }
+        return null;
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        for (long start = System.nanoTime(), remain = timeout = unit.toNanos(timeout); //
+                        remain >= 0 && available.tryAcquire(remain, TimeUnit.NANOSECONDS); //
+                        remain = timeout - (System.nanoTime() - start)) {
+            T t = remove1();
+            if (t == null) {
+                available.release(); // another thread is removing, put the permit back
+                Thread.yield();
+            } else
+                return t;
+        }
+        return null;
+    }
+
+    @Override
+    public void put(T item) throws InterruptedException {
+        if (item == null)
+            throw new IllegalArgumentException();
+
+        boolean expedite = item instanceof QueueItem && ((QueueItem) item).isExpedited();
+        (expedite ? expeditedSpace : space).acquire();
+
+        insert(item, expedite);
+    }
+
+    @Override
+    public int remainingCapacity() {
+        int s = space.availablePermits() + expeditedSpace.availablePermits();
+        return s < 0 ? 0 : s;
+    }
+
+    @Override
+    public boolean remove(Object item) {
+        if (expeditedQueue.remove(item)) {
+            available.reducePermits(1);
+            expeditedSpace.release();
+            return true;
+        }
+        if (queue.remove(item)) {
+            available.reducePermits(1);
+            space.release();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the next item, preferring the expedited lane, and frees its slot.
+     * The caller must already hold a permit from the available semaphore.
+     *
+     * @return the item, or null if another thread removed it first.
+     */
+    private T remove1() {
+        T t = expeditedQueue.poll();
+        if (t != null) {
+            expeditedSpace.release();
+            return t;
+        }
+        t = queue.poll();
+        if (t != null)
+            space.release();
+        return t;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> items) {
+        boolean modified = false;
+        // Using remove instead of iterator.remove might seem inefficient, but we cannot reliably use iterator.remove
+        // because it does not indicate whether or not it actually removed anything.
+        for (Object item : items)
+            while (remove(item))
+                modified = true;
+        return modified;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> items) {
+        boolean modified = false;
+        for (Iterator<T> it = iterator(); it.hasNext();) {
+            T t = it.next();
+            if (!items.contains(t))
+                while (remove(t))
+                    modified = true;
+        }
+        return modified;
+    }
+
+    @Override
+    public final int size() {
+        int s = available.availablePermits();
+        return s < 0 ? 0 : s;
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        while (true) {
+            available.acquire();
+
+            T t = remove1();
+            if (t == null) {
+                available.release(); // another thread is removing, put the permit back
+                Thread.yield();
+            } else
+                return t;
+        }
+    }
+
+    /**
+     * If less than 100 elements, represents the queue in the form:
+     *
+     * <pre>
+     * SIZE/CAPACITY [A, B] [C, D, E]
+     * </pre>
+     *
+     * Otherwise, represents the queue as its total size and capacity followed by the size of each of the lanes.
+     *
+     * <p>The string value generated by this method is only meaningful when no modifications are being made for
+     * the duration of the method.</p>
+     *
+     * @return string representing this data structure.
+     */
+    @Override
+    public String toString() {
+        int s = size();
+        StringBuilder b = new StringBuilder().append(s).append('/').append(capacity());
+        if (s < 100)
+            b.append(' ').append(expeditedQueue).append(' ').append(queue);
+        else
+            b.append(' ').append(expeditedQueue.size()).append(' ').append(queue.size());
+        return b.toString();
+    }
+}
@@ -38,6 +38,8 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
 import com.ibm.websphere.ras.annotation.Trivial;
 import com.ibm.ws.ffdc.annotation.FFDCIgnore;
 import com.ibm.wsspi.threading.ExecutorServiceTaskInterceptor;
@@ -51,6 +53,8 @@ import com.ibm.wsspi.threading.WSExecutorService;
            property = "service.vendor=IBM",
            service = { java.util.concurrent.ExecutorService.class, com.ibm.wsspi.threading.WSExecutorService.class })
 public final class ExecutorServiceImpl implements WSExecutorService {
+    private static final TraceComponent tc = Tr.register(ExecutorServiceImpl.class);
+
     /**
      * Indicates whether we are on Java 6, because a workaround is needed for shutting down the thread pool in this case.
      */
@@ -68,6 +72,12 @@ public final class ExecutorServiceImpl implements WSExecutorService {
      */
     ThreadPoolController threadPoolController = new ThreadPoolController(this);
 
+    /**
+     * Value of the workQueue attribute that selects the lock-free ConcurrentBoundedBuffer
+     * instead of the default BoundedBuffer as the thread pool's work queue.
+     */
+    static final String CONCURRENT_WORK_QUEUE = "CONCURRENT";
+
     /**
      * The thread pool name.
      */
@@ -196,15 +206,33 @@ public final class ExecutorServiceImpl implements WSExecutorService {
         // If coreThreads is greater than maxThreads, automatically lower it and proceed
         coreThreads = Math.min(coreThreads, maxThreads);
 
+        // In virtual thread mode, each task runs on its own new virtual thread, up to maxThreads concurrently.
+        ThreadFactory virtualThreadFactory = null;
+        if (Boolean.TRUE.equals(componentConfig.get("virtualThreads"))) {
+            virtualThreadFactory = VirtualThreadFactoryImpl.create(poolName);
+            if (virtualThreadFactory == null)
+                Tr.warning(tc, "CWWKE1205.virtual.threads.unavailable", poolName);
+        }
+        threadPoolController.setVirtualThreads(virtualThreadFactory != null);
+
         // Propagate the core and maximum threads to the controller
         threadPoolController.setCoreThreads(coreThreads);
         threadPoolController.setMaxThreads(maxThreads);
 
-        BlockingQueue<Runnable> workQueue = new BoundedBuffer<Runnable>(java.lang.Runnable.class, 1000, 1000);
+        BlockingQueue<Runnable> workQueue;
+        if (CONCURRENT_WORK_QUEUE.equals(componentConfig.get("workQueue")))
+            workQueue = new ConcurrentBoundedBuffer<Runnable>(1000, 1000);
+        else
+            workQueue = new BoundedBuffer<Runnable>(java.lang.Runnable.class, 1000, 1000);
 
         RejectedExecutionHandler rejectedExecutionHandler = new ExpandPolicy(workQueue, this);
 
-        threadPool = new ThreadPoolExecutor(coreThreads, maxThreads, keepAliveMillis, TimeUnit.MILLISECONDS, workQueue, threadFactory != null ? threadFactory : new ThreadFactoryImpl(poolName, threadGroupName), rejectedExecutionHandler);
+        if (virtualThreadFactory != null) {
+            threadPool = new VirtualThreadExecutor(maxThreads, workQueue, virtualThreadFactory, rejectedExecutionHandler);
+        } else {
+            ThreadFactory factory = threadFactory != null ? threadFactory : new ThreadFactoryImpl(poolName, threadGroupName);
+            threadPool = new ThreadPoolExecutor(coreThreads, maxThreads, keepAliveMillis, TimeUnit.MILLISECONDS, workQueue, factory, rejectedExecutionHandler);
+        }
 
         threadPoolController.activate(threadPool);
 
@@ -398,14 +426,14 @@ public final class ExecutorServiceImpl implements WSExecutorService {
      */
     public static class ExpandPolicy implements RejectedExecutionHandler {
 
-        public BoundedBuffer<Runnable> workQueue;
+        public ExpandableQueue<Runnable> workQueue;
         public WSExecutorService exService;
 
         /**
          * Creates an {@code ExpandPolicy}.
          */
         public ExpandPolicy(BlockingQueue<Runnable> workQueue2, WSExecutorService exService) {
-            this.workQueue = (BoundedBuffer<Runnable>) workQueue2;
+            this.workQueue = (ExpandableQueue<Runnable>) workQueue2;
             this.exService = exService;
         }
 
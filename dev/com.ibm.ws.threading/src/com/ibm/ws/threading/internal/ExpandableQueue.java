@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.threading.internal;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded blocking queue with a separate expedited lane, whose capacities can be increased
+ * when the executor would otherwise reject work. Implemented by the work queues that can back
+ * the default executor.
+ *
+ * @param <T> type of queue item
+ */
+public interface ExpandableQueue<T> extends BlockingQueue<T> {
+    /**
+     * Increases the capacity of the main (non-expedited) portion of the queue by the given amount.
+     *
+     * @param additionalCapacity the amount by which capacity should be increased.
+     * @throws IllegalArgumentException if additionalCapacity is not positive.
+     */
+    void expand(int additionalCapacity);
+
+    /**
+     * Increases the capacity of the expedited portion of the queue by the given amount.
+     *
+     * @param additionalCapacity the amount by which capacity should be increased.
+     * @throws IllegalArgumentException if additionalCapacity is not positive.
+     */
+    void expandExpedited(int additionalCapacity);
+}
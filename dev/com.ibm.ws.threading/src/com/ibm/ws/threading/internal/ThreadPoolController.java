@@ -302,6 +302,12 @@ public final class ThreadPoolController {
      */
     private int hangIntervalCounter = 0;
 
+    /**
+     * Indicates whether the executor runs each task on its own virtual thread, in which case
+     * there is no pool size to tune, but idle pausing and hang detection still apply.
+     */
+    boolean virtualThreads = false;
+
     /**
      * Provides the default core thread size for when the controller is in
      * a deactivated state.
@@ -445,6 +451,10 @@ public final class ThreadPoolController {
         this.maxThreads = maxThreads;
     }
 
+    synchronized void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
     /**
      * Get the throughput distribution data associated with the specified
      * number of active threads.
@@ -689,6 +699,10 @@ public final class ThreadPoolController {
         if (threadPool == null)
             return "threadPool == null";
 
+        if (virtualThreads) {
+            return evaluateVirtualThreadInterval();
+        }
+
         int poolSize = threadPool.getPoolSize();
 
         // we can't even think about adjusting the pool size until the underlying executor has aggressively
@@ -771,6 +785,29 @@ public final class ThreadPoolController {
         return "";
     }
 
+    /**
+     * Evaluate an interval when the executor runs each task on its own virtual thread.
+     * Throughput sampling is not used to size the pool because the pool already allows
+     * up to maxThreads tasks to run concurrently. The pool is still paused when idle,
+     * and a hang, where work remains queued without any completing, is still detected
+     * and reported if maxThreads prevents it from being resolved.
+     */
+    private String evaluateVirtualThreadInterval() {
+        long currentTime = System.currentTimeMillis();
+        long completedWork = threadPool.getCompletedTaskCount();
+        long deltaCompleted = completedWork - previousCompleted;
+
+        if (manageIdlePool(threadPool, deltaCompleted)) {
+            return "monitoring paused";
+        }
+
+        String result = resolveHang() ? "action take to resolve hang" : "virtual threads";
+
+        lastTimerPop = currentTime;
+        previousCompleted = completedWork;
+        return result;
+    }
+
     /**
      * Utility method used to format interval level statistic trace points.
      */
@@ -838,7 +875,8 @@ public final class ThreadPoolController {
                 }
             }
 
-            if (poolSize < maxThreads && poolSize < MAX_THREADS_TO_BREAK_HANG) {
+            // in virtual thread mode the pool is already sized at maxThreads, so it cannot be grown
+            if (!virtualThreads && poolSize < maxThreads && poolSize < MAX_THREADS_TO_BREAK_HANG) {
                 poolSize += 1;
                 setPoolSize(poolSize);
                 actionTaken = true;
@@ -880,6 +918,7 @@ public final class ThreadPoolController {
         out.println(INDENT + "coreThreads = " + coreThreads);
         out.println(INDENT + "maxThreads = " + maxThreads);
         out.println(INDENT + "paused = " + paused);
+        out.println(INDENT + "virtualThreads = " + virtualThreads);
         out.println(INDENT + "hangIntervalCounter = " + hangIntervalCounter);
         out.println(INDENT + "poolSizeWhenHangDetected = " + poolSizeWhenHangDetected);
         out.println(INDENT + "lastAction = " + lastAction);
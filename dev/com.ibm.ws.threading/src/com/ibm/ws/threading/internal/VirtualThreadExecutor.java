@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.threading.internal;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ibm.websphere.ras.annotation.Trivial;
+
+/**
+ * Executor for virtual thread mode, which starts a new thread for every task rather than
+ * keeping a pool of worker threads. A thread ends as soon as its task completes, so no
+ * threads are left idle after a burst of tasks.
+ * <p>
+ * At most maxThreads tasks run at the same time. Tasks beyond that wait in the work queue,
+ * where the queue can still expedite them, and are started as running tasks complete.
+ * <p>
+ * This class extends ThreadPoolExecutor so that the thread pool controller, the metrics, and
+ * the introspector keep working with it. The worker threads of the superclass are never
+ * started: only the statistics which the executor service and the controller use are overridden.
+ */
+class VirtualThreadExecutor extends ThreadPoolExecutor {
+    /**
+     * The maximum number of tasks which run at the same time.
+     */
+    private final int maxThreads;
+
+    /**
+     * Permits for the tasks that are allowed to run at the same time.
+     */
+    private final Semaphore permits;
+
+    /**
+     * The number of started threads which have not ended yet.
+     */
+    private final AtomicInteger liveThreads = new AtomicInteger();
+
+    /**
+     * The number of tasks which are currently running.
+     */
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    /**
+     * The largest number of threads that were alive at the same time.
+     */
+    private final AtomicInteger largestThreads = new AtomicInteger();
+
+    /**
+     * The number of tasks which have completed.
+     */
+    private final AtomicLong completedTasks = new AtomicLong();
+
+    /**
+     * The number of tasks which were submitted.
+     */
+    private final AtomicLong submittedTasks = new AtomicLong();
+
+    /**
+     * @param maxThreads the maximum number of tasks to run at the same time.
+     * @param workQueue queue for the tasks that wait for a running task to complete.
+     * @param threadFactory factory for the thread of each task.
+     * @param handler handler for tasks which do not fit in the work queue.
+     */
+    VirtualThreadExecutor(int maxThreads, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory, RejectedExecutionHandler handler) {
+        super(0, 1, 0, TimeUnit.MILLISECONDS, workQueue, threadFactory, handler);
+        this.maxThreads = maxThreads;
+        permits = new Semaphore(maxThreads);
+    }
+
+    /**
+     * Start the task on a new thread, or queue it if maxThreads tasks are already running.
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (command == null)
+            throw new NullPointerException();
+        if (isShutdown())
+            throw new RejectedExecutionException("Task " + command + " rejected from " + this);
+
+        submittedTasks.incrementAndGet();
+        if (permits.tryAcquire()) {
+            start(command);
+        } else {
+            if (!getQueue().offer(command)) {
+                // The handler expands the queue and resubmits the task, which is then counted again.
+                submittedTasks.decrementAndGet();
+                getRejectedExecutionHandler().rejectedExecution(command, this);
+                return;
+            }
+            // A task might have completed before the task was queued.
+            startQueuedTasks();
+        }
+    }
+
+    /**
+     * Start queued tasks while permits are available.
+     */
+    private void startQueuedTasks() {
+        BlockingQueue<Runnable> queue = getQueue();
+        while (!queue.isEmpty() && permits.tryAcquire()) {
+            Runnable task = queue.poll();
+            if (task == null)
+                permits.release();
+            else
+                start(task);
+        }
+    }
+
+    /**
+     * Start a thread for a task, using a permit that the caller acquired.
+     */
+    private void start(final Runnable task) {
+        Runnable runner = new Runnable() {
+            @Override
+            public void run() {
+                activeTasks.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    activeTasks.decrementAndGet();
+                    completedTasks.incrementAndGet();
+                    permits.release();
+                    liveThreads.decrementAndGet();
+                    startQueuedTasks();
+                }
+            }
+        };
+
+        int threads = liveThreads.incrementAndGet();
+        for (int largest = largestThreads.get(); threads > largest; largest = largestThreads.get())
+            if (largestThreads.compareAndSet(largest, threads))
+                break;
+
+        try {
+            Thread thread = getThreadFactory().newThread(runner);
+            if (thread == null)
+                throw new RejectedExecutionException("Task " + task + " rejected from " + this + ": no thread");
+            thread.start();
+        } catch (RuntimeException x) {
+            liveThreads.decrementAndGet();
+            permits.release();
+            throw x;
+        } catch (Error x) {
+            liveThreads.decrementAndGet();
+            permits.release();
+            throw x;
+        }
+    }
+
+    /**
+     * @return the number of threads which are alive, each of which runs or is about to run a task.
+     */
+    @Override
+    @Trivial
+    public int getPoolSize() {
+        return liveThreads.get();
+    }
+
+    @Override
+    @Trivial
+    public int getActiveCount() {
+        return activeTasks.get();
+    }
+
+    @Override
+    @Trivial
+    public int getLargestPoolSize() {
+        return largestThreads.get();
+    }
+
+    @Override
+    @Trivial
+    public long getCompletedTaskCount() {
+        return completedTasks.get();
+    }
+
+    @Override
+    @Trivial
+    public long getTaskCount() {
+        return submittedTasks.get();
+    }
+
+    /**
+     * @return the maximum number of tasks which run at the same time.
+     */
+    @Override
+    @Trivial
+    public int getMaximumPoolSize() {
+        return maxThreads;
+    }
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.threading.internal;
+
+import java.lang.reflect.Method;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ThreadFactory;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.ffdc.annotation.FFDCIgnore;
+
+/**
+ * Thread factory that creates JDK virtual threads for the default executor when it runs in
+ * virtual thread mode. Virtual threads are only available on Java 21 and above, whereas this
+ * bundle compiles at a lower level, so the JDK's Thread.Builder API is accessed reflectively.
+ */
+final class VirtualThreadFactoryImpl implements ThreadFactory {
+
+    private final static TraceComponent tc = Tr.register(VirtualThreadFactoryImpl.class);
+
+    /**
+     * The JDK virtual thread factory to which thread creation is delegated.
+     */
+    private final ThreadFactory virtualThreadFactory;
+
+    /**
+     * The context class loader to associate with newly created threads.
+     */
+    private final ClassLoader contextClassLoader;
+
+    private VirtualThreadFactoryImpl(ThreadFactory virtualThreadFactory) {
+        this.virtualThreadFactory = virtualThreadFactory;
+        this.contextClassLoader = AccessController.doPrivileged(new PrivilegedAction<ClassLoader>() {
+            @Override
+            public ClassLoader run() {
+                return Thread.currentThread().getContextClassLoader();
+            }
+        });
+    }
+
+    /**
+     * Create a thread factory for virtual threads, if the JVM supports them.
+     *
+     * @param executorName the name of the owning executor, which is used to name the threads.
+     * @return the thread factory, or null if the JVM does not support virtual threads.
+     */
+    @FFDCIgnore(Exception.class)
+    static VirtualThreadFactoryImpl create(String executorName) {
+        try {
+            // Thread.ofVirtual().name(executorName + "-virtual-thread-", 1).factory()
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, executorName + "-virtual-thread-", 1L);
+            Method factory = builderClass.getMethod("factory");
+            return new VirtualThreadFactoryImpl((ThreadFactory) factory.invoke(builder));
+        } catch (Exception x) {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled())
+                Tr.debug(tc, "virtual threads are not available", x);
+            return null;
+        }
+    }
+
+    /**
+     * Create a new virtual thread.
+     *
+     * @param runnable the task to run
+     */
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        // The AccessControlContext is implicitly copied from the creating
+        // thread, so use doPrivileged to prevent that.
+        return AccessController.doPrivileged(new PrivilegedAction<Thread>() {
+            @Override
+            public Thread run() {
+                // Virtual threads are always daemon threads with normal priority, but the
+                // context class loader is inherited from the creating thread, so reset it.
+                Thread thread = virtualThreadFactory.newThread(runnable);
+                thread.setContextClassLoader(contextClassLoader);
+                return thread;
+            }
+        });
+    }
+}
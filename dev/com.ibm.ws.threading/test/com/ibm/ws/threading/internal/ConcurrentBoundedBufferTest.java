@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.threading.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the lock-free ConcurrentBoundedBuffer work queue.
+ */
+public class ConcurrentBoundedBufferTest {
+    private static class Item implements QueueItem, Runnable {
+        private final boolean expedite;
+        private final int value;
+
+        Item(int value, boolean expedite) {
+            this.value = value;
+            this.expedite = expedite;
+        }
+
+        @Override
+        public boolean isExpedited() {
+            return expedite;
+        }
+
+        @Override
+        public void run() {}
+
+        @Override
+        public String toString() {
+            return (expedite ? "E" : "") + value;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new ConcurrentBoundedBuffer<Runnable>(0, 1);
+    }
+
+    @Test
+    public void testExpeditedItemsAreRemovedFirst() throws Exception {
+        ConcurrentBoundedBuffer<Runnable> q = new ConcurrentBoundedBuffer<Runnable>(3, 3);
+        Item a = new Item(1, false), b = new Item(2, true), c = new Item(3, false), d = new Item(4, true);
+        assertTrue(q.offer(a));
+        assertTrue(q.offer(b));
+        assertTrue(q.offer(c));
+        assertTrue(q.offer(d));
+        assertEquals(4, q.size());
+        assertSame(b, q.peek());
+
+        List<Runnable> list = new ArrayList<Runnable>();
+        for (Runnable r : q)
+            list.add(r);
+        assertEquals("[E2, E4, 1, 3]", list.toString());
+
+        assertSame(b, q.poll());
+        assertSame(d, q.take());
+        assertSame(a, q.poll(1, TimeUnit.SECONDS));
+        assertSame(c, q.remove());
+        assertNull(q.poll());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void testCapacityAndExpand() throws Exception {
+        ConcurrentBoundedBuffer<Runnable> q = new ConcurrentBoundedBuffer<Runnable>(2, 1);
+        assertEquals(3, q.capacity());
+        assertTrue(q.offer(new Item(1, false)));
+        assertTrue(q.offer(new Item(2, false)));
+        assertFalse(q.offer(new Item(3, false)));
+        assertFalse(q.offer(new Item(4, false), 10, TimeUnit.MILLISECONDS));
+
+        // expedited lane has its own capacity
+        assertTrue(q.offer(new Item(5, true)));
+        assertFalse(q.offer(new Item(6, true)));
+        assertEquals(0, q.remainingCapacity());
+
+        q.expand(2);
+        q.expandExpedited(1);
+        assertEquals(6, q.capacity());
+        assertEquals(3, q.remainingCapacity());
+        assertTrue(q.offer(new Item(3, false)));
+        assertTrue(q.offer(new Item(6, true)));
+
+        // removing an item frees its slot
+        assertEquals("E5", q.poll().toString());
+        assertTrue(q.offer(new Item(7, true)));
+
+        try {
+            q.expand(0);
+            fail("Should not be able to expand by 0");
+        } catch (IllegalArgumentException x) {
+        }
+    }
+
+    @Test
+    public void testPutBlocksUntilSpaceIsAvailable() throws Exception {
+        final ConcurrentBoundedBuffer<Runnable> q = new ConcurrentBoundedBuffer<Runnable>(1, 1);
+        q.put(new Item(1, false));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final CountDownLatch started = new CountDownLatch(1);
+            Future<?> future = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    started.countDown();
+                    q.put(new Item(2, false));
+                    return null;
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertFalse(future.isDone());
+
+            q.expand(1);
+            future.get(5, TimeUnit.SECONDS);
+            assertEquals(2, q.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        ConcurrentBoundedBuffer<Runnable> q = new ConcurrentBoundedBuffer<Runnable>(1, 1);
+        Item a = new Item(1, false), b = new Item(2, true);
+        q.add(a);
+        q.add(b);
+        assertTrue(q.contains(a));
+        assertTrue(q.remove(a));
+        assertFalse(q.remove(a));
+        assertTrue(q.remove(b));
+        assertEquals(0, q.size());
+
+        // slots were freed by the removals
+        assertTrue(q.offer(a));
+        assertTrue(q.offer(b));
+    }
+
+    @Test
+    public void testConcurrentProducersAndConsumers() throws Exception {
+        final int producers = 4, consumers = 4, itemsPerProducer = 10000;
+        final ConcurrentBoundedBuffer<Runnable> q = new ConcurrentBoundedBuffer<Runnable>(16, 16);
+        final ConcurrentHashMap<Runnable, Boolean> received = new ConcurrentHashMap<Runnable, Boolean>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int p = 0; p < producers; p++) {
+                final int base = p * itemsPerProducer;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = 0; i < itemsPerProducer; i++)
+                            q.put(new Item(base + i, i % 10 == 0));
+                        return null;
+                    }
+                }));
+            }
+            for (int c = 0; c < consumers; c++)
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = 0; i < itemsPerProducer; i++)
+                            assertNull(received.put(q.take(), Boolean.TRUE));
+                        return null;
+                    }
+                }));
+
+            for (Future<?> future : futures)
+                future.get(1, TimeUnit.MINUTES);
+
+            assertEquals(producers * itemsPerProducer, received.size());
+            assertTrue(q.isEmpty());
+            assertEquals(32, q.remainingCapacity());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExpandWhileContended() throws Exception {
+        // Producers expand the queue when an offer is rejected, as ThreadPoolExecutor.execute does,
+        // while consumers poll with a timeout.
+        final int producers = 4, itemsPerProducer = 10000;
+        final int total = producers * itemsPerProducer;
+        final ConcurrentBoundedBuffer<Runnable> q = new ConcurrentBoundedBuffer<Runnable>(1, 1);
+        final ConcurrentHashMap<Runnable, Boolean> received = new ConcurrentHashMap<Runnable, Boolean>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers * 2);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int p = 0; p < producers; p++) {
+                final int base = p * itemsPerProducer;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = 0; i < itemsPerProducer; i++) {
+                            Item item = new Item(base + i, i % 16 == 0);
+                            while (!q.offer(item))
+                                if (item.isExpedited())
+                                    q.expandExpedited(1);
+                                else
+                                    q.expand(1);
+                        }
+                        return null;
+                    }
+                }));
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        while (received.size() < total) {
+                            Runnable item = q.poll(10, TimeUnit.MILLISECONDS);
+                            if (item != null)
+                                assertNull(received.put(item, Boolean.TRUE));
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures)
+                future.get(1, TimeUnit.MINUTES);
+
+            assertEquals(total, received.size());
+            assertTrue(q.isEmpty());
+            assertEquals(q.capacity(), q.remainingCapacity());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
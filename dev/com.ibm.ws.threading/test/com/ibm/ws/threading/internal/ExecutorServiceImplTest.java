@@ -10,10 +10,13 @@
  *******************************************************************************/
 package com.ibm.ws.threading.internal;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
@@ -238,4 +241,54 @@ public class ExecutorServiceImplTest {
         controllerPool = executorService.threadPoolController.threadPool;
         Assert.assertSame("Executor thread pool not the same as controller thread pool after unsetThreadFactory", executorPool, controllerPool);
     }
+
+    /**
+     * In virtual thread mode, when the JVM supports virtual threads, every task runs on its own virtual thread
+     * so that many blocking tasks can run at once without configuring coreThreads or maxThreads. When the JVM
+     * does not support virtual threads, the executor falls back to platform threads.
+     */
+    @Test(timeout = 60000)
+    public void testVirtualThreads() throws Exception {
+        ExecutorServiceImpl executorService = new ExecutorServiceImpl();
+        Map<String, Object> componentConfig = new HashMap<String, Object>(6);
+        componentConfig.put("name", "testExecutor");
+        componentConfig.put("rejectedWorkPolicy", "CALLER_RUNS");
+        componentConfig.put("stealPolicy", "STRICT");
+        componentConfig.put("keepAlive", 10);
+        componentConfig.put("coreThreads", -1);
+        componentConfig.put("maxThreads", -1);
+        componentConfig.put("virtualThreads", true);
+        executorService.activate(componentConfig);
+
+        final Method isVirtual;
+        try {
+            isVirtual = Thread.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException x) {
+            // virtual threads are unavailable, so platform threads must be used instead
+            Assert.assertFalse(executorService.threadPoolController.virtualThreads);
+            Assert.assertTrue(executorService.submit(new ReturnsTrueCallable()).get());
+            return;
+        }
+
+        Assert.assertTrue(executorService.threadPoolController.virtualThreads);
+
+        // block every task until all of them are running at the same time
+        final int numTasks = 500;
+        final CountDownLatch allRunning = new CountDownLatch(numTasks);
+        List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < numTasks; i++)
+            futures.add(executorService.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    allRunning.countDown();
+                    allRunning.await();
+                    return (Boolean) isVirtual.invoke(Thread.currentThread());
+                }
+            }));
+
+        for (Future<Boolean> future : futures)
+            Assert.assertTrue(future.get());
+
+        Assert.assertTrue(executorService.getThreadPool().getLargestPoolSize() >= numTasks);
+    }
 }
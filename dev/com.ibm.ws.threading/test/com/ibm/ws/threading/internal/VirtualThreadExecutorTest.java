@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.threading.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the thread-per-task executor of virtual thread mode. These tests use platform
+ * threads from the factory, so that they run on any Java level.
+ */
+public class VirtualThreadExecutorTest {
+    /**
+     * Thread factory which records every thread that it creates.
+     */
+    private static class RecordingThreadFactory implements ThreadFactory {
+        final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "VirtualThreadExecutorTest-" + threads.size());
+            threads.add(thread);
+            return thread;
+        }
+
+        /**
+         * Wait for every created thread to end.
+         *
+         * @return the number of threads that are still alive.
+         */
+        int awaitThreads() throws InterruptedException {
+            int alive = 0;
+            for (Thread thread : threads) {
+                thread.join(TimeUnit.MINUTES.toMillis(1));
+                if (thread.isAlive())
+                    alive++;
+            }
+            return alive;
+        }
+    }
+
+    private static VirtualThreadExecutor createExecutor(int maxThreads, ThreadFactory factory) {
+        return new VirtualThreadExecutor(maxThreads, new LinkedBlockingQueue<Runnable>(), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * A burst of tasks runs each task on its own thread, never more than maxThreads at a time,
+     * and leaves no thread alive after the tasks complete.
+     */
+    @Test
+    public void testBurstIsBoundedAndLeavesNoThreads() throws Exception {
+        final int maxThreads = 4;
+        final int numTasks = 200;
+        RecordingThreadFactory factory = new RecordingThreadFactory();
+        VirtualThreadExecutor executor = createExecutor(maxThreads, factory);
+
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final ConcurrentHashMap<Thread, Integer> tasksPerThread = new ConcurrentHashMap<Thread, Integer>();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < numTasks; i++)
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    int count = running.incrementAndGet();
+                    for (int max = maxRunning.get(); count > max && !maxRunning.compareAndSet(max, count); max = maxRunning.get());
+                    tasksPerThread.put(Thread.currentThread(), tasksPerThread.containsKey(Thread.currentThread()) ? 2 : 1);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException x) {
+                        throw new RuntimeException(x);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                }
+            }));
+
+        for (Future<?> future : futures)
+            future.get(1, TimeUnit.MINUTES);
+
+        assertTrue("Running tasks " + maxRunning.get() + " exceeded maxThreads", maxRunning.get() <= maxThreads);
+        assertEquals(numTasks, factory.threads.size());
+        assertEquals(numTasks, tasksPerThread.size());
+        assertFalse("A thread ran more than one task", tasksPerThread.containsValue(2));
+
+        assertEquals(0, factory.awaitThreads());
+        assertEquals(0, executor.getPoolSize());
+        assertEquals(0, executor.getActiveCount());
+        assertEquals(numTasks, executor.getCompletedTaskCount());
+        assertEquals(numTasks, executor.getTaskCount());
+        assertTrue(executor.getLargestPoolSize() <= maxThreads);
+        assertTrue(executor.getQueue().isEmpty());
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+
+    /**
+     * The pool size is the number of blocked tasks while they run, and drops to 0 once they
+     * complete, without any keep alive time for idle threads.
+     */
+    @Test
+    public void testPoolSizeFollowsRunningTasks() throws Exception {
+        final int numTasks = 50;
+        RecordingThreadFactory factory = new RecordingThreadFactory();
+        VirtualThreadExecutor executor = createExecutor(Integer.MAX_VALUE, factory);
+
+        final CountDownLatch allRunning = new CountDownLatch(numTasks);
+        final CountDownLatch release = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < numTasks; i++)
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    allRunning.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException x) {
+                        throw new RuntimeException(x);
+                    }
+                }
+            }));
+
+        assertTrue(allRunning.await(1, TimeUnit.MINUTES));
+        assertEquals(numTasks, executor.getPoolSize());
+        assertEquals(numTasks, executor.getActiveCount());
+        assertEquals(numTasks, executor.getLargestPoolSize());
+
+        release.countDown();
+        for (Future<?> future : futures)
+            future.get(1, TimeUnit.MINUTES);
+
+        assertEquals(0, factory.awaitThreads());
+        assertEquals(0, executor.getPoolSize());
+        assertEquals(numTasks, executor.getLargestPoolSize());
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+
+    /**
+     * Queued tasks start as running tasks complete, even when the running tasks fail.
+     */
+    @Test
+    public void testQueuedTasksStartAfterFailures() throws Exception {
+        RecordingThreadFactory factory = new RecordingThreadFactory();
+        VirtualThreadExecutor executor = createExecutor(1, factory);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException x) {
+                }
+                throw new IllegalStateException("Intentionally failing task");
+            }
+        });
+        Future<?> queued = executor.submit(new Runnable() {
+            @Override
+            public void run() {}
+        });
+
+        assertEquals(1, executor.getQueue().size());
+        assertEquals(1, factory.threads.size());
+
+        release.countDown();
+        queued.get(1, TimeUnit.MINUTES);
+
+        assertEquals(2, factory.threads.size());
+        assertEquals(0, factory.awaitThreads());
+        assertEquals(0, executor.getPoolSize());
+        assertEquals(2, executor.getCompletedTaskCount());
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.threading.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the throughput of BoundedBuffer and ConcurrentBoundedBuffer with equal numbers of
+ * producer and consumer threads, from 1 to 128 of each. Like ThreadPoolThroughputTest, this is
+ * a measurement harness rather than a regression test, so it is ignored by default. Run it
+ * manually through its main method.
+ * Producers offer to the queue in the same way that ThreadPoolExecutor.execute does, expanding
+ * the queue when an offer is rejected, and a fraction of the items are expedited.
+ */
+@Ignore
+public class WorkQueueThroughputTest {
+    private static final int ITEMS_PER_PRODUCER = 200000;
+    private static final int WARMUP_ITERATIONS = 2;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    private static class Item implements QueueItem {
+        private final boolean expedite;
+
+        Item(boolean expedite) {
+            this.expedite = expedite;
+        }
+
+        @Override
+        public boolean isExpedited() {
+            return expedite;
+        }
+    }
+
+    private static interface QueueFactory {
+        ExpandableQueue<Object> create();
+    }
+
+    private static final QueueFactory BOUNDED_BUFFER = new QueueFactory() {
+        @Override
+        public ExpandableQueue<Object> create() {
+            return new BoundedBuffer<Object>(Object.class, 1000, 1000);
+        }
+
+        @Override
+        public String toString() {
+            return "BoundedBuffer";
+        }
+    };
+
+    private static final QueueFactory CONCURRENT_BOUNDED_BUFFER = new QueueFactory() {
+        @Override
+        public ExpandableQueue<Object> create() {
+            return new ConcurrentBoundedBuffer<Object>(1000, 1000);
+        }
+
+        @Override
+        public String toString() {
+            return "ConcurrentBoundedBuffer";
+        }
+    };
+
+    /**
+     * Runs one iteration and returns the elapsed time in nanoseconds.
+     */
+    private long run(final ExpandableQueue<Object> q, int threads) throws Exception {
+        final Object expedited = new Item(true), normal = new Item(false);
+        final long total = (long) threads * ITEMS_PER_PRODUCER;
+        final AtomicLong consumed = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads * 2);
+
+        for (int i = 0; i < threads; i++) {
+            new Thread("producer-" + i) {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int n = 0; n < ITEMS_PER_PRODUCER; n++) {
+                            Object item = n % 16 == 0 ? expedited : normal;
+                            while (!q.offer(item))
+                                if (item == expedited)
+                                    q.expandExpedited(1000);
+                                else
+                                    q.expand(1000);
+                        }
+                    } catch (InterruptedException x) {
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+
+            new Thread("consumer-" + i) {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        while (consumed.get() < total)
+                            if (q.poll(10, TimeUnit.MILLISECONDS) != null)
+                                consumed.incrementAndGet();
+                    } catch (InterruptedException x) {
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - startTime;
+
+        assertEquals(total, consumed.get());
+        assertEquals(0, q.size());
+        return elapsed;
+    }
+
+    private double opsPerMilli(QueueFactory factory, int threads) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            run(factory.create(), threads);
+
+        long elapsed = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++)
+            elapsed += run(factory.create(), threads);
+
+        return (double) threads * ITEMS_PER_PRODUCER * MEASURED_ITERATIONS / TimeUnit.NANOSECONDS.toMillis(elapsed);
+    }
+
+    @Test
+    public void compareThroughput() throws Exception {
+        System.out.println("producers/consumers, BoundedBuffer ops/ms, ConcurrentBoundedBuffer ops/ms");
+        for (int threads = 1; threads <= 128; threads *= 2) {
+            double bb = opsPerMilli(BOUNDED_BUFFER, threads);
+            double cbb = opsPerMilli(CONCURRENT_BOUNDED_BUFFER, threads);
+            System.out.println(threads + ", " + Math.round(bb) + ", " + Math.round(cbb));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new WorkQueueThroughputTest().compareThroughput();
+    }
+}
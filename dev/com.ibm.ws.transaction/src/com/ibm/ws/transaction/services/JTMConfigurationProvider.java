@@ -354,6 +354,18 @@ public class JTMConfigurationProvider extends DefaultConfigurationProvider imple
         return isWfR;
     }
 
+    @Override
+    public int getParallelCompletionThreads() {
+        Number num = (Number) _props.get("parallelCompletionThreads");
+        return num == null ? 0 : num.intValue();
+    }
+
+    @Override
+    public boolean isCompletionStatisticsEnabled() {
+        Boolean isCSE = (Boolean) _props.get("enableCompletionStatistics");
+        return isCSE != null && isCSE;
+    }
+
     @Override
     public ResourceFactory getResourceFactory()
     {
@@ -0,0 +1,562 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.http.channel.h2internal;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ibm.websphere.channelfw.osgi.CHFWBundle;
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.http.channel.h2internal.exceptions.FlowControlException;
+import com.ibm.ws.http.channel.h2internal.priority.Node;
+import com.ibm.ws.http.channel.h2internal.priority.Node.NODE_STATUS;
+import com.ibm.ws.http.channel.h2internal.priority.Node.WRITE_COUNT_ACTION;
+import com.ibm.ws.http.channel.h2internal.priority.Tree;
+import com.ibm.ws.http.channel.internal.HttpMessages;
+import com.ibm.wsspi.bytebuffer.WsByteBuffer;
+import com.ibm.wsspi.channelfw.VirtualConnection;
+import com.ibm.wsspi.tcpchannel.TCPWriteCompletedCallback;
+import com.ibm.wsspi.tcpchannel.TCPWriteRequestContext;
+
+/**
+ * Write queue that coalesces queued frames into gathering writes.
+ *
+ * Writers never block each other: each entry is added to a lock-free queue, and whichever
+ * thread finds no write in progress becomes the writer. The writer moves queued entries into
+ * the same priority Tree that H2WriteTree uses, then takes entries from the tree in priority
+ * order and writes as many DATA and HEADERS frames as fit in one batch with a single gathering
+ * write. Other frame types are always written on their own. When the TCP write completes, the
+ * completing thread releases the entries in the batch and carries on writing whatever has been
+ * queued in the meantime, so there is never more than one write outstanding at the TCP Channel.
+ *
+ * The connection flow control window is charged when a DATA frame is queued, rather than when
+ * it is written, so a frame that would exceed the window is still rejected on the caller's thread.
+ * Completion callbacks of async writes are always run on a separate thread, since the writing
+ * thread may be holding up writes for other streams.
+ */
+public class H2CoalescingWriteTree implements H2WorkQInterface {
+
+    private static final TraceComponent tc = Tr.register(H2CoalescingWriteTree.class, HttpMessages.HTTP_TRACE_NAME, HttpMessages.HTTP_BUNDLE);
+
+    // most frames, and bytes, that will be gathered into one write
+    private static final int MAX_BATCH_ENTRIES = 32;
+    private static final long MAX_BATCH_BYTES = 65536;
+
+    TCPWriteRequestContext writeReqContext = null;
+    Tree tree = null;
+
+    // entries waiting to be moved into the tree by the writing thread
+    private final ConcurrentLinkedQueue<H2WriteQEntry> incoming = new ConcurrentLinkedQueue<H2WriteQEntry>();
+    // true while a thread owns writing to the TCP Channel
+    private final AtomicBoolean writing = new AtomicBoolean(false);
+
+    // only accessed by the thread that owns writing:
+    // entries in the tree that are waiting to be written, by stream-id
+    private final Map<Integer, H2WriteQEntry> requesting = new HashMap<Integer, H2WriteQEntry>();
+    // entries for streams that already have an entry waiting in the tree
+    private final ArrayDeque<H2WriteQEntry> deferred = new ArrayDeque<H2WriteQEntry>();
+    // entries of the write that is outstanding at the TCP Channel
+    private List<H2WriteQEntry> inFlight = null;
+    private final BatchCallback batchCallback = new BatchCallback();
+
+    volatile Q_STATUS qStatus = Q_STATUS.NOT_IN_USE;
+
+    // when told to quit, code will drain the queue, or not, depends on this flag
+    volatile boolean drainQ = false;
+
+    // since there is one Tree per Connection, the tree will keep track of the connection window update parameters.
+    private final int connectionWindowUpdateWriteInitialSize = 65535;
+    private final AtomicInteger connectionWindowUpdateWriteLimit = new AtomicInteger(65535);
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.ibm.ws.http.channel.h2internal.H2WorkQInterface#init(com.ibm.wsspi.tcpchannel.TCPWriteRequestContext, com.ibm.ws.http.channel.h2internal.H2MuxTCPWriteCallback)
+     */
+    @Override
+    public void init(TCPWriteRequestContext x, H2MuxTCPWriteCallback c) {
+        writeReqContext = x;
+
+        // writes are completed through the batch callback, but keep the mux callback pointing at the
+        // queue in use for this connection
+        c.setH2WorkQ(this);
+
+        tree = new Tree();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.ibm.ws.http.channel.h2internal.H2WorkQInterface#writeOrAddToQ(com.ibm.ws.http.channel.h2internal.H2WriteQEntry)
+     */
+    @Override
+    public WRITE_ACTION writeOrAddToQ(H2WriteQEntry entry) throws FlowControlException {
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "process write entry with qStatus: " + qStatus + " stream-id: " + entry.getStreamID() + " entry: " + entry.hashCode());
+        }
+
+        if ((qStatus == Q_STATUS.QUIT) || (qStatus == Q_STATUS.FINISHED)) {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                Tr.debug(tc, "do not process write - Q told to quit");
+            }
+            return WRITE_ACTION.CONNECTION_QUIT;
+        }
+
+        if (entry.getFrameType() == FrameTypes.DATA) {
+            reserveConnectionWindow(entry.getPayloadLength());
+        }
+
+        entry.setServicedOnQ(true);
+        incoming.add(entry);
+
+        // if no other thread is writing, this one writes everything queued so far, including this entry
+        if (writing.compareAndSet(false, true)) {
+            drain();
+        }
+        return WRITE_ACTION.QUEUED;
+    }
+
+    /**
+     * Charge a DATA frame's payload against the connection window, failing if it would exceed it.
+     *
+     * @param payloadLength
+     * @throws FlowControlException
+     */
+    private void reserveConnectionWindow(int payloadLength) throws FlowControlException {
+        while (true) {
+            int limit = connectionWindowUpdateWriteLimit.get();
+            if (limit - payloadLength < 0) {
+                // would exceed window update limit
+                String s = " connectionWindowUpdateWriteLimit " + limit +
+                           " connectionWindowUpdateWriteInitialSize " + connectionWindowUpdateWriteInitialSize;
+                if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                    Tr.debug(tc, "Can not write Data would exceed connection window update limit: " + s);
+                }
+                throw new FlowControlException("Can not write Data would exceed connection window update limit: " + s);
+            }
+            if (connectionWindowUpdateWriteLimit.compareAndSet(limit, limit - payloadLength)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write batches until there is nothing left to write, or until a write does not complete
+     * right away, in which case the batch callback carries on when it does. The caller must
+     * own writing.
+     */
+    private void drain() {
+        while (true) {
+            if ((qStatus == Q_STATUS.QUIT) && (drainQ == false)) {
+                // quit immediately if told to do so
+                if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                    Tr.debug(tc, "Write Q told to quit without drain - finished");
+                }
+                releaseWaiting();
+                qStatus = Q_STATUS.FINISHED;
+                return;
+            }
+
+            List<H2WriteQEntry> batch = nextBatch();
+            if (batch == null) {
+                if (qStatus == Q_STATUS.QUIT) {
+                    if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                        Tr.debug(tc, "Write Q told to quit and queue is empty - finished");
+                    }
+                    qStatus = Q_STATUS.FINISHED;
+                }
+                writing.set(false);
+                // an entry may have been added after the queue was checked but before writing was released,
+                // in which case its writer saw writing still owned, so take it back and carry on
+                if (incoming.isEmpty() || !writing.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
+            if (!writeBatch(batch)) {
+                // write is outstanding, the batch callback owns writing now
+                return;
+            }
+        }
+    }
+
+    /**
+     * Move queued entries into the tree, then take the next entries to write from it in
+     * priority order.
+     *
+     * @return the entries to write together, or null if nothing is waiting to be written
+     */
+    private List<H2WriteQEntry> nextBatch() {
+        for (int i = deferred.size(); i > 0; i--) {
+            addEntryToQ(deferred.poll());
+        }
+        H2WriteQEntry e;
+        while ((e = incoming.poll()) != null) {
+            addEntryToQ(e);
+        }
+
+        List<H2WriteQEntry> batch = takeBatch();
+        if (batch == null && !requesting.isEmpty()) {
+            // the nodes for these entries were removed from the tree before they could be written,
+            // so put them back rather than leave the writers waiting
+            for (H2WriteQEntry waiting : requesting.values()) {
+                addToTree(waiting);
+            }
+            batch = takeBatch();
+        }
+        return batch;
+    }
+
+    private List<H2WriteQEntry> takeBatch() {
+        List<H2WriteQEntry> batch = null;
+        long bytes = 0;
+        H2WriteQEntry e;
+        while ((e = tree.findNextWriteEntry()) != null) {
+            boolean coalesce = (e.getFrameType() == FrameTypes.DATA) || (e.getFrameType() == FrameTypes.HEADERS);
+            long length = getLength(e);
+            if (batch != null && (!coalesce || batch.size() == MAX_BATCH_ENTRIES || bytes + length > MAX_BATCH_BYTES)) {
+                break;
+            }
+
+            // taking the entry counts as a write for the stream's priority weighting
+            tree.updateNode(e.getStreamID(), NODE_STATUS.NOT_REQUESTING, WRITE_COUNT_ACTION.INCREMENT, null);
+            requesting.remove(e.getStreamID());
+            if (batch == null) {
+                batch = new ArrayList<H2WriteQEntry>(coalesce ? 4 : 1);
+            }
+            batch.add(e);
+            bytes += length;
+            if (!coalesce) {
+                break;
+            }
+        }
+        return batch;
+    }
+
+    private void addEntryToQ(H2WriteQEntry entry) {
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "addEntryToQ entry: " + entry.hashCode());
+        }
+
+        // a node holds one entry at a time, so hold back any later entries for the same stream
+        if (requesting.containsKey(entry.getStreamID())) {
+            deferred.add(entry);
+            return;
+        }
+        requesting.put(entry.getStreamID(), entry);
+        addToTree(entry);
+    }
+
+    private void addToTree(H2WriteQEntry entry) {
+        // Find the node/streamID in the tree, if it is not in the tree then add the Node to the tree.
+        int streamID = entry.getStreamID();
+        if (!tree.findNode(streamID)) {
+            // Assume no parents for nodes right now other than root.
+            // Assume exclusive not being used right now.
+            Node node = new Node(streamID, Node.DEFAULT_NODE_PRIORITY);
+            tree.addNode(node, Node.ROOT_STREAM_ID, false);
+        }
+
+        // update node with current write object and signal that node wants to write
+        tree.updateNode(streamID, NODE_STATUS.REQUESTING_WRITE, WRITE_COUNT_ACTION.NO_ACTION, entry);
+    }
+
+    private static long getLength(H2WriteQEntry e) {
+        if (e.getBuffer() != null) {
+            return e.getBuffer().remaining();
+        }
+        long length = 0;
+        WsByteBuffer[] buffers = e.getBuffers();
+        if (buffers != null) {
+            for (WsByteBuffer b : buffers) {
+                if (b != null) {
+                    length += b.remaining();
+                }
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Write the buffers of every entry in the batch with one request to the TCP Channel.
+     *
+     * @param batch
+     * @return true if the write completed right away
+     */
+    private boolean writeBatch(List<H2WriteQEntry> batch) {
+        H2WriteQEntry first = batch.get(0);
+        long minToWrite;
+        // honor force queue if any writer in the batch asked for it
+        boolean forceQueue = false;
+        for (H2WriteQEntry e : batch) {
+            forceQueue |= e.getForceQueue();
+        }
+
+        if (batch.size() == 1) {
+            // put the write buffers into the TCP Channel write context, so they can be written on the wire
+            if (first.getBuffer() != null) {
+                writeReqContext.setBuffer(first.getBuffer());
+            } else {
+                writeReqContext.setBuffers(first.getBuffers());
+            }
+            minToWrite = first.getMinToWrite();
+        } else {
+            List<WsByteBuffer> gathered = new ArrayList<WsByteBuffer>(batch.size() * 2);
+            for (H2WriteQEntry e : batch) {
+                if (e.getBuffer() != null) {
+                    gathered.add(e.getBuffer());
+                } else if (e.getBuffers() != null) {
+                    for (WsByteBuffer b : e.getBuffers()) {
+                        if (b != null) {
+                            gathered.add(b);
+                        }
+                    }
+                }
+            }
+            writeReqContext.setBuffers(gathered.toArray(new WsByteBuffer[gathered.size()]));
+            minToWrite = TCPWriteRequestContext.WRITE_ALL_DATA;
+        }
+
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "tell device channel to write " + batch.size() + " frames, first stream-id: " + first.getStreamID());
+        }
+
+        inFlight = batch;
+        VirtualConnection vc = writeReqContext.write(minToWrite, batchCallback, forceQueue, first.getTimeout());
+        if (vc != null) {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                Tr.debug(tc, "write worked right away");
+            }
+            inFlight = null;
+            completeBatch(batch, null);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Release the writers of every entry in a batch once it has been written, or failed.
+     *
+     * @param batch
+     * @param ioe the write failure, or null if the write completed
+     */
+    private void completeBatch(List<H2WriteQEntry> batch, IOException ioe) {
+        ExecutorService executorService = null;
+        for (H2WriteQEntry e : batch) {
+            if (e.getWriteType() == H2WriteQEntry.WRITE_TYPE.SYNC) {
+                // the sync writer rethrows the failure once it is released
+                e.setWriteException(ioe);
+                e.hitWriteCompleteLatch();
+            } else {
+                if (executorService == null) {
+                    executorService = CHFWBundle.getExecutorService();
+                }
+                executorService.execute(new AsyncCallback(e, ioe));
+            }
+        }
+    }
+
+    /**
+     * Fail the writes of every entry that will no longer be written because the
+     * queue was told to quit without draining, so that neither sync nor async writers
+     * are left waiting.
+     */
+    private void releaseWaiting() {
+        List<H2WriteQEntry> dropped = new ArrayList<H2WriteQEntry>(requesting.values());
+        requesting.clear();
+        dropped.addAll(deferred);
+        deferred.clear();
+        H2WriteQEntry e;
+        while ((e = incoming.poll()) != null) {
+            dropped.add(e);
+        }
+        if (!dropped.isEmpty()) {
+            completeBatch(dropped, new IOException("HTTP/2 write queue closed before the frame was written"));
+        }
+    }
+
+    /**
+     * TCP Channel callback for a batch write that did not complete right away. The thread that
+     * completes the write carries on writing anything that has been queued since.
+     */
+    private class BatchCallback implements TCPWriteCompletedCallback {
+        @Override
+        public void complete(VirtualConnection vc, TCPWriteRequestContext twc) {
+            List<H2WriteQEntry> batch = inFlight;
+            inFlight = null;
+            completeBatch(batch, null);
+            drain();
+        }
+
+        @Override
+        public void error(VirtualConnection vc, TCPWriteRequestContext twc, IOException ioe) {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                Tr.debug(tc, "batch write failed: " + ioe);
+            }
+            List<H2WriteQEntry> batch = inFlight;
+            inFlight = null;
+            completeBatch(batch, ioe);
+            drain();
+        }
+    }
+
+    protected class AsyncCallback implements Runnable {
+
+        // A seperate thread is used to call the user's callback for each async request, as the thread that completed
+        // the write may go on to write for other streams.
+
+        H2WriteQEntry e;
+        IOException ioe;
+
+        protected AsyncCallback(H2WriteQEntry x, IOException y) {
+            e = x;
+            ioe = y;
+        }
+
+        @Override
+        public void run() {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                Tr.debug(tc, "New thread to service callback for entry: " + e.hashCode());
+            }
+
+            try {
+                // use the VC and context that the calling thread/H2 Stream is using, not the mux ones.
+                VirtualConnection eVC = e.getConnectionContext().getVC();
+                TCPWriteRequestContext eTWC = e.getConnectionContext().getWriteInterface();
+
+                if (ioe == null) {
+                    e.getCallback().complete(eVC, eTWC);
+                } else {
+                    e.getCallback().error(eVC, eTWC, ioe);
+                }
+            } catch (Throwable t) {
+                if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                    Tr.debug(tc, "caught a Throwable. log and leave: " + t);
+                }
+                // debug, not much else to do but stop the exception here
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.ibm.ws.http.channel.h2internal.H2WorkQInterface#notifyStandBy()
+     */
+    @Override
+    public void notifyStandBy() {
+        // no-op for this implementation, writes are completed through the batch callback
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.ibm.ws.http.channel.h2internal.H2WorkQInterface#setToQuit(boolean)
+     */
+    @Override
+    public void setToQuit(boolean inDrainQ) {
+        drainQ = inDrainQ;
+        qStatus = Q_STATUS.QUIT;
+
+        // if no write is in progress, finish up now rather than waiting for the next write
+        if (writing.compareAndSet(false, true)) {
+            drain();
+        }
+    }
+
+    @Override
+    public void asyncCallbackComplete(H2WriteQEntry e) {
+        // no-op for this implementation, the node is updated when its entry is taken from the tree
+    }
+
+    @Override
+    public void addNewNodeToQ(int streamID, int parentStreamID, int priority, boolean exclusive) {
+
+        boolean bNode = tree.findNode(streamID);
+
+        if (bNode) {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                Tr.debug(tc, "could not add a new node, was already in the tree");
+            }
+            return;
+        }
+
+        Node node = new Node(streamID, priority);
+        tree.addNode(node, parentStreamID, exclusive);
+    }
+
+    @Override
+    public boolean removeNodeFromQ(int streamID) {
+        return tree.removeNode(streamID);
+    }
+
+    @Override
+    public boolean updateNodeFrameParameters(int streamID, int newPriority, int newParentStreamID, boolean exclusive) {
+        return tree.updateNodeFrameParameters(streamID, newPriority, newParentStreamID, exclusive);
+    }
+
+    @Override
+    public void incrementConnectionWindowUpdateLimit(int x) throws FlowControlException {
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "incrementConnectionWindowUpdateLimit entry: inc value: " + x
+                         + "current connectionWindowUpdateWriteLimit: " + connectionWindowUpdateWriteLimit.get());
+        }
+        while (true) {
+            int limit = connectionWindowUpdateWriteLimit.get();
+            int temp = limit + x;
+            temp = temp & 0x10000000;
+            if (temp != 0) {
+                String s = "processWindowUpdateFrame: out of bounds increment, current connection write limit: " + limit
+                           + " total would have been: " + temp;
+                if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                    Tr.debug(tc, s);
+                }
+                throw new FlowControlException(s);
+            }
+            if (connectionWindowUpdateWriteLimit.compareAndSet(limit, limit + x)) {
+                break;
+            }
+        }
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "connectionWindowUpdateWriteLimit updated to: " + connectionWindowUpdateWriteLimit.get());
+        }
+    }
+
+    @Override
+    public void decreaseConnectionWindowUpdateWriteLimit(int x) {
+        // DATA frames are charged when they are queued, so this is only for callers outside the write path
+        int limit = connectionWindowUpdateWriteLimit.addAndGet(-x);
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "decreaseConnectionWindowUpdateWriteLimit: dec value: " + x
+                         + "connectionWindowUpdateWriteLimit decreased to: " + limit);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.ibm.ws.http.channel.h2internal.H2WorkQInterface#getConnectionWriteLimit()
+     */
+    @Override
+    public int getConnectionWriteLimit() {
+        return connectionWindowUpdateWriteLimit.get();
+    }
+}
@@ -155,9 +155,13 @@ public class H2InboundLink extends HttpInboundLink {
         maxReadWindowSize = config.getH2ConnReadWindowSize();
         connectionReadWindowSize = maxReadWindowSize;
 
-        // decide which Q class to use by hand here, for now
+        // decide which Q class to use
         //writeQ = new H2WriteQ();
-        writeQ = new H2WriteTree();
+        if (config.getH2WriteCoalescing()) {
+            writeQ = new H2CoalescingWriteTree();
+        } else {
+            writeQ = new H2WriteTree();
+        }
 
         writeQ.init(h2MuxTCPWriteContext, h2MuxWriteCallback);
 
@@ -562,6 +566,9 @@ public class H2InboundLink extends HttpInboundLink {
                 Tr.debug(tc, "writeSync - call entry.waitWriteCompleteLatch");
             }
             e.waitWriteCompleteLatch();
+            if (e.getWriteException() != null) {
+                throw e.getWriteException();
+            }
         }
     }
 
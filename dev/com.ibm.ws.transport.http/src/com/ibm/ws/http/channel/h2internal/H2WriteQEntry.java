@@ -10,6 +10,7 @@
  *******************************************************************************/
 package com.ibm.ws.http.channel.h2internal;
 
+import java.io.IOException;
 import java.util.concurrent.CountDownLatch;
 
 import com.ibm.websphere.ras.Tr;
@@ -53,6 +54,9 @@ public class H2WriteQEntry {
 
     boolean forceQueue = false;
 
+    // set by the thread that completed the write if it failed, so a sync writer can rethrow it once released
+    volatile IOException writeException = null;
+
     public H2WriteQEntry(WsByteBuffer inBuf, WsByteBuffer[] inBufs, long inMin, int inTimeout, WRITE_TYPE inType, FrameTypes fType, int inPayloadLength, int inStreamID) {
 
         //  For a Sync write entry, the following are not use:  callback, forceQueue, connectionContext.
@@ -106,6 +110,14 @@ public class H2WriteQEntry {
         writeCompleteLatch.countDown();
     }
 
+    public IOException getWriteException() {
+        return writeException;
+    }
+
+    public void setWriteException(IOException x) {
+        writeException = x;
+    }
+
     public boolean getServicedOnQ() {
         return servicedOnQ;
     }
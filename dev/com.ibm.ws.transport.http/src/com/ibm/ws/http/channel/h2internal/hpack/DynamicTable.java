@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 1997, 2017 IBM Corporation and others.
+ * Copyright (c) 1997, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,7 @@
  *******************************************************************************/
 package com.ibm.ws.http.channel.h2internal.hpack;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Arrays;
 
 /**
  * 2.3.2 - Consists of a list of header fields maintained in
@@ -31,12 +30,31 @@ import java.util.LinkedList;
  * Decoder updates the dynamic table during processing of
  * a list of header field representations.
  *
+ * Entries are held in a ring buffer whose capacity is a power of two, so
+ * that looking up an entry by index is constant time and adding or evicting
+ * an entry does not allocate. Each entry is given an insertion sequence
+ * number; the entry with sequence s lives in slot (s & mask), and its index
+ * is the number of entries inserted after it. A name hash index chains the
+ * sequence numbers of entries with the same name bucket, newest first, so
+ * that the encoder can find a match without walking the whole table.
+ *
  */
 public class DynamicTable {
 
-    //private static DynamicTableEntry[] entries;
+    private static final int INITIAL_CAPACITY = 16;
+    // sentinel for an empty name bucket or the end of a chain
+    private static final int NO_ENTRY = -1;
 
-    private final LinkedList<H2HeaderField> entries = new LinkedList<H2HeaderField>();
+    // ring of entries, indexed by sequence number & mask
+    private H2HeaderField[] entries = new H2HeaderField[INITIAL_CAPACITY];
+    // for each slot, the sequence number of the next older entry in the same name bucket
+    private int[] nextInBucket = new int[INITIAL_CAPACITY];
+    // for each name bucket, the sequence number of the newest entry in that bucket
+    private int[] buckets = newBuckets(INITIAL_CAPACITY * 2);
+    private int mask = INITIAL_CAPACITY - 1;
+    // sequence number that will be given to the next entry added
+    private int nextSequence = 0;
+    private int entryCount = 0;
 
     private int tableAddressSpace = HpackConstants.INITIAL_SETTINGS_HEADER_TABLE_SIZE;
     private int freeAddressSpace = tableAddressSpace;
@@ -59,7 +77,7 @@ public class DynamicTable {
          * is no conflicts.
          */
         if (entrySize <= freeAddressSpace) {
-            this.entries.addFirst(entry);
+            addFirst(entry);
             freeAddressSpace -= entrySize; // update free address space.
         }
 
@@ -82,7 +100,7 @@ public class DynamicTable {
                 while (entrySize > freeAddressSpace) {
                     evictDynamicEntry();
                 }
-                this.entries.addFirst(entry);
+                addFirst(entry);
                 freeAddressSpace -= entrySize; // update free address space.
             }
 
@@ -90,11 +108,80 @@ public class DynamicTable {
 
     }
 
+    /**
+     * Insert an entry as the newest in the table, growing the ring if it is full.
+     *
+     * @param entry
+     */
+    private void addFirst(H2HeaderField entry) {
+        if (entryCount == entries.length) {
+            resize(entries.length * 2);
+        }
+        int sequence = nextSequence++;
+        int slot = sequence & mask;
+        int bucket = bucketFor(entry.getNameHash());
+        entries[slot] = entry;
+        nextInBucket[slot] = buckets[bucket];
+        buckets[bucket] = sequence;
+        entryCount++;
+    }
+
     private void evictDynamicEntry() {
-        // Dequeue last element of the list and update the free
-        // address space that it was occupying.
-        freeAddressSpace += entries.getLast().getSize();
-        entries.removeLast();
+        // Drop the oldest entry and update the free address
+        // space that it was occupying. Its bucket chain ends
+        // at it implicitly, as it is no longer live.
+        int slot = (nextSequence - entryCount) & mask;
+        freeAddressSpace += entries[slot].getSize();
+        entries[slot] = null;
+        entryCount--;
+    }
+
+    /**
+     * Move the live entries into a ring of a new capacity, renumbering them
+     * from zero and rebuilding the name hash index.
+     *
+     * @param capacity a power of two no smaller than the entry count
+     */
+    private void resize(int capacity) {
+        H2HeaderField[] old = entries;
+        int oldMask = mask;
+        int oldest = nextSequence - entryCount;
+        int count = entryCount;
+
+        entries = new H2HeaderField[capacity];
+        nextInBucket = new int[capacity];
+        buckets = newBuckets(capacity * 2);
+        mask = capacity - 1;
+        nextSequence = 0;
+        entryCount = 0;
+        for (int i = 0; i < count; i++) {
+            addFirst(old[(oldest + i) & oldMask]);
+        }
+    }
+
+    private static int[] newBuckets(int size) {
+        int[] b = new int[size];
+        Arrays.fill(b, NO_ENTRY);
+        return b;
+    }
+
+    private int bucketFor(int nameHash) {
+        // spread the high bits, since header names often share a suffix
+        int h = nameHash ^ (nameHash >>> 16);
+        return h & (buckets.length - 1);
+    }
+
+    /**
+     * @param sequence
+     * @return the index of the entry with the given sequence number, or -1 if
+     *         that entry has been evicted
+     */
+    private int indexOf(int sequence) {
+        if (sequence == NO_ENTRY) {
+            return -1;
+        }
+        int index = nextSequence - 1 - sequence;
+        return (index >= 0 && index < entryCount) ? index : -1;
     }
 
     public void updateDynamicTableSize(int size) {
@@ -130,43 +217,55 @@ public class DynamicTable {
          * from the requested index, such that s+1 equates to index 0
          * of this dynamic table.
          */
-        try {
-            return entries.get(index);
-        } catch (IndexOutOfBoundsException e) {
+        if (index < 0 || index >= entryCount) {
             return null;
         }
+        return entries[(nextSequence - 1 - index) & mask];
     }
 
     public H2HeaderField findInList(int name, int value) {
         H2HeaderField result = null;
-        H2HeaderField current = null;
-        Iterator<H2HeaderField> i = entries.iterator();
-        int indexAddressSpace = StaticTable.STATIC_TABLE.size() + 1;
-        while (i.hasNext()) {
-            current = i.next();
+        int resultIndex = -1;
+        int sequence = buckets[bucketFor(name)];
+        int index = indexOf(sequence);
+        // each step of the chain moves to an older entry, so stop at the
+        // first one that has been evicted
+        while (index != -1) {
+            int slot = sequence & mask;
+            H2HeaderField current = entries[slot];
             if (current.getNameHash() == name) {
-                //Store the first partial match. This is the one that will be
+                if (current.getValueHash() == value) {
+                    result = current;
+                    resultIndex = index;
+                    break;
+                }
+                //Store the newest partial match. This is the one that will be
                 //returned unless a complete match is found.
                 if (result == null) {
                     result = current;
-                    //current index may have changed due to updates in the table
-                    //set new index location.
-                    result.setCurrentIndex(indexAddressSpace);
-                }
-
-                if (current.getValueHash() == value) {
-
-                    return result;
+                    resultIndex = index;
                 }
             }
-            indexAddressSpace++;
-
+            int next = nextInBucket[slot];
+            int nextIndex = indexOf(next);
+            if (nextIndex <= index) {
+                break;
+            }
+            sequence = next;
+            index = nextIndex;
+        }
+        if (result != null) {
+            //current index may have changed due to updates in the table
+            //set new index location.
+            result.setCurrentIndex(StaticTable.STATIC_TABLE.size() + 1 + resultIndex);
         }
         return result;
     }
 
     private void clearDynamicTable() {
-        entries.clear();
+        Arrays.fill(entries, null);
+        Arrays.fill(buckets, NO_ENTRY);
+        entryCount = 0;
         freeAddressSpace = tableAddressSpace;
     }
 
@@ -176,7 +275,7 @@ public class DynamicTable {
 
     //TODO: consider renaming
     public int amountOfEntries() {
-        return this.entries.size();
+        return this.entryCount;
     }
 
     public int usedAddressSpace() {
@@ -199,12 +298,9 @@ public class DynamicTable {
     public String toString() {
         StringBuilder result = new StringBuilder();
         H2HeaderField current;
-        int i = 0;
-        Iterator<H2HeaderField> it = entries.iterator();
-        while (it.hasNext()) {
-            i++;
-            current = it.next();
-            result.append("[  " + i + "] (s = " + current.getSize() + ") " + current.getName() + ": " + current.getValue() + "\n");
+        for (int i = 0; i < entryCount; i++) {
+            current = get(i);
+            result.append("[  " + (i + 1) + "] (s = " + current.getSize() + ") " + current.getName() + ": " + current.getValue() + "\n");
         }
         result.append("Table size: " + this.usedAddressSpace());
         return result.toString();
@@ -129,6 +129,8 @@ public class HttpChannelConfig {
     /** The amount of time the connection will be left open when HTTP/2 goes into an idle state */
     private long h2ConnectionCloseTimeout = 30;
     private int h2ConnectionReadWindowSize = Constants.SPEC_INITIAL_WINDOW_SIZE; // init the connection read window to the spec max
+    /** Should queued HTTP/2 frames be coalesced into a single gathering write */
+    private boolean h2WriteCoalescing = false;
     /** PI81572 Purge the remaining response body off the wire when clear is called */
     private boolean purgeRemainingResponseBody = true;
 
@@ -342,6 +344,10 @@ public class HttpChannelConfig {
                 props.put(HttpConfigConstants.PROPNAME_H2_CONN_READ_WINDOW_SIZE, value);
                 continue;
             }
+            if (key.equalsIgnoreCase(HttpConfigConstants.PROPNAME_H2_WRITE_COALESCING)) {
+                props.put(HttpConfigConstants.PROPNAME_H2_WRITE_COALESCING, value);
+                continue;
+            }
             if (key.equalsIgnoreCase(HttpConfigConstants.PROPNAME_PURGE_REMAINING_RESPONSE)) {
                 props.put(HttpConfigConstants.PROPNAME_PURGE_REMAINING_RESPONSE, value);
                 continue;
@@ -386,6 +392,7 @@ public class HttpChannelConfig {
         parseSkipCookiePathQuotes(props); //738893
         parseH2ConnCloseTimeout(props);
         parseH2ConnReadWindowSize(props);
+        parseH2WriteCoalescing(props);
         parsePurgeRemainingResponseBody(props); //PI81572
 
         if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) {
@@ -1187,6 +1194,16 @@ public class HttpChannelConfig {
         }
     }
 
+    private void parseH2WriteCoalescing(Map<?, ?> props) {
+        String value = (String) props.get(HttpConfigConstants.PROPNAME_H2_WRITE_COALESCING);
+        if (null != value) {
+            this.h2WriteCoalescing = convertBoolean(value);
+            if ((TraceComponent.isAnyTracingEnabled()) && (tc.isEventEnabled())) {
+                Tr.event(tc, "Config: H2WriteCoalescing is " + getH2WriteCoalescing());
+            }
+        }
+    }
+
     private void parseH2ConnReadWindowSize(Map<?, ?> props) {
         Object value = props.get(HttpConfigConstants.PROPNAME_H2_CONN_READ_WINDOW_SIZE);
         if (null != value) {
@@ -1717,6 +1734,16 @@ public class HttpChannelConfig {
         return h2ConnectionReadWindowSize;
     }
 
+    /**
+     * Query whether HTTP/2 connections should coalesce queued frames into
+     * gathering writes, rather than writing each frame separately.
+     *
+     * @return boolean
+     */
+    public boolean getH2WriteCoalescing() {
+        return h2WriteCoalescing;
+    }
+
     /**
      * Query whether or not the HTTP Channel should purge remaining response data
      * 
@@ -334,6 +334,9 @@ public class HttpConfigConstants {
 
     public static final String PROPNAME_H2_CONN_READ_WINDOW_SIZE = "H2ConnReadWindowSize";
 
+    /** Property controlling whether queued HTTP/2 frames are coalesced into gathering writes */
+    public static final String PROPNAME_H2_WRITE_COALESCING = "H2WriteCoalescing";
+
     //PI81572 - Purge the remaining response body off the wire
     public static final String PROPNAME_PURGE_REMAINING_RESPONSE = "PurgeRemainingResponseBody";
 
@@ -31,6 +31,7 @@ import com.ibm.websphere.ras.annotation.Trivial;
 import com.ibm.ws.ffdc.FFDCFilter;
 import com.ibm.ws.genericbnf.internal.GenericUtils;
 import com.ibm.ws.http.channel.internal.HttpMessages;
+import com.ibm.ws.http.channel.internal.values.AccessLogCurrentTime;
 import com.ibm.ws.http.channel.internal.values.AccessLogData;
 import com.ibm.ws.http.channel.internal.values.AccessLogElapsedRequestTime;
 import com.ibm.ws.http.channel.internal.values.AccessLogLocalIP;
@@ -73,6 +74,18 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
     /**  */
     private static final String PROP_ENABLED = "enabled";
 
+    /**  */
+    private static final String PROP_RECORD_BUFFER_SIZE = "recordBufferSize";
+
+    /**  */
+    private static final String PROP_DROP_ON_OVERFLOW = "dropOnOverflow";
+
+    /**  */
+    private static final String PROP_JSON_FORMAT = "jsonFormat";
+
+    /** Fields written in JSON mode when no format string is set */
+    private static final String DEFAULT_JSON_FORMAT = "%h %u %{t}W %r %s %b";
+
     /** RAS tracing variable */
     private static final TraceComponent tc = Tr.register(AccessLogger.class,
                                                          HttpMessages.HTTP_TRACE_NAME,
@@ -81,7 +94,7 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
     /** Modifier for converting log size config to runtime value */
     private static final int LOGSIZE_MODIFIER = 1048576;
 
-    private static final String newLine;
+    static final String newLine;
     static {
         newLine = AccessController.doPrivileged(new PrivilegedAction<String>() {
 
@@ -97,6 +110,8 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
         public String string;
         public Object data;
         public AccessLogData log;
+        /** True if the value is written as a JSON string, so must be escaped */
+        public boolean json;
     }
 
     private volatile Map<String, Object> config;
@@ -108,6 +123,15 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
 
     private FormatSegment[] parsedFormat;
 
+    /** Number of records to buffer for the batched writer, 0 to format on the caller's thread */
+    private int recordBufferSize = 0;
+    /** Whether lines are dropped rather than waiting when the record buffer is full */
+    private boolean dropOnOverflow = false;
+    /** Whether each line is written as a JSON object rather than in the format string's layout */
+    private boolean jsonFormat = false;
+    /** Batched writer, non-null while started with a record buffer */
+    private volatile BatchedAccessLogWriter batchWriter = null;
+
     /**
      * Constructor of this NCSA access log file.
      * 
@@ -152,6 +176,12 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
                 setFilename(filename);
             }
 
+            Object jsonValue = config.get(PROP_JSON_FORMAT);
+            boolean json = (null != jsonValue) && Boolean.valueOf(jsonValue.toString());
+            if (json != this.jsonFormat) {
+                setJsonFormat(json);
+            }
+
             String logFormat = config.get(PROP_LOGFORMAT).toString();
             if (!!!logFormat.equals(getFormatString())) {
                 setFormatString(logFormat);
@@ -179,6 +209,27 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
                 }
             }
 
+            int records = this.recordBufferSize;
+            Object recordsValue = config.get(PROP_RECORD_BUFFER_SIZE);
+            if (null != recordsValue) {
+                try {
+                    records = Math.max(0, Integer.valueOf(recordsValue.toString()));
+                } catch (NumberFormatException nfe) {
+                    FFDCFilter.processException(nfe, getClass().getName() + ".modified", PROP_RECORD_BUFFER_SIZE);
+                    if (TraceComponent.isAnyTracingEnabled() && tc.isEventEnabled()) {
+                        Tr.event(tc, "Config: invalid access record buffer size: " + recordsValue);
+                    }
+                }
+            }
+            Object dropValue = config.get(PROP_DROP_ON_OVERFLOW);
+            boolean drop = (null == dropValue) ? this.dropOnOverflow : Boolean.valueOf(dropValue.toString());
+            if (records != this.recordBufferSize || drop != this.dropOnOverflow) {
+                // the batched writer is sized when the logger starts
+                stop();
+                setRecordBufferSize(records);
+                setDropOnOverflow(drop);
+            }
+
         } catch (FileNotFoundException e) {
             FFDCFilter.processException(e, getClass().getName() + ".modified", "name", this);
             if (TraceComponent.isAnyTracingEnabled() && tc.isEventEnabled()) {
@@ -239,10 +290,120 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
         parseFormat();
     }
 
+    /**
+     * Set whether each line is written as a single JSON object. The fields
+     * are those named in the format string, each keyed by what it holds, so
+     * literal text in the format string is not written.
+     * 
+     * @param json
+     */
+    @Trivial
+    public void setJsonFormat(boolean json) {
+        this.jsonFormat = json;
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "Set access JSON format to " + json);
+        }
+        parseFormat();
+    }
+
+    /**
+     * Query whether each line is written as a single JSON object.
+     * 
+     * @return boolean
+     */
+    @Trivial
+    public boolean isJsonFormat() {
+        return this.jsonFormat;
+    }
+
+    /**
+     * Set the number of log records buffered for the batched writer. When this
+     * is greater than 0, request threads only capture the values of each line
+     * and a background thread formats and writes them in batches. This takes
+     * effect the next time the logger is started.
+     * 
+     * @param records
+     */
+    @Trivial
+    public void setRecordBufferSize(int records) {
+        this.recordBufferSize = records;
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "Set access record buffer size to " + records);
+        }
+    }
+
+    /**
+     * Query the number of log records buffered for the batched writer.
+     * 
+     * @return int
+     */
+    @Trivial
+    public int getRecordBufferSize() {
+        return this.recordBufferSize;
+    }
+
+    /**
+     * Set whether lines are dropped, rather than the caller waiting, when the
+     * batched writer's record buffer is full. This takes effect the next time
+     * the logger is started.
+     * 
+     * @param drop
+     */
+    @Trivial
+    public void setDropOnOverflow(boolean drop) {
+        this.dropOnOverflow = drop;
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "Set access drop on overflow to " + drop);
+        }
+    }
+
+    /**
+     * Query the number of lines dropped by the current batched writer because
+     * its record buffer was full.
+     * 
+     * @return long
+     */
+    public long getDroppedRecordCount() {
+        BatchedAccessLogWriter writer = this.batchWriter;
+        return (null == writer) ? 0L : writer.getDroppedCount();
+    }
+
+    /**
+     * @see com.ibm.wsspi.http.logging.LogFile#start()
+     */
+    @Override
+    public boolean start() {
+        boolean started = super.start();
+        if (started && 0 < this.recordBufferSize) {
+            BatchedAccessLogWriter writer = new BatchedAccessLogWriter(this, this.recordBufferSize, this.dropOnOverflow);
+            writer.start();
+            this.batchWriter = writer;
+        }
+        return started;
+    }
+
+    /**
+     * @see com.ibm.wsspi.http.logging.LogFile#stop()
+     */
+    @Override
+    public boolean stop() {
+        BatchedAccessLogWriter writer = this.batchWriter;
+        if (null != writer) {
+            // write out the buffered records while the file thread is still running
+            this.batchWriter = null;
+            writer.triggerStop();
+        }
+        return super.stop();
+    }
+
     private void parseFormat() {
+        String stringFormat = this.stringFormat;
         if (stringFormat == null) {
-            parsedFormat = null;
-            return;
+            if (!jsonFormat) {
+                parsedFormat = null;
+                return;
+            }
+            stringFormat = DEFAULT_JSON_FORMAT;
         }
 
         List<FormatSegment> list = new ArrayList<FormatSegment>();
@@ -321,14 +482,171 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
             list.add(createStringData(buf.toString()));
         }
 
+        if (jsonFormat) {
+            list = toJsonFormat(list);
+        }
         parsedFormat = list.toArray(new FormatSegment[list.size()]);
     }
 
+    /**
+     * Turn a parsed format into one that writes each value as a field of a
+     * single line JSON object, dropping the literal text between the values.
+     * 
+     * @param list
+     * @return List<FormatSegment>
+     */
+    static List<FormatSegment> toJsonFormat(List<FormatSegment> list) {
+        List<FormatSegment> json = new ArrayList<FormatSegment>(list.size() * 2 + 2);
+        json.add(createStringData("{\"type\":\"liberty_accesslog\""));
+        for (FormatSegment s : list) {
+            if (s.log == null) {
+                continue;
+            }
+            FormatSegment field = new FormatSegment();
+            StringBuilder name = new StringBuilder(",\"");
+            name.append(getJsonFieldName(s));
+            escapeJson(name, 2);
+            field.string = name.append("\":\"").toString();
+            field.log = s.log;
+            field.data = s.data;
+            field.json = true;
+            json.add(field);
+            json.add(createStringData("\""));
+        }
+        json.add(createStringData("}"));
+        return json;
+    }
+
+    /**
+     * Get the JSON field name for a format segment.
+     * 
+     * @param s
+     * @return String
+     */
+    private static String getJsonFieldName(FormatSegment s) {
+        AccessLogData log = s.log;
+        String key = log.getName();
+        if ("%h".equals(key)) {
+            return "ibm_remoteHost";
+        } else if ("%a".equals(key)) {
+            return "ibm_remoteIP";
+        } else if ("%A".equals(key)) {
+            return "ibm_localIP";
+        } else if ("%p".equals(key)) {
+            return "ibm_requestPort";
+        } else if ("%u".equals(key)) {
+            return "ibm_userId";
+        } else if ("%t".equals(key)) {
+            return "ibm_requestStartTime";
+        } else if ("%{t}W".equals(key)) {
+            return "ibm_datetime";
+        } else if ("%{R}W".equals(key)) {
+            return "ibm_elapsedRequestTime";
+        } else if ("%D".equals(key)) {
+            return "ibm_elapsedTime";
+        } else if ("%r".equals(key)) {
+            return "ibm_requestFirstLine";
+        } else if ("%m".equals(key)) {
+            return "ibm_requestMethod";
+        } else if ("%U".equals(key)) {
+            return "ibm_uriPath";
+        } else if ("%q".equals(key)) {
+            return "ibm_queryString";
+        } else if ("%H".equals(key)) {
+            return "ibm_requestProtocol";
+        } else if ("%s".equals(key)) {
+            return "ibm_responseCode";
+        } else if ("%b".equals(key) || "%B".equals(key)) {
+            return "ibm_bytesSent";
+        } else if ("%C".equals(key)) {
+            return (s.data == null) ? "ibm_cookies" : "ibm_cookie_" + s.data;
+        } else if ("%i".equals(key)) {
+            return "ibm_requestHeader_" + s.data;
+        } else if ("%o".equals(key)) {
+            return "ibm_responseHeader_" + s.data;
+        }
+        return key;
+    }
+
+    /**
+     * Escape, in place, the text from the given offset to the end of the
+     * builder for use inside a JSON string.
+     * 
+     * @param sb
+     * @param start
+     */
+    static void escapeJson(StringBuilder sb, int start) {
+        int i = start;
+        int len = sb.length();
+        while (i < len) {
+            char c = sb.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                break;
+            }
+            i++;
+        }
+        if (i == len) {
+            // nearly always nothing to escape
+            return;
+        }
+        String value = sb.substring(i);
+        sb.setLength(i);
+        for (int j = 0; j < value.length(); j++) {
+            char c = value.charAt(j);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+    }
+
+    /**
+     * Render one segment's value into the line.
+     * 
+     * @param s
+     * @param line
+     * @param response
+     * @param request
+     */
+    static void setValue(FormatSegment s, StringBuilder line, HttpResponseMessage response, HttpRequestMessage request) {
+        int start = line.length();
+        s.log.set(line, response, request, s.data);
+        if (s.json) {
+            int end = line.length();
+            if ((s.log instanceof AccessLogStartTime || s.log instanceof AccessLogCurrentTime)
+                && end - start > 1 && line.charAt(start) == '[' && line.charAt(end - 1) == ']') {
+                // the brackets only delimit the time in the text layout
+                line.deleteCharAt(end - 1);
+                line.deleteCharAt(start);
+            }
+            escapeJson(line, start);
+        }
+    }
+
     /**
      * @param string
      * @return
      */
-    private FormatSegment createStringData(String string) {
+    private static FormatSegment createStringData(String string) {
         FormatSegment formatSegment = new FormatSegment();
         formatSegment.string = string;
         return formatSegment;
@@ -374,15 +692,31 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
             return;
         }
         try {
+            BatchedAccessLogWriter writer = this.batchWriter;
+            FormatSegment[] format = this.parsedFormat;
+            if (null != writer && null != format) {
+                // capture the values now, the writer formats them later
+                BatchedAccessLogWriter.Record record = writer.claim();
+                if (null != record) {
+                    try {
+                        record.capture(format, response, request);
+                    } finally {
+                        writer.publish(record);
+                    }
+                }
+                forward(request, response, version, userId, remoteAddr, numBytes);
+                return;
+            }
+
             StringBuilder accessLogLine;
-            if (parsedFormat != null) {
+            if (format != null) {
                 accessLogLine = new StringBuilder();
-                for (FormatSegment s : parsedFormat) {
+                for (FormatSegment s : format) {
                     if (s.string != null) {
                         accessLogLine.append(s.string);
                     }
                     if (s.log != null) {
-                        s.log.set(accessLogLine, response, request, s.data);
+                        setValue(s, accessLogLine, response, request);
                     }
                 }
             } else {
@@ -453,21 +787,17 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
 
             accessLogLine.append(newLine);
 
-            // Forward the log data to AccessLogForwarder's
-            if (!LogForwarderManager.getAccessLogForwarders().isEmpty()) {
-                AccessLogRecordData recordData = toAccessLogRecordData(request, response, version, userId, remoteAddr, numBytes);
-                for (AccessLogForwarder forwarder : LogForwarderManager.getAccessLogForwarders()) {
-                    try {
-                        forwarder.process(recordData);
-                    } catch (Throwable t) {
-                        FFDCFilter.processException(t, getClass().getName() + ".log", "136", this);
-                        if (TraceComponent.isAnyTracingEnabled() && tc.isEventEnabled()) {
-                            Tr.event(tc, "Exception while forwarder log to " + forwarder + " ; " + t);
-                        }
-                    }
-                } // end-for
-            }
+            forward(request, response, version, userId, remoteAddr, numBytes);
 
+            if (null != writer) {
+                // keep the line in order with the batched records
+                BatchedAccessLogWriter.Record record = writer.claim();
+                if (null != record) {
+                    record.text.append(accessLogLine);
+                    writer.publish(record);
+                }
+                return;
+            }
             WsByteBuffer wsbb =
                             HttpDispatcher.getBufferManager().allocate(accessLogLine.length());
             wsbb.put(HttpChannelUtils.getBytes(accessLogLine));
@@ -481,6 +811,26 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
         }
     }
 
+    /**
+     * Forward the log data to any registered AccessLogForwarders.
+     */
+    private void forward(HttpRequestMessage request, HttpResponseMessage response, String version,
+                         String userId, String remoteAddr, long numBytes) {
+        if (!LogForwarderManager.getAccessLogForwarders().isEmpty()) {
+            AccessLogRecordData recordData = toAccessLogRecordData(request, response, version, userId, remoteAddr, numBytes);
+            for (AccessLogForwarder forwarder : LogForwarderManager.getAccessLogForwarders()) {
+                try {
+                    forwarder.process(recordData);
+                } catch (Throwable t) {
+                    FFDCFilter.processException(t, getClass().getName() + ".log", "136", this);
+                    if (TraceComponent.isAnyTracingEnabled() && tc.isEventEnabled()) {
+                        Tr.event(tc, "Exception while forwarder log to " + forwarder + " ; " + t);
+                    }
+                }
+            } // end-for
+        }
+    }
+
     /**
      * Return a AccessLogRecordData instance
      *
@@ -588,6 +938,15 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
             return;
         }
         try {
+            BatchedAccessLogWriter writer = this.batchWriter;
+            if (null != writer) {
+                BatchedAccessLogWriter.Record record = writer.claim();
+                if (null != record) {
+                    record.raw = message.clone();
+                    writer.publish(record);
+                }
+                return;
+            }
             WsByteBuffer wsbb =
                             HttpDispatcher.getBufferManager().allocate(message.length + 2);
             wsbb.put(message);
@@ -619,6 +978,7 @@ public class AccessLogger extends LoggerOffThread implements AccessLog {
     @Override
     @Trivial
     public String toString() {
-        return super.toString() + "\n Format: " + getFormatString();
+        return super.toString() + "\n Format: " + getFormatString() + "\n RecordBufferSize: " + this.recordBufferSize
+               + "\n BatchWriter: " + this.batchWriter;
     }
 }
@@ -0,0 +1,411 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.http.logging.internal;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.ffdc.FFDCFilter;
+import com.ibm.ws.http.channel.internal.HttpMessages;
+import com.ibm.ws.http.channel.internal.values.AccessLogCurrentTime;
+import com.ibm.ws.http.dispatcher.internal.HttpDispatcher;
+import com.ibm.ws.http.logging.internal.AccessLogger.FormatSegment;
+import com.ibm.wsspi.bytebuffer.WsByteBuffer;
+import com.ibm.wsspi.http.channel.HttpRequestMessage;
+import com.ibm.wsspi.http.channel.HttpResponseMessage;
+
+/**
+ * Background writer for the access log when it is configured with a record
+ * buffer. Request threads capture the values of a log line into one of a fixed
+ * ring of pre-allocated records, and this thread formats the records in order
+ * into large buffers that are handed to the logger's file thread one batch at a
+ * time, rather than one buffer per line.
+ * <p>
+ * Only the format segments that read the request or response are rendered on
+ * the request thread, since those messages are reused once the request
+ * completes. Literal text, the current time, the byte conversion and the file
+ * IO all happen here.
+ * <p>
+ * When the ring is full, callers either wait for the writer to free a record
+ * or, if configured to drop on overflow, discard the line and count it.
+ */
+class BatchedAccessLogWriter extends Thread {
+
+    /** RAS tracing variable */
+    private static final TraceComponent tc = Tr.register(BatchedAccessLogWriter.class, HttpMessages.HTTP_TRACE_NAME, HttpMessages.HTTP_BUNDLE);
+
+    /** Size of the buffers that formatted records are batched into */
+    static final int BATCH_SIZE = 65536;
+    /** Time to wait for new records before checking for a stop */
+    private static final long IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos(LoggerOffThread.TIMEOUT);
+    /** Time a caller waits for a record to be freed when the ring is full */
+    private static final long FULL_WAIT = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * One captured access log line. A record is owned by the request thread
+     * that claimed it until it is published, and by the writer after that.
+     */
+    static class Record {
+        /** Ring position at which this record may next be claimed or read */
+        volatile long sequence;
+        /** Ring position claimed by the current owner */
+        long claimed;
+        /** Parsed format the values were captured against, null for a preformatted line */
+        FormatSegment[] format;
+        /** Time the record was captured */
+        long time;
+        /** Values of the segments rendered by the caller, or the whole preformatted line */
+        final StringBuilder text = new StringBuilder(256);
+        /** End offset in the text of each format segment */
+        int[] ends = new int[16];
+        /** Raw message bytes, used instead of the text when set */
+        byte[] raw;
+
+        /**
+         * Capture the values for the given format, rendering the segments
+         * that need the request or response.
+         *
+         * @param parsedFormat
+         * @param response
+         * @param request
+         */
+        void capture(FormatSegment[] parsedFormat, HttpResponseMessage response, HttpRequestMessage request) {
+            this.format = parsedFormat;
+            this.time = System.currentTimeMillis();
+            if (this.ends.length < parsedFormat.length) {
+                this.ends = new int[parsedFormat.length];
+            }
+            for (int i = 0; i < parsedFormat.length; i++) {
+                FormatSegment s = parsedFormat[i];
+                if (s.log != null && !isDeferred(s)) {
+                    AccessLogger.setValue(s, this.text, response, request);
+                }
+                this.ends[i] = this.text.length();
+            }
+        }
+
+        /**
+         * Reset this record for reuse.
+         */
+        void clear() {
+            this.format = null;
+            this.raw = null;
+            if (this.text.capacity() > BATCH_SIZE) {
+                // don't let one huge line pin memory in every slot it passes through
+                this.text.setLength(0);
+                this.text.trimToSize();
+            } else {
+                this.text.setLength(0);
+            }
+        }
+    }
+
+    /** Logger that owns the file the batches are written to */
+    private final LoggerOffThread logger;
+    /** Ring of records, sized to a power of two */
+    private final Record[] ring;
+    /** Mask to turn a ring position into an index */
+    private final int mask;
+    /** Whether callers discard lines rather than wait when the ring is full */
+    private final boolean dropOnOverflow;
+    /** Next ring position to claim */
+    private final AtomicLong tail = new AtomicLong();
+    /** Count of lines discarded because the ring was full */
+    private final AtomicLong dropped = new AtomicLong();
+    /** Next ring position for the writer to read, only used by the writer */
+    private long head = 0L;
+    /** Set when the writer is parked waiting for new records */
+    private volatile boolean sleeping = false;
+    /** Set when the writer should flush what is left and exit */
+    private volatile boolean stopping = false;
+    /** Batch currently being filled by the writer */
+    private WsByteBuffer batch = null;
+    /** Scratch space for rendering one line, only used by the writer */
+    private final StringBuilder line = new StringBuilder(256);
+    /** Scratch space for converting one line to bytes, only used by the writer */
+    private byte[] bytes = new byte[1024];
+    /** Dropped count last reported to trace */
+    private long reportedDrops = 0L;
+
+    /**
+     * Constructor.
+     *
+     * @param logger
+     * @param records minimum number of records in the ring
+     * @param dropOnOverflow
+     */
+    BatchedAccessLogWriter(LoggerOffThread logger, int records, boolean dropOnOverflow) {
+        super("AccessLogWriter");
+        setDaemon(true);
+        this.logger = logger;
+        this.dropOnOverflow = dropOnOverflow;
+        int size = Integer.highestOneBit(Math.max(2, records) - 1) << 1;
+        this.ring = new Record[size];
+        for (int i = 0; i < size; i++) {
+            this.ring[i] = new Record();
+            this.ring[i].sequence = i;
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Query whether the given segment is left for the writer to render.
+     *
+     * @param s
+     * @return boolean
+     */
+    static boolean isDeferred(FormatSegment s) {
+        return s.log instanceof AccessLogCurrentTime && s.data == null;
+    }
+
+    /**
+     * Claim the next record in the ring. The caller fills it in and then must
+     * hand it to publish, even if filling it in fails. This returns null if the
+     * line should be discarded, either because the ring is full and overflow is
+     * set to drop, or because the writer is stopping.
+     *
+     * @return Record
+     */
+    Record claim() {
+        while (true) {
+            if (this.stopping) {
+                return null;
+            }
+            long pos = this.tail.get();
+            Record r = this.ring[(int) (pos & this.mask)];
+            long seq = r.sequence;
+            if (seq == pos) {
+                if (this.tail.compareAndSet(pos, pos + 1)) {
+                    r.claimed = pos;
+                    return r;
+                }
+            } else if (seq < pos) {
+                // the writer has not yet freed this slot, the ring is full
+                if (this.dropOnOverflow) {
+                    this.dropped.incrementAndGet();
+                    return null;
+                }
+                wakeup();
+                LockSupport.parkNanos(this, FULL_WAIT);
+            }
+            // otherwise another caller claimed this position, try the next one
+        }
+    }
+
+    /**
+     * Hand a filled in record to the writer.
+     *
+     * @param r
+     */
+    void publish(Record r) {
+        r.sequence = r.claimed + 1;
+        if (this.sleeping) {
+            wakeup();
+        }
+    }
+
+    /**
+     * Unpark the writer if it is waiting for records.
+     */
+    private void wakeup() {
+        if (this.sleeping) {
+            this.sleeping = false;
+            LockSupport.unpark(this);
+        }
+    }
+
+    /**
+     * Query the number of lines discarded because the ring was full.
+     *
+     * @return long
+     */
+    long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Query the number of records in the ring.
+     *
+     * @return int
+     */
+    int getCapacity() {
+        return this.ring.length;
+    }
+
+    /**
+     * Write out everything that has been published and stop the writer. This
+     * returns once the writer has exited, or the stop timeout has passed.
+     */
+    void triggerStop() {
+        this.stopping = true;
+        LockSupport.unpark(this);
+        try {
+            join(LoggerOffThread.TIMEOUT);
+        } catch (InterruptedException ie) {
+            FFDCFilter.processException(ie, getClass().getName() + ".triggerStop", "235", this);
+        }
+    }
+
+    /**
+     * Format each published record in ring order into the current batch,
+     * writing the batch whenever it fills or there are no more records ready.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            Record r = this.ring[(int) (this.head & this.mask)];
+            if (r.sequence == this.head + 1) {
+                try {
+                    append(r);
+                } catch (Throwable t) {
+                    FFDCFilter.processException(t, getClass().getName() + ".run", "254", this);
+                    if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                        Tr.debug(tc, "Unexpected exception formatting record; " + t);
+                    }
+                }
+                r.clear();
+                // free the slot for the caller one lap further round the ring
+                r.sequence = this.head + this.ring.length;
+                this.head++;
+                continue;
+            }
+
+            // nothing ready, so write out what has been batched so far
+            flush();
+            reportDrops();
+            if (this.stopping && this.tail.get() == this.head) {
+                break;
+            }
+            this.sleeping = true;
+            if (r.sequence != this.head + 1) {
+                // when stopping, only wait for records that were claimed before the stop
+                LockSupport.parkNanos(this, this.stopping ? FULL_WAIT : IDLE_WAIT);
+            }
+            this.sleeping = false;
+        }
+        flush();
+        reportDrops();
+    }
+
+    /**
+     * Render the record into the current batch.
+     *
+     * @param r
+     */
+    private void append(Record r) {
+        if (null != r.raw) {
+            put(r.raw, r.raw.length);
+            return;
+        }
+        StringBuilder sb = this.line;
+        sb.setLength(0);
+        if (null == r.format) {
+            sb.append(r.text);
+        } else {
+            int start = 0;
+            for (int i = 0; i < r.format.length; i++) {
+                FormatSegment s = r.format[i];
+                if (s.string != null) {
+                    sb.append(s.string);
+                }
+                if (isDeferred(s)) {
+                    if (s.json) {
+                        sb.append(HttpDispatcher.getDateFormatter().getNCSATime(new Date(r.time)));
+                    } else {
+                        sb.append('[');
+                        sb.append(HttpDispatcher.getDateFormatter().getNCSATime(new Date(r.time)));
+                        sb.append(']');
+                    }
+                }
+                sb.append(r.text, start, r.ends[i]);
+                start = r.ends[i];
+            }
+            sb.append(AccessLogger.newLine);
+        }
+
+        int len = sb.length();
+        if (this.bytes.length < len) {
+            this.bytes = new byte[Math.max(len, this.bytes.length * 2)];
+        }
+        // same conversion as HttpChannelUtils.getBytes
+        for (int i = 0; i < len; i++) {
+            this.bytes[i] = (byte) sb.charAt(i);
+        }
+        if (len > BATCH_SIZE) {
+            sb.setLength(0);
+            sb.trimToSize();
+        }
+        put(this.bytes, len);
+    }
+
+    /**
+     * Copy the bytes into the current batch, writing out the batch first if
+     * they do not fit.
+     *
+     * @param data
+     * @param len
+     */
+    private void put(byte[] data, int len) {
+        if (null != this.batch && this.batch.remaining() < len) {
+            flush();
+        }
+        if (null == this.batch) {
+            this.batch = HttpDispatcher.getBufferManager().allocate(Math.max(len, BATCH_SIZE));
+        }
+        this.batch.put(data, 0, len);
+    }
+
+    /**
+     * Hand the current batch, if any, to the logger's file thread.
+     */
+    private void flush() {
+        WsByteBuffer wsbb = this.batch;
+        if (null == wsbb) {
+            return;
+        }
+        this.batch = null;
+        wsbb.flip();
+        this.logger.log(wsbb);
+    }
+
+    /**
+     * Trace the number of lines dropped since the last report.
+     */
+    private void reportDrops() {
+        long count = this.dropped.get();
+        if (count != this.reportedDrops) {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isEventEnabled()) {
+                Tr.event(tc, this.logger.getFileName() + ": dropped " + (count - this.reportedDrops) + " access log records, total " + count);
+            }
+            this.reportedDrops = count;
+        }
+    }
+
+    /**
+     * @see java.lang.Thread#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(super.toString());
+        sb.append("\n    Records: ");
+        sb.append(this.ring.length);
+        sb.append("\n    Drop on overflow: ");
+        sb.append(this.dropOnOverflow);
+        sb.append("\n    Dropped: ");
+        sb.append(this.dropped.get());
+        return sb.toString();
+    }
+}
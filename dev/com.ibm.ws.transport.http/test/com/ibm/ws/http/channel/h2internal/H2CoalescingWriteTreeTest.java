@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.http.channel.h2internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.ibm.ws.http.channel.h2internal.H2WorkQInterface.WRITE_ACTION;
+import com.ibm.ws.http.channel.h2internal.exceptions.FlowControlException;
+import com.ibm.wsspi.bytebuffer.WsByteBuffer;
+import com.ibm.wsspi.channelfw.VirtualConnection;
+import com.ibm.wsspi.tcpchannel.TCPConnectionContext;
+import com.ibm.wsspi.tcpchannel.TCPWriteCompletedCallback;
+import com.ibm.wsspi.tcpchannel.TCPWriteRequestContext;
+
+/**
+ * Unit tests for the coalescing HTTP/2 write queue.
+ */
+public class H2CoalescingWriteTreeTest {
+
+    /**
+     * Write context that records each write request, and can hold the first write
+     * outstanding until the test completes it.
+     */
+    private static class RecordingWriteContext implements TCPWriteRequestContext {
+        private final VirtualConnection vc = (VirtualConnection) Proxy.newProxyInstance(VirtualConnection.class.getClassLoader(),
+                                                                                        new Class<?>[] { VirtualConnection.class },
+                                                                                        new InvocationHandler() {
+                                                                                            @Override
+                                                                                            public Object invoke(Object proxy, Method method, Object[] args) {
+                                                                                                return null;
+                                                                                            }
+                                                                                        });
+        final List<List<WsByteBuffer>> writes = new ArrayList<List<WsByteBuffer>>();
+        boolean holdNext = false;
+        TCPWriteCompletedCallback held = null;
+        private WsByteBuffer[] buffers = null;
+
+        void completeHeld() {
+            TCPWriteCompletedCallback callback = held;
+            held = null;
+            callback.complete(vc, this);
+        }
+
+        @Override
+        public VirtualConnection write(long numBytes, TCPWriteCompletedCallback callback, boolean forceQueue, int timeout) {
+            writes.add(Arrays.asList(buffers));
+            if (holdNext) {
+                holdNext = false;
+                held = callback;
+                return null;
+            }
+            return vc;
+        }
+
+        @Override
+        public long write(long numBytes, int timeout) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public TCPConnectionContext getInterface() {
+            return null;
+        }
+
+        @Override
+        public void clearBuffers() {
+            buffers = null;
+        }
+
+        @Override
+        public WsByteBuffer[] getBuffers() {
+            return buffers;
+        }
+
+        @Override
+        public void setBuffers(WsByteBuffer[] bufs) {
+            buffers = bufs;
+        }
+
+        @Override
+        public WsByteBuffer getBuffer() {
+            return buffers == null ? null : buffers[0];
+        }
+
+        @Override
+        public void setBuffer(WsByteBuffer buf) {
+            buffers = new WsByteBuffer[] { buf };
+        }
+    }
+
+    private static WsByteBuffer buffer() {
+        return (WsByteBuffer) Proxy.newProxyInstance(WsByteBuffer.class.getClassLoader(), new Class<?>[] { WsByteBuffer.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("remaining".equals(method.getName())) {
+                    return 16;
+                }
+                if ("equals".equals(method.getName())) {
+                    return proxy == args[0];
+                }
+                if ("hashCode".equals(method.getName())) {
+                    return System.identityHashCode(proxy);
+                }
+                return null;
+            }
+        });
+    }
+
+    private static H2WriteQEntry syncEntry(FrameTypes type, int streamID) {
+        H2WriteQEntry e = new H2WriteQEntry(buffer(), null, TCPWriteRequestContext.WRITE_ALL_DATA, 0, H2WriteQEntry.WRITE_TYPE.SYNC, type, 16, streamID);
+        e.armWriteCompleteLatch();
+        return e;
+    }
+
+    private static H2CoalescingWriteTree newQueue(RecordingWriteContext context) {
+        H2CoalescingWriteTree q = new H2CoalescingWriteTree();
+        q.init(context, new H2MuxTCPWriteCallback());
+        return q;
+    }
+
+    @Test
+    public void testUncontendedWriteIsImmediate() throws Exception {
+        RecordingWriteContext context = new RecordingWriteContext();
+        H2CoalescingWriteTree q = newQueue(context);
+
+        H2WriteQEntry e = syncEntry(FrameTypes.SETTINGS, 0);
+        assertEquals(WRITE_ACTION.QUEUED, q.writeOrAddToQ(e));
+        assertEquals(1, context.writes.size());
+        assertEquals(0, e.writeCompleteLatch.getCount());
+    }
+
+    @Test
+    public void testQueuedFramesAreCoalesced() throws Exception {
+        RecordingWriteContext context = new RecordingWriteContext();
+        H2CoalescingWriteTree q = newQueue(context);
+
+        context.holdNext = true;
+        H2WriteQEntry first = syncEntry(FrameTypes.SETTINGS, 0);
+        q.writeOrAddToQ(first);
+        assertEquals(1, context.writes.size());
+
+        // queued while the first write is outstanding
+        H2WriteQEntry headers3 = syncEntry(FrameTypes.HEADERS, 3);
+        H2WriteQEntry data5 = syncEntry(FrameTypes.DATA, 5);
+        H2WriteQEntry data3 = syncEntry(FrameTypes.DATA, 3);
+        H2WriteQEntry ping = syncEntry(FrameTypes.PING, 0);
+        q.writeOrAddToQ(headers3);
+        q.writeOrAddToQ(data5);
+        q.writeOrAddToQ(data3);
+        q.writeOrAddToQ(ping);
+        assertEquals(1, context.writes.size());
+        assertEquals(1, first.writeCompleteLatch.getCount());
+
+        context.completeHeld();
+
+        // the ping on the connection stream is written alone, then the frames for streams 3 and 5
+        // go out together, and the second frame for stream 3 follows once its first has been taken
+        assertEquals(4, context.writes.size());
+        assertEquals(Arrays.asList(ping.getBuffer()), context.writes.get(1));
+        Set<WsByteBuffer> coalesced = new HashSet<WsByteBuffer>(context.writes.get(2));
+        assertEquals(new HashSet<WsByteBuffer>(Arrays.asList(headers3.getBuffer(), data5.getBuffer())), coalesced);
+        assertEquals(Arrays.asList(data3.getBuffer()), context.writes.get(3));
+
+        for (H2WriteQEntry e : Arrays.asList(first, headers3, data5, data3, ping)) {
+            assertEquals(0, e.writeCompleteLatch.getCount());
+        }
+    }
+
+    @Test
+    public void testConnectionWindow() throws Exception {
+        RecordingWriteContext context = new RecordingWriteContext();
+        H2CoalescingWriteTree q = newQueue(context);
+
+        H2WriteQEntry big = new H2WriteQEntry(buffer(), null, TCPWriteRequestContext.WRITE_ALL_DATA, 0, H2WriteQEntry.WRITE_TYPE.SYNC, FrameTypes.DATA, 65530, 3);
+        big.armWriteCompleteLatch();
+        q.writeOrAddToQ(big);
+        assertEquals(5, q.getConnectionWriteLimit());
+
+        try {
+            q.writeOrAddToQ(syncEntry(FrameTypes.DATA, 5));
+            fail("DATA frame should not fit in the connection window");
+        } catch (FlowControlException x) {
+        }
+        assertEquals(1, context.writes.size());
+
+        q.incrementConnectionWindowUpdateLimit(100);
+        q.writeOrAddToQ(syncEntry(FrameTypes.DATA, 5));
+        assertEquals(2, context.writes.size());
+        assertEquals(89, q.getConnectionWriteLimit());
+    }
+
+    @Test
+    public void testQuitWithoutDrain() throws Exception {
+        RecordingWriteContext context = new RecordingWriteContext();
+        H2CoalescingWriteTree q = newQueue(context);
+
+        context.holdNext = true;
+        q.writeOrAddToQ(syncEntry(FrameTypes.HEADERS, 3));
+        H2WriteQEntry waiting = syncEntry(FrameTypes.HEADERS, 5);
+        q.writeOrAddToQ(waiting);
+
+        q.setToQuit(false);
+        assertEquals(WRITE_ACTION.CONNECTION_QUIT, q.writeOrAddToQ(syncEntry(FrameTypes.HEADERS, 7)));
+
+        context.completeHeld();
+        assertEquals(1, context.writes.size());
+        assertEquals(0, waiting.writeCompleteLatch.getCount());
+        assertTrue(q.qStatus == H2WorkQInterface.Q_STATUS.FINISHED);
+    }
+}
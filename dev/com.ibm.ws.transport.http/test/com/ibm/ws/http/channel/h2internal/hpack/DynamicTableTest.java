@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.http.channel.h2internal.hpack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+import com.ibm.ws.http.channel.h2internal.hpack.HpackConstants.LiteralIndexType;
+import com.ibm.wsspi.bytebuffer.WsByteBuffer;
+import com.ibm.wsspi.channelfw.ChannelFrameworkFactory;
+
+/**
+ * Unit tests for the ring buffer backed HPACK dynamic table.
+ */
+public class DynamicTableTest {
+    private static final int STATIC_SIZE = StaticTable.STATIC_TABLE.size();
+
+    private static H2HeaderField field(String name, String value) {
+        return new H2HeaderField(name, value);
+    }
+
+    @Test
+    public void testNewestEntryIsIndexZero() {
+        DynamicTable table = new DynamicTable();
+        H2HeaderField a = field("a", "1"), b = field("b", "2"), c = field("c", "3");
+        table.addDynamicEntry(a);
+        table.addDynamicEntry(b);
+        table.addDynamicEntry(c);
+
+        assertEquals(3, table.amountOfEntries());
+        assertSame(c, table.get(0));
+        assertSame(b, table.get(1));
+        assertSame(a, table.get(2));
+        assertNull(table.get(3));
+        assertNull(table.get(-1));
+        assertEquals(a.getSize() + b.getSize() + c.getSize(), table.usedAddressSpace());
+    }
+
+    @Test
+    public void testOldestEntriesAreEvicted() {
+        // room for exactly three 34 byte entries
+        DynamicTable table = new DynamicTable(102);
+        for (int i = 0; i < 10; i++) {
+            table.addDynamicEntry(field("n", String.valueOf(i)));
+        }
+        assertEquals(3, table.amountOfEntries());
+        assertEquals("9", table.get(0).getValue());
+        assertEquals("7", table.get(2).getValue());
+        assertEquals(0, table.freeSpace());
+
+        // an entry larger than the table empties it
+        table.addDynamicEntry(field("name", new String(new char[100])));
+        assertEquals(0, table.amountOfEntries());
+        assertEquals(0, table.usedAddressSpace());
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity() {
+        DynamicTable table = new DynamicTable(65536);
+        for (int i = 0; i < 1000; i++) {
+            table.addDynamicEntry(field("name" + (i % 7), "value" + i));
+        }
+        assertEquals(1000, table.amountOfEntries());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("value" + (999 - i), table.get(i).getValue());
+        }
+
+        H2HeaderField match = table.findInList("name3".hashCode(), "value500".hashCode());
+        assertEquals("value500", match.getValue());
+        assertEquals(STATIC_SIZE + 1 + 499, match.getCurrentIndex());
+    }
+
+    @Test
+    public void testFindPrefersFullMatch() {
+        DynamicTable table = new DynamicTable();
+        H2HeaderField full = field("accept", "text/html");
+        table.addDynamicEntry(full);
+        table.addDynamicEntry(field("user-agent", "test"));
+        H2HeaderField partial = field("accept", "*/*");
+        table.addDynamicEntry(partial);
+
+        assertSame(full, table.findInList("accept".hashCode(), "text/html".hashCode()));
+        assertEquals(STATIC_SIZE + 3, full.getCurrentIndex());
+
+        // no full match, so the newest entry with the name is returned
+        assertSame(partial, table.findInList("accept".hashCode(), "image/png".hashCode()));
+        assertEquals(STATIC_SIZE + 1, partial.getCurrentIndex());
+
+        assertNull(table.findInList("cookie".hashCode(), "a=b".hashCode()));
+    }
+
+    @Test
+    public void testEvictedEntriesAreNotFound() {
+        DynamicTable table = new DynamicTable(102);
+        table.addDynamicEntry(field("x", "1"));
+        for (int i = 0; i < 3; i++) {
+            table.addDynamicEntry(field("y", String.valueOf(i)));
+        }
+        assertNull(table.findInList("x".hashCode(), "1".hashCode()));
+        assertEquals("2", table.findInList("y".hashCode(), "5".hashCode()).getValue());
+    }
+
+    @Test
+    public void testUpdateTableSize() {
+        DynamicTable table = new DynamicTable(4096);
+        for (int i = 0; i < 10; i++) {
+            table.addDynamicEntry(field("n", String.valueOf(i)));
+        }
+        table.updateDynamicTableSize(70);
+        assertEquals(2, table.amountOfEntries());
+        assertEquals("9", table.get(0).getValue());
+        assertEquals(70, table.tableAddressSpace());
+
+        table.updateDynamicTableSize(0);
+        assertEquals(0, table.amountOfEntries());
+        assertNull(table.findInList("n".hashCode(), "9".hashCode()));
+
+        table.updateDynamicTableSize(4096);
+        table.addDynamicEntry(field("n", "10"));
+        assertEquals("10", table.get(0).getValue());
+    }
+
+    @Test
+    public void testEncodeDecodeRoundTrip() throws Exception {
+        String[][] headers = { { ":authority", "www.example.com" },
+                               { "user-agent", "Mozilla/5.0" },
+                               { "cookie", "session=abc123" },
+                               { "user-agent", "Mozilla/5.0" },
+                               { "cookie", "session=def456" } };
+
+        H2HeaderTable encoder = new H2HeaderTable();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String[] header : headers) {
+            out.write(H2Headers.encodeHeader(encoder, header[0], header[1], LiteralIndexType.INDEX));
+        }
+
+        H2HeaderTable decoder = new H2HeaderTable();
+        WsByteBuffer buffer = ChannelFrameworkFactory.getBufferManager().wrap(out.toByteArray());
+        for (String[] header : headers) {
+            H2HeaderField decoded = H2Headers.decodeHeader(buffer, decoder);
+            assertEquals(header[0], decoded.getName());
+            assertEquals(header[1], decoded.getValue());
+        }
+        assertEquals(encoder.getDynamicEntryCount(), decoder.getDynamicEntryCount());
+        assertEquals(encoder.getDynamicTableUsedAddressSpace(), decoder.getDynamicTableUsedAddressSpace());
+    }
+
+    @Test
+    public void testHeaderBlocksRoundTripAcrossEvictions() throws Exception {
+        // A page load of header blocks sharing one connection's tables. The tables are small
+        // enough that entries are evicted and the ring buffer wraps many times.
+        String[] paths = { "/", "/css/site.css", "/js/app.js", "/img/logo.png", "/api/user", "/img/icon-1.svg", "/img/icon-2.svg" };
+        H2HeaderTable encoder = new H2HeaderTable(256);
+        H2HeaderTable decoder = new H2HeaderTable(256);
+        for (int round = 0; round < 20; round++) {
+            for (String path : paths) {
+                String[][] headers = { { ":method", "GET" },
+                                       { ":authority", "www.example.com" },
+                                       { ":path", path },
+                                       { "user-agent", "Mozilla/5.0 (X11; Linux x86_64)" },
+                                       { "cookie", "JSESSIONID=" + round },
+                                       { "x-request", path + round } };
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                for (String[] header : headers) {
+                    out.write(H2Headers.encodeHeader(encoder, header[0], header[1], LiteralIndexType.INDEX));
+                }
+
+                WsByteBuffer buffer = ChannelFrameworkFactory.getBufferManager().wrap(out.toByteArray());
+                for (String[] header : headers) {
+                    H2HeaderField decoded = H2Headers.decodeHeader(buffer, decoder);
+                    assertEquals(header[0], decoded.getName());
+                    assertEquals(header[1], decoded.getValue());
+                }
+                assertEquals(0, buffer.remaining());
+                buffer.release();
+
+                assertEquals(encoder.getDynamicEntryCount(), decoder.getDynamicEntryCount());
+                assertEquals(encoder.getDynamicTableUsedAddressSpace(), decoder.getDynamicTableUsedAddressSpace());
+                assertTrue(decoder.getDynamicTableUsedAddressSpace() <= 256);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.http.channel.h2internal.hpack;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.ibm.ws.http.channel.h2internal.hpack.HpackConstants.LiteralIndexType;
+import com.ibm.wsspi.bytebuffer.WsByteBuffer;
+import com.ibm.wsspi.channelfw.ChannelFrameworkFactory;
+
+/**
+ * Measures HPACK header block decoding for a page load worth of browser requests
+ * on one connection, where later requests are mostly served from the dynamic table.
+ * This is a measurement harness rather than a regression test, so it is ignored
+ * by default. Run it manually through its main method. DynamicTableTest checks
+ * that the same kind of header blocks round trip correctly.
+ */
+@Ignore
+public class HeaderDecodingThroughputTest {
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int MEASURED_ITERATIONS = 20000;
+
+    private static final String[][] NAVIGATION = {
+                                                   { ":method", "GET" },
+                                                   { ":authority", "www.example.com" },
+                                                   { ":scheme", "https" },
+                                                   { ":path", "/" },
+                                                   { "upgrade-insecure-requests", "1" },
+                                                   { "user-agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/66.0.3359.181 Safari/537.36" },
+                                                   { "accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8" },
+                                                   { "accept-encoding", "gzip, deflate, br" },
+                                                   { "accept-language", "en-US,en;q=0.9" },
+                                                   { "cookie", "JSESSIONID=0000y8dSwd4kXmZ2PZ3v7LJ3Y5s:-1; _ga=GA1.2.1234567890.1527000000" } };
+
+    private static final String[] SUBRESOURCES = { "/css/site.css", "/js/app.js", "/js/vendor.js", "/img/logo.png", "/img/hero.jpg",
+                                                   "/fonts/body.woff2", "/api/user", "/api/cart", "/img/icon-1.svg", "/img/icon-2.svg" };
+
+    /**
+     * Encode the navigation request followed by one request per sub-resource, as
+     * separate header blocks sharing one encoder table.
+     */
+    private static List<byte[]> encodePageLoad() throws Exception {
+        H2HeaderTable encoder = new H2HeaderTable();
+        List<byte[]> blocks = new ArrayList<byte[]>();
+        blocks.add(encodeBlock(encoder, NAVIGATION, "/", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8"));
+        for (String path : SUBRESOURCES) {
+            blocks.add(encodeBlock(encoder, NAVIGATION, path, path.startsWith("/img") ? "image/webp,image/apng,image/*,*/*;q=0.8" : "*/*"));
+        }
+        return blocks;
+    }
+
+    private static byte[] encodeBlock(H2HeaderTable encoder, String[][] template, String path, String accept) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String[] header : template) {
+            String value = header[0].equals(":path") ? path : header[0].equals("accept") ? accept : header[1];
+            out.write(H2Headers.encodeHeader(encoder, header[0], value, LiteralIndexType.INDEX));
+        }
+        return out.toByteArray();
+    }
+
+    private static int decodePageLoad(List<byte[]> blocks) throws Exception {
+        H2HeaderTable decoder = new H2HeaderTable();
+        int count = 0;
+        for (byte[] block : blocks) {
+            WsByteBuffer buffer = ChannelFrameworkFactory.getBufferManager().wrap(block);
+            while (buffer.hasRemaining()) {
+                H2Headers.decodeHeader(buffer, decoder);
+                count++;
+            }
+            buffer.release();
+        }
+        return count;
+    }
+
+    @Test
+    public void measureDecoding() throws Exception {
+        List<byte[]> blocks = encodePageLoad();
+        int headers = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            headers = decodePageLoad(blocks);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            decodePageLoad(blocks);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("header blocks/page: " + blocks.size() + ", headers/page: " + headers
+                           + ", headers decoded/ms: " + Math.round((double) headers * MEASURED_ITERATIONS / TimeUnit.NANOSECONDS.toMillis(elapsed)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new HeaderDecodingThroughputTest().measureDecoding();
+    }
+}
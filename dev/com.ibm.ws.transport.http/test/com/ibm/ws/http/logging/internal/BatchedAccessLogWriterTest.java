@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.http.logging.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.ibm.ws.http.channel.internal.values.AccessLogData;
+import com.ibm.ws.http.logging.internal.AccessLogger.FormatSegment;
+import com.ibm.wsspi.bytebuffer.WsByteBuffer;
+
+/**
+ * Unit tests for the batched access log writer.
+ */
+public class BatchedAccessLogWriterTest {
+
+    /**
+     * Logger that keeps the batches handed to it rather than writing a file.
+     */
+    private static class CapturingLogger extends LoggerOffThread {
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final AtomicInteger batches = new AtomicInteger();
+
+        @Override
+        public boolean log(WsByteBuffer data) {
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            data.release();
+            synchronized (this.written) {
+                this.written.write(bytes, 0, bytes.length);
+            }
+            this.batches.incrementAndGet();
+            return true;
+        }
+
+        String getWritten() {
+            synchronized (this.written) {
+                return new String(this.written.toByteArray());
+            }
+        }
+    }
+
+    private static void logLine(BatchedAccessLogWriter writer, String line) {
+        BatchedAccessLogWriter.Record record = writer.claim();
+        assertNotNull(record);
+        record.raw = line.getBytes();
+        writer.publish(record);
+    }
+
+    @Test
+    public void testRecordsAreWrittenInOrder() throws Exception {
+        CapturingLogger logger = new CapturingLogger();
+        BatchedAccessLogWriter writer = new BatchedAccessLogWriter(logger, 16, false);
+        writer.start();
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            String line = "line " + i + "\n";
+            expected.append(line);
+            logLine(writer, line);
+        }
+        writer.triggerStop();
+
+        assertEquals(expected.toString(), logger.getWritten());
+        assertTrue("expected fewer batches than lines, got " + logger.batches.get(), logger.batches.get() < 1000);
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    @Test
+    public void testConcurrentCallersWaitForSpace() throws Exception {
+        final CapturingLogger logger = new CapturingLogger();
+        final BatchedAccessLogWriter writer = new BatchedAccessLogWriter(logger, 4, false);
+        writer.start();
+
+        Thread[] callers = new Thread[4];
+        for (int t = 0; t < callers.length; t++) {
+            final int id = t;
+            callers[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 500; i++) {
+                        logLine(writer, id + ":" + i + "\n");
+                    }
+                }
+            };
+            callers[t].start();
+        }
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        writer.triggerStop();
+
+        // every line arrives, and each caller's lines stay in the order they were logged
+        String[] lines = logger.getWritten().split("\n");
+        assertEquals(2000, lines.length);
+        int[] next = new int[callers.length];
+        for (String line : lines) {
+            int colon = line.indexOf(':');
+            int id = Integer.parseInt(line.substring(0, colon));
+            assertEquals(next[id]++, Integer.parseInt(line.substring(colon + 1)));
+        }
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    @Test
+    public void testDropOnOverflow() throws Exception {
+        CapturingLogger logger = new CapturingLogger();
+        // not started, so nothing frees the records
+        BatchedAccessLogWriter writer = new BatchedAccessLogWriter(logger, 2, true);
+        assertEquals(2, writer.getCapacity());
+
+        logLine(writer, "a\n");
+        logLine(writer, "b\n");
+        assertNull(writer.claim());
+        assertNull(writer.claim());
+        assertEquals(2, writer.getDroppedCount());
+
+        writer.start();
+        writer.triggerStop();
+        assertEquals("a\nb\n", logger.getWritten());
+    }
+
+    @Test
+    public void testCapturedFormat() throws Exception {
+        CapturingLogger logger = new CapturingLogger();
+        BatchedAccessLogWriter writer = new BatchedAccessLogWriter(logger, 4, false);
+
+        FormatSegment literal = new FormatSegment();
+        literal.string = "request ";
+        FormatSegment time = new FormatSegment();
+        time.string = " at ";
+        time.log = AccessLogData.match("%{t}W", 0, 5);
+        assertTrue(BatchedAccessLogWriter.isDeferred(time));
+
+        BatchedAccessLogWriter.Record record = writer.claim();
+        record.capture(new FormatSegment[] { literal, time }, null, null);
+        // the time is rendered by the writer, so nothing is captured for it
+        assertEquals(0, record.text.length());
+        writer.publish(record);
+
+        writer.start();
+        writer.triggerStop();
+        String written = logger.getWritten();
+        assertTrue(written, written.startsWith("request  at ["));
+        assertTrue(written, written.endsWith("]" + AccessLogger.newLine));
+    }
+
+    @Test
+    public void testJsonFormat() throws Exception {
+        CapturingLogger logger = new CapturingLogger();
+        BatchedAccessLogWriter writer = new BatchedAccessLogWriter(logger, 4, false);
+
+        FormatSegment literal = new FormatSegment();
+        literal.string = "request ";
+        FormatSegment time = new FormatSegment();
+        time.string = " at ";
+        time.log = AccessLogData.match("%{t}W", 0, 5);
+        // an unsupported time format is written back out as is, which here needs escaping
+        FormatSegment other = new FormatSegment();
+        other.log = time.log;
+        other.data = time.log.init("a\"b\\c");
+        FormatSegment[] json = AccessLogger.toJsonFormat(Arrays.asList(literal, time, other)).toArray(new FormatSegment[0]);
+
+        BatchedAccessLogWriter.Record record = writer.claim();
+        record.capture(json, null, null);
+        writer.publish(record);
+
+        writer.start();
+        writer.triggerStop();
+        String written = logger.getWritten();
+        assertTrue(written, written.startsWith("{\"type\":\"liberty_accesslog\",\"ibm_datetime\":\""));
+        assertFalse(written, written.contains("request"));
+        assertFalse(written, written.contains("["));
+        assertTrue(written, written.endsWith("\",\"ibm_datetime\":\"%{a\\\"b\\\\c}W\"}" + AccessLogger.newLine));
+    }
+
+    @Test
+    public void testEscapeJson() {
+        StringBuilder sb = new StringBuilder("keep\"");
+        sb.append("plain");
+        AccessLogger.escapeJson(sb, 5);
+        assertEquals("keep\"plain", sb.toString());
+
+        sb.setLength(5);
+        sb.append("a\"b\\c\nd\te\u0001");
+        AccessLogger.escapeJson(sb, 5);
+        assertEquals("keep\"a\\\"b\\\\c\\nd\\te\\u0001", sb.toString());
+    }
+}
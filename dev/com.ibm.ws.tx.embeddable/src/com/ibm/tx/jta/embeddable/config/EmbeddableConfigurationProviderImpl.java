@@ -47,6 +47,8 @@ public class EmbeddableConfigurationProviderImpl implements ConfigurationProvide
     public static final String TRAN_LOG_SIZE = PROPERTY_NAME_PREFIX + "tranLogSize";
     public static final String AUDIT_RECOVERY = PROPERTY_NAME_PREFIX + "auditRecovery"; // @PM07874A
     public static final String PROPAGATE_XARESOURCE_TIMEOUT = PROPERTY_NAME_PREFIX + "propagateXAResourceTransactionTimeout";
+    public static final String PARALLEL_COMPLETION_THREADS = PROPERTY_NAME_PREFIX + "parallelCompletionThreads";
+    public static final String ENABLE_COMPLETION_STATISTICS = PROPERTY_NAME_PREFIX + "enableCompletionStatistics";
     private static final String WSAT_PREPARE_ORDER = PROPERTY_NAME_PREFIX + "wsatPrepareOrder";
 
     private static AlarmManager _alarmManager = new AlarmManagerImpl();
@@ -65,6 +67,8 @@ public class EmbeddableConfigurationProviderImpl implements ConfigurationProvide
     private static int _heuristicCompletionDirection = HEURISTIC_COMPLETION_DIRECTION_ROLLBACK;
     private static boolean _auditRecovery = true; // @PM07874A
     private static boolean _propagateXAResourceTransactionTimeout;
+    private static int _parallelCompletionThreads;
+    private static boolean _completionStatisticsEnabled;
     private static String _wsatPrepareOrderString;
     private static int _wsatPrepareOrder = WSAT_PREPARE_ORDER_CONCURRENT;
 
@@ -155,6 +159,15 @@ public class EmbeddableConfigurationProviderImpl implements ConfigurationProvide
         if (traceOn && tc.isDebugEnabled())
             Tr.debug(tc, PROPAGATE_XARESOURCE_TIMEOUT + " = " + _propagateXAResourceTransactionTimeout);
 
+        tmp = (String) properties.get(PARALLEL_COMPLETION_THREADS);
+        _parallelCompletionThreads = Integer.parseInt(tmp != null ? tmp : "0");
+        if (traceOn && tc.isDebugEnabled())
+            Tr.debug(tc, PARALLEL_COMPLETION_THREADS + " = " + _parallelCompletionThreads);
+
+        _completionStatisticsEnabled = Boolean.valueOf((String) properties.get(ENABLE_COMPLETION_STATISTICS));
+        if (traceOn && tc.isDebugEnabled())
+            Tr.debug(tc, ENABLE_COMPLETION_STATISTICS + " = " + _completionStatisticsEnabled);
+
         _wsatPrepareOrderString = (String) properties.get(WSAT_PREPARE_ORDER);
         if ("before".equalsIgnoreCase(_wsatPrepareOrderString))
         {
@@ -351,6 +364,18 @@ public class EmbeddableConfigurationProviderImpl implements ConfigurationProvide
         return _propagateXAResourceTransactionTimeout;
     }
 
+    @Override
+    public int getParallelCompletionThreads()
+    {
+        return _parallelCompletionThreads;
+    }
+
+    @Override
+    public boolean isCompletionStatisticsEnabled()
+    {
+        return _completionStatisticsEnabled;
+    }
+
     /*
      * (non-Javadoc)
      * 